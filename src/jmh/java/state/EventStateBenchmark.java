@@ -0,0 +1,58 @@
+package state;
+
+import model.Event;
+import model.EventTagCollection;
+import model.EventType;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link EventStateBenchmark} compares looking up an {@link Event} by its event number through the indexed
+ * {@link EventState#findEventByNumber(long)} against the previous linear scan over a {@link LinkedList}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class EventStateBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int numEvents;
+
+    private EventState eventState;
+    private List<Event> linkedEvents;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        eventState = new EventState();
+        linkedEvents = new LinkedList<>();
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i < numEvents; i++) {
+            Event event = eventState.createEvent("Event " + i, EventType.Music, 100, 0,
+                    "55.94368888764689 -3.1888246174917114", "Benchmark event",
+                    start, start.plusHours(2), new EventTagCollection());
+            linkedEvents.add(event);
+        }
+    }
+
+    private long randomEventNumber() {
+        return ThreadLocalRandom.current().nextLong(1, numEvents + 1);
+    }
+
+    @Benchmark
+    public Event indexedLookup() {
+        return eventState.findEventByNumber(randomEventNumber());
+    }
+
+    @Benchmark
+    public Event linearScanLookup() {
+        long eventNumber = randomEventNumber();
+        return linkedEvents.stream()
+                .filter(event -> event.getEventNumber() == eventNumber)
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -0,0 +1,116 @@
+package state;
+
+import model.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SnapshotCodecBenchmark} compares saving and loading the application state as a {@link SnapshotCodec}
+ * snapshot against Java serialization of the whole object graph, as the save files were written before.
+ * There is one consumer for every 10 bookings and one event for every 100 bookings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class SnapshotCodecBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    private int numBookings;
+
+    private UserState userState;
+    private EventState eventState;
+    private BookingState bookingState;
+    private Path directory;
+    private Path snapshotFile;
+    private Path compressedSnapshotFile;
+    private Path serializedFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        userState = new UserState();
+        eventState = new EventState();
+        bookingState = new BookingState();
+        int numConsumers = Math.max(1, numBookings / 10);
+        int numEvents = Math.max(1, numBookings / 100);
+
+        // Users are restored with a fixed password hash, as hashing a password for each of them would take hours
+        Consumer[] consumers = new Consumer[numConsumers];
+        for (int i = 0; i < numConsumers; i++) {
+            consumers[i] = new Consumer("Consumer " + i, "consumer" + i + "@example.com", "07" + i,
+                    "55.94872684464941 -3.199892044473183", "$2a$12$benchmarkbenchmarkbenchmarkbenchmarkbenchmarkbe",
+                    i);
+            userState.addUser(consumers[i]);
+        }
+        Event[] events = new Event[numEvents];
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i < numEvents; i++) {
+            events[i] = eventState.createEvent("Event " + i, EventType.Music, 1000, 500,
+                    "55.94368888764689 -3.1888246174917114", "Benchmark event",
+                    start.plusHours(i), start.plusHours(i + 2), new EventTagCollection("hasAirFiltration=true"));
+        }
+        for (int i = 0; i < numBookings; i++) {
+            Consumer booker = consumers[i % numConsumers];
+            booker.addBooking(bookingState.createBooking(booker, events[i % numEvents], 1));
+        }
+
+        directory = Files.createTempDirectory("snapshot-benchmark");
+        snapshotFile = directory.resolve("state.snapshot");
+        compressedSnapshotFile = directory.resolve("state.snapshot.deflate");
+        serializedFile = directory.resolve("state.ser");
+        writeSnapshot();
+        writeCompressedSnapshot();
+        writeSerialized();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshotFile);
+        Files.deleteIfExists(compressedSnapshotFile);
+        Files.deleteIfExists(serializedFile);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public void writeSnapshot() throws IOException {
+        SnapshotCodec.write(snapshotFile, userState, eventState, bookingState);
+    }
+
+    @Benchmark
+    public void writeCompressedSnapshot() throws IOException {
+        SnapshotCodec.write(compressedSnapshotFile, userState, eventState, bookingState, true);
+    }
+
+    @Benchmark
+    public void writeSerialized() throws IOException {
+        try (FileOutputStream fileOutputStream = new FileOutputStream(serializedFile.toFile());
+             ObjectOutputStream objectOutputStream = new ObjectOutputStream(fileOutputStream)) {
+            objectOutputStream.writeObject(userState);
+            objectOutputStream.writeObject(eventState);
+            objectOutputStream.writeObject(bookingState);
+        }
+    }
+
+    @Benchmark
+    public StateSnapshot readSnapshot() throws IOException {
+        return SnapshotCodec.read(snapshotFile);
+    }
+
+    @Benchmark
+    public StateSnapshot readCompressedSnapshot() throws IOException {
+        return SnapshotCodec.read(compressedSnapshotFile);
+    }
+
+    @Benchmark
+    public Object readSerialized() throws IOException, ClassNotFoundException {
+        try (FileInputStream fileInputStream = new FileInputStream(serializedFile.toFile());
+             ObjectInputStream objectInputStream = new ObjectInputStream(fileInputStream)) {
+            objectInputStream.readObject();
+            objectInputStream.readObject();
+            return objectInputStream.readObject();
+        }
+    }
+}
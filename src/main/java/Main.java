@@ -1,25 +1,29 @@
 import command.*;
 import controller.Context;
 import controller.Controller;
+import state.AutoSave;
+import state.SnapshotCodec;
+import state.StateSnapshot;
+import view.ConsoleOutput;
 import view.ConsoleView;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Parameter;
+import java.nio.file.Path;
 import java.time.DateTimeException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
 
 public class Main {
     private static final Scanner scanner = new Scanner(System.in);
 
-    private static int getInteger() {
+    private static int getInteger(ConsoleView view) {
+        // The menu must be on the console before the user is asked to choose from it
+        view.flush();
         int input = scanner.nextInt();
         scanner.nextLine(); // clear remaining input until the end of the line
         return input;
@@ -71,15 +75,17 @@ public class Main {
             boolean parsed = false;
             while (!parsed) {
                 try {
-                    System.out.print("Please enter " + params[i].getName() + " (" + params[i].getType().getSimpleName() + "): ");
+                    ConsoleOutput.print("Please enter " + params[i].getName() + " (" + params[i].getType().getSimpleName() + "): ");
+                    // The prompt must be on the console, after any results shown before it, before the user answers
+                    ConsoleOutput.flush();
                     String line = scanner.nextLine();
                     args[i] = parseObjectFromString(line, params[i].getType());
                     parsed = true;
                 } catch (InvocationTargetException e) {
                     Throwable target = e.getTargetException();
-                    System.out.println(target.getClass().getSimpleName() + ": " + target.getLocalizedMessage());
+                    ConsoleOutput.println(target.getClass().getSimpleName() + ": " + target.getLocalizedMessage());
                 } catch (ReflectiveOperationException | RuntimeException e) {
-                    System.out.println(e.getClass().getSimpleName() + ": " + e.getLocalizedMessage());
+                    ConsoleOutput.println(e.getClass().getSimpleName() + ": " + e.getLocalizedMessage());
                 }
             }
         }
@@ -94,7 +100,7 @@ public class Main {
     private static void goToMainMenu(Controller controller, ConsoleView view) throws InvocationTargetException, InstantiationException, IllegalAccessException {
         view.displayMainMenu();
         int input;
-        while ((input = getInteger()) != ConsoleView.MAIN_MENU_EXIT) {
+        while ((input = getInteger(view)) != ConsoleView.MAIN_MENU_EXIT) {
             switch (input) {
                 case ConsoleView.MAIN_MENU_LOGIN -> runCommandFromUserInput(controller, LoginCommand.class);
                 case ConsoleView.MAIN_MENU_LOGOUT -> runCommandFromUserInput(controller, LogoutCommand.class);
@@ -102,6 +108,7 @@ public class Main {
                 case ConsoleView.MAIN_MENU_LIST_EVENT_REVIEWS -> runCommandFromUserInput(controller, ListEventReviewsCommand.class);
                 case ConsoleView.MAIN_MENU_CONSUMER -> goToConsumerMenu(controller, view);
                 case ConsoleView.MAIN_MENU_STAFF -> goToStaffMenu(controller, view);
+                case ConsoleView.MAIN_MENU_LIST_EVENTS_IN_DATE_RANGE -> runCommandFromUserInput(controller, ListEventsInDateRangeCommand.class);
             }
             view.displayMainMenu();
         }
@@ -110,7 +117,7 @@ public class Main {
     private static void goToConsumerMenu(Controller controller, ConsoleView view) throws InvocationTargetException, InstantiationException, IllegalAccessException {
         view.displayConsumerMenu();
         int input;
-        while ((input = getInteger()) != ConsoleView.CONSUMER_MENU_RETURN) {
+        while ((input = getInteger(view)) != ConsoleView.CONSUMER_MENU_RETURN) {
             switch (input) {
                 case ConsoleView.CONSUMER_MENU_REGISTER -> runCommandFromUserInput(controller, RegisterConsumerCommand.class);
                 case ConsoleView.CONSUMER_MENU_UPDATE_PROFILE -> runCommandFromUserInput(controller, UpdateConsumerProfileCommand.class);
@@ -127,7 +134,7 @@ public class Main {
     private static void goToStaffMenu(Controller controller, ConsoleView view) throws InvocationTargetException, InstantiationException, IllegalAccessException {
         view.displayStaffMenu();
         int input;
-        while ((input = getInteger()) != ConsoleView.STAFF_MENU_RETURN) {
+        while ((input = getInteger(view)) != ConsoleView.STAFF_MENU_RETURN) {
             switch (input) {
                 case ConsoleView.STAFF_MENU_REGISTER -> runCommandFromUserInput(controller, RegisterStaffCommand.class);
                 case ConsoleView.STAFF_MENU_UPDATE_PROFILE -> runCommandFromUserInput(controller, UpdateStaffProfileCommand.class);
@@ -142,26 +149,50 @@ public class Main {
         }
     }
 
-    private static Timer scheduleAutoSaves(Context context) {
+    private static Timer scheduleAutoSaves(AutoSave autoSave) {
         Timer autoSaveTimer = new Timer();
+        // Every command is journaled as it runs, so a new base is only written once the deltas outgrow it
         TimerTask autoSaveTask = new TimerTask() {
             @Override
             public void run() {
-                String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-                String filename = "autosave" + timestamp + ".dat";
-                try (FileOutputStream fileOutputStream = new FileOutputStream(filename);
-                     ObjectOutputStream objectOutputStream = new ObjectOutputStream(fileOutputStream)) {
-                     objectOutputStream.writeObject(context);
+                try {
+                    autoSave.save();
                 } catch (IOException e) {}
 
                 // TODO: complete auto-save code here
             }
         };
         long fiveMinutes = 5 * 60 * 1000;
-        autoSaveTimer.scheduleAtFixedRate(autoSaveTask, 0L, fiveMinutes);
+        autoSaveTimer.scheduleAtFixedRate(autoSaveTask, fiveMinutes, fiveMinutes);
         return autoSaveTimer;
     }
 
+    /**
+     * Restore the state from the latest autosave, together with the commands journaled after it. If the latest
+     * autosave cannot be read, the one before it is restored instead, and so on. The autosave is mapped rather than
+     * decoded, so that its events and bookings are only read once they are needed.
+     *
+     * @return The restored state, or null if there is no autosave that can be read
+     */
+    private static StateSnapshot restoreLatestAutoSave() {
+        List<Path> baseFiles;
+        try {
+            baseFiles = AutoSave.findAll(Path.of("."), "autosave");
+        } catch (IOException e) {
+            ConsoleOutput.println("Could not look for autosaves: " + e.getLocalizedMessage());
+            return null;
+        }
+        for (Path baseFile : baseFiles) {
+            try {
+                return SnapshotCodec.readMapped(baseFile);
+            } catch (IOException | RuntimeException e) {
+                ConsoleOutput.println("Could not restore " + baseFile + ", trying an older autosave: "
+                        + e.getClass().getSimpleName() + ": " + e.getLocalizedMessage());
+            }
+        }
+        return null;
+    }
+
     /**
      * Important note: DO NOT DO STORE SECRETS LIKE THIS IN A REAL APPLICATION.
      * Why? Because anyone with the right tools can reverse engineer the code and see the secret in plain text.
@@ -169,20 +200,33 @@ public class Main {
      * Why did we not do this? It makes testing more difficult for you and security is not our main goal here - this
      * will be the topic of next year's Computer Security course.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        StateSnapshot restoredState = restoreLatestAutoSave();
         try (Context context = new Context(
                 "The University of Edinburgh, School of Informatics",
                 "10 Crichton Street, Edinburgh EH8 9AB, United Kingdom",
                 "epay@ed.ac.uk",
-                "Nec temere nec timide"
-        )) {
-            ConsoleView view = new ConsoleView();
+                "Nec temere nec timide",
+                restoredState
+        );
+             ConsoleView view = new ConsoleView();
+             // Not compressed, so that the autosave can be mapped when the application starts again
+             AutoSave autoSave = new AutoSave(Path.of("."), "autosave", 10_000, false, context.getUserState(),
+                     context.getEventState(), context.getBookingState())) {
             Controller controller = new Controller(context, view);
-            Timer autoSaveTimer = scheduleAutoSaves(context);
+            if (restoredState != null) {
+                autoSave.resume(restoredState);
+            }
+            autoSave.save();
+            controller.setJournal(autoSave);
+            Timer autoSaveTimer = scheduleAutoSaves(autoSave);
             goToMainMenu(controller, view);
             autoSaveTimer.cancel();
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            // Notifications delivered while the context was closing are still in the background writer
+            ConsoleOutput.flush();
         }
     }
 }
@@ -48,7 +48,7 @@ public class AddEventTagCommand implements ICommand<EventTag>{
         if (!(currentUser instanceof Staff)) {
             view.displayFailure("AddEventTagCommand",
                     LogStatus.ADD_EVENT_TAG_USER_NOT_STAFF,
-                    Map.of("currentUser", currentUser != null ? currentUser : "none")
+                    () -> Map.of("currentUser", currentUser != null ? currentUser : "none")
             );
             eventTagResult = null;
             return;
@@ -58,7 +58,7 @@ public class AddEventTagCommand implements ICommand<EventTag>{
         IEventState eventState = context.getEventState();
         if (eventState.getPossibleTags().containsKey(tagName)) {
             view.displayFailure("AddEventTagCommand", LogStatus.ADD_EVENT_TAG_NAME_CLASH,
-                    Map.of("tagName", tagName));
+                    () -> Map.of("tagName", tagName));
             eventTagResult = null;
             return;
         }
@@ -67,7 +67,7 @@ public class AddEventTagCommand implements ICommand<EventTag>{
         // Verify that at least two tag values are provided
         if (tagValues == null || tagValues.size() < 2) {
             view.displayFailure("AddEventTagCommand", LogStatus.ADD_EVENT_TAG_TOO_FEW_POSSIBLE_VALUES,
-                    Map.of("tagValues", tagValues));
+                    () -> Map.of("tagValues", tagValues));
             eventTagResult = null;
             return;
         }
@@ -76,7 +76,7 @@ public class AddEventTagCommand implements ICommand<EventTag>{
         // Verify that the default value is in the list of possible values
         if (!(tagValues.contains(defaultValue))) {
             view.displayFailure("AddEventTagCommand", LogStatus.ADD_EVENT_TAG_DEFAULT_VALUE_NOT_POSSIBLE,
-                    Map.of("tagValues", tagValues, "defaultValues", defaultValue));
+                    () -> Map.of("tagValues", tagValues, "defaultValues", defaultValue));
             eventTagResult = null;
             return;
         }
@@ -84,7 +84,7 @@ public class AddEventTagCommand implements ICommand<EventTag>{
         // Add tag to the system
         EventTag tag = eventState.createEventTag(tagName, tagValues, defaultValue);
         view.displaySuccess("AddEventTagCommand", LogStatus.ADD_EVENT_TAG_SUCCESS,
-                Map.of("tagName", tagName, "tagValues", tagValues, "defaultValue", defaultValue));
+                () -> Map.of("tagName", tagName, "tagValues", tagValues, "defaultValue", defaultValue));
         eventTagResult = tag;
     }
 
@@ -2,16 +2,22 @@ package command;
 
 import controller.Context;
 import model.*;
+import state.ITicketHoldState;
 import view.IView;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * {@link BookEventCommand} allows the {@link model.Consumer} to book tickets for an
  * {@link Event}. The command applies for the currently logged-in consumer.
  */
 public class BookEventCommand implements ICommand<Booking> {
+    // How long the tickets are held for while the payment is processed
+    private static final Duration PAYMENT_HOLD_DURATION = Duration.ofMinutes(10);
+
     private final long eventNumber;
     private final int numTicketsRequested;
     private Booking bookingResult;
@@ -26,8 +32,20 @@ public class BookEventCommand implements ICommand<Booking> {
     }
 
     /**
+     * Run the command, waiting for the payment to be processed
+     *
      * @param context object that provides access to global application state
      * @param view    allows passing information to the user interface
+     */
+    @Override
+    public void execute(Context context, IView view) {
+        executeAsync(context, view).join();
+    }
+
+    /**
+     * @param context object that provides access to global application state
+     * @param view    allows passing information to the user interface
+     * @return A future that completes once the booking has been made or has failed
      * @verifies.that currently logged-in user is a Consumer
      * @verifies.that event number corresponds to an existing event
      * @verifies.that the event is active
@@ -35,18 +53,20 @@ public class BookEventCommand implements ICommand<Booking> {
      * @verifies.that the selected event has not ended yet
      * @verifies.that the requested number of tickets are still available
      * @verifies.that if the ticket price is greater than 0, the payment is successful before creating the booking
+     * @verifies.that the tickets are still held for the consumer once the payment has been processed
+     * @verifies.that the event is still active once the payment has been processed
      */
     @Override
-    public void execute(Context context, IView view) {
+    public CompletableFuture<Void> executeAsync(Context context, IView view) {
         User currentUser = context.getUserState().getCurrentUser();
         // Verify if currently logged-in user is a Consumer
         if (!(currentUser instanceof Consumer)) {
             view.displayFailure("BookEventCommand",
                     LogStatus.BOOK_EVENT_USER_NOT_CONSUMER,
-                    Map.of("currentUser", currentUser != null ? currentUser : "none")
+                    () -> Map.of("currentUser", currentUser != null ? currentUser : "none")
             );
             bookingResult = null;
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
         Consumer consumer = (Consumer) currentUser;
@@ -57,88 +77,144 @@ public class BookEventCommand implements ICommand<Booking> {
             view.displayFailure(
                     "BookEventCommand",
                     LogStatus.BOOK_EVENT_EVENT_NOT_FOUND,
-                    Map.of("eventNumber", eventNumber)
+                    () -> Map.of("eventNumber", eventNumber)
             );
             bookingResult = null;
-            return;
+            return CompletableFuture.completedFuture(null);
         }
         // Verify if the event is active
         if (event.getStatus() != EventStatus.ACTIVE) {
             view.displayFailure(
                     "BookEventCommand",
                     LogStatus.BOOK_EVENT_EVENT_NOT_ACTIVE,
-                    Map.of("eventNumber", eventNumber)
+                    () -> Map.of("eventNumber", eventNumber)
             );
             bookingResult = null;
-            return;
+            return CompletableFuture.completedFuture(null);
         }
         // Verify if number of requested tickets is not less than 1
         if (numTicketsRequested < 1) {
             view.displayFailure(
                     "BookEventCommand",
                     LogStatus.BOOK_EVENT_INVALID_NUM_TICKETS,
-                    Map.of("numTicketsRequested", numTicketsRequested)
+                    () -> Map.of("numTicketsRequested", numTicketsRequested)
             );
             bookingResult = null;
-            return;
+            return CompletableFuture.completedFuture(null);
         }
         // Verify if the selected event has not ended yet
         if (event.getEndDateTime().isBefore(LocalDateTime.now())) {
             view.displayFailure(
                     "BookEventCommand",
                     LogStatus.BOOK_EVENT_ALREADY_OVER,
-                    Map.of("eventNumber", eventNumber,
+                    () -> Map.of("eventNumber", eventNumber,
                             "DateTime.now", LocalDateTime.now(),
                             "performance.endDateTime", event.getEndDateTime())
             );
             bookingResult = null;
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
-        // Verify if the requested number of tickets are still available
-        int numTicketsLeft = event.getNumTicketsLeft();
-        if (numTicketsLeft < numTicketsRequested) {
+        // Verify if the requested number of tickets are still available, and hold them so that no concurrent
+        // booking can take them while the payment is processed
+        ITicketHoldState ticketHoldState = context.getTicketHoldState();
+        TicketHold hold = ticketHoldState.placeHold(consumer, event, numTicketsRequested, PAYMENT_HOLD_DURATION);
+        if (hold == null) {
             view.displayFailure(
                     "BookEventCommand",
                     LogStatus.BOOK_EVENT_NOT_ENOUGH_TICKETS_LEFT,
-                    Map.of("eventNumber", eventNumber,
+                    () -> Map.of("eventNumber", eventNumber,
                             "numTicketsRequested", numTicketsRequested,
-                            "numTicketsLeft", numTicketsLeft)
+                            "numTicketsLeft", event.getNumTicketsLeft())
             );
             bookingResult = null;
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
         int ticketPrice = event.getTicketPriceInPence();
-        // Verify if the ticket price is greater than 0, the payment is successful before creating the booking
-        if (ticketPrice > 0) {
-            int amountToPay = numTicketsRequested * ticketPrice;
-            boolean paymentSucceeded = context.getPaymentSystem().processPayment(
-                    consumer.getEmail(),
-                    context.getOrgEmail(),
-                    amountToPay
+        // Verify if the ticket price is greater than 0, the payment is successful before creating the booking.
+        // The command does not wait for the payment, the tickets stay held until it has been processed
+        CompletableFuture<Boolean> payment = ticketPrice > 0
+                ? context.getPaymentSystem().processPaymentAsync(
+                        consumer.getEmail(),
+                        context.getOrgEmail(),
+                        numTicketsRequested * ticketPrice)
+                : CompletableFuture.completedFuture(true);
+        return payment
+                .exceptionally(e -> false)
+                .thenAccept(paymentSucceeded -> completeBooking(context, view, consumer, event, hold, paymentSucceeded));
+    }
+
+    private void completeBooking(Context context, IView view, Consumer consumer, Event event, TicketHold hold,
+                                 boolean paymentSucceeded) {
+        ITicketHoldState ticketHoldState = context.getTicketHoldState();
+        int ticketPrice = event.getTicketPriceInPence();
+        if (!paymentSucceeded) {
+            ticketHoldState.releaseHold(hold);
+            view.displayFailure(
+                    "BookEventCommand",
+                    LogStatus.BOOK_EVENT_PAYMENT_FAILED,
+                    () -> Map.of("eventNumber", eventNumber,
+                            "numTicketsRequested", numTicketsRequested,
+                            "ticketPrice", ticketPrice)
             );
+            bookingResult = null;
+            return;
+        }
+
+        // Verify if the event has not been cancelled while the payment was processed. The booking is made under the
+        // event lock, so that cancelling the event either sees (and refunds) the booking or happens before the check
+        Booking booking = null;
+        boolean eventActive;
+        boolean holdConfirmed = false;
+        synchronized (event) {
+            eventActive = event.getStatus() == EventStatus.ACTIVE;
+            // Verify if the hold has not expired while the payment was processed, otherwise the tickets may have been
+            // booked by someone else in the meantime
+            if (eventActive && ticketHoldState.confirmHold(hold)) {
+                holdConfirmed = true;
+                booking = context.getBookingState().createBooking(consumer, event, numTicketsRequested);
+            }
+        }
 
-            if (!paymentSucceeded) {
-                view.displayFailure(
-                        "BookEventCommand",
-                        LogStatus.BOOK_EVENT_PAYMENT_FAILED,
-                        Map.of("eventNumber", eventNumber,
-                                "numTicketsRequested", numTicketsRequested,
-                                "ticketPrice", ticketPrice)
-                );
-                bookingResult = null;
-                return;
+        if (!eventActive) {
+            ticketHoldState.releaseHold(hold);
+            if (ticketPrice > 0) {
+                context.getPaymentSystem().processRefundAsync(consumer.getEmail(), context.getOrgEmail(),
+                        numTicketsRequested * ticketPrice);
             }
+            view.displayFailure(
+                    "BookEventCommand",
+                    LogStatus.BOOK_EVENT_EVENT_NOT_ACTIVE,
+                    () -> Map.of("eventNumber", eventNumber)
+            );
+            bookingResult = null;
+            return;
+        }
+
+        if (!holdConfirmed) {
+            if (ticketPrice > 0) {
+                context.getPaymentSystem().processRefundAsync(consumer.getEmail(), context.getOrgEmail(),
+                        numTicketsRequested * ticketPrice);
+            }
+            view.displayFailure(
+                    "BookEventCommand",
+                    LogStatus.BOOK_EVENT_HOLD_EXPIRED,
+                    () -> Map.of("eventNumber", eventNumber,
+                            "numTicketsRequested", numTicketsRequested,
+                            "hold", hold)
+            );
+            bookingResult = null;
+            return;
         }
 
-        Booking booking = context.getBookingState().createBooking(consumer, event, numTicketsRequested);
         consumer.addBooking(booking);
-        event.setNumTicketsLeft(numTicketsLeft - numTicketsRequested);
+        // The tickets were taken out of the tickets left when they were held
+        context.getEventState().markEventChanged(event);
         view.displaySuccess(
                 "BookEventCommand",
                 LogStatus.BOOK_EVENT_SUCCESS,
-                Map.of("eventNumber", eventNumber,
+                () -> Map.of("eventNumber", eventNumber,
                         "numTicketsRequested", numTicketsRequested)
         );
         bookingResult = booking;
@@ -161,5 +237,6 @@ public class BookEventCommand implements ICommand<Booking> {
         BOOK_EVENT_INVALID_NUM_TICKETS,
         BOOK_EVENT_NOT_ENOUGH_TICKETS_LEFT,
         BOOK_EVENT_PAYMENT_FAILED,
+        BOOK_EVENT_HOLD_EXPIRED,
     }
 }
@@ -1,11 +1,14 @@
 package command;
 
 import controller.Context;
+import external.PaymentRequest;
 import model.*;
 import view.IView;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * {@link CancelBookingCommand} allows {@link model.Consumer}s to cancel a {@link Booking} given
@@ -24,8 +27,20 @@ public class CancelBookingCommand implements ICommand<Boolean> {
     }
 
     /**
+     * Run the command, waiting for the refund to be processed
+     *
      * @param context object that provides access to global application state
      * @param view    allows passing information to the user interface
+     */
+    @Override
+    public void execute(Context context, IView view) {
+        executeAsync(context, view).join();
+    }
+
+    /**
+     * @param context object that provides access to global application state
+     * @param view    allows passing information to the user interface
+     * @return A future that completes once the booking has been cancelled or the cancellation has failed
      * @verifies.that currently logged-in user is a Consumer
      * @verifies.that the booking number corresponds to an existing Booking
      * @verifies.that the logged-in user is the booking owner
@@ -34,17 +49,17 @@ public class CancelBookingCommand implements ICommand<Boolean> {
      * @verifies.that if the event was paid, that the refund is successful
      */
     @Override
-    public void execute(Context context, IView view) {
+    public CompletableFuture<Void> executeAsync(Context context, IView view) {
         User currentUser = context.getUserState().getCurrentUser();
         if (!(currentUser instanceof Consumer)) {
             view.displayFailure(
                     "CancelBookingCommand",
                     LogStatus.CANCEL_BOOKING_USER_NOT_CONSUMER,
-                    Map.of("bookingNumber", bookingNumber,
+                    () -> Map.of("bookingNumber", bookingNumber,
                             "currentUser", currentUser != null ? currentUser : "none")
             );
             successResult = false;
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
         Consumer consumer = (Consumer) currentUser;
@@ -54,30 +69,30 @@ public class CancelBookingCommand implements ICommand<Boolean> {
             view.displayFailure(
                     "CancelBookingCommand",
                     LogStatus.CANCEL_BOOKING_BOOKING_NOT_FOUND,
-                    Map.of("bookingNumber", bookingNumber)
+                    () -> Map.of("bookingNumber", bookingNumber)
             );
             successResult = false;
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
         if (consumer != booking.getBooker()) {
             view.displayFailure(
                     "CancelBookingCommand",
                     LogStatus.CANCEL_BOOKING_USER_IS_NOT_BOOKER,
-                    Map.of("bookingNumber", bookingNumber)
+                    () -> Map.of("bookingNumber", bookingNumber)
             );
             successResult = false;
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
         if (booking.getStatus() != BookingStatus.Active) {
             view.displayFailure(
                     "CancelBookingCommand",
                     LogStatus.CANCEL_BOOKING_BOOKING_NOT_ACTIVE,
-                    Map.of("bookingNumber", bookingNumber)
+                    () -> Map.of("bookingNumber", bookingNumber)
             );
             successResult = false;
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
         Event event = booking.getEvent();
@@ -86,35 +101,89 @@ public class CancelBookingCommand implements ICommand<Boolean> {
             view.displayFailure(
                     "CancelBookingCommand",
                     LogStatus.CANCEL_BOOKING_NO_CANCELLATIONS_WITHIN_24H,
-                    Map.of("bookingNumber", bookingNumber)
+                    () -> Map.of("bookingNumber", bookingNumber)
             );
             successResult = false;
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
-        boolean refundSucceeded = (event.getTicketPriceInPence() <= 0 ||
-                context.getPaymentSystem().processRefund(
-                    consumer.getEmail(),
-                    context.getOrgEmail(),
-                    booking.getNumTickets() * event.getTicketPriceInPence()
-            ));
+        // The booking is cancelled before it is refunded, so that no other cancellation can refund it as well
+        if (!booking.tryCancelByConsumer()) {
+            view.displayFailure(
+                    "CancelBookingCommand",
+                    LogStatus.CANCEL_BOOKING_BOOKING_NOT_ACTIVE,
+                    () -> Map.of("bookingNumber", bookingNumber)
+            );
+            successResult = false;
+            return CompletableFuture.completedFuture(null);
+        }
+        context.getBookingState().markBookingChanged(booking);
+
+        // The command does not wait for the refund, the tickets are released once it has been processed
+        CompletableFuture<Boolean> refund = event.getTicketPriceInPence() <= 0
+                ? CompletableFuture.completedFuture(true)
+                : context.getPaymentSystem().processRefundAsync(
+                        consumer.getEmail(),
+                        context.getOrgEmail(),
+                        booking.getNumTickets() * event.getTicketPriceInPence());
+        return refund
+                .exceptionally(e -> false)
+                .thenAccept(refundSucceeded -> completeCancellation(context, view, booking, refundSucceeded));
+    }
+
+    private void completeCancellation(Context context, IView view, Booking booking, boolean refundSucceeded) {
+        Event event = booking.getEvent();
         if (!refundSucceeded) {
+            // The booking was only cancelled by this command, so it can be made active again, unless the event has been
+            // cancelled in the meantime. This is decided under the event lock, so that cancelling the event either
+            // happens first, or sees the booking active again and cancels and refunds it itself
+            boolean eventCancelled;
+            synchronized (event) {
+                eventCancelled = event.getStatus() == EventStatus.CANCELLED;
+                if (eventCancelled) {
+                    booking.transferCancelToProvider();
+                } else {
+                    booking.undoCancelByConsumer();
+                }
+            }
+            context.getBookingState().markBookingChanged(booking);
+
+            if (eventCancelled) {
+                // Refunded in the background, like the other bookings of the cancelled event
+                if (event.getTicketPriceInPence() > 0) {
+                    context.getPaymentSystem().processRefunds(List.of(new PaymentRequest(
+                            PaymentRequest.Kind.Refund,
+                            booking.getBooker().getEmail(),
+                            context.getOrgEmail(),
+                            booking.getNumTickets() * event.getTicketPriceInPence()
+                    )));
+                }
+                view.displayFailure(
+                        "CancelBookingCommand",
+                        LogStatus.CANCEL_BOOKING_EVENT_CANCELLED,
+                        () -> Map.of("bookingNumber", bookingNumber,
+                                "eventNumber", event.getEventNumber())
+                );
+                successResult = false;
+                return;
+            }
+
             view.displayFailure(
                     "CancelBookingCommand",
                     LogStatus.CANCEL_BOOKING_REFUND_FAILED,
-                    Map.of("bookingNumber", bookingNumber)
+                    () -> Map.of("bookingNumber", bookingNumber)
             );
             successResult = false;
             return;
         }
 
-        booking.cancelByConsumer();
-        event.setNumTicketsLeft(event.getNumTicketsLeft() + booking.getNumTickets());
+        event.release(booking.getNumTickets());
+        context.getEventState().markEventChanged(event);
 
         view.displaySuccess(
                 "CancelBookingCommand",
                 LogStatus.CANCEL_BOOKING_SUCCESS,
-                Map.of("bookingNumber", bookingNumber)
+                () -> Map.of("bookingNumber", bookingNumber)
         );
         successResult = true;
     }
@@ -135,5 +204,6 @@ public class CancelBookingCommand implements ICommand<Boolean> {
         CANCEL_BOOKING_BOOKING_NOT_ACTIVE,
         CANCEL_BOOKING_NO_CANCELLATIONS_WITHIN_24H,
         CANCEL_BOOKING_REFUND_FAILED,
+        CANCEL_BOOKING_EVENT_CANCELLED,
     }
 }
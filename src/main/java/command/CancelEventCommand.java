@@ -1,21 +1,31 @@
 package command;
 
 import controller.Context;
+import external.NotificationOutbox;
+import external.PaymentProgress;
+import external.PaymentRequest;
+import external.PaymentSystem;
 import model.*;
 import view.IView;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 /**
  * {@link CancelEventCommand} allows {@link Staff} members to cancel a previously added
  * {@link Event}. This cancels and refunds all bookings linked to the event.
+ * The command finishes as soon as the event and its bookings are cancelled. The consumers are notified through the
+ * {@link NotificationOutbox}, and the refunds are processed in the background, see {@link #getRefundProgress()}.
  */
 public class CancelEventCommand implements ICommand<Boolean> {
+    private static final int REFUND_BATCH_SIZE = 256;
+
     private final long eventNumber;
     private final String organiserMessage;
     private Boolean successResult;
+    private PaymentProgress refundProgress;
 
     /**
      * @param eventNumber      identifier of the {@link Event} to cancel
@@ -44,7 +54,7 @@ public class CancelEventCommand implements ICommand<Boolean> {
             view.displayFailure(
                     "CancelEventCommand",
                     LogStatus.CANCEL_EVENT_USER_NOT_STAFF,
-                    Map.of("eventNumber", eventNumber,
+                    () -> Map.of("eventNumber", eventNumber,
                             "currentUser", currentUser != null ? currentUser : "none")
             );
             successResult = false;
@@ -57,7 +67,7 @@ public class CancelEventCommand implements ICommand<Boolean> {
             view.displayFailure(
                     "CancelEventCommand",
                     LogStatus.CANCEL_EVENT_EVENT_NOT_FOUND,
-                    Map.of("eventNumber", eventNumber)
+                    () -> Map.of("eventNumber", eventNumber)
             );
             successResult = false;
             return;
@@ -67,7 +77,7 @@ public class CancelEventCommand implements ICommand<Boolean> {
             view.displayFailure(
                     "CancelEventCommand",
                     LogStatus.CANCEL_EVENT_NOT_ACTIVE,
-                    Map.of("eventNumber", eventNumber)
+                    () -> Map.of("eventNumber", eventNumber)
             );
             successResult = false;
             return;
@@ -77,7 +87,7 @@ public class CancelEventCommand implements ICommand<Boolean> {
             view.displayFailure(
                     "CancelEventCommand",
                     LogStatus.CANCEL_EVENT_ALREADY_STARTED,
-                    Map.of("eventNumber", eventNumber)
+                    () -> Map.of("eventNumber", eventNumber)
             );
             successResult = false;
             return;
@@ -87,38 +97,59 @@ public class CancelEventCommand implements ICommand<Boolean> {
             view.displayFailure(
                     "CancelEventCommand",
                     LogStatus.CANCEL_EVENT_MESSAGE_MUST_NOT_BE_BLANK,
-                    Map.of("organiserMessage", String.valueOf(organiserMessage))
+                    () -> Map.of("organiserMessage", String.valueOf(organiserMessage))
             );
             successResult = false;
             return;
         }
 
         event.cancel();
+        context.getEventState().markEventChanged(event);
         List<Booking> eventBookings = context.getBookingState().findBookingsByEventNumber(eventNumber);
+        List<PaymentRequest> refunds = new ArrayList<>();
 
         for (Booking booking : eventBookings) {
-            if (booking.getStatus() == BookingStatus.Active) {
-                booking.cancelByProvider();
-                booking.getBooker().notify(organiserMessage);
+            // A booking the consumer is cancelling at the same time is refunded by that cancellation only
+            if (booking.tryCancelByProvider()) {
+                context.getBookingState().markBookingChanged(booking);
+                context.getNotificationOutbox().enqueue(booking.getBooker(), organiserMessage);
 
                 if (event.getTicketPriceInPence() > 0) {
-                    context.getPaymentSystem().processRefund(
+                    refunds.add(new PaymentRequest(
+                            PaymentRequest.Kind.Refund,
                             booking.getBooker().getEmail(),
                             context.getOrgEmail(),
                             booking.getNumTickets() * event.getTicketPriceInPence()
-                    );
+                    ));
                 }
             }
         }
 
+        refundProgress = new PaymentProgress(refunds.size());
+        processRefunds(context.getPaymentSystem(), refunds);
+
         view.displaySuccess(
                 "CancelEventCommand",
                 LogStatus.CANCEL_EVENT_SUCCESS,
-                Map.of("eventNumber", eventNumber)
+                () -> Map.of("eventNumber", eventNumber)
         );
         successResult = true;
     }
 
+    // Refunds are sent in batches, so that the progress is updated while a large event is being refunded
+    private void processRefunds(PaymentSystem paymentSystem, List<PaymentRequest> refunds) {
+        for (int start = 0; start < refunds.size(); start += REFUND_BATCH_SIZE) {
+            List<PaymentRequest> batch = refunds.subList(start, Math.min(start + REFUND_BATCH_SIZE, refunds.size()));
+            paymentSystem.processRefunds(batch).whenComplete((results, exception) -> {
+                if (exception != null) {
+                    refundProgress.recordResults(0, batch.size());
+                } else {
+                    refundProgress.recordResults(results);
+                }
+            });
+        }
+    }
+
     /**
      * @return True if successful and false otherwise
      */
@@ -127,6 +158,13 @@ public class CancelEventCommand implements ICommand<Boolean> {
         return successResult;
     }
 
+    /**
+     * @return The progress of refunding the bookings of the cancelled event, or null if the event was not cancelled
+     */
+    public PaymentProgress getRefundProgress() {
+        return refundProgress;
+    }
+
     private enum LogStatus {
         CANCEL_EVENT_SUCCESS,
         CANCEL_EVENT_MESSAGE_MUST_NOT_BE_BLANK,
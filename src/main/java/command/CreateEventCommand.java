@@ -84,7 +84,7 @@ public class CreateEventCommand implements ICommand<Event> {
             view.displayFailure(
                     "CreateEventCommand",
                     CreateEventCommand.LogStatus.CREATE_EVENT_USER_NOT_STAFF,
-                    Map.of("user", currentUser != null ? currentUser : "none")
+                    () -> Map.of("user", currentUser != null ? currentUser : "none")
             );
             eventResult = null;
             return;
@@ -95,7 +95,7 @@ public class CreateEventCommand implements ICommand<Event> {
             view.displayFailure(
                     "CreateEventCommand",
                     LogStatus.CREATE_EVENT_START_AFTER_END,
-                    Map.of("startDateTime", startDateTime,
+                    () -> Map.of("startDateTime", startDateTime,
                             "endDateTime", endDateTime)
             );
             eventResult = null;
@@ -106,7 +106,7 @@ public class CreateEventCommand implements ICommand<Event> {
             view.displayFailure(
                     "CreateEventCommand",
                     LogStatus.CREATE_EVENT_IN_THE_PAST,
-                    Map.of("startDateTime", startDateTime)
+                    () -> Map.of("startDateTime", startDateTime)
             );
             eventResult = null;
             return;
@@ -124,7 +124,7 @@ public class CreateEventCommand implements ICommand<Event> {
             view.displayFailure(
                     "CreateEventCommand",
                     LogStatus.CREATE_EVENT_TITLE_AND_TIME_CLASH,
-                    Map.of("title", title,
+                    () -> Map.of("title", title,
                             "startDateTime", startDateTime,
                             "endDateTime", endDateTime)
             );
@@ -136,7 +136,7 @@ public class CreateEventCommand implements ICommand<Event> {
             view.displayFailure(
                     "CreateEventCommand",
                     LogStatus.CREATE_EVENT_NEGATIVE_TICKET_PRICE,
-                    Map.of("ticketPriceInPence", ticketPriceInPence)
+                    () -> Map.of("ticketPriceInPence", ticketPriceInPence)
             );
             eventResult = null;
             return;
@@ -157,7 +157,15 @@ public class CreateEventCommand implements ICommand<Event> {
             } catch (Exception e) {
                 view.displayFailure("CreateEventCommand",
                         LogStatus.CREATE_EVENT_VENUE_ADDRESS_INCORRECT_FORMAT,
-                        Map.of("venueAddress", venueAddress));
+                        () -> Map.of("venueAddress", venueAddress));
+                eventResult = null;
+                return;
+            }
+
+            if (!map.awaitReady()) {
+                view.displayFailure("CreateEventCommand",
+                        LogStatus.CREATE_EVENT_MAP_NOT_READY,
+                        () -> Map.of("venueAddress", venueAddress));
                 eventResult = null;
                 return;
             }
@@ -165,7 +173,7 @@ public class CreateEventCommand implements ICommand<Event> {
             if (!map.isPointWithinMapBounds(addressPoint)) {
                 view.displayFailure("CreateEventCommand",
                         LogStatus.CREATE_EVENT_VENUE_ADDRESS_NOT_WITHIN_BOUNDARY,
-                        Map.of("venueAddress", venueAddress));
+                        () -> Map.of("venueAddress", venueAddress));
                 eventResult = null;
                 return;
             }
@@ -181,7 +189,7 @@ public class CreateEventCommand implements ICommand<Event> {
                 if (!possibleTags.containsKey(tagName)) {
                     view.displayFailure("CreateEventCommand",
                             LogStatus.CREATE_EVENT_TAG_DO_NOT_EXIST,
-                            Map.of("tags", tags));
+                            () -> Map.of("tags", tags));
                     eventResult = null;
                     return;
                 }
@@ -191,7 +199,7 @@ public class CreateEventCommand implements ICommand<Event> {
                 EventTag tag = possibleTags.get(tagName);
                 if (!tag.getValues().contains(tagValue)) {
                     view.displayFailure("CreateEventCommand", LogStatus.CREATE_EVENT_TAG_VALUE_DO_NOT_MATCH,
-                            Map.of("tags", tags));
+                            () -> Map.of("tags", tags));
                     eventResult = null;
                     return;
                 }
@@ -204,7 +212,7 @@ public class CreateEventCommand implements ICommand<Event> {
         view.displaySuccess(
                 "CreateEventCommand",
                 LogStatus.CREATE_EVENT_SUCCESS,
-                Map.of("eventNumber", event.getEventNumber(),
+                () -> Map.of("eventNumber", event.getEventNumber(),
                         "organiser", currentUser,
                         "title", title)
         );
@@ -219,6 +227,7 @@ public class CreateEventCommand implements ICommand<Event> {
         CREATE_EVENT_NEGATIVE_TICKET_PRICE,
         CREATE_EVENT_VENUE_ADDRESS_INCORRECT_FORMAT,
         CREATE_EVENT_VENUE_ADDRESS_NOT_WITHIN_BOUNDARY,
+        CREATE_EVENT_MAP_NOT_READY,
         CREATE_EVENT_TAG_DO_NOT_EXIST,
         CREATE_EVENT_TAG_VALUE_DO_NOT_MATCH,
         CREATE_EVENT_SUCCESS,
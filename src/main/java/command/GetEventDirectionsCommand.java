@@ -40,6 +40,7 @@ public class GetEventDirectionsCommand implements ICommand<String[]>{
      * @verifies.that the event includes a venueAddress
      * @verifies.that the current user is a Consumer
      * @verifies.that the consumer's profile includes an address
+     * @verifies.that the map system has been loaded
      */
     @Override
     public void execute(Context context, IView view) {
@@ -48,14 +49,14 @@ public class GetEventDirectionsCommand implements ICommand<String[]>{
         // Verify if there is an event corresponding to the provided eventNumber
         if (event == null) {
             view.displayFailure("GetEventDirectionsCommand", LogStatus.GET_EVENT_DIRECTIONS_NO_SUCH_EVENT,
-                    Map.of("eventNumber", eventNumber));
+                    () -> Map.of("eventNumber", eventNumber));
             directionsResult = null;
             return;
         }
         // Verify if the event includes a venueAddress
         if (event.getVenueAddress() == null || event.getVenueAddress().isBlank()) {
             view.displayFailure("GetEventDirectionsCommand", LogStatus.GET_EVENT_DIRECTIONS_NO_VENUE_ADDRESS,
-                    Map.of("event", event));
+                    () -> Map.of("event", event));
             directionsResult = null;
             return;
         }
@@ -65,7 +66,7 @@ public class GetEventDirectionsCommand implements ICommand<String[]>{
         // Verify if the current user is a Consumer
         if (!(currentUser instanceof Consumer)) {
             view.displayFailure("GetEventDirectionsCommand", LogStatus.GET_EVENT_DIRECTIONS_USER_NOT_CONSUMER,
-                    Map.of("currentUser", currentUser != null ? currentUser : "none"));
+                    () -> Map.of("currentUser", currentUser != null ? currentUser : "none"));
             directionsResult = null;
             return;
         }
@@ -74,7 +75,7 @@ public class GetEventDirectionsCommand implements ICommand<String[]>{
         // Verify if the consumer's profile includes an address
         if (consumer.getAddress() == null || consumer.getAddress().isBlank()) {
             view.displayFailure("GetEventDirectionsCommand", LogStatus.GET_EVENT_DIRECTIONS_NO_CONSUMER_ADDRESS,
-                    Map.of("consumer", consumer));
+                    () -> Map.of("consumer", consumer));
             directionsResult = null;
             return;
         }
@@ -91,7 +92,7 @@ public class GetEventDirectionsCommand implements ICommand<String[]>{
         } catch (Exception e) {
             view.displayFailure("GetEventDirectionsCommand",
                     LogStatus.GET_EVENT_DIRECTIONS_CONSUMER_ADDRESS_INVALID,
-                    Map.of("consumerAddress", consumerAddress));
+                    () -> Map.of("consumerAddress", consumerAddress));
             directionsResult = null;
             return;
         }
@@ -102,7 +103,14 @@ public class GetEventDirectionsCommand implements ICommand<String[]>{
         } catch (Exception e) {
             view.displayFailure("GetEventDirectionsCommand",
                     LogStatus.GET_EVENT_DIRECTIONS_VENUE_ADDRESS_INVALID,
-                    Map.of("venueAddress", venueAddress));
+                    () -> Map.of("venueAddress", venueAddress));
+            directionsResult = null;
+            return;
+        }
+        if (!mapSystem.awaitReady()) {
+            view.displayFailure("GetEventDirectionsCommand",
+                    LogStatus.GET_EVENT_DIRECTIONS_MAP_NOT_READY,
+                    () -> Map.of("event", event));
             directionsResult = null;
             return;
         }
@@ -121,7 +129,7 @@ public class GetEventDirectionsCommand implements ICommand<String[]>{
         }
         directionsResult[0] = String.valueOf(totalDistance);
         view.displaySuccess("GetEventDirectionsCommand", LogStatus.GET_EVENT_DIRECTIONS_SUCCESS,
-                Map.of("event", event, "consumer", consumer,
+                () -> Map.of("event", event, "consumer", consumer,
                         "directions", Arrays.toString(directionsResult)));
     }
 
@@ -134,6 +142,7 @@ public class GetEventDirectionsCommand implements ICommand<String[]>{
         GET_EVENT_DIRECTIONS_NO_SUCH_EVENT,
         GET_EVENT_DIRECTIONS_NO_VENUE_ADDRESS,
         GET_EVENT_DIRECTIONS_USER_NOT_CONSUMER,
+        GET_EVENT_DIRECTIONS_MAP_NOT_READY,
         GET_EVENT_DIRECTIONS_NO_CONSUMER_ADDRESS,
         GET_EVENT_DIRECTIONS_CONSUMER_ADDRESS_INVALID,
         GET_EVENT_DIRECTIONS_VENUE_ADDRESS_INVALID,
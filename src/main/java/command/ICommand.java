@@ -3,6 +3,8 @@ package command;
 import controller.Context;
 import view.IView;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * {@link ICommand} is the interface implemented by all commands. This common interface allows the
  * {@link controller.Controller} to run any command using a single common method
@@ -20,6 +22,22 @@ public interface ICommand<T> {
      */
     void execute(Context context, IView view);
 
+    /**
+     * Run the command without blocking the calling thread while waiting for external systems, such as the
+     * {@link external.PaymentSystem}. The command result is available once the returned future has completed.
+     * Commands that do not wait for external systems simply run {@link #execute(Context, IView)}.
+     * This method should not be called directly outside of testing either, see
+     * {@link controller.Controller#submitCommand(controller.Session, ICommand)}.
+     *
+     * @param context object that provides access to global application state
+     * @param view    allows passing information to the user interface
+     * @return A future that completes once the command has finished
+     */
+    default CompletableFuture<Void> executeAsync(Context context, IView view) {
+        execute(context, view);
+        return CompletableFuture.completedFuture(null);
+    }
+
     /**
      * Get the result from the latest run of the command.
      *
@@ -30,7 +30,7 @@ public class ListConsumerBookingsCommand implements ICommand<List<Booking>> {
             view.displayFailure(
                     "ListConsumerBookingsCommand",
                     LogStatus.LIST_CONSUMER_BOOKINGS_USER_NOT_CONSUMER,
-                    Map.of("currentUser", currentUser != null ? currentUser : "none")
+                    () -> Map.of("currentUser", currentUser != null ? currentUser : "none")
             );
             bookingListResult = null;
             return;
@@ -40,7 +40,7 @@ public class ListConsumerBookingsCommand implements ICommand<List<Booking>> {
                 "ListConsumerBookingsCommand",
                 LogStatus.LIST_CONSUMER_BOOKINGS_SUCCESS
         );
-        bookingListResult = ((Consumer) currentUser).getBookings();
+        bookingListResult = context.getBookingState().findBookingsByBooker((Consumer) currentUser);
     }
 
     /**
@@ -41,7 +41,7 @@ public class ListEventBookingsCommand implements ICommand<List<Booking>> {
             view.displayFailure(
                     "ListEventBookingsCommand",
                     LogStatus.LIST_EVENT_BOOKINGS_USER_NOT_STAFF,
-                    Map.of("eventNumber", eventNumber,
+                    () -> Map.of("eventNumber", eventNumber,
                             "currentUser", currentUser != null ? currentUser : "none")
             );
             bookingListResult = null;
@@ -53,7 +53,7 @@ public class ListEventBookingsCommand implements ICommand<List<Booking>> {
             view.displayFailure(
                     "ListEventBookingsCommand",
                     LogStatus.LIST_EVENT_BOOKINGS_EVENT_NOT_FOUND,
-                    Map.of("eventNumber", eventNumber)
+                    () -> Map.of("eventNumber", eventNumber)
             );
             bookingListResult = null;
             return;
@@ -62,7 +62,7 @@ public class ListEventBookingsCommand implements ICommand<List<Booking>> {
         view.displaySuccess(
                 "ListEventBookingsCommand",
                 LogStatus.LIST_EVENT_BOOKINGS_SUCCESS,
-                Map.of("eventNumber", eventNumber)
+                () -> Map.of("eventNumber", eventNumber)
         );
         bookingListResult = context.getBookingState().findBookingsByEventNumber(eventNumber);
     }
@@ -45,7 +45,7 @@ public class ListEventReviewsCommand implements ICommand<List<Review>>{
         view.displaySuccess(
                 "ListEventReviewsCommand",
                 LogStatus.LIST_EVENT_REVIEWS_SUCCESS,
-                Map.of("eventTitle", eventTitle, "reviewsResult", reviewsResult.toString()));
+                () -> Map.of("eventTitle", eventTitle, "reviewsResult", reviewsResult.toString()));
     }
 
     @Override
@@ -2,6 +2,7 @@ package command;
 
 import controller.Context;
 import model.*;
+import state.IEventState;
 import view.IView;
 
 import java.time.LocalDate;
@@ -49,21 +50,42 @@ public class ListEventsCommand implements ICommand<List<Event>> {
         return true;
     }
 
-    private static List<Event> filterEvents(List<Event> events, boolean activeEventsOnly, LocalDate searchDate) {
+    private static List<Event> filterEvents(List<Event> events, boolean activeEventsOnly) {
         Stream<Event> filteredEvents = events.stream();
         if (activeEventsOnly) {
             filteredEvents = filteredEvents.filter(event -> event.getStatus() == EventStatus.ACTIVE);
         }
-        if (searchDate != null) {
-            filteredEvents = filteredEvents.filter(event ->
-                    event.getStartDateTime().toLocalDate().equals(searchDate)
-                            || event.getEndDateTime().toLocalDate().equals(searchDate)
-                            || (searchDate.isAfter(event.getStartDateTime().toLocalDate())
-                            && searchDate.isBefore(event.getEndDateTime().toLocalDate())));
-        }
         return filteredEvents.collect(Collectors.toList());
     }
 
+    /**
+     * Look up the {@link Event}s happening on the dates this command searches for. The date filtering is done by
+     * the event state's date index, so only the matching events are visited.
+     *
+     * @param eventState event state to look up the events in
+     * @return List of {@link Event}s happening on {@link #searchDate}, or all events if no search date is set
+     */
+    protected List<Event> findEventsOnSearchDates(IEventState eventState) {
+        if (searchDate == null) {
+            return eventState.getAllEvents();
+        }
+        return eventState.findEventsBetweenDates(searchDate, searchDate);
+    }
+
+    /**
+     * @return True if this command only looks for events on some dates, and false if it looks at all events
+     */
+    protected boolean hasSearchDates() {
+        return searchDate != null;
+    }
+
+    /**
+     * @return Human-readable description of the dates this command searches for, used for logging
+     */
+    protected String describeSearchDates() {
+        return String.valueOf(searchDate);
+    }
+
     /**
      * @param context object that provides access to global application state
      * @param view    allows passing information to the user interface
@@ -73,13 +95,13 @@ public class ListEventsCommand implements ICommand<List<Event>> {
     public void execute(Context context, IView view) {
         // Verify if userEventsOnly is set, the current user must be logged in
         if (!userEventsOnly) {
-            eventListResult = filterEvents(context.getEventState().getAllEvents(), activeEventsOnly, searchDate);
+            eventListResult = filterEvents(findEventsOnSearchDates(context.getEventState()), activeEventsOnly);
             view.displaySuccess(
                     "ListEventsCommand",
                     LogStatus.LIST_EVENTS_SUCCESS,
-                    Map.of("activeEventsOnly", activeEventsOnly,
+                    () -> Map.of("activeEventsOnly", activeEventsOnly,
                             "userEventsOnly", false,
-                            "searchDate", String.valueOf(searchDate),
+                            "searchDate", describeSearchDates(),
                             "eventList", eventListResult)
             );
             return;
@@ -91,7 +113,7 @@ public class ListEventsCommand implements ICommand<List<Event>> {
             view.displayFailure(
                     "ListEventsCommand",
                     LogStatus.LIST_EVENTS_NOT_LOGGED_IN,
-                    Map.of("activeEventsOnly", activeEventsOnly,
+                    () -> Map.of("activeEventsOnly", activeEventsOnly,
                             "userEventsOnly", true)
             );
             eventListResult = null;
@@ -99,13 +121,13 @@ public class ListEventsCommand implements ICommand<List<Event>> {
         }
 
         if (currentUser instanceof Staff) {
-            eventListResult = filterEvents(context.getEventState().getAllEvents(), activeEventsOnly, searchDate);
+            eventListResult = filterEvents(findEventsOnSearchDates(context.getEventState()), activeEventsOnly);
             view.displaySuccess(
                     "ListEventsCommand",
                     LogStatus.LIST_EVENTS_SUCCESS,
-                    Map.of("activeEventsOnly", activeEventsOnly,
+                    () -> Map.of("activeEventsOnly", activeEventsOnly,
                             "userEventsOnly", true,
-                            "searchDate", String.valueOf(searchDate),
+                            "searchDate", describeSearchDates(),
                             "eventList", eventListResult)
             );
             return;
@@ -114,17 +136,24 @@ public class ListEventsCommand implements ICommand<List<Event>> {
         if (currentUser instanceof Consumer) {
             Consumer consumer = (Consumer) currentUser;
             EventTagCollection preferences = consumer.getPreferences();
-            List<Event> eventsFittingPreferences = context.getEventState().getAllEvents().stream()
-                    .filter(event -> eventSatisfiesPreferences(preferences, event))
-                    .collect(Collectors.toList());
+            IEventState eventState = context.getEventState();
+            List<Event> eventsFittingPreferences;
+            if (hasSearchDates()) {
+                // Only the few events on the searched dates have to be checked against the preferences
+                eventsFittingPreferences = findEventsOnSearchDates(eventState).stream()
+                        .filter(event -> eventSatisfiesPreferences(preferences, event))
+                        .collect(Collectors.toList());
+            } else {
+                eventsFittingPreferences = eventState.findEventsMatchingTags(preferences);
+            }
 
-            eventListResult = filterEvents(eventsFittingPreferences, activeEventsOnly, searchDate);
+            eventListResult = filterEvents(eventsFittingPreferences, activeEventsOnly);
             view.displaySuccess(
                     "ListEventsCommand",
                     LogStatus.LIST_EVENTS_SUCCESS,
-                    Map.of("activeEventsOnly", activeEventsOnly,
+                    () -> Map.of("activeEventsOnly", activeEventsOnly,
                             "userEventsOnly", true,
-                            "searchDate", String.valueOf(searchDate),
+                            "searchDate", describeSearchDates(),
                             "eventList", eventListResult)
             );
             return;
@@ -0,0 +1,78 @@
+package command;
+
+import controller.Context;
+import model.*;
+import state.IEventState;
+import view.IView;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ListEventsInDateRangeCommand} allows anyone to get a list of {@link Event}s that are happening on at least one
+ * day between two {@link LocalDate}s. Apart from the date range, the events are filtered in the same way as in
+ * {@link ListEventsCommand}.
+ */
+public class ListEventsInDateRangeCommand extends ListEventsCommand {
+    private final LocalDate fromDate;
+    private final LocalDate toDate;
+
+    /**
+     * @param userEventsOnly   if true, the returned events will be filtered depending on the logged-in user:
+     *                         for {@link Staff}s only the {@link Event}s they have created,
+     *                         and for {@link Consumer}s only the {@link Event}s that match their {@link EventTagCollection}
+     * @param activeEventsOnly if true, returned {@link Event}s will be filtered to contain only {@link Event}s with
+     *                         {@link EventStatus#ACTIVE}
+     * @param fromDate         first day of the range (inclusive). Can be null, in which case the range has no lower bound
+     * @param toDate           last day of the range (inclusive). Can be null, in which case the range has no upper bound
+     */
+    public ListEventsInDateRangeCommand(boolean userEventsOnly, boolean activeEventsOnly,
+                                        LocalDate fromDate, LocalDate toDate) {
+        super(userEventsOnly, activeEventsOnly, null);
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+    }
+
+    @Override
+    protected List<Event> findEventsOnSearchDates(IEventState eventState) {
+        return eventState.findEventsBetweenDates(fromDate, toDate);
+    }
+
+    @Override
+    protected boolean hasSearchDates() {
+        return fromDate != null || toDate != null;
+    }
+
+    @Override
+    protected String describeSearchDates() {
+        return fromDate + " - " + toDate;
+    }
+
+    /**
+     * @param context object that provides access to global application state
+     * @param view    allows passing information to the user interface
+     * @verifies.that the from date is not after the to date
+     * @verifies.that if userEventsOnly is set, the current user must be logged in
+     */
+    @Override
+    public void execute(Context context, IView view) {
+        // Verify that the from date is not after the to date
+        if (fromDate != null && toDate != null && fromDate.isAfter(toDate)) {
+            view.displayFailure(
+                    "ListEventsInDateRangeCommand",
+                    LogStatus.LIST_EVENTS_IN_DATE_RANGE_FROM_AFTER_TO,
+                    () -> Map.of("fromDate", fromDate,
+                            "toDate", toDate)
+            );
+            eventListResult = null;
+            return;
+        }
+
+        super.execute(context, view);
+    }
+
+    private enum LogStatus {
+        LIST_EVENTS_IN_DATE_RANGE_FROM_AFTER_TO,
+    }
+}
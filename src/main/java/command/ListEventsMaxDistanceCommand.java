@@ -1,8 +1,5 @@
 package command;
 
-import com.graphhopper.ResponsePath;
-import com.graphhopper.util.Instruction;
-import com.graphhopper.util.InstructionList;
 import com.graphhopper.util.Translation;
 import com.graphhopper.util.shapes.GHPoint;
 import com.sun.source.tree.Tree;
@@ -13,7 +10,6 @@ import model.*;
 
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * {@link ListEventsMaxDistanceCommand} allows {@link model.Consumer} to get
@@ -47,6 +43,7 @@ public class ListEventsMaxDistanceCommand extends ListEventsCommand{
      * @param view    allows passing information to the user interface
      * @verifies.that currently logged-in user is a Consumer
      * @verifies.that current user has an address set up in their profile
+     * @verifies.that the map system has been loaded
      */
     @Override
     public void execute(Context context, IView view) {
@@ -55,7 +52,7 @@ public class ListEventsMaxDistanceCommand extends ListEventsCommand{
             view.displayFailure(
                     "ListEventsMaxDistanceCommand",
                     LogStatus.LIST_EVENTS_MAX_DISTANCE_NOT_LOGGED_IN,
-                    Map.of("activeEventsOnly", activeEventsOnly,
+                    () -> Map.of("activeEventsOnly", activeEventsOnly,
                             "userEventsOnly", true)
             );
             eventListResult = null;
@@ -66,7 +63,7 @@ public class ListEventsMaxDistanceCommand extends ListEventsCommand{
         if (!(currentUser instanceof Consumer)) {
             view.displayFailure("ListEventsMaxDistanceCommand",
                     LogStatus.LIST_EVENTS_MAX_DISTANCE_USER_NOT_CONSUMER,
-                    Map.of("currentUser", currentUser != null ? currentUser : "none"));
+                    () -> Map.of("currentUser", currentUser != null ? currentUser : "none"));
             eventListResult = null;
             return;
         }
@@ -77,7 +74,7 @@ public class ListEventsMaxDistanceCommand extends ListEventsCommand{
         if (consumerAddress == null || consumerAddress.isBlank()) {
             view.displayFailure("ListEventsMaxDistanceCommand",
                     LogStatus.LIST_EVENTS_MAX_DISTANCE_CONSUMER_ADDRESS_INVALID,
-                    Map.of("consumerAddress", consumerAddress != null ? consumerAddress : "none"));
+                    () -> Map.of("consumerAddress", consumerAddress != null ? consumerAddress : "none"));
             eventListResult = null;
             return;
         }
@@ -91,44 +88,32 @@ public class ListEventsMaxDistanceCommand extends ListEventsCommand{
         } catch(Exception e) {
             view.displayFailure("ListEventsMaxDistanceCommand",
                     LogStatus.LIST_EVENTS_MAX_DISTANCE_CONSUMER_ADDRESS_INVALID,
-                    Map.of("consumerAddress", consumerAddress));
+                    () -> Map.of("consumerAddress", consumerAddress));
             eventListResult = null;
             return;
         }
 
-        // Filter based on consumer preference
-        EventTagCollection preferences = consumer.getPreferences();
-        List<Event> eventsFittingPreferences = context.getEventState().getAllEvents().stream()
-                .filter(event -> super.eventSatisfiesPreferences(preferences, event))
-                .collect(Collectors.toList());
+        // Only events within maxDistance in a straight line can be within maxDistance by route, so only those
+        // that also fit the consumer preferences are candidates for routing, with the venues the index parsed
+        Map<Event, GHPoint> candidateVenues = context.getEventState()
+                .findEventsWithinDistance(consumerPoint, maxDistance, consumer.getPreferences());
+        List<Event> candidateEvents = new ArrayList<>(candidateVenues.keySet());
+        List<GHPoint> candidatePoints = new ArrayList<>(candidateVenues.values());
 
-        Map<Double, Event> result = new TreeMap<>();
-        // Filter based on event distance
-        for (int i = 0; i < eventsFittingPreferences.size(); ++i) {
-            Event event = eventsFittingPreferences.get(i);
-            String eventAddress = event.getVenueAddress();
-            if (eventAddress == null || eventAddress.isBlank()) {
-                continue;
-            }
-
-            GHPoint eventPoint = null;
-            try {
-                String[] eventAddressCoordinates = eventAddress.split(" ");
-                String modifiedEventAddress = eventAddressCoordinates[0] + "," + eventAddressCoordinates[1];
-                eventPoint = mapSystem.convertToCoordinates(modifiedEventAddress);
-            } catch(Exception e) {
-                continue;
-            }
-
-            ResponsePath path = mapSystem.routeBetweenPoints(transportMode,consumerPoint, eventPoint);
-            InstructionList il = path.getInstructions();
-            Double distance = 0.0;
-            for (Instruction in : il) {
-                distance += in.getDistance();
-            }
+        if (!mapSystem.awaitReady()) {
+            view.displayFailure("ListEventsMaxDistanceCommand",
+                    LogStatus.LIST_EVENTS_MAX_DISTANCE_MAP_NOT_READY,
+                    () -> Map.of("consumerAddress", consumerAddress));
+            eventListResult = null;
+            return;
+        }
 
-            if (distance <= maxDistance) {
-                result.put(distance, event);
+        // Filter based on event distance, routing to all the candidates in one search from the consumer
+        double[] distances = mapSystem.routeDistancesFromPoint(transportMode, consumerPoint, candidatePoints, maxDistance);
+        Map<Double, Event> result = new TreeMap<>();
+        for (int i = 0; i < candidateEvents.size(); ++i) {
+            if (distances[i] <= maxDistance) {
+                result.put(distances[i], candidateEvents.get(i));
             }
         }
 
@@ -140,7 +125,7 @@ public class ListEventsMaxDistanceCommand extends ListEventsCommand{
         view.displaySuccess(
                 "ListEventsMaxDistanceCommand",
                 LogStatus.LIST_EVENTS_MAX_DISTANCE_SUCCESS,
-                Map.of("activeEventsOnly", activeEventsOnly,
+                () -> Map.of("activeEventsOnly", activeEventsOnly,
                         "userEventsOnly", true,
                         "searchDate", String.valueOf(searchDate),
                         "maxDistance", maxDistance,
@@ -153,6 +138,7 @@ public class ListEventsMaxDistanceCommand extends ListEventsCommand{
         LIST_EVENTS_MAX_DISTANCE_NOT_LOGGED_IN,
         LIST_EVENTS_MAX_DISTANCE_USER_NOT_CONSUMER,
         LIST_EVENTS_MAX_DISTANCE_CONSUMER_ADDRESS_INVALID,
+        LIST_EVENTS_MAX_DISTANCE_MAP_NOT_READY,
         LIST_EVENTS_MAX_DISTANCE_SUCCESS
     }
 }
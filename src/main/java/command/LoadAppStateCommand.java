@@ -2,24 +2,48 @@ package command;
 
 import controller.Context;
 import model.*;
+import state.IBookingState;
+import state.IEventState;
+import state.IUserState;
+import state.SnapshotCodec;
+import state.SnapshotVisitor;
+import state.StateSnapshot;
 import view.IView;
 
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Map;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.io.FileNotFoundException;
 import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * {@link LoadAppStateCommand} allows {@link Staff} members to save the state of system.
+ * It loads snapshots written by {@link SaveAppStateCommand}, as well as older save files of the whole serialized
+ * {@link Context}.
+ * <p>
+ * Snapshots are imported as a stream: each entity is checked against the current state as soon as it is read, and the
+ * users, tags, events and bookings to add are staged together until the whole snapshot has been checked. Nothing is
+ * added if any of them clash. Only a bounded number of entities is staged; if a snapshot has more, they are dropped and
+ * the snapshot is read once more after it has been checked as a whole, adding the entities as they are read. The file
+ * is copied before it is read, so the second read sees the same entities as the first, whatever happens to the file
+ * meanwhile. Autosaves with deltas and older save files are restored as a whole before they are checked, and the
+ * restored state is read again instead.
  */
 public class LoadAppStateCommand implements ICommand<Boolean> {
+    private static final int STAGING_CAPACITY = 10_000;
+
     private Boolean importResult;
     private String filename;
-    Context contextNew = null;
 
     /**
      * @param filename           the location of file that going to load from
@@ -46,192 +70,349 @@ public class LoadAppStateCommand implements ICommand<Boolean> {
             view.displayFailure(
                     "LoadAppStateCommand",
                     LoadAppStateCommand.LogStatus.LOAD_APP_STATE_USER_NOT_STAFF,
-                    Map.of("user", currentUser != null ? currentUser : "none")
+                    () -> Map.of("user", currentUser != null ? currentUser : "none")
             );
             importResult = false;
             return;
         }
 
-        // Verify that the file exists and load the file into the input stream
-        try (FileInputStream fileInputStream = new FileInputStream(filename);
-             ObjectInputStream objectInputStream = new ObjectInputStream(fileInputStream)) {
-             contextNew = (Context) objectInputStream.readObject();
-        }  catch (FileNotFoundException e) {
+        // Verify that the file exists, check the state in it and add it to the current state
+        Path copy = null;
+        try {
+            // The entities that did not fit in the staging buffer are read again, from a copy nobody else changes
+            Path path = Path.of(filename);
+            copy = Files.createTempFile("import", ".snapshot");
+            Files.copy(path, copy, StandardCopyOption.REPLACE_EXISTING);
+            Path file = copy;
+            StagedImport stagedImport;
+            ImportSource source;
+            boolean isSnapshot = SnapshotCodec.isSnapshot(file);
+            if (isSnapshot && !SnapshotCodec.hasDeltas(file)) {
+                stagedImport = new StagedImport(context, STAGING_CAPACITY, false);
+                source = visitor -> SnapshotCodec.read(file, visitor);
+            } else if (isSnapshot) {
+                // Deltas can only be applied to a restored state
+                StateSnapshot snapshot = SnapshotCodec.read(file);
+                stagedImport = new StagedImport(context, STAGING_CAPACITY, true);
+                source = visitor -> visitState(visitor, snapshot.getUserState(), snapshot.getEventState(),
+                        snapshot.getBookingState());
+            } else {
+                Context contextNew = readSerializedContext(file);
+                stagedImport = new StagedImport(context, STAGING_CAPACITY, true);
+                source = visitor -> visitState(visitor, contextNew.getUserState(), contextNew.getEventState(),
+                        contextNew.getBookingState());
+            }
+            stagedImport.importFrom(source);
+        }  catch (FileNotFoundException | NoSuchFileException e) {
             view.displayFailure(
                     "LoadAppStateCommand",
                     LoadAppStateCommand.LogStatus.LOAD_APP_STATE_FILE_NOT_FOUND,
-                    Map.of("file: ", filename)
+                    () -> Map.of("file: ", filename)
             );
             importResult = false;
             return;
+        } catch (ImportClashException e) {
+            view.displayFailure("LoadAppStateCommand", e.logStatus, e.details);
+            importResult = false;
+            return;
         } catch (IOException | ClassNotFoundException e) {
             view.displayFailure(
                     "LoadAppStateCommand",
                     LoadAppStateCommand.LogStatus.LOAD_APP_STATE_UNKNOWN_FAIL,
-                    Map.of("file: ", filename));
+                    () -> Map.of("file: ", filename));
             importResult = false;
             return;
+        } finally {
+            deleteCopy(copy);
         }
 
-        ArrayList<String> userSkip = new ArrayList<>();  // list to keep track of user positions to skip
-        ArrayList<Integer> eventSkip = new ArrayList<>(); // list to keep track of event positions to skip
-        ArrayList<String> tagSkip = new ArrayList<>(); // list to keep track of event tag positions to skip
+        view.displaySuccess(
+                "LoadAppStateCommand",
+                LogStatus.LOAD_APP_STATE_SUCCESSFUL);
 
-        // Get emails and users of the current and imported context
-        Map<String, User> currentContextUsers = context.getUserState().getAllUsers();
-        Map<String, User> importedContextUsers = contextNew.getUserState().getAllUsers();
+    }
 
-        for (String importedUserEmail : importedContextUsers.keySet()) {
-            for (String currentUserEmail : currentContextUsers.keySet()) {
-                // If there is an email clash, verify if the two users are the same
-                if (importedUserEmail.equals(currentUserEmail)) {
-                    // Get the corresponding users
-                    User currentContextUser = currentContextUsers.get(currentUserEmail);
-                    User importedContextUser = importedContextUsers.get(importedUserEmail);
+    private static void deleteCopy(Path copy) {
+        if (copy == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(copy);
+        } catch (IOException e) {
+            // The copy is in the temporary directory, and is left for the system to clean up
+        }
+    }
 
-                    // Verify if the users are the same by comparing their serial version UIDs.
-                    boolean ifUsersAreSame = importedContextUser.getSerialVersionUID() == currentContextUser.getSerialVersionUID();
-                    if (ifUsersAreSame) {
-                        userSkip.add(importedUserEmail);
-                    } else {
-                        view.displayFailure(
-                                "LoadAppStateCommand",
-                                LogStatus.LOAD_APP_STATE_CLASHING_USERS,
-                                Map.of("user", importedContextUsers.get(importedUserEmail) ,
-                                        " - ", currentContextUsers.get(currentUserEmail) )
-                        );
-                        importResult = false;
-                        return;
-                    }
-                }
-            }
+    /**
+     * Save files from before snapshots were introduced hold the whole serialized context
+     */
+    private static Context readSerializedContext(Path file) throws IOException, ClassNotFoundException {
+        try (FileInputStream fileInputStream = new FileInputStream(file.toFile());
+             ObjectInputStream objectInputStream = new ObjectInputStream(fileInputStream)) {
+            return (Context) objectInputStream.readObject();
         }
+    }
 
-        // Get all events from the current and imported context
-        List<Event> currentContextEvents = context.getEventState().getAllEvents();
-        List<Event> importedContextEvents = contextNew.getEventState().getAllEvents();
+    /**
+     * Visit a state that is already in memory, in the order a snapshot is read: users, tags, events and bookings
+     */
+    private static void visitState(SnapshotVisitor visitor, IUserState userState, IEventState eventState,
+                                   IBookingState bookingState) throws IOException {
+        for (User importedContextUser : userState.getAllUsers().values()) {
+            visitor.visitUser(importedContextUser, true);
+        }
+        for (Map.Entry<String, EventTag> entry : eventState.getPossibleTags().entrySet()) {
+            visitor.visitTag(entry.getKey(), entry.getValue());
+        }
+        for (Event importedContextEvent : eventState.getAllEvents()) {
+            visitor.visitEvent(importedContextEvent);
+        }
+        for (Booking importedContextBooking : bookingState.getAllBookings()) {
+            visitor.visitBooking(importedContextBooking);
+        }
+    }
 
+    /**
+     * @return The values that two events must share to be clashing: their title, startDateTime and endDateTime
+     */
+    private static List<Object> eventClashKey(Event event) {
+        return Arrays.asList(event.getTitle(), event.getStartDateTime(), event.getEndDateTime());
+    }
 
-        for (int i = 0; i < importedContextEvents.size(); i++) {
-            for (int j = 0; j < currentContextEvents.size(); j++) {
-                // Get the corresponding event
-                Event importedContextEvent = importedContextEvents.get(i);
-                Event currentContextEvent = currentContextEvents.get(j);
-                // Check if the events' titles, startDateTime, endDateTime are clashed
-                Boolean isTitleIdentical = importedContextEvent.getTitle().equals(currentContextEvent.getTitle());
-                Boolean isStartDateIdentical = importedContextEvent.getStartDateTime().equals(currentContextEvent.getStartDateTime());
-                Boolean isEndDateIdentical = importedContextEvent.getEndDateTime().equals(currentContextEvent.getEndDateTime());
+    /**
+     * @return The values that two bookings must share to be clashing: their booker name, event number and booking
+     * date time
+     */
+    private static List<Object> bookingClashKey(Booking booking) {
+        return Arrays.asList(booking.getBooker().getName(), booking.getEvent().getEventNumber(),
+                booking.getBookingDateTime());
+    }
 
-                // Verify that events with the same titles, startDateTime, and endDateTime do not have the same values
-                if(isTitleIdentical && isStartDateIdentical && isEndDateIdentical) {
-                    boolean ifEventAreSame = importedContextEvent.getSerialVersionUID() == currentContextEvent.getSerialVersionUID();
+    /**
+     * {@link ImportSource} reads the imported state, and can read it again with the same entities in the same order
+     */
+    private interface ImportSource {
+        void visit(SnapshotVisitor visitor) throws IOException;
+    }
 
-                    if (ifEventAreSame) {
-                        eventSkip.add(i);
-                    } else {
-                        view.displayFailure(
-                                "LoadAppStateCommand",
-                                LogStatus.LOAD_APP_STATE_CLASHING_EVENTS,
-                                Map.of("events", importedContextEvent," - ", currentContextEvent)
-                        );
-                        importResult = false;
-                        return;
-                    }
-                }
+    /**
+     * {@link StagedImport} checks the imported entities against the current state as they arrive, and stages the ones
+     * to add until all of them have been checked, so that {@link #importFrom(ImportSource)} adds either all of them or
+     * none
+     */
+    private static class StagedImport implements SnapshotVisitor {
+        private final Context context;
+        private final int stagingCapacity;
+        private final boolean bookingsAreInBookers;
+        // The current state as it was before the import, so that the entities are checked the same way when read again
+        private final Map<String, User> currentContextUsers;
+        private final Map<String, EventTag> currentContextEventTags;
+        private final Map<List<Object>, List<Event>> currentContextEventsByClashKey;
+        private final Map<List<Object>, Booking> currentContextBookingsByClashKey;
+        // The events of the current state that the imported bookings refer to instead, by imported event number
+        private final Map<Long, Event> currentEventsByImportedNumber;
+        // Additions of the users, tags, events and bookings that passed their check, in the order they were read
+        private final List<Runnable> stagedAdditions;
+        private boolean overflowed;
+        private boolean adding;
+
+        /**
+         * @param context              context to import into
+         * @param stagingCapacity      maximum number of entities to stage in memory
+         * @param bookingsAreInBookers whether the imported consumers already hold their bookings, which are replaced
+         *                             by the bookings added
+         */
+        StagedImport(Context context, int stagingCapacity, boolean bookingsAreInBookers) {
+            this.context = context;
+            this.stagingCapacity = stagingCapacity;
+            this.bookingsAreInBookers = bookingsAreInBookers;
+            currentContextUsers = new HashMap<>(context.getUserState().getAllUsers());
+            currentContextEventTags = new HashMap<>(context.getEventState().getPossibleTags());
+
+            // Index the current events by their title, startDateTime and endDateTime, keeping them in their order
+            currentContextEventsByClashKey = new HashMap<>();
+            for (Event currentContextEvent : context.getEventState().getAllEvents()) {
+                currentContextEventsByClashKey
+                        .computeIfAbsent(eventClashKey(currentContextEvent), key -> new ArrayList<>())
+                        .add(currentContextEvent);
             }
-        }
 
-        // Get all EventTags from current and imported context
-        Map<String, EventTag> currentContextEventTags = context.getEventState().getPossibleTags();
-        Map<String, EventTag> importedContextEventTags = contextNew.getEventState().getPossibleTags();
-        for (String importedEventTagName : importedContextEventTags.keySet()) {
-            // Ignore the default tags
-            if(importedEventTagName.equals("hasSocialDistancing") || importedEventTagName.equals("hasAirFiltration") || importedEventTagName.equals("isOutdoors") || importedEventTagName.equals("venueCapacity")){
-                continue;
+            // Index the current bookings by their booker name, event number, and booking date time, keeping the first
+            currentContextBookingsByClashKey = new HashMap<>();
+            for (Booking currentContextBooking : context.getBookingState().getAllBookings()) {
+                currentContextBookingsByClashKey.putIfAbsent(bookingClashKey(currentContextBooking),
+                        currentContextBooking);
             }
 
-            for (String currentContextEventTagName : currentContextEventTags.keySet()) {
-                if (importedEventTagName.equals(currentContextEventTagName)) {
-                    // Get the possible values and the default values of corresponding EventTag from current and imported context
-                    Set<String> importedContextEventTagValues = importedContextEventTags.get(importedEventTagName).getValues();
-                    Set<String> currentContextEventTagValues = currentContextEventTags.get(currentContextEventTagName).getValues();
-                    String importedContextEventTagDefaultValue = importedContextEventTags.get(importedEventTagName).getDefaultValue();
-                    String currentContextEventTagDefaultValue = currentContextEventTags.get(currentContextEventTagName).getDefaultValue();
-
-                    // If the possible values or default values are not the same, abort the command
-                    if (!importedContextEventTagValues.equals(currentContextEventTagValues)
-                                    || !importedContextEventTagDefaultValue.equals(currentContextEventTagDefaultValue)) {
-                        view.displayFailure(
-                                "LoadAppStateCommand",
-                                LogStatus.LOAD_APP_STATE_CLASHING_EVENT_TAGS,
-                                Map.of("tags", importedContextEventTags.get(importedEventTagName) ," - ", currentContextEventTags.get(currentContextEventTagName) )
-                        );
-                        importResult = false;
-                        return;
-                    } else {
-                        tagSkip.add(importedEventTagName);
-                    }
+            currentEventsByImportedNumber = new HashMap<>();
+            stagedAdditions = new ArrayList<>();
+        }
+
+        /**
+         * Check the whole imported state, and only then add it into the current system context. If it did not fit in
+         * the staging buffer, it is read again, and the entities are added as they are read.
+         *
+         * @param source imported state
+         */
+        void importFrom(ImportSource source) throws IOException {
+            source.visit(this);
+            adding = true;
+            if (!overflowed) {
+                for (Runnable addition : stagedAdditions) {
+                    addition.run();
                 }
+                return;
             }
+            source.visit(this);
         }
 
-        List<Booking> currentContextBookings = context.getBookingState().getAllBookings();
-        List<Booking> importedContextBookings = contextNew.getBookingState().getAllBookings();
-
-        for (int i = 0; i < importedContextBookings.size(); i++) {
-            for (int j = 0; j < currentContextBookings.size(); j++) {
-                // Get the corresponding booking
-                Booking importedContextBooking = importedContextBookings.get(i);
-                Booking currentContextBooking = currentContextBookings.get(j);
-                Boolean isBookerNameIdentical = importedContextBooking.getBooker().getName().equals(currentContextBooking.getBooker().getName());
-                Boolean isBookingEventNumberIdentical = importedContextBooking.getEvent().getEventNumber() == (currentContextBooking.getEvent().getEventNumber());
-                Boolean isBookingDateTimeIdentical = importedContextBooking.getBookingDateTime().equals(currentContextBooking.getBookingDateTime());
-
-                // If the bookings are clashed(same booker name, event number, and booking date time), abort the command
-                if(isBookerNameIdentical && isBookingEventNumberIdentical && isBookingDateTimeIdentical) {
-                        view.displayFailure(
-                                "LoadAppStateCommand",
-                                LogStatus.LOAD_APP_STATE_CLASHING_BOOKINGS,
-                                Map.of("bookings", importedContextBooking," - ", currentContextBooking)
-                        );
-                        importResult = false;
-                        return;
+        /**
+         * Stage the addition of an entity that passed its check, or make it right away when reading the imported
+         * state again
+         */
+        private void stage(Runnable addition) {
+            if (adding) {
+                addition.run();
+                return;
+            }
+            if (overflowed) {
+                return;
+            }
+            if (stagedAdditions.size() < stagingCapacity) {
+                stagedAdditions.add(addition);
+            } else {
+                // Drop the staged additions, they will all be made when the imported state is read again
+                overflowed = true;
+                stagedAdditions.clear();
+            }
+        }
+
+        @Override
+        public void visitUser(User importedContextUser, boolean registered) throws ImportClashException {
+            if (!registered) {
+                return;
+            }
+
+            // If there is an email clash, verify if the two users are the same
+            User currentContextUser = currentContextUsers.get(importedContextUser.getEmail());
+            if (currentContextUser != null) {
+                // Verify if the users are the same by comparing their serial version UIDs.
+                boolean ifUsersAreSame = importedContextUser.getSerialVersionUID() == currentContextUser.getSerialVersionUID();
+                if (ifUsersAreSame) {
+                    return;
                 }
+                throw new ImportClashException(
+                        LogStatus.LOAD_APP_STATE_CLASHING_USERS,
+                        () -> Map.of("user", importedContextUser,
+                                " - ", currentContextUser)
+                );
             }
+            stage(() -> {
+                if (bookingsAreInBookers && importedContextUser instanceof Consumer) {
+                    ((Consumer) importedContextUser).getBookings().clear();
+                }
+                context.getUserState().addUser(importedContextUser);
+            });
         }
 
-        // Add the data into the current system context
-        for (String key : importedContextUsers.keySet()) {
-            if(userSkip.contains(key)){
-                continue;
+        @Override
+        public void visitTag(String importedEventTagName, EventTag importedContextEventTag)
+                throws ImportClashException {
+            // Ignore the default tags
+            if(importedEventTagName.equals("hasSocialDistancing") || importedEventTagName.equals("hasAirFiltration") || importedEventTagName.equals("isOutdoors") || importedEventTagName.equals("venueCapacity")){
+                stageTag(importedEventTagName, importedContextEventTag);
+                return;
             }
-            context.getUserState().addUser(importedContextUsers.get(key));
 
+            EventTag currentContextEventTag = currentContextEventTags.get(importedEventTagName);
+            if (currentContextEventTag != null) {
+                // Get the possible values and the default values of corresponding EventTag from current and imported context
+                Set<String> importedContextEventTagValues = importedContextEventTag.getValues();
+                Set<String> currentContextEventTagValues = currentContextEventTag.getValues();
+                String importedContextEventTagDefaultValue = importedContextEventTag.getDefaultValue();
+                String currentContextEventTagDefaultValue = currentContextEventTag.getDefaultValue();
+
+                // If the possible values or default values are not the same, abort the command
+                if (!importedContextEventTagValues.equals(currentContextEventTagValues)
+                                || !importedContextEventTagDefaultValue.equals(currentContextEventTagDefaultValue)) {
+                    throw new ImportClashException(
+                            LogStatus.LOAD_APP_STATE_CLASHING_EVENT_TAGS,
+                            () -> Map.of("tags", importedContextEventTag ," - ", currentContextEventTag )
+                    );
+                }
+                return;
+            }
+            stageTag(importedEventTagName, importedContextEventTag);
         }
 
-        for (int i = 0; i < importedContextEvents.size(); i++) {
-            if(eventSkip.contains(i)){
-                continue;
+        private void stageTag(String importedEventTagName, EventTag importedContextEventTag) {
+            stage(() -> context.getEventState().createEventTag(importedEventTagName,
+                    importedContextEventTag.getValues(), importedContextEventTag.getDefaultValue()));
+        }
+
+        @Override
+        public void visitEvent(Event importedContextEvent) throws ImportClashException {
+            // Get the events whose titles, startDateTime, endDateTime are clashed with the imported event
+            List<Event> clashingEvents = currentContextEventsByClashKey.get(eventClashKey(importedContextEvent));
+            boolean skip = false;
+            if (clashingEvents != null) {
+                for (Event currentContextEvent : clashingEvents) {
+                    // Verify that events with the same titles, startDateTime, and endDateTime do not have the same values
+                    boolean ifEventAreSame = importedContextEvent.getSerialVersionUID() == currentContextEvent.getSerialVersionUID();
+
+                    if (ifEventAreSame) {
+                        skip = true;
+                        currentEventsByImportedNumber.put(importedContextEvent.getEventNumber(), currentContextEvent);
+                    } else {
+                        throw new ImportClashException(
+                                LogStatus.LOAD_APP_STATE_CLASHING_EVENTS,
+                                () -> Map.of("events", importedContextEvent," - ", currentContextEvent)
+                        );
+                    }
+                }
+            }
+            if (!skip) {
+                // The events are added as copies under new event numbers
+                stage(() -> currentEventsByImportedNumber.put(importedContextEvent.getEventNumber(),
+                        context.getEventState().addEvent(importedContextEvent)));
             }
-            context.getEventState().addEvent(importedContextEvents.get(i));
         }
 
-        for (String importedEventTagName : importedContextEventTags.keySet()) {
-            if (tagSkip.contains(importedEventTagName)) {
-                continue;
+        @Override
+        public void visitBooking(Booking importedContextBooking) throws ImportClashException {
+            // If the bookings are clashed(same booker name, event number, and booking date time), abort the command
+            Booking currentContextBooking = currentContextBookingsByClashKey.get(bookingClashKey(importedContextBooking));
+            if (currentContextBooking != null) {
+                throw new ImportClashException(
+                        LogStatus.LOAD_APP_STATE_CLASHING_BOOKINGS,
+                        () -> Map.of("bookings", importedContextBooking," - ", currentContextBooking)
+                );
             }
-            EventTag importedEventTag = importedContextEventTags.get(importedEventTagName);
-            context.getEventState().createEventTag(importedEventTagName, importedEventTag.getValues() , importedEventTag.getDefaultValue());
+            stage(() -> addBooking(importedContextBooking));
         }
 
-        for (int i = 0; i < importedContextBookings.size(); i++) {
-            context.getBookingState().addBooking(importedContextBookings.get(i));
+        private void addBooking(Booking importedContextBooking) {
+            // The bookings are added as copies under new booking numbers, for the copies of their events
+            Event importedContextEvent = importedContextBooking.getEvent();
+            Event currentContextEvent = currentEventsByImportedNumber.getOrDefault(
+                    importedContextEvent.getEventNumber(), importedContextEvent);
+            Booking addedBooking = context.getBookingState().addBooking(importedContextBooking, currentContextEvent);
+            addedBooking.getBooker().addBooking(addedBooking);
         }
+    }
 
-        view.displaySuccess(
-                "LoadAppStateCommand",
-                LogStatus.LOAD_APP_STATE_SUCCESSFUL);
+    /**
+     * Thrown while staging an import, to stop reading the imported state as soon as one of its entities clashes
+     */
+    private static class ImportClashException extends IOException {
+        private final LogStatus logStatus;
+        private final transient Supplier<Map<String, Object>> details;
 
+        ImportClashException(LogStatus logStatus, Supplier<Map<String, Object>> details) {
+            super(logStatus.toString());
+            this.logStatus = logStatus;
+            this.details = details;
+        }
     }
 
     @Override
@@ -250,4 +431,3 @@ public class LoadAppStateCommand implements ICommand<Boolean> {
         LOAD_APP_STATE_UNKNOWN_FAIL,
     }
 }
-
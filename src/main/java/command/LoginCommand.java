@@ -38,7 +38,7 @@ public class LoginCommand implements ICommand<User> {
             view.displayFailure(
                     "LoginCommand",
                     LogStatus.USER_LOGIN_EMAIL_NOT_REGISTERED,
-                    Map.of("email", email,
+                    () -> Map.of("email", email,
                             "password", "***")
             );
             userResult = null;
@@ -51,7 +51,7 @@ public class LoginCommand implements ICommand<User> {
             view.displayFailure(
                     "LoginCommand",
                     LogStatus.USER_LOGIN_WRONG_PASSWORD,
-                    Map.of("email", email,
+                    () -> Map.of("email", email,
                             "password", "***")
             );
             userResult = null;
@@ -62,7 +62,7 @@ public class LoginCommand implements ICommand<User> {
         view.displaySuccess(
                 "LoginCommand",
                 LogStatus.USER_LOGIN_SUCCESS,
-                Map.of("email", email,
+                () -> Map.of("email", email,
                         "password", "***")
         );
         userResult = user;
@@ -57,7 +57,7 @@ public class RegisterConsumerCommand implements ICommand<Consumer> {
             view.displayFailure(
                     "RegisterConsumerCommand",
                     LogStatus.USER_REGISTER_LOGGED_IN,
-                    Map.of("currentUser", currentUser)
+                    () -> Map.of("currentUser", currentUser)
             );
             newConsumerResult = null;
             return;
@@ -67,7 +67,7 @@ public class RegisterConsumerCommand implements ICommand<Consumer> {
             view.displayFailure(
                     "RegisterConsumerCommand",
                     LogStatus.USER_REGISTER_FIELDS_CANNOT_BE_NULL,
-                    Map.of("name", String.valueOf(name),
+                    () -> Map.of("name", String.valueOf(name),
                             "email", String.valueOf(email),
                             "phoneNumber", String.valueOf(phoneNumber),
                             "address", String.valueOf(address),
@@ -77,12 +77,12 @@ public class RegisterConsumerCommand implements ICommand<Consumer> {
             return;
         }
 
-        // Verify that there is no clashed email
+        // Verify that there is no clashed email, before hashing the password
         if (context.getUserState().getAllUsers().containsKey(email)) {
             view.displayFailure(
                     "RegisterConsumerCommand",
                     LogStatus.USER_REGISTER_EMAIL_ALREADY_REGISTERED,
-                    Map.of("email", email)
+                    () -> Map.of("email", email)
             );
             newConsumerResult = null;
             return;
@@ -98,14 +98,21 @@ public class RegisterConsumerCommand implements ICommand<Consumer> {
             } catch (Exception e) {
                 view.displayFailure("RegisterConsumerCommand",
                         LogStatus.USER_REGISTER_INVALID_ADDRESS_FORMAT,
-                        Map.of("address", address));
+                        () -> Map.of("address", address));
+                newConsumerResult = null;
+                return;
+            }
+
+            if (!mapSystem.awaitReady()) {
+                view.displayFailure("RegisterConsumerCommand", LogStatus.USER_REGISTER_MAP_NOT_READY,
+                        () -> Map.of("address", address));
                 newConsumerResult = null;
                 return;
             }
 
             if (!mapSystem.isPointWithinMapBounds(addressPoint)) {
                 view.displayFailure("RegisterConsumerCommand", LogStatus.USER_REGISTER_ADDRESS_OUT_OF_BOUNDS,
-                        Map.of("address", address));
+                        () -> Map.of("address", address));
                 newConsumerResult = null;
                 return;
             }
@@ -113,11 +120,20 @@ public class RegisterConsumerCommand implements ICommand<Consumer> {
 
         // Register consumer and add the consumer to the system
         Consumer consumer = new Consumer(name, email, phoneNumber, address, password);
-        context.getUserState().addUser(consumer);
+        // Another session may have registered the email since it was checked
+        if (!context.getUserState().tryAddUser(consumer)) {
+            view.displayFailure(
+                    "RegisterConsumerCommand",
+                    LogStatus.USER_REGISTER_EMAIL_ALREADY_REGISTERED,
+                    () -> Map.of("email", email)
+            );
+            newConsumerResult = null;
+            return;
+        }
         view.displaySuccess(
                 "RegisterConsumerCommand",
                 LogStatus.REGISTER_CONSUMER_SUCCESS,
-                Map.of("name", name,
+                () -> Map.of("name", name,
                         "email", email,
                         "phoneNumber", phoneNumber,
                         "address", String.valueOf(address),
@@ -129,7 +145,7 @@ public class RegisterConsumerCommand implements ICommand<Consumer> {
         view.displaySuccess(
                 "RegisterConsumerCommand",
                 LogStatus.USER_LOGIN_SUCCESS,
-                Map.of("email", email,
+                () -> Map.of("email", email,
                         "password", "***")
         );
         newConsumerResult = consumer;
@@ -145,6 +161,7 @@ public class RegisterConsumerCommand implements ICommand<Consumer> {
 
     private enum LogStatus {
         REGISTER_CONSUMER_SUCCESS,
+        USER_REGISTER_MAP_NOT_READY,
         USER_REGISTER_LOGGED_IN,
         USER_REGISTER_FIELDS_CANNOT_BE_NULL,
         USER_REGISTER_EMAIL_ALREADY_REGISTERED,
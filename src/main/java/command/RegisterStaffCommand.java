@@ -46,7 +46,7 @@ public class RegisterStaffCommand implements ICommand<Staff> {
             view.displayFailure(
                     "RegisterConsumerCommand",
                     LogStatus.USER_REGISTER_LOGGED_IN,
-                    Map.of("currentUser", currentUser)
+                    () -> Map.of("currentUser", currentUser)
             );
             newStaffResult = null;
             return;
@@ -58,7 +58,7 @@ public class RegisterStaffCommand implements ICommand<Staff> {
             view.displayFailure(
                     "RegisterStaffCommand",
                     LogStatus.USER_REGISTER_FIELDS_CANNOT_BE_NULL,
-                    Map.of("email", String.valueOf(email),
+                    () -> Map.of("email", String.valueOf(email),
                             "password", "***",
                             "secret", "***"
                     ));
@@ -70,7 +70,7 @@ public class RegisterStaffCommand implements ICommand<Staff> {
             view.displayFailure(
                     "RegisterStaffCommand",
                     LogStatus.USER_REGISTER_WRONG_STAFF_SECRET,
-                    Map.of("secret", "***"));
+                    () -> Map.of("secret", "***"));
             newStaffResult = null;
             return;
         }
@@ -79,19 +79,28 @@ public class RegisterStaffCommand implements ICommand<Staff> {
             view.displayFailure(
                     "RegisterStaffCommand",
                     LogStatus.USER_REGISTER_EMAIL_ALREADY_REGISTERED,
-                    Map.of("email", email)
+                    () -> Map.of("email", email)
             );
             newStaffResult = null;
             return;
         }
 
         Staff staff = new Staff(email, password);
-        context.getUserState().addUser(staff);
+        // Another session may have registered the email since it was checked
+        if (!context.getUserState().tryAddUser(staff)) {
+            view.displayFailure(
+                    "RegisterStaffCommand",
+                    LogStatus.USER_REGISTER_EMAIL_ALREADY_REGISTERED,
+                    () -> Map.of("email", email)
+            );
+            newStaffResult = null;
+            return;
+        }
 
         view.displaySuccess(
                 "RegisterStaffCommand",
                 LogStatus.REGISTER_STAFF_SUCCESS,
-                Map.of("email", email,
+                () -> Map.of("email", email,
                         "password", "***")
         );
 
@@ -99,7 +108,7 @@ public class RegisterStaffCommand implements ICommand<Staff> {
         view.displaySuccess(
                 "RegisterStaffCommand",
                 LogStatus.USER_LOGIN_SUCCESS,
-                Map.of("email", email,
+                () -> Map.of("email", email,
                         "password", "***")
         );
 
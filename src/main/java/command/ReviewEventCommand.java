@@ -44,7 +44,7 @@ public class ReviewEventCommand implements ICommand<Review> {
         Event eventToBeReviewed = eventState.findEventByNumber(eventNumber);
         if (eventToBeReviewed == null) {
             view.displayFailure("ReviewEventCommand", LogStatus.REVIEW_EVENT_EVENT_NUMBER_DOES_NOT_EXIST,
-                    Map.of("eventNumber", eventNumber));
+                    () -> Map.of("eventNumber", eventNumber));
             reviewResult = null;
             return;
         }
@@ -53,7 +53,7 @@ public class ReviewEventCommand implements ICommand<Review> {
         // Verify if the event is already over
         if (!eventEndTime.isBefore(LocalDateTime.now())) {
             view.displayFailure("ReviewEventCommand", LogStatus.REVIEW_EVENT_EVENT_NOT_OVER,
-                    Map.of("endDateTime", eventEndTime));
+                    () -> Map.of("endDateTime", eventEndTime));
             reviewResult = null;
             return;
         }
@@ -63,7 +63,7 @@ public class ReviewEventCommand implements ICommand<Review> {
         if (!(currentUser instanceof Consumer)) {
             view.displayFailure("BookEventCommand",
                     LogStatus.REVIEW_EVENT_USER_NOT_CONSUMER,
-                    Map.of("currentUser", currentUser != null ? currentUser : "none")
+                    () -> Map.of("currentUser", currentUser != null ? currentUser : "none")
             );
             reviewResult = null;
             return;
@@ -79,7 +79,7 @@ public class ReviewEventCommand implements ICommand<Review> {
         if (!ifConsumerHasBooking) {
             view.displayFailure("BookEventCommand",
                     LogStatus.REVIEW_EVENT_USER_HAVE_NO_BOOKING,
-                    Map.of("eventToBeReviewed", eventToBeReviewed)
+                    () -> Map.of("eventToBeReviewed", eventToBeReviewed)
             );
             reviewResult = null;
             return;
@@ -92,8 +92,9 @@ public class ReviewEventCommand implements ICommand<Review> {
         LocalDateTime creationTime = LocalDateTime.now();
         reviewResult = new Review(author, eventToBeReviewed, creationTime, content);
         eventToBeReviewed.addReview(reviewResult);
+        context.getEventState().markEventChanged(eventToBeReviewed);
         view.displaySuccess("ReviewEventCommand", LogStatus.REVIEW_EVENT_SUCCESS,
-                Map.of("author", author, "event", eventToBeReviewed,
+                () -> Map.of("author", author, "event", eventToBeReviewed,
                         "creationTime", creationTime, "content", content));
     }
 
@@ -4,27 +4,32 @@ import controller.Context;
 import model.Event;
 import model.Staff;
 import model.User;
+import state.SnapshotCodec;
 import view.IView;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
+import java.nio.file.Path;
 import java.util.Map;
 
 
 /**
  * {@link SaveAppStateCommand} allows {@link Staff} members to save the state of system.
+ * The state is saved as a binary snapshot written by {@link SnapshotCodec}, optionally compressed.
+ * Compressed snapshots are detected from their header when they are loaded.
  */
 public class SaveAppStateCommand implements ICommand<Boolean> {
     private String filename;
+    private boolean compressed;
     private Boolean exportResult;
 
     /**
      * @param filename           the location of file that going to save
+     * @param compressed         whether to compress the saved file
      */
-    public SaveAppStateCommand(String filename){
+    public SaveAppStateCommand(String filename, boolean compressed){
         this.exportResult = true;
         this.filename = filename;
+        this.compressed = compressed;
     }
 
 
@@ -41,18 +46,16 @@ public class SaveAppStateCommand implements ICommand<Boolean> {
             view.displayFailure(
                     "SaveAppStateCommand",
                     LogStatus.SAVE_APP_STATE_USER_NOT_STAFF,
-                    Map.of("user", currentUser != null ? currentUser : "none")
+                    () -> Map.of("user", currentUser != null ? currentUser : "none")
             );
             exportResult = false;
             return;
         }
 
         //Saving data
-        try (FileOutputStream fileOutputStream = new FileOutputStream(filename);
-             ObjectOutputStream objectOutputStream = new ObjectOutputStream(fileOutputStream)) {
-             objectOutputStream.writeObject(context);
-             fileOutputStream.close();
-             objectOutputStream.close();
+        try {
+            SnapshotCodec.write(Path.of(filename), context.getUserState(), context.getEventState(),
+                    context.getBookingState(), compressed);
 
             view.displaySuccess(
                     "SaveAppStateCommand",
@@ -63,7 +66,7 @@ public class SaveAppStateCommand implements ICommand<Boolean> {
             view.displayFailure(
                     "SaveAppStateCommand",
                     LogStatus.SAVE_APP_STATE_UNKNOWN_FAIL,
-                    Map.of("file: ", filename));
+                    () -> Map.of("file: ", filename));
             exportResult = false;
             return;
         }
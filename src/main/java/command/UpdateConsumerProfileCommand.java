@@ -66,7 +66,7 @@ public class UpdateConsumerProfileCommand extends UpdateProfileCommand {
             view.displayFailure(
                     "UpdateConsumerProfileCommand",
                     LogStatus.USER_UPDATE_PROFILE_FIELDS_CANNOT_BE_NULL,
-                    Map.of("oldPassword", "***",
+                    () -> Map.of("oldPassword", "***",
                             "newName", String.valueOf(newName),
                             "newEmail", String.valueOf(newEmail),
                             "newPhoneNumber", String.valueOf(newPhoneNumber),
@@ -104,7 +104,15 @@ public class UpdateConsumerProfileCommand extends UpdateProfileCommand {
             } catch(Exception e) {
                 view.displayFailure("UpdateConsumerProfileCommand",
                         LogStatus.USER_UPDATE_PROFILE_ADDRESS_INVALID,
-                        Map.of("newAddress", newAddress));
+                        () -> Map.of("newAddress", newAddress));
+                successResult = false;
+                return;
+            }
+
+            if (!mapSystem.awaitReady()) {
+                view.displayFailure("UpdateConsumerProfileCommand",
+                        LogStatus.USER_UPDATE_PROFILE_MAP_NOT_READY,
+                        () -> Map.of("newAddress", newAddress));
                 successResult = false;
                 return;
             }
@@ -113,7 +121,7 @@ public class UpdateConsumerProfileCommand extends UpdateProfileCommand {
             if (!mapSystem.isPointWithinMapBounds(addressPoint)) {
                 view.displayFailure("UpdateConsumerProfileCommand",
                         LogStatus.USER_UPDATE_PROFILE_ADDRESS_NOT_WITHIN_BOUNDARY,
-                        Map.of("newAddress", newAddress));
+                        () -> Map.of("newAddress", newAddress));
                 successResult = false;
                 return;
             }
@@ -127,7 +135,7 @@ public class UpdateConsumerProfileCommand extends UpdateProfileCommand {
             if (!possibleTags.containsKey(tagName)) {
                 view.displayFailure("UpdateConsumerProfileCommand",
                         LogStatus.USER_UPDATE_PROFILE_TAG_DO_NOT_EXIST,
-                        Map.of("newPreference", newPreferences));
+                        () -> Map.of("newPreference", newPreferences));
                 successResult = false;
                 return;
             }
@@ -137,24 +145,28 @@ public class UpdateConsumerProfileCommand extends UpdateProfileCommand {
             EventTag tag = possibleTags.get(tagName);
             if (!tag.getValues().contains(tagValue)) {
                 view.displayFailure("UpdateConsumerProfileCommand", LogStatus.USER_UPDATE_PROFILE_TAG_VALUE_DO_NOT_EXIST,
-                        Map.of("newPreference", newPreferences));
+                        () -> Map.of("newPreference", newPreferences));
                 successResult = false;
                 return;
             }
         }
 
-        changeUserEmail(context, newEmail);
+        if (!changeUserEmail(context, view, newEmail)) {
+            successResult = false;
+            return;
+        }
         currentUser.updatePassword(newPassword);
         Consumer consumer = (Consumer) currentUser;
         consumer.setName(newName);
         consumer.setPhoneNumber(newPhoneNumber);
         consumer.setAddress(newAddress);
         consumer.setPreferences(newPreferences);
+        context.getUserState().markUserChanged(consumer);
 
         view.displaySuccess(
                 "UpdateConsumerProfileCommand",
                 LogStatus.USER_UPDATE_PROFILE_SUCCESS,
-                Map.of("newName", newName,
+                () -> Map.of("newName", newName,
                         "newEmail", newEmail,
                         "newPhoneNumber", newPhoneNumber,
                         "newAddress", String.valueOf(newAddress),
@@ -168,6 +180,7 @@ public class UpdateConsumerProfileCommand extends UpdateProfileCommand {
         USER_UPDATE_PROFILE_FIELDS_CANNOT_BE_NULL,
         USER_UPDATE_PROFILE_NOT_CONSUMER,
         USER_UPDATE_PROFILE_ADDRESS_INVALID,
+        USER_UPDATE_PROFILE_MAP_NOT_READY,
         USER_UPDATE_PROFILE_ADDRESS_NOT_WITHIN_BOUNDARY,
         USER_UPDATE_PROFILE_TAG_DO_NOT_EXIST,
         USER_UPDATE_PROFILE_TAG_VALUE_DO_NOT_EXIST,
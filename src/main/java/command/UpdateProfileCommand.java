@@ -43,7 +43,7 @@ public abstract class UpdateProfileCommand implements ICommand<Boolean> {
             view.displayFailure(
                     "UpdateProfileCommand",
                     LogStatus.USER_UPDATE_PROFILE_EMAIL_ALREADY_IN_USE,
-                    Map.of("old email", currentUser.getEmail(),
+                    () -> Map.of("old email", currentUser.getEmail(),
                             "new email", newEmail)
             );
             return true;
@@ -54,21 +54,26 @@ public abstract class UpdateProfileCommand implements ICommand<Boolean> {
 
     /**
      * Common update method for profile changes that involve a change of email (used as unique user identifier).
-     * The method assumes error checking has already been performed before invoking this.
+     * The method assumes error checking has already been performed before invoking this, but another session may
+     * have taken the new email address since, which is checked again atomically with the change.
      * @param context  object that provides access to global application state
+     * @param view     allows passing information to the user interface
      * @param newEmail new email address for the current user
+     * @return True if the email address was changed, and false if it is already in use
      */
-    protected void changeUserEmail(Context context, String newEmail) {
+    protected boolean changeUserEmail(Context context, IView view, String newEmail) {
         User currentUser = context.getUserState().getCurrentUser();
         String oldEmail = currentUser.getEmail();
-        if (oldEmail.equals(newEmail)) {
-            // Email hasn't changed, no need to do anything
-            return;
+        if (!context.getUserState().tryChangeEmail(currentUser, newEmail)) {
+            view.displayFailure(
+                    "UpdateProfileCommand",
+                    LogStatus.USER_UPDATE_PROFILE_EMAIL_ALREADY_IN_USE,
+                    () -> Map.of("old email", oldEmail,
+                            "new email", newEmail)
+            );
+            return false;
         }
-
-        currentUser.setEmail(newEmail);
-        context.getUserState().getAllUsers().remove(oldEmail);
-        context.getUserState().addUser(currentUser);
+        return true;
     }
 
     /**
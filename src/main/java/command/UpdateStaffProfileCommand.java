@@ -45,7 +45,7 @@ public class UpdateStaffProfileCommand extends UpdateProfileCommand {
             view.displayFailure(
                     "UpdateStaffProfileCommand",
                     LogStatus.USER_UPDATE_PROFILE_FIELDS_CANNOT_BE_NULL,
-                    Map.of("oldPassword", "***",
+                    () -> Map.of("oldPassword", "***",
                             "newOrgEmail", String.valueOf(newEmail),
                             "newPassword", "***"
                     ));
@@ -69,13 +69,17 @@ public class UpdateStaffProfileCommand extends UpdateProfileCommand {
             return;
         }
 
-        changeUserEmail(context, newEmail);
+        if (!changeUserEmail(context, view, newEmail)) {
+            successResult = false;
+            return;
+        }
         currentUser.updatePassword(newPassword);
+        context.getUserState().markUserChanged(currentUser);
 
         view.displaySuccess(
                 "UpdateStaffProfileCommand",
                 LogStatus.USER_UPDATE_PROFILE_SUCCESS,
-                Map.of("newEmail", newEmail,
+                () -> Map.of("newEmail", newEmail,
                         "newPassword", "***")
         );
         successResult = true;
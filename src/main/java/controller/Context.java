@@ -2,8 +2,10 @@ package controller;
 
 import external.MapSystem;
 import external.MockPaymentSystem;
-import external.OfflineMapSystem;
+import external.NotificationOutbox;
+import external.PaymentPipeline;
 import external.PaymentSystem;
+import external.SharedMapSystem;
 import state.*;
 
 import java.beans.Transient;
@@ -26,11 +28,19 @@ public class Context implements AutoCloseable, Serializable {
     private final IUserState userState;
     private final IEventState eventState;
     private final IBookingState bookingState;
+    private final transient ITicketHoldState ticketHoldState;
+    private final transient NotificationOutbox notificationOutbox;
 
     private static final long serialVersionUID = 123456789L;
+    private static final int PAYMENT_MAX_BATCHES_IN_FLIGHT = 8;
+    private static final int PAYMENT_MAX_BATCH_SIZE = 32;
+
     /**
      * Initialises all the state members with default constructors of the concrete implementations:
-     * {@link UserState}, {@link EventState}, {@link MapSystem}, and {@link BookingState}.
+     * {@link UserState}, {@link EventState}, {@link MapSystem}, {@link BookingState}, and {@link TicketHoldState}.
+     * The {@link MapSystem} is a handle to the {@link SharedMapSystem}, which keeps loading in the background after
+     * this constructor returns. Payments are sent to the {@link MockPaymentSystem} through a {@link PaymentPipeline}.
+     * Consumers are notified through a {@link NotificationOutbox}.
      *
      * @param orgName Name of the organisation that owns this application instance
      * @param orgAddress Address of the organisation that owns this application instance
@@ -38,19 +48,45 @@ public class Context implements AutoCloseable, Serializable {
      * @param orgSecret Secret passcode only known to organisation staff, required for registering new Staff accounts
      */
     public Context(String orgName, String orgAddress, String orgEmail, String orgSecret) {
+        this(orgName, orgAddress, orgEmail, orgSecret, null);
+    }
+
+    /**
+     * Like {@link #Context(String, String, String, String)}, but starts from the users, events and bookings restored
+     * from a snapshot, such as the latest autosave, instead of empty states.
+     *
+     * @param orgName Name of the organisation that owns this application instance
+     * @param orgAddress Address of the organisation that owns this application instance
+     * @param orgEmail Email address of the organisation, used for payment transactions
+     * @param orgSecret Secret passcode only known to organisation staff, required for registering new Staff accounts
+     * @param restoredState State restored by {@link SnapshotCodec#read(java.nio.file.Path)} or
+     *                      {@link SnapshotCodec#readMapped(java.nio.file.Path)}, or null to start empty
+     */
+    public Context(String orgName, String orgAddress, String orgEmail, String orgSecret,
+                   StateSnapshot restoredState) {
         this.orgName = orgName;
         this.orgAddress = orgAddress;
         this.orgEmail = orgEmail;
         this.orgSecret = orgSecret;
-        this.paymentSystem = new MockPaymentSystem();
-        this.mapSystem = new OfflineMapSystem();
-        this.userState = new UserState();
-        this.eventState = new EventState();
-        this.bookingState = new BookingState();
+        this.paymentSystem = new PaymentPipeline(new MockPaymentSystem(),
+                PAYMENT_MAX_BATCHES_IN_FLIGHT, PAYMENT_MAX_BATCH_SIZE);
+        this.mapSystem = SharedMapSystem.acquire();
+        if (restoredState == null) {
+            this.userState = new UserState();
+            this.eventState = new EventState();
+            this.bookingState = new BookingState();
+        } else {
+            this.userState = restoredState.getUserState();
+            this.eventState = restoredState.getEventState();
+            this.bookingState = restoredState.getBookingState();
+        }
+        this.ticketHoldState = new TicketHoldState(eventState);
+        this.notificationOutbox = new NotificationOutbox();
     }
 
     /**
      * Copy constructor, makes a deep copy of another {@link Context}.
+     * The copy gets its own handle to the same {@link SharedMapSystem}, as the map data is never modified.
      *
      * @param other context to copy
      */
@@ -60,11 +96,48 @@ public class Context implements AutoCloseable, Serializable {
         orgAddress = other.orgAddress;
         orgEmail = other.orgEmail;
         orgSecret = other.orgSecret;
-        paymentSystem = new MockPaymentSystem((MockPaymentSystem) other.paymentSystem);
-        mapSystem = new OfflineMapSystem();
+        MockPaymentSystem otherPaymentSystem =
+                (MockPaymentSystem) ((PaymentPipeline) other.paymentSystem).getPaymentSystem();
+        paymentSystem = new PaymentPipeline(new MockPaymentSystem(otherPaymentSystem),
+                PAYMENT_MAX_BATCHES_IN_FLIGHT, PAYMENT_MAX_BATCH_SIZE);
+        mapSystem = SharedMapSystem.acquire();
         userState = new UserState(other.userState);
         eventState = new EventState(other.eventState);
         bookingState = new BookingState(other.bookingState);
+        // Holds only last for a short time, so the copy starts without any
+        ticketHoldState = new TicketHoldState(eventState);
+        notificationOutbox = new NotificationOutbox();
+    }
+
+    /**
+     * Session constructor, makes a view of another {@link Context} for a single {@link Session}.
+     * All the state and external systems are shared with the other context, except for the currently logged-in user.
+     *
+     * @param other context to share the state of
+     * @param sessionUserState user state of the session, sharing the registered users of the other context
+     */
+    private Context(Context other, SessionUserState sessionUserState) {
+        orgName = other.orgName;
+        orgAddress = other.orgAddress;
+        orgEmail = other.orgEmail;
+        orgSecret = other.orgSecret;
+        paymentSystem = other.paymentSystem;
+        mapSystem = other.mapSystem;
+        userState = sessionUserState;
+        eventState = other.eventState;
+        bookingState = other.bookingState;
+        ticketHoldState = other.ticketHoldState;
+        notificationOutbox = other.notificationOutbox;
+    }
+
+    /**
+     * Create a view of this context for a new {@link Session}, which has no user logged in.
+     * The view shares all the resources of this context, so it must not be closed itself.
+     *
+     * @return The context of the new session
+     */
+    Context createSessionContext() {
+        return new Context(this, new SessionUserState(userState));
     }
 
 
@@ -94,6 +167,14 @@ public class Context implements AutoCloseable, Serializable {
         return eventState;
     }
 
+    public ITicketHoldState getTicketHoldState() {
+        return ticketHoldState;
+    }
+
+    public NotificationOutbox getNotificationOutbox() {
+        return notificationOutbox;
+    }
+
 
     /**
      * Closes this resource, relinquishing any underlying resources.
@@ -103,6 +184,15 @@ public class Context implements AutoCloseable, Serializable {
     @Override
     public void close() throws Exception {
         paymentSystem.close();
+        if (mapSystem != null) {
+            mapSystem.close();
+        }
+        if (ticketHoldState != null) {
+            ticketHoldState.close();
+        }
+        if (notificationOutbox != null) {
+            notificationOutbox.close();
+        }
     }
 
     public MapSystem getMapSystem() {
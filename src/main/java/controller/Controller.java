@@ -1,10 +1,24 @@
 package controller;
 
 import command.ICommand;
+import state.AutoSave;
 import view.IView;
 
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * {@link Controller} is the main external interface of this application. It allows executing commands.
+ * Commands run with {@link #runCommand(ICommand)} act on behalf of the single console user. Many users can be served
+ * at the same time by opening a {@link Session} for each of them, and running or submitting their commands in their
+ * session. Commands of different sessions are executed concurrently on a pool of worker threads.
+ * Once a journal is set, the changes made by each command are committed to it as soon as the command has run.
+ * If the changes cannot be appended to the journal, they are saved to a new base instead, and if that fails too, the
+ * failure is shown in the view and the changes of the following commands are saved to a new base until it succeeds.
  */
 public class Controller {
     public Context getContext() {
@@ -13,6 +27,11 @@ public class Controller {
 
     private final Context context;
     private final IView view;
+    private final int numWorkerThreads;
+    private final AtomicLong nextSessionNumber;
+    private ExecutorService workers;
+    private volatile AutoSave journal;
+    private volatile boolean journalFailed;
 
     /**
      * The {@link Controller} keeps a reference to a {@link Context} object providing access to application state
@@ -22,8 +41,19 @@ public class Controller {
      * @param view View class that handles interactions with the user interface
      */
     public Controller(Context context, IView view) {
+        this(context, view, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param context Encapsulating class for application state and external systems
+     * @param view View class that handles interactions with the user interface
+     * @param numWorkerThreads Number of threads executing the commands submitted for sessions
+     */
+    public Controller(Context context, IView view, int numWorkerThreads) {
         this.context = context;
         this.view = view;
+        this.numWorkerThreads = numWorkerThreads;
+        this.nextSessionNumber = new AtomicLong(1);
     }
 
     /**
@@ -34,5 +64,108 @@ public class Controller {
      */
     public void runCommand(ICommand<?> command) {
         command.execute(context, view);
+        commitToJournal();
+    }
+
+    /**
+     * Set the {@link AutoSave} to commit the changes made by each command to, so that they are on disk by the time
+     * the command returns. The changes are journaled rather than the commands themselves, because running a command
+     * again would not give the same result.
+     *
+     * @param journal autosave whose base the changes are appended to, or null to stop journaling
+     */
+    public void setJournal(AutoSave journal) {
+        this.journal = journal;
+    }
+
+    private void commitToJournal() {
+        AutoSave currentJournal = journal;
+        if (currentJournal == null) {
+            return;
+        }
+        if (!journalFailed) {
+            try {
+                currentJournal.commit();
+                return;
+            } catch (IOException e) {
+                // The changes are recorded again, but nothing more can be appended to the current base
+            }
+        }
+        try {
+            currentJournal.save();
+            journalFailed = false;
+        } catch (IOException e) {
+            journalFailed = true;
+            view.displayFailure(
+                    "Controller",
+                    LogStatus.CONTROLLER_JOURNAL_FAILED,
+                    () -> Map.of("error", e)
+            );
+        }
+    }
+
+    /**
+     * Open a new {@link Session}, with no user logged in, sharing the application state of this {@link Controller}.
+     *
+     * @return The new session
+     */
+    public Session openSession() {
+        return new Session(nextSessionNumber.getAndIncrement(), context.createSessionContext());
+    }
+
+    /**
+     * Run a given command in a {@link Session} on the calling thread, so that it acts on behalf of the user logged in
+     * to that session. Commands of other sessions may be running at the same time.
+     *
+     * @param session session to run the command in
+     * @param command command to run
+     */
+    public void runCommand(Session session, ICommand<?> command) {
+        session.execute(command, view);
+        commitToJournal();
+    }
+
+    /**
+     * Submit a given command to be run in a {@link Session} by one of the worker threads of this {@link Controller}.
+     * The commands submitted for one session are run in the order they were submitted.
+     *
+     * @param session session to run the command in
+     * @param command command to run
+     * @param <T>     command result type
+     * @return A future that completes with the command result once the command has been run
+     */
+    public <T> CompletableFuture<T> submitCommand(Session session, ICommand<T> command) {
+        return session.submit(command, view, getWorkers()).thenApply(result -> {
+            commitToJournal();
+            return result;
+        });
+    }
+
+    // The worker threads are only started once a command is submitted, as most controllers only run console commands
+    private synchronized ExecutorService getWorkers() {
+        if (workers == null) {
+            AtomicLong nextThreadNumber = new AtomicLong(1);
+            workers = Executors.newFixedThreadPool(numWorkerThreads, runnable -> {
+                Thread thread = new Thread(runnable, "controller-worker-" + nextThreadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return workers;
+    }
+
+    /**
+     * Stop the worker threads once the commands submitted so far have been run. Commands can still be run on the
+     * calling thread afterwards.
+     */
+    public synchronized void shutdown() {
+        if (workers != null) {
+            workers.shutdown();
+            workers = null;
+        }
+    }
+
+    private enum LogStatus {
+        CONTROLLER_JOURNAL_FAILED,
     }
 }
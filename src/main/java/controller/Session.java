@@ -0,0 +1,83 @@
+package controller;
+
+import command.ICommand;
+import model.User;
+import view.IView;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link Session} represents a single user interacting with the application, for example through one connection.
+ * Each session has its own currently logged-in {@link User}, while all the other application state is shared between
+ * the sessions of a {@link Controller}. Sessions are created with {@link Controller#openSession()}.
+ *
+ * The commands of one session are executed one at a time, in the order they are run or submitted.
+ */
+public class Session {
+    private final long sessionNumber;
+    private final Context context;
+    private CompletableFuture<?> lastSubmittedCommand;
+
+    Session(long sessionNumber, Context context) {
+        this.sessionNumber = sessionNumber;
+        this.context = context;
+        this.lastSubmittedCommand = CompletableFuture.completedFuture(null);
+    }
+
+    public long getSessionNumber() {
+        return sessionNumber;
+    }
+
+    /**
+     * @return The context of this session, which shares all application state but the currently logged-in user
+     */
+    public Context getContext() {
+        return context;
+    }
+
+    /**
+     * @return The currently logged-in user of this session if there is one, or null otherwise
+     */
+    public User getCurrentUser() {
+        return context.getUserState().getCurrentUser();
+    }
+
+    /**
+     * Run a command in this session once all the commands submitted before it have been run, and wait for it to finish
+     *
+     * @param command command to run
+     * @param view    view the command reports to
+     */
+    void execute(ICommand<?> command, IView view) {
+        submit(command, view, Runnable::run).join();
+    }
+
+    /**
+     * Submit a command to be run in this session once all the commands submitted before it have been run.
+     * A command waiting for an external system does not occupy a thread of the executor in the meantime.
+     *
+     * @param command  command to run
+     * @param view     view the command reports to
+     * @param executor executor running the command
+     * @param <T>      command result type
+     * @return A future that completes with the command result once the command has been run
+     */
+    synchronized <T> CompletableFuture<T> submit(ICommand<T> command, IView view, Executor executor) {
+        // A command that threw an exception does not prevent the following commands from running
+        CompletableFuture<T> result = lastSubmittedCommand
+                .handle((previousResult, previousException) -> null)
+                .thenComposeAsync(ignored -> command.executeAsync(context, view), executor)
+                .thenApply(ignored -> command.getResult());
+        lastSubmittedCommand = result;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "Session{" +
+                "sessionNumber=" + sessionNumber +
+                ", currentUser=" + getCurrentUser() +
+                '}';
+    }
+}
@@ -0,0 +1,24 @@
+package external;
+
+import view.ConsoleOutput;
+
+import java.util.List;
+
+/**
+ * Mock {@link NotificationChannel} that prints every notification to STDOUT through {@link ConsoleOutput}, like
+ * {@link model.Consumer#notify(String)}.
+ * A real implementation would send an email and/or text to the consumer.
+ */
+public class ConsoleNotificationChannel implements NotificationChannel {
+    @Override
+    public void deliver(List<Notification> notifications) {
+        for (Notification notification : notifications) {
+            ConsoleOutput.println(notification.toLine());
+        }
+    }
+
+    @Override
+    public void close() {
+        // Nothing to close, STDOUT belongs to the whole application
+    }
+}
@@ -0,0 +1,40 @@
+package external;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * {@link NotificationChannel} that appends every notification as a line to a file, standing in for an email or text
+ * message gateway. The file is written once per batch, so a large batch of notifications costs a single write.
+ */
+public class FileNotificationChannel implements NotificationChannel {
+    private final BufferedWriter writer;
+
+    /**
+     * @param path file to append the notifications to, created if it does not exist
+     * @throws IOException if the file cannot be opened
+     */
+    public FileNotificationChannel(Path path) throws IOException {
+        writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void deliver(List<Notification> notifications) throws IOException {
+        for (Notification notification : notifications) {
+            writer.write(notification.toLine());
+            writer.newLine();
+        }
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
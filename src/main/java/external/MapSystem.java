@@ -5,7 +5,15 @@ import com.graphhopper.util.Translation;
 import com.graphhopper.util.shapes.GHPoint;
 import model.TransportMode;
 
-public interface MapSystem {
+import java.util.List;
+
+public interface MapSystem extends AutoCloseable {
+    /**
+     * Wait until the map system is ready to be used. Only {@link #convertToCoordinates(String)} can be used before that.
+     * @return True if the map system is ready, false if it could not be loaded.
+     */
+    boolean awaitReady();
+
     /**
      * Check the venue address for correctness and whether it fits the map boundaries.
      * @param address The venue address.
@@ -28,5 +36,21 @@ public interface MapSystem {
      */
     ResponsePath routeBetweenPoints(TransportMode transportMode, GHPoint startAddressPoint, GHPoint destinationAddressPoint);
 
+    /**
+     * Compute the length of the shortest route from one start {@link GHPoint} to each of many destination
+     * {@link GHPoint}s using the given {@link TransportMode}, in a single search from the start point that stops once
+     * routes get longer than maxDistance.
+     * @return The route distances in metres, in the same order as the destinations. A destination that cannot be
+     * reached within maxDistance gets {@link Double#POSITIVE_INFINITY}.
+     */
+    double[] routeDistancesFromPoint(TransportMode transportMode, GHPoint startAddressPoint,
+                                     List<GHPoint> destinationAddressPoints, double maxDistance);
+
     Translation getTranslation();
+
+    /**
+     * Release the resources held by the map system.
+     */
+    @Override
+    void close();
 }
@@ -1,9 +1,9 @@
 package external;
 
 import java.io.Serializable;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * A mock implementation of {@link PaymentSystem} for testing purposes.
@@ -16,6 +16,10 @@ import java.util.Objects;
  * Watch out for transactions made between the same people for the same amount more than once!
  * <p>
  * Hint: you may find it helpful to use an inner Transaction class, overriding its equals and hashCode methods
+ * <p>
+ * To stand in for a real payment provider, the mock can be configured to answer each request, or each batch of
+ * requests, after some latency and to fail a fraction of the payments. Delayed answers are given by a background
+ * thread, so asynchronous callers are never blocked.
  */
 public class MockPaymentSystem implements PaymentSystem, Serializable {
     private static final String ANSI_RESET = "\u001B[0m";
@@ -52,38 +56,130 @@ public class MockPaymentSystem implements PaymentSystem, Serializable {
 
     // Key = Transaction, Value = Count of same transactions
     private final Map<Transaction, Integer> transactions;
+    private final Duration latency;
+    private final double paymentFailureRate;
+    private final boolean printMessages;
+    private transient ScheduledExecutorService responder;
 
+    /**
+     * Create a mock that answers every request immediately, never fails payments, and prints every request
+     */
     public MockPaymentSystem() {
+        this(Duration.ZERO, 0, true);
+    }
+
+    /**
+     * @param latency            time taken to answer each request, or each batch of requests
+     * @param paymentFailureRate fraction of payments that fail, between 0 and 1
+     * @param printMessages      whether every request is printed to the standard error stream
+     */
+    public MockPaymentSystem(Duration latency, double paymentFailureRate, boolean printMessages) {
         transactions = new HashMap<>();
+        this.latency = latency;
+        this.paymentFailureRate = paymentFailureRate;
+        this.printMessages = printMessages;
     }
 
     public MockPaymentSystem(MockPaymentSystem other) {
-        transactions = new HashMap<>(other.transactions);
+        synchronized (other.transactions) {
+            transactions = new HashMap<>(other.transactions);
+        }
+        latency = other.latency;
+        paymentFailureRate = other.paymentFailureRate;
+        printMessages = other.printMessages;
     }
 
     @Override
     public boolean processPayment(String buyerAccountEmail, String sellerAccountEmail, double transactionAmount) {
-        printMessage("Processing payment", buyerAccountEmail, sellerAccountEmail, String.valueOf(transactionAmount));
-        Transaction transaction = new Transaction(buyerAccountEmail, sellerAccountEmail, transactionAmount);
-        transactions.put(transaction, transactions.getOrDefault(transaction, 0) + 1);
-        return true;
+        return processPaymentAsync(buyerAccountEmail, sellerAccountEmail, transactionAmount).join();
     }
 
     @Override
     public boolean processRefund(String buyerAccountEmail, String sellerAccountEmail, double transactionAmount) {
-        printMessage("Processing refund", buyerAccountEmail, sellerAccountEmail, String.valueOf(transactionAmount));
-        Transaction transaction = new Transaction(buyerAccountEmail, sellerAccountEmail, transactionAmount);
-        int transactionCount = transactions.getOrDefault(transaction, 0);
-        if (transactionCount <= 0) {
+        return processRefundAsync(buyerAccountEmail, sellerAccountEmail, transactionAmount).join();
+    }
+
+    /**
+     * Process the requests after the configured latency. A batch takes as long as a single request, like a single
+     * round trip to a real payment provider would.
+     */
+    @Override
+    public CompletableFuture<List<Boolean>> processBatchAsync(List<PaymentRequest> requests) {
+        if (latency.isZero() || latency.isNegative()) {
+            return CompletableFuture.completedFuture(processBatch(requests));
+        }
+        CompletableFuture<List<Boolean>> results = new CompletableFuture<>();
+        getResponder().schedule(() -> {
+            try {
+                results.complete(processBatch(requests));
+            } catch (RuntimeException e) {
+                results.completeExceptionally(e);
+            }
+        }, latency.toNanos(), TimeUnit.NANOSECONDS);
+        return results;
+    }
+
+    private synchronized ScheduledExecutorService getResponder() {
+        if (responder == null) {
+            responder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "mock-payment-system");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return responder;
+    }
+
+    private List<Boolean> processBatch(List<PaymentRequest> requests) {
+        List<Boolean> results = new ArrayList<>(requests.size());
+        for (PaymentRequest request : requests) {
+            if (request.getKind() == PaymentRequest.Kind.Payment) {
+                results.add(recordPayment(request.getBuyerAccountEmail(), request.getSellerAccountEmail(),
+                        request.getTransactionAmount()));
+            } else {
+                results.add(recordRefund(request.getBuyerAccountEmail(), request.getSellerAccountEmail(),
+                        request.getTransactionAmount()));
+            }
+        }
+        return results;
+    }
+
+    private boolean recordPayment(String buyerAccountEmail, String sellerAccountEmail, double transactionAmount) {
+        if (printMessages) {
+            printMessage("Processing payment", buyerAccountEmail, sellerAccountEmail, String.valueOf(transactionAmount));
+        }
+        if (paymentFailureRate > 0 && ThreadLocalRandom.current().nextDouble() < paymentFailureRate) {
             return false;
         }
-        transactions.put(transaction, transactionCount - 1);
+        Transaction transaction = new Transaction(buyerAccountEmail, sellerAccountEmail, transactionAmount);
+        synchronized (transactions) {
+            transactions.put(transaction, transactions.getOrDefault(transaction, 0) + 1);
+        }
+        return true;
+    }
+
+    private boolean recordRefund(String buyerAccountEmail, String sellerAccountEmail, double transactionAmount) {
+        if (printMessages) {
+            printMessage("Processing refund", buyerAccountEmail, sellerAccountEmail, String.valueOf(transactionAmount));
+        }
+        Transaction transaction = new Transaction(buyerAccountEmail, sellerAccountEmail, transactionAmount);
+        synchronized (transactions) {
+            int transactionCount = transactions.getOrDefault(transaction, 0);
+            if (transactionCount <= 0) {
+                return false;
+            }
+            transactions.put(transaction, transactionCount - 1);
+        }
         return true;
     }
 
     @Override
-    public void close() {
-        // No need to clean up any resources in the mock system. But it may be necessary in a real system,
-        // e.g., we might want to close any open network sockets or files
+    public synchronized void close() {
+        // The mock only has to stop the thread answering delayed requests. A real system may also need to clean up
+        // other resources, e.g., we might want to close any open network sockets or files
+        if (responder != null) {
+            responder.shutdown();
+            responder = null;
+        }
     }
 }
\ No newline at end of file
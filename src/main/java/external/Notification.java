@@ -0,0 +1,79 @@
+package external;
+
+import model.Consumer;
+
+import java.util.Objects;
+
+/**
+ * {@link Notification} is a single message to be delivered to a {@link Consumer} through a
+ * {@link NotificationChannel}. The contact details of the consumer are captured when the notification is created, so
+ * that it can be delivered after the consumer has changed them.
+ * <p>
+ * Two notifications are equal if they carry the same message to the same consumer, so that duplicates waiting in a
+ * {@link NotificationOutbox} can be coalesced.
+ */
+public class Notification {
+    private final String recipientEmail;
+    private final String recipientPhoneNumber;
+    private final String message;
+
+    /**
+     * @param recipient consumer to deliver the message to
+     * @param message   message to deliver
+     */
+    public Notification(Consumer recipient, String message) {
+        this(recipient.getEmail(), recipient.getPhoneNumber(), message);
+    }
+
+    /**
+     * @param recipientEmail       email address to deliver the message to
+     * @param recipientPhoneNumber phone number to deliver the message to
+     * @param message              message to deliver
+     */
+    public Notification(String recipientEmail, String recipientPhoneNumber, String message) {
+        this.recipientEmail = recipientEmail;
+        this.recipientPhoneNumber = recipientPhoneNumber;
+        this.message = message;
+    }
+
+    public String getRecipientEmail() {
+        return recipientEmail;
+    }
+
+    public String getRecipientPhoneNumber() {
+        return recipientPhoneNumber;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return The notification as a single line of text, in the same format as {@link Consumer#notify(String)}
+     */
+    public String toLine() {
+        return "Message to " + recipientEmail + " and " + recipientPhoneNumber + ": " + message;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Notification)) return false;
+        Notification other = (Notification) o;
+        return Objects.equals(recipientEmail, other.recipientEmail) && Objects.equals(message, other.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(recipientEmail, message);
+    }
+
+    @Override
+    public String toString() {
+        return "Notification{" +
+                "recipientEmail='" + recipientEmail + '\'' +
+                ", recipientPhoneNumber='" + recipientPhoneNumber + '\'' +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,22 @@
+package external;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Interface for the external channel that delivers {@link Notification}s to consumers, e.g., an email or text message
+ * gateway. A {@link NotificationOutbox} passes the notifications to its channel in batches, always from the same
+ * thread, so implementations do not need to be thread-safe.
+ */
+public interface NotificationChannel extends AutoCloseable {
+    /**
+     * Deliver a batch of notifications
+     *
+     * @param notifications notifications to deliver, in order
+     * @throws IOException if the batch could not be delivered
+     */
+    void deliver(List<Notification> notifications) throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,257 @@
+package external;
+
+import model.Consumer;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * {@link NotificationOutbox} delivers {@link Notification}s to consumers in the background, so that a command
+ * notifying many consumers, e.g., about a cancelled event, only has to enqueue the messages. A single background
+ * thread takes the queued notifications out in batches and passes them to a {@link NotificationChannel}, in the order
+ * they were enqueued.
+ * <p>
+ * The queue is bounded, so enqueueing waits for room when the channel cannot keep up. A notification equal to one
+ * that is still queued, i.e., the same message to the same consumer, is coalesced with it and only delivered once.
+ * The counters of the outbox, including the notifications a channel failed to deliver and the last failure, can be
+ * observed with {@link #getMetrics()}.
+ * It is thread-safe: the queue and the set of queued notifications are only accessed while holding one lock, so a
+ * notification is coalesced exactly while it is waiting in the queue.
+ */
+public class NotificationOutbox implements AutoCloseable {
+    private static final int DEFAULT_CAPACITY = 10_000;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 256;
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(10);
+
+    private final NotificationChannel channel;
+    private final int capacity;
+    private final int maxBatchSize;
+    private final Queue<Notification> queue;
+    private final Set<Notification> queuedNotifications;
+    private final Object deliveryLock;
+    private long numEnqueued;
+    private long numCoalesced;
+    private long numDelivered;
+    private long numFailed;
+    private long numBatches;
+    private Exception lastFailure;
+    private long firstEnqueuedNanos;
+    private Thread deliveryThread;
+    private boolean closed;
+
+    /**
+     * Create a new NotificationOutbox with no notifications, printing the notifications to STDOUT
+     */
+    public NotificationOutbox() {
+        this(new ConsoleNotificationChannel(), DEFAULT_CAPACITY, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Create a new NotificationOutbox with no notifications
+     *
+     * @param channel      channel delivering the notifications, closed together with the outbox
+     * @param capacity     maximum number of notifications waiting to be delivered
+     * @param maxBatchSize maximum number of notifications passed to the channel at once
+     */
+    public NotificationOutbox(NotificationChannel channel, int capacity, int maxBatchSize) {
+        if (capacity < 1 || maxBatchSize < 1) {
+            throw new IllegalArgumentException("capacity and maxBatchSize must be positive");
+        }
+        this.channel = channel;
+        this.capacity = capacity;
+        this.maxBatchSize = maxBatchSize;
+        queue = new ArrayDeque<>();
+        queuedNotifications = new HashSet<>();
+        deliveryLock = new Object();
+    }
+
+    /**
+     * Enqueue a message to be delivered to a consumer, without waiting for it to be delivered
+     *
+     * @param consumer consumer to notify
+     * @param message  message to deliver
+     * @return True if the message was enqueued or coalesced, false if the thread was interrupted while waiting for
+     * room in the queue
+     */
+    public boolean enqueue(Consumer consumer, String message) {
+        return enqueue(new Notification(consumer, message));
+    }
+
+    /**
+     * Enqueue a notification to be delivered, without waiting for it to be delivered. If the queue is full, this
+     * waits until there is room.
+     *
+     * @param notification notification to deliver
+     * @return True if the notification was enqueued or coalesced, false if the thread was interrupted while waiting
+     * for room in the queue
+     */
+    public boolean enqueue(Notification notification) {
+        synchronized (deliveryLock) {
+            while (true) {
+                if (closed) {
+                    throw new IllegalStateException("The notification outbox is closed");
+                }
+                if (queuedNotifications.contains(notification)) {
+                    ++numCoalesced;
+                    return true;
+                }
+                if (queue.size() < capacity) {
+                    break;
+                }
+                // Waiting releases the lock, so the delivery thread can take notifications out to make room
+                try {
+                    deliveryLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            queue.add(notification);
+            queuedNotifications.add(notification);
+            if (numEnqueued++ == 0) {
+                firstEnqueuedNanos = System.nanoTime();
+            }
+            startDeliveryThread();
+            deliveryLock.notifyAll();
+            return true;
+        }
+    }
+
+    /**
+     * Wait until all the notifications enqueued so far have been delivered, or failed to be delivered
+     *
+     * @param timeout maximum time to wait
+     * @return True if all the notifications were processed, false if the timeout elapsed first
+     */
+    public boolean flush(Duration timeout) throws InterruptedException {
+        long deadlineNanos = System.nanoTime() + timeout.toNanos();
+        synchronized (deliveryLock) {
+            long target = numEnqueued;
+            while (numDelivered + numFailed < target) {
+                long remainingNanos = deadlineNanos - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    return false;
+                }
+                deliveryLock.wait(remainingNanos / 1_000_000, (int) (remainingNanos % 1_000_000));
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return Number of notifications enqueued but not processed yet
+     */
+    public long getNumPending() {
+        synchronized (deliveryLock) {
+            return numEnqueued - numDelivered - numFailed;
+        }
+    }
+
+    /**
+     * @return Number of notifications delivered since this outbox was created
+     */
+    public long getNumDelivered() {
+        synchronized (deliveryLock) {
+            return numDelivered;
+        }
+    }
+
+    /**
+     * @return A snapshot of the counters of this outbox
+     */
+    public NotificationOutboxMetrics getMetrics() {
+        synchronized (deliveryLock) {
+            double deliveredPerSecond = 0;
+            if (numEnqueued > 0) {
+                double elapsedSeconds = (System.nanoTime() - firstEnqueuedNanos) / 1e9;
+                deliveredPerSecond = elapsedSeconds > 0 ? numDelivered / elapsedSeconds : 0;
+            }
+            return new NotificationOutboxMetrics(queue.size(), numEnqueued, numCoalesced, numDelivered, numFailed,
+                    numBatches, deliveredPerSecond, lastFailure);
+        }
+    }
+
+    // The background thread is only started once there are notifications, as most contexts never notify anyone
+    private void startDeliveryThread() {
+        if (deliveryThread != null) {
+            return;
+        }
+        deliveryThread = new Thread(this::deliverAll, "notification-outbox");
+        deliveryThread.setDaemon(true);
+        deliveryThread.start();
+    }
+
+    private void deliverAll() {
+        List<Notification> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (true) {
+                synchronized (deliveryLock) {
+                    while (queue.isEmpty()) {
+                        deliveryLock.wait();
+                    }
+                    // Once taken out of the queue, a notification can no longer be coalesced with new ones
+                    while (batch.size() < maxBatchSize && !queue.isEmpty()) {
+                        Notification notification = queue.remove();
+                        queuedNotifications.remove(notification);
+                        batch.add(notification);
+                    }
+                    deliveryLock.notifyAll();
+                }
+                Exception failure = null;
+                try {
+                    channel.deliver(batch);
+                } catch (IOException | RuntimeException e) {
+                    // A batch that cannot be delivered must not stop the delivery of the others, it is counted instead
+                    failure = e;
+                }
+                synchronized (deliveryLock) {
+                    if (failure == null) {
+                        numDelivered += batch.size();
+                    } else {
+                        numFailed += batch.size();
+                        lastFailure = failure;
+                    }
+                    ++numBatches;
+                    deliveryLock.notifyAll();
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // The outbox was closed
+        }
+    }
+
+    /**
+     * Deliver the notifications that are still queued, then stop the background thread and close the channel.
+     * Notifications cannot be enqueued after the outbox has been closed. If the calling thread is interrupted, it stops
+     * waiting for the queued notifications, and its interrupt status is set again.
+     */
+    @Override
+    public void close() throws IOException {
+        Thread threadToStop;
+        synchronized (deliveryLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            threadToStop = deliveryThread;
+        }
+        if (threadToStop != null) {
+            try {
+                flush(CLOSE_TIMEOUT);
+                threadToStop.interrupt();
+                threadToStop.join(CLOSE_TIMEOUT.toMillis());
+            } catch (InterruptedException e) {
+                threadToStop.interrupt();
+                Thread.currentThread().interrupt();
+            }
+        }
+        channel.close();
+    }
+}
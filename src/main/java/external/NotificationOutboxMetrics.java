@@ -0,0 +1,88 @@
+package external;
+
+/**
+ * {@link NotificationOutboxMetrics} is a snapshot of the counters of a {@link NotificationOutbox}, so that its
+ * delivery throughput and queue depth can be observed.
+ */
+public class NotificationOutboxMetrics {
+    private final int queueDepth;
+    private final long numEnqueued;
+    private final long numCoalesced;
+    private final long numDelivered;
+    private final long numFailed;
+    private final long numBatches;
+    private final double deliveredPerSecond;
+    private final Exception lastFailure;
+
+    /**
+     * @param queueDepth         number of notifications waiting to be delivered
+     * @param numEnqueued        number of notifications accepted into the queue
+     * @param numCoalesced       number of notifications dropped as duplicates of a notification already queued
+     * @param numDelivered       number of notifications delivered
+     * @param numFailed          number of notifications whose delivery failed
+     * @param numBatches         number of batches passed to the channel
+     * @param deliveredPerSecond average number of notifications delivered per second since the first was enqueued
+     * @param lastFailure        exception thrown by the channel the last time it failed to deliver a batch, or null
+     */
+    public NotificationOutboxMetrics(int queueDepth, long numEnqueued, long numCoalesced, long numDelivered,
+                                     long numFailed, long numBatches, double deliveredPerSecond,
+                                     Exception lastFailure) {
+        this.queueDepth = queueDepth;
+        this.numEnqueued = numEnqueued;
+        this.numCoalesced = numCoalesced;
+        this.numDelivered = numDelivered;
+        this.numFailed = numFailed;
+        this.numBatches = numBatches;
+        this.deliveredPerSecond = deliveredPerSecond;
+        this.lastFailure = lastFailure;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public long getNumEnqueued() {
+        return numEnqueued;
+    }
+
+    public long getNumCoalesced() {
+        return numCoalesced;
+    }
+
+    public long getNumDelivered() {
+        return numDelivered;
+    }
+
+    public long getNumFailed() {
+        return numFailed;
+    }
+
+    public long getNumBatches() {
+        return numBatches;
+    }
+
+    public double getDeliveredPerSecond() {
+        return deliveredPerSecond;
+    }
+
+    /**
+     * @return The exception thrown by the channel the last time it failed to deliver a batch, or null if it never did
+     */
+    public Exception getLastFailure() {
+        return lastFailure;
+    }
+
+    @Override
+    public String toString() {
+        return "NotificationOutboxMetrics{" +
+                "queueDepth=" + queueDepth +
+                ", numEnqueued=" + numEnqueued +
+                ", numCoalesced=" + numCoalesced +
+                ", numDelivered=" + numDelivered +
+                ", numFailed=" + numFailed +
+                ", numBatches=" + numBatches +
+                ", deliveredPerSecond=" + deliveredPerSecond +
+                ", lastFailure=" + lastFailure +
+                '}';
+    }
+}
@@ -4,15 +4,24 @@ import com.graphhopper.GHRequest;
 import com.graphhopper.GHResponse;
 import com.graphhopper.GraphHopper;
 import com.graphhopper.ResponsePath;
-import com.graphhopper.config.CHProfile;
 import com.graphhopper.config.Profile;
+import com.graphhopper.isochrone.algorithm.ShortestPathTree;
+import com.graphhopper.routing.ev.Subnetwork;
+import com.graphhopper.routing.querygraph.QueryGraph;
 import com.graphhopper.routing.util.DefaultSnapFilter;
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.index.LocationIndex;
+import com.graphhopper.storage.index.Snap;
+import com.graphhopper.util.PMap;
 import com.graphhopper.util.Translation;
 import com.graphhopper.util.TranslationMap;
 import com.graphhopper.util.shapes.GHPoint;
 import model.TransportMode;
 
-import java.util.Locale;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * An implementation of {@link MapSystem}.
@@ -23,7 +32,11 @@ import java.util.Locale;
  * The possible tranport modes for routing are bike, foot, car, and wheelchair.
  */
 public class OfflineMapSystem implements MapSystem{
+    private static final int ROUTE_CACHE_MAX_SIZE = 10000;
+    private static final long ROUTE_CACHE_TIME_TO_LIVE_MINUTES = 60;
+
     private GraphHopper hopper;
+    private final RouteCache routeCache;
 
     /**
      * Create a {@link MapSystem}
@@ -39,6 +52,18 @@ public class OfflineMapSystem implements MapSystem{
 
         // Setup the map data
         hopper.importOrLoad();
+
+        routeCache = new RouteCache(ROUTE_CACHE_MAX_SIZE, ROUTE_CACHE_TIME_TO_LIVE_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * The map data is loaded by the constructor, so the map system is always ready.
+     *
+     * @return True
+     */
+    @Override
+    public boolean awaitReady() {
+        return true;
     }
 
     /**
@@ -67,6 +92,8 @@ public class OfflineMapSystem implements MapSystem{
     /**
      * Compute the shortest route between two {@link GHPoint}s, which correspond to the start address and destination
      * address using the given {@link TransportMode}.
+     * Routes are cached by the road network nodes the two addresses snap to, so repeated requests from around the same
+     * start address to the same destination are answered from the {@link RouteCache}.
      *
      * @param transportMode      The {@link TransportMode} used to route between two addresses.
      * @param startAddress       The start address of routing.
@@ -75,6 +102,103 @@ public class OfflineMapSystem implements MapSystem{
      */
     @Override
     public ResponsePath routeBetweenPoints(TransportMode transportMode, GHPoint startAddress, GHPoint destinationAddress) {
+        String transMode = getProfileName(transportMode);
+
+        EdgeFilter snapFilter = createSnapFilter(transMode, createWeighting(transMode));
+        LocationIndex locationIndex = hopper.getLocationIndex();
+        Snap startSnap = locationIndex.findClosest(startAddress.getLat(), startAddress.getLon(), snapFilter);
+        Snap destinationSnap = locationIndex.findClosest(destinationAddress.getLat(), destinationAddress.getLon(), snapFilter);
+        boolean cacheable = startSnap.isValid() && destinationSnap.isValid();
+        if (cacheable) {
+            ResponsePath cachedPath = routeCache.get(transportMode, startSnap.getClosestNode(),
+                    destinationSnap.getClosestNode());
+            if (cachedPath != null) {
+                return cachedPath;
+            }
+        }
+
+        GHRequest req = new GHRequest(startAddress, destinationAddress).setProfile(transMode).setLocale(Locale.UK);
+        GHResponse rsp = hopper.route(req);
+        ResponsePath path = rsp.getBest();
+        // Failed routes are not cached
+        if (cacheable && !rsp.hasErrors()) {
+            routeCache.put(transportMode, startSnap.getClosestNode(), destinationSnap.getClosestNode(), path);
+        }
+        return path;
+    }
+
+    /**
+     * Compute the length of the shortest route from one start {@link GHPoint} to each of many destination
+     * {@link GHPoint}s using the given {@link TransportMode}. All the points are snapped to the road network at once,
+     * then a single shortest path tree is grown from the start point, using the same weighting as
+     * {@link #routeBetweenPoints(TransportMode, GHPoint, GHPoint)}, and cut off at maxDistance.
+     *
+     * @param transportMode        The {@link TransportMode} used to route between the addresses.
+     * @param startAddress         The start address of routing.
+     * @param destinationAddresses The destination addresses of routing.
+     * @param maxDistance          The maximum route distance in metres.
+     * @return                     The route distances in metres, in the same order as the destinations, or
+     *                             {@link Double#POSITIVE_INFINITY} for destinations not reachable within maxDistance.
+     */
+    @Override
+    public double[] routeDistancesFromPoint(TransportMode transportMode, GHPoint startAddress,
+                                            List<GHPoint> destinationAddresses, double maxDistance) {
+        double[] distances = new double[destinationAddresses.size()];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+
+        String profileName = getProfileName(transportMode);
+        Weighting weighting = createWeighting(profileName);
+        EdgeFilter snapFilter = createSnapFilter(profileName, weighting);
+
+        LocationIndex locationIndex = hopper.getLocationIndex();
+        Snap startSnap = locationIndex.findClosest(startAddress.getLat(), startAddress.getLon(), snapFilter);
+        if (!startSnap.isValid()) {
+            return distances;
+        }
+        List<Snap> snaps = new ArrayList<>();
+        snaps.add(startSnap);
+        Snap[] destinationSnaps = new Snap[destinationAddresses.size()];
+        for (int i = 0; i < destinationSnaps.length; ++i) {
+            GHPoint destination = destinationAddresses.get(i);
+            Snap snap = locationIndex.findClosest(destination.getLat(), destination.getLon(), snapFilter);
+            if (snap.isValid()) {
+                destinationSnaps[i] = snap;
+                snaps.add(snap);
+            }
+        }
+
+        // Snapping all points together makes the query graph contain a virtual node for each of them
+        QueryGraph queryGraph = QueryGraph.create(hopper.getBaseGraph(), snaps);
+        ShortestPathTree tree = new ShortestPathTree(queryGraph, queryGraph.wrapWeighting(weighting), false,
+                TraversalMode.NODE_BASED);
+        tree.setDistanceLimit(maxDistance);
+        Map<Integer, Double> distanceByNode = new HashMap<>();
+        tree.search(startSnap.getClosestNode(), label -> {
+            if (label.distance <= maxDistance) {
+                distanceByNode.putIfAbsent(label.node, label.distance);
+            }
+        });
+
+        for (int i = 0; i < destinationSnaps.length; ++i) {
+            if (destinationSnaps[i] != null) {
+                distances[i] = distanceByNode.getOrDefault(destinationSnaps[i].getClosestNode(), Double.POSITIVE_INFINITY);
+            }
+        }
+        return distances;
+    }
+
+    private Weighting createWeighting(String profileName) {
+        return hopper.createWeighting(hopper.getProfile(profileName), new PMap());
+    }
+
+    // Only snap to edges that are accessible with the profile and not in a small, disconnected subnetwork,
+    // like the router does
+    private EdgeFilter createSnapFilter(String profileName, Weighting weighting) {
+        return new DefaultSnapFilter(weighting,
+                hopper.getEncodingManager().getBooleanEncodedValue(Subnetwork.key(profileName)));
+    }
+
+    private static String getProfileName(TransportMode transportMode) {
         String transMode = "";
         switch (transportMode) {
             case car -> transMode = "car";
@@ -83,10 +207,7 @@ public class OfflineMapSystem implements MapSystem{
             case wheelchair -> transMode = "wheelchair";
             default -> transMode = "foot";
         }
-
-        GHRequest req = new GHRequest(startAddress, destinationAddress).setProfile(transMode).setLocale(Locale.UK);
-        GHResponse rsp = hopper.route(req);
-        return rsp.getBest();
+        return transMode;
     }
 
     @Override
@@ -97,6 +218,7 @@ public class OfflineMapSystem implements MapSystem{
     /**
      * Properly shutdown {@link GraphHopper}.
      */
+    @Override
     public void close() {
         hopper.close();
     }
@@ -104,4 +226,8 @@ public class OfflineMapSystem implements MapSystem{
     public GraphHopper getHopper() {
         return hopper;
     }
+
+    public RouteCache getRouteCache() {
+        return routeCache;
+    }
 }
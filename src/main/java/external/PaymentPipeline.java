@@ -0,0 +1,174 @@
+package external;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * {@link PaymentPipeline} is a {@link PaymentSystem} that passes requests on to another {@link PaymentSystem}
+ * asynchronously, with at most a fixed number of batches in flight at any time. Requests made while all the batches
+ * are in flight wait in a queue, and are sent together as one batch as soon as a batch completes. So under light
+ * load every request is sent on its own straight away, and under heavy load the requests are batched, without ever
+ * waiting for a batch to fill up.
+ */
+public class PaymentPipeline implements PaymentSystem {
+    private final PaymentSystem paymentSystem;
+    private final int maxBatchesInFlight;
+    private final int maxBatchSize;
+    private final Queue<PendingRequest> pendingRequests;
+    private int numBatchesInFlight;
+
+    /**
+     * @param paymentSystem      payment system to send the requests to
+     * @param maxBatchesInFlight maximum number of batches sent to the payment system that have not completed yet
+     * @param maxBatchSize       maximum number of requests in a batch
+     */
+    public PaymentPipeline(PaymentSystem paymentSystem, int maxBatchesInFlight, int maxBatchSize) {
+        if (maxBatchesInFlight < 1 || maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchesInFlight and maxBatchSize must be positive");
+        }
+        this.paymentSystem = paymentSystem;
+        this.maxBatchesInFlight = maxBatchesInFlight;
+        this.maxBatchSize = maxBatchSize;
+        this.pendingRequests = new ConcurrentLinkedQueue<>();
+        this.numBatchesInFlight = 0;
+    }
+
+    /**
+     * @return The payment system the requests are sent to
+     */
+    public PaymentSystem getPaymentSystem() {
+        return paymentSystem;
+    }
+
+    @Override
+    public boolean processPayment(String buyerAccountEmail, String sellerAccountEmail, double transactionAmount) {
+        return processPaymentAsync(buyerAccountEmail, sellerAccountEmail, transactionAmount).join();
+    }
+
+    @Override
+    public boolean processRefund(String buyerAccountEmail, String sellerAccountEmail, double transactionAmount) {
+        return processRefundAsync(buyerAccountEmail, sellerAccountEmail, transactionAmount).join();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> processPaymentAsync(String buyerAccountEmail, String sellerAccountEmail,
+                                                          double transactionAmount) {
+        return submit(new PaymentRequest(PaymentRequest.Kind.Payment, buyerAccountEmail, sellerAccountEmail,
+                transactionAmount));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> processRefundAsync(String buyerAccountEmail, String sellerAccountEmail,
+                                                         double transactionAmount) {
+        return submit(new PaymentRequest(PaymentRequest.Kind.Refund, buyerAccountEmail, sellerAccountEmail,
+                transactionAmount));
+    }
+
+    @Override
+    public CompletableFuture<List<Boolean>> processBatchAsync(List<PaymentRequest> requests) {
+        // All the requests are queued before any is sent, so that they are sent together even if the payment system
+        // completes each batch before it returns
+        List<CompletableFuture<Boolean>> results = new ArrayList<>(requests.size());
+        for (PaymentRequest request : requests) {
+            PendingRequest pendingRequest = new PendingRequest(request);
+            pendingRequests.add(pendingRequest);
+            results.add(pendingRequest.result);
+        }
+        sendBatches();
+        return CompletableFuture.allOf(results.toArray(CompletableFuture<?>[]::new)).thenApply(ignored -> {
+            List<Boolean> batchResults = new ArrayList<>(results.size());
+            for (CompletableFuture<Boolean> result : results) {
+                batchResults.add(result.join());
+            }
+            return batchResults;
+        });
+    }
+
+    private CompletableFuture<Boolean> submit(PaymentRequest request) {
+        PendingRequest pendingRequest = new PendingRequest(request);
+        pendingRequests.add(pendingRequest);
+        sendBatches();
+        return pendingRequest.result;
+    }
+
+    private void sendBatches() {
+        while (true) {
+            List<PendingRequest> batch = new ArrayList<>();
+            synchronized (this) {
+                if (numBatchesInFlight >= maxBatchesInFlight) {
+                    return;
+                }
+                PendingRequest pendingRequest;
+                while (batch.size() < maxBatchSize && (pendingRequest = pendingRequests.poll()) != null) {
+                    batch.add(pendingRequest);
+                }
+                if (batch.isEmpty()) {
+                    return;
+                }
+                ++numBatchesInFlight;
+            }
+            send(batch);
+        }
+    }
+
+    private void send(List<PendingRequest> batch) {
+        List<PaymentRequest> requests = new ArrayList<>(batch.size());
+        for (PendingRequest pendingRequest : batch) {
+            requests.add(pendingRequest.request);
+        }
+        CompletableFuture<List<Boolean>> results;
+        try {
+            results = paymentSystem.processBatchAsync(requests);
+        } catch (RuntimeException e) {
+            results = CompletableFuture.failedFuture(e);
+        }
+        results.whenComplete((batchResults, exception) -> {
+            synchronized (this) {
+                --numBatchesInFlight;
+            }
+            for (int i = 0; i < batch.size(); ++i) {
+                if (exception != null) {
+                    batch.get(i).result.completeExceptionally(exception);
+                } else {
+                    batch.get(i).result.complete(batchResults.get(i));
+                }
+            }
+            // The completed batch leaves room for the requests that queued up in the meantime
+            sendBatches();
+        });
+    }
+
+    /**
+     * Close the payment system the requests are sent to
+     *
+     * @throws IOException if the payment system could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            paymentSystem.close();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while closing the payment system");
+        } catch (Exception e) {
+            throw new IOException("Could not close the payment system", e);
+        }
+    }
+
+    private static class PendingRequest {
+        private final PaymentRequest request;
+        private final CompletableFuture<Boolean> result;
+
+        private PendingRequest(PaymentRequest request) {
+            this.request = request;
+            this.result = new CompletableFuture<>();
+        }
+    }
+}
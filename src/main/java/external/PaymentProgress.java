@@ -0,0 +1,96 @@
+package external;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link PaymentProgress} keeps track of a number of payment or refund requests that are processed in the background,
+ * e.g., the refunds of all the bookings of a cancelled event. It is thread-safe.
+ */
+public class PaymentProgress {
+    private final int numRequests;
+    private final AtomicInteger numSucceeded;
+    private final AtomicInteger numFailed;
+    private final AtomicInteger numDone;
+    private final CompletableFuture<PaymentProgress> completion;
+
+    /**
+     * @param numRequests number of requests to keep track of
+     */
+    public PaymentProgress(int numRequests) {
+        this.numRequests = numRequests;
+        this.numSucceeded = new AtomicInteger(0);
+        this.numFailed = new AtomicInteger(0);
+        this.numDone = new AtomicInteger(0);
+        this.completion = new CompletableFuture<>();
+        if (numRequests == 0) {
+            completion.complete(this);
+        }
+    }
+
+    /**
+     * Record the results of some of the requests
+     *
+     * @param results whether each request was successful
+     */
+    public void recordResults(List<Boolean> results) {
+        int succeeded = 0;
+        for (Boolean result : results) {
+            if (Boolean.TRUE.equals(result)) {
+                ++succeeded;
+            }
+        }
+        recordResults(succeeded, results.size() - succeeded);
+    }
+
+    /**
+     * Record the results of some of the requests
+     *
+     * @param succeeded number of requests that were successful
+     * @param failed    number of requests that failed
+     */
+    public void recordResults(int succeeded, int failed) {
+        numSucceeded.addAndGet(succeeded);
+        numFailed.addAndGet(failed);
+        if (numDone.addAndGet(succeeded + failed) >= numRequests) {
+            completion.complete(this);
+        }
+    }
+
+    public int getNumRequests() {
+        return numRequests;
+    }
+
+    public int getNumSucceeded() {
+        return numSucceeded.get();
+    }
+
+    public int getNumFailed() {
+        return numFailed.get();
+    }
+
+    public int getNumPending() {
+        return numRequests - numDone.get();
+    }
+
+    public boolean isDone() {
+        return completion.isDone();
+    }
+
+    /**
+     * @return A future that completes with this progress once the results of all the requests have been recorded
+     */
+    public CompletableFuture<PaymentProgress> getCompletion() {
+        return completion;
+    }
+
+    @Override
+    public String toString() {
+        return "PaymentProgress{" +
+                "numRequests=" + numRequests +
+                ", numSucceeded=" + numSucceeded +
+                ", numFailed=" + numFailed +
+                '}';
+    }
+}
@@ -0,0 +1,59 @@
+package external;
+
+/**
+ * {@link PaymentRequest} is a single payment or refund to be processed by a {@link PaymentSystem}, so that several of
+ * them can be submitted together with {@link PaymentSystem#processBatchAsync(java.util.List)}.
+ */
+public class PaymentRequest {
+    /**
+     * Whether money is transferred from the buyer to the seller, or back
+     */
+    public enum Kind {
+        Payment,
+        Refund,
+    }
+
+    private final Kind kind;
+    private final String buyerAccountEmail;
+    private final String sellerAccountEmail;
+    private final double transactionAmount;
+
+    /**
+     * @param kind               whether this is a payment or a refund
+     * @param buyerAccountEmail  email address of the buyer's account on the payment system
+     * @param sellerAccountEmail email address of the seller's account on the payment system
+     * @param transactionAmount  amount to be transferred in GBP pence
+     */
+    public PaymentRequest(Kind kind, String buyerAccountEmail, String sellerAccountEmail, double transactionAmount) {
+        this.kind = kind;
+        this.buyerAccountEmail = buyerAccountEmail;
+        this.sellerAccountEmail = sellerAccountEmail;
+        this.transactionAmount = transactionAmount;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getBuyerAccountEmail() {
+        return buyerAccountEmail;
+    }
+
+    public String getSellerAccountEmail() {
+        return sellerAccountEmail;
+    }
+
+    public double getTransactionAmount() {
+        return transactionAmount;
+    }
+
+    @Override
+    public String toString() {
+        return "PaymentRequest{" +
+                "kind=" + kind +
+                ", buyerAccountEmail='" + buyerAccountEmail + '\'' +
+                ", sellerAccountEmail='" + sellerAccountEmail + '\'' +
+                ", transactionAmount=" + transactionAmount +
+                '}';
+    }
+}
@@ -1,10 +1,17 @@
 package external;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Interface for the external {@link PaymentSystem} (e.g., PayPal, Transferwise, or similar). It allows requesting for
  * payments to be made from one party to another (both are assumed to be already registered on the payment system), or
  * for payments to be refunded. There is only one {@link PaymentSystem} and all users of this application use the same
  * system. Payments and refunds can succeed or fail, this is indicated by the return values.
+ * <p>
+ * Payments and refunds can also be requested asynchronously, on their own or in batches, so that the caller does not
+ * have to wait for the payment provider. By default, the asynchronous methods simply call the blocking ones.
  */
 public interface PaymentSystem extends AutoCloseable {
     /**
@@ -24,4 +31,64 @@ public interface PaymentSystem extends AutoCloseable {
      * @return True if successful and false otherwise
      */
     boolean processRefund(String buyerAccountEmail, String sellerAccountEmail, double transactionAmount);
+
+    /**
+     * Request several payments and refunds to be processed together
+     * @param requests payments and refunds to process
+     * @return A future that completes with whether each request was successful, in the same order as the requests
+     */
+    default CompletableFuture<List<Boolean>> processBatchAsync(List<PaymentRequest> requests) {
+        List<Boolean> results = new ArrayList<>(requests.size());
+        for (PaymentRequest request : requests) {
+            if (request.getKind() == PaymentRequest.Kind.Payment) {
+                results.add(processPayment(request.getBuyerAccountEmail(), request.getSellerAccountEmail(),
+                        request.getTransactionAmount()));
+            } else {
+                results.add(processRefund(request.getBuyerAccountEmail(), request.getSellerAccountEmail(),
+                        request.getTransactionAmount()));
+            }
+        }
+        return CompletableFuture.completedFuture(results);
+    }
+
+    /**
+     * Request many payments to be refunded together, e.g., all the bookings of a cancelled event
+     * @param refunds refunds to process, all of kind {@link PaymentRequest.Kind#Refund}
+     * @return A future that completes with whether each refund was successful, in the same order as the refunds
+     */
+    default CompletableFuture<List<Boolean>> processRefunds(List<PaymentRequest> refunds) {
+        for (PaymentRequest refund : refunds) {
+            if (refund.getKind() != PaymentRequest.Kind.Refund) {
+                throw new IllegalArgumentException("Not a refund: " + refund);
+            }
+        }
+        return processBatchAsync(refunds);
+    }
+
+    /**
+     * Request a payment to be made from the buyer to the seller for a given transaction amount, without waiting for it
+     * @param buyerAccountEmail email address of the buyer's account on the payment system
+     * @param sellerAccountEmail email address of the seller's account on the payment system
+     * @param transactionAmount amount to be transferred in GBP pence
+     * @return A future that completes with true if successful and false otherwise
+     */
+    default CompletableFuture<Boolean> processPaymentAsync(String buyerAccountEmail, String sellerAccountEmail,
+                                                           double transactionAmount) {
+        return processBatchAsync(List.of(new PaymentRequest(PaymentRequest.Kind.Payment, buyerAccountEmail,
+                sellerAccountEmail, transactionAmount))).thenApply(results -> results.get(0));
+    }
+
+    /**
+     * Request a payment to be refunded from the seller to the buyer for a given transaction amount, without waiting
+     * for it
+     * @param buyerAccountEmail email address of the buyer's account on the payment system
+     * @param sellerAccountEmail email address of the seller's account on the payment system
+     * @param transactionAmount amount to be transferred in GBP pence
+     * @return A future that completes with true if successful and false otherwise
+     */
+    default CompletableFuture<Boolean> processRefundAsync(String buyerAccountEmail, String sellerAccountEmail,
+                                                          double transactionAmount) {
+        return processBatchAsync(List.of(new PaymentRequest(PaymentRequest.Kind.Refund, buyerAccountEmail,
+                sellerAccountEmail, transactionAmount))).thenApply(results -> results.get(0));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,153 @@
+package external;
+
+import com.graphhopper.ResponsePath;
+import model.TransportMode;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RouteCache} is a bounded cache of routing results, keyed by the {@link TransportMode} and the road network
+ * nodes that the start and destination points snap to. Entries are evicted least recently used first once the cache
+ * is full, and are dropped when they are older than the time to live.
+ *
+ * The numbers of hits, misses and evictions are counted so that the effectiveness of the cache can be observed.
+ */
+public class RouteCache {
+    private final int maxSize;
+    private final long timeToLiveNanos;
+    private final LinkedHashMap<Key, Entry> entries;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Create a new, empty {@link RouteCache}
+     *
+     * @param maxSize    maximum number of routes kept in the cache
+     * @param timeToLive how long a route is kept in the cache
+     * @param unit       unit of timeToLive
+     */
+    RouteCache(int maxSize, long timeToLive, TimeUnit unit) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.timeToLiveNanos = unit.toNanos(timeToLive);
+        // Access order makes the eldest entry the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * @param transportMode   transport mode of the route
+     * @param startNode       road network node the start point snaps to
+     * @param destinationNode road network node the destination point snaps to
+     * @return The cached route, or null if there is none or it has expired
+     */
+    synchronized ResponsePath get(TransportMode transportMode, int startNode, int destinationNode) {
+        Key key = new Key(transportMode, startNode, destinationNode);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            ++missCount;
+            return null;
+        }
+        if (System.nanoTime() - entry.createdAtNanos > timeToLiveNanos) {
+            entries.remove(key);
+            ++evictionCount;
+            ++missCount;
+            return null;
+        }
+        ++hitCount;
+        return entry.path;
+    }
+
+    /**
+     * Add a route to the cache, evicting the least recently used routes if the cache is full
+     *
+     * @param transportMode   transport mode of the route
+     * @param startNode       road network node the start point snaps to
+     * @param destinationNode road network node the destination point snaps to
+     * @param path            route to cache
+     */
+    synchronized void put(TransportMode transportMode, int startNode, int destinationNode, ResponsePath path) {
+        entries.put(new Key(transportMode, startNode, destinationNode), new Entry(path, System.nanoTime()));
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxSize) {
+            eldest.next();
+            eldest.remove();
+            ++evictionCount;
+        }
+    }
+
+    /**
+     * Remove all routes from the cache. The counters are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "RouteCache{" +
+                "size=" + entries.size() +
+                ", hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", evictionCount=" + evictionCount +
+                '}';
+    }
+
+    private static class Key {
+        private final TransportMode transportMode;
+        private final int startNode;
+        private final int destinationNode;
+
+        private Key(TransportMode transportMode, int startNode, int destinationNode) {
+            this.transportMode = transportMode;
+            this.startNode = startNode;
+            this.destinationNode = destinationNode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return startNode == key.startNode && destinationNode == key.destinationNode
+                    && transportMode == key.transportMode;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(transportMode, startNode, destinationNode);
+        }
+    }
+
+    private static class Entry {
+        private final ResponsePath path;
+        private final long createdAtNanos;
+
+        private Entry(ResponsePath path, long createdAtNanos) {
+            this.path = path;
+            this.createdAtNanos = createdAtNanos;
+        }
+    }
+}
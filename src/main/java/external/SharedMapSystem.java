@@ -0,0 +1,143 @@
+package external;
+
+import com.graphhopper.ResponsePath;
+import com.graphhopper.util.Translation;
+import com.graphhopper.util.shapes.GHPoint;
+import model.TransportMode;
+
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * {@link SharedMapSystem} is a reference-counted handle to a single {@link OfflineMapSystem} shared by the whole
+ * application, so that the routing graph is only loaded into memory once no matter how many handles are acquired.
+ *
+ * The first {@link #acquire()} starts loading the {@link OfflineMapSystem} in the background and returns immediately.
+ * Operations that need the routing graph wait for the loading to finish, see {@link #awaitReady()}.
+ * When the last handle is closed, the shared {@link OfflineMapSystem} is closed as well.
+ */
+public class SharedMapSystem implements MapSystem {
+    // Importing the map for the first time can take a few minutes, after that it is loaded from the graph cache
+    private static final long READY_TIMEOUT_MINUTES = 10;
+
+    private static final Object lock = new Object();
+    private static CompletableFuture<OfflineMapSystem> sharedMapSystem;
+    private static int referenceCount;
+
+    private final CompletableFuture<OfflineMapSystem> mapSystem;
+    private boolean closed;
+
+    private SharedMapSystem(CompletableFuture<OfflineMapSystem> mapSystem) {
+        this.mapSystem = mapSystem;
+    }
+
+    /**
+     * Acquire a handle to the shared {@link OfflineMapSystem}, starting to load it if there is no handle yet.
+     * Each acquired handle must be closed once it is no longer used.
+     *
+     * @return A new handle to the shared map system
+     */
+    public static SharedMapSystem acquire() {
+        synchronized (lock) {
+            if (referenceCount == 0) {
+                ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "map-system-loader");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                sharedMapSystem = CompletableFuture.supplyAsync(OfflineMapSystem::new, loader);
+                loader.shutdown();
+            }
+            ++referenceCount;
+            return new SharedMapSystem(sharedMapSystem);
+        }
+    }
+
+    /**
+     * @return A future that completes once the routing graph has been loaded
+     */
+    public CompletableFuture<?> getReadiness() {
+        return mapSystem;
+    }
+
+    /**
+     * Wait until the routing graph has been loaded, for at most {@link #READY_TIMEOUT_MINUTES} minutes.
+     *
+     * @return True if the map system can be used, false if loading failed or timed out
+     */
+    @Override
+    public boolean awaitReady() {
+        try {
+            mapSystem.get(READY_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    private OfflineMapSystem getLoaded() {
+        if (!awaitReady()) {
+            throw new IllegalStateException("The map system is not available");
+        }
+        return mapSystem.join();
+    }
+
+    /**
+     * Parsing an address does not need the routing graph, so this does not wait for it to be loaded.
+     */
+    @Override
+    public GHPoint convertToCoordinates(String address) {
+        return GHPoint.fromString(address);
+    }
+
+    @Override
+    public boolean isPointWithinMapBounds(GHPoint addressPoint) {
+        return getLoaded().isPointWithinMapBounds(addressPoint);
+    }
+
+    @Override
+    public ResponsePath routeBetweenPoints(TransportMode transportMode, GHPoint startAddressPoint,
+                                           GHPoint destinationAddressPoint) {
+        return getLoaded().routeBetweenPoints(transportMode, startAddressPoint, destinationAddressPoint);
+    }
+
+    @Override
+    public double[] routeDistancesFromPoint(TransportMode transportMode, GHPoint startAddressPoint,
+                                            List<GHPoint> destinationAddressPoints, double maxDistance) {
+        return getLoaded().routeDistancesFromPoint(transportMode, startAddressPoint, destinationAddressPoints,
+                maxDistance);
+    }
+
+    @Override
+    public Translation getTranslation() {
+        return getLoaded().getTranslation();
+    }
+
+    /**
+     * @return The cache of routes of the shared map system, waiting for it to be loaded
+     */
+    public RouteCache getRouteCache() {
+        return getLoaded().getRouteCache();
+    }
+
+    /**
+     * Release this handle. Closing the last handle closes the shared {@link OfflineMapSystem}, once it has been loaded.
+     * Closing a handle more than once has no further effect.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (--referenceCount == 0) {
+                sharedMapSystem.thenAccept(OfflineMapSystem::close);
+                sharedMapSystem = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package external;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * {@link NotificationChannel} that sends every notification as a line of text to a local socket, standing in for an
+ * email or text message gateway running as a separate service. The connection is opened on the first batch, and
+ * opened again on the next batch if sending fails.
+ */
+public class SocketNotificationChannel implements NotificationChannel {
+    private final String host;
+    private final int port;
+    private Socket socket;
+    private BufferedWriter writer;
+
+    /**
+     * @param host host name of the gateway, usually localhost
+     * @param port port the gateway listens on
+     */
+    public SocketNotificationChannel(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    @Override
+    public void deliver(List<Notification> notifications) throws IOException {
+        try {
+            if (socket == null) {
+                socket = new Socket(host, port);
+                writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            }
+            for (Notification notification : notifications) {
+                writer.write(notification.toLine());
+                writer.newLine();
+            }
+            writer.flush();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        Socket socketToClose = socket;
+        socket = null;
+        writer = null;
+        if (socketToClose != null) {
+            socketToClose.close();
+        }
+    }
+}
@@ -3,18 +3,25 @@ package model;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * {@link Booking} represents a booking made by a {@link Consumer} for an {@link Event}.
  * The number of tickets cannot be negative. The {@link BookingStatus} is ACTIVE by default.
  */
 public class Booking implements Serializable {
-    private long bookingNumber;
+    // Final, as the booking number identifies the booking in equals and hashCode
+    private final long bookingNumber;
     private final Consumer booker;
     private final Event event;
     private final int numTickets;
     private final LocalDateTime bookingDateTime;
-    private BookingStatus status;
+    // Read by the autosave while the booking may be cancelled on another thread, and only cancelled through STATUS,
+    // so that a consumer and the provider cannot both cancel and refund it
+    private volatile BookingStatus status;
+
+    private static final AtomicReferenceFieldUpdater<Booking, BookingStatus> STATUS =
+            AtomicReferenceFieldUpdater.newUpdater(Booking.class, BookingStatus.class, "status");
 
 
     /**
@@ -37,6 +44,19 @@ public class Booking implements Serializable {
         this.bookingDateTime = bookingDateTime;
     }
 
+    /**
+     * Copy a Booking under another booking number, e.g. when it is imported into a state that numbers its bookings
+     * itself
+     *
+     * @param bookingNumber unique identifier of the copy
+     * @param event         the {@link Event} the copy is for, which may itself be a copy of the event of the booking
+     * @param other         booking to copy
+     */
+    public Booking(long bookingNumber, Event event, Booking other) {
+        this(bookingNumber, other.booker, event, other.numTickets, other.bookingDateTime);
+        this.status = other.status;
+    }
+
     public long getBookingNumber() {
         return bookingNumber;
     }
@@ -57,10 +77,6 @@ public class Booking implements Serializable {
         return numTickets;
     }
 
-    public void setBookingNumber(long number){
-        this.bookingNumber = number;
-    }
-
     public LocalDateTime getBookingDateTime() {
         return bookingDateTime;
     }
@@ -79,6 +95,50 @@ public class Booking implements Serializable {
         this.status = BookingStatus.CancelledByProvider;
     }
 
+    /**
+     * Sets the {@link #status} to the one read from a saved state, whichever it is
+     *
+     * @param status status of the booking when it was saved
+     */
+    public void restoreStatus(BookingStatus status) {
+        this.status = status;
+    }
+
+    /**
+     * Atomically set the {@link #status} to {@link BookingStatus#CancelledByConsumer}, if the booking is still active
+     *
+     * @return True if the booking was cancelled, false if it had been cancelled already
+     */
+    public boolean tryCancelByConsumer() {
+        return STATUS.compareAndSet(this, BookingStatus.Active, BookingStatus.CancelledByConsumer);
+    }
+
+    /**
+     * Atomically set the {@link #status} to {@link BookingStatus#CancelledByProvider}, if the booking is still active
+     *
+     * @return True if the booking was cancelled, false if it had been cancelled already
+     */
+    public boolean tryCancelByProvider() {
+        return STATUS.compareAndSet(this, BookingStatus.Active, BookingStatus.CancelledByProvider);
+    }
+
+    /**
+     * Undo {@link #tryCancelByConsumer()}, e.g. when the refund failed, so that the booking is active again
+     */
+    public void undoCancelByConsumer() {
+        STATUS.compareAndSet(this, BookingStatus.CancelledByConsumer, BookingStatus.Active);
+    }
+
+    /**
+     * Turn {@link #tryCancelByConsumer()} into a cancellation by the provider, e.g. when the refund failed and the
+     * event was cancelled in the meantime, so that the booking must not become active again
+     *
+     * @return True if the booking had been cancelled by the consumer, false otherwise
+     */
+    public boolean transferCancelToProvider() {
+        return STATUS.compareAndSet(this, BookingStatus.CancelledByConsumer, BookingStatus.CancelledByProvider);
+    }
+
     @Override
     public String toString() {
         return "Booking{" +
@@ -91,40 +151,42 @@ public class Booking implements Serializable {
                 '}';
     }
 
+    /**
+     * Bookings are identified by their booking number, so that hashing or comparing a booking does not have to look
+     * at its booker and event. Use {@link #deepEquals(Booking)} to compare all the details of two bookings.
+     */
     @Override
     public boolean equals(Object o) {
-
-        // If the object is compared with itself then return true
         if (o == this) {
             return true;
         }
-
-        // Check if o is an instance of Booking or not
-
         if (!(o instanceof Booking)) {
             return false;
         }
-
-        // typecast o to Booking so that we can compare data members
-        Booking c = (Booking) o;
-
-
-        // Compare the data members and return accordingly
-        return bookingNumber == c.bookingNumber && booker.equals(c.booker) && event.equals(c.event) && numTickets == c.numTickets &&
-                bookingDateTime.equals(c.bookingDateTime) && status.equals(c.status);
+        return bookingNumber == ((Booking) o).bookingNumber;
     }
 
     @Override
     public int hashCode() {
-        int hash = 7;
-        hash = 6 * hash + (int)bookingNumber;
-        hash = 6 * hash + booker.hashCode();
-        hash = 6 * hash + event.hashCode();
-        hash = 6 * hash + bookingDateTime.hashCode();
-        hash = 6 * hash + status.hashCode();
-
-        hash += numTickets;
+        return Long.hashCode(bookingNumber);
+    }
 
-        return hash;
+    /**
+     * Compare all the details of this booking with another booking. The booker and the event are compared by their
+     * identity, as a deep comparison of the booker would come back to this booking through their bookings.
+     *
+     * @param other booking to compare with
+     * @return True if both bookings have the same details and false otherwise
+     */
+    public boolean deepEquals(Booking other) {
+        if (other == this) {
+            return true;
+        }
+        if (other == null) {
+            return false;
+        }
+        return bookingNumber == other.bookingNumber && booker.equals(other.booker) && event.equals(other.event)
+                && numTickets == other.numTickets && bookingDateTime.equals(other.bookingDateTime)
+                && status == other.status;
     }
 }
@@ -1,7 +1,10 @@
 package model;
 
+import view.ConsoleOutput;
+
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * {@link Consumer} represents a user of the application, who can browse {@link Event}s and book {@link Event}s.
@@ -34,6 +37,27 @@ public class Consumer extends User {
         this.bookings = new LinkedList<>();
     }
 
+    /**
+     * Restore a Consumer saved with the application state, with an empty list of bookings and default preferences.
+     * The bookings and preferences are restored separately, as they refer to other saved entities.
+     *
+     * @param name             full name of the Consumer
+     * @param email            email address of the Consumer
+     * @param phoneNumber      phone number of the Consumer
+     * @param address          address of the Consumer (optional)
+     * @param passwordHash     hash of the password used to log in, as returned by {@link #getPasswordHash()}
+     * @param serialVersionUID unique identifier of the Consumer
+     */
+    public Consumer(String name, String email, String phoneNumber, String address, String passwordHash,
+                    long serialVersionUID) {
+        super(email, passwordHash, serialVersionUID);
+        this.name = name;
+        this.phoneNumber = phoneNumber;
+        this.address = address;
+        this.preferences = new EventTagCollection();
+        this.bookings = new LinkedList<>();
+    }
+
     public void addBooking(Booking booking) {
         bookings.add(booking);
     }
@@ -63,13 +87,15 @@ public class Consumer extends User {
     }
 
     /**
-     * Mock method: print out a message to STDOUT. A real implementation would send an email and/or text to the
+     * Mock method: print out a message to STDOUT through {@link ConsoleOutput}. A real implementation would send an email and/or text to the
      * {@link Consumer}'s {@link #phoneNumber}.
+     * Commands should not call this directly, but enqueue the message in the {@link external.NotificationOutbox}, so
+     * that it is delivered in the background.
      *
      * @param message message from an {@link Staff} regarding an event cancellation
      */
     public void notify(String message) {
-        System.out.println("Message to " + getEmail() + " and " + phoneNumber + ": " + message);
+        ConsoleOutput.println("Message to " + getEmail() + " and " + phoneNumber + ": " + message);
     }
 
     public void setPhoneNumber(String newPhoneNumber) {
@@ -95,37 +121,24 @@ public class Consumer extends User {
         return address;
     }
 
+    /**
+     * Compare all the details of this consumer with another user, including their bookings and preferences.
+     * The bookings are compared by their identity, see {@link Booking#deepEquals(Booking)}.
+     *
+     * @param other user to compare with
+     * @return True if the other user is a consumer with the same details and false otherwise
+     */
     @Override
-    public boolean equals(Object o) {
-
-        // If the object is compared with itself then return true
-        if (o == this) {
+    public boolean deepEquals(User other) {
+        if (other == this) {
             return true;
         }
-
-        // Check if o is an instance of Complex or not
-
-        if (!(o instanceof Consumer)) {
+        if (!(other instanceof Consumer) || !super.deepEquals(other)) {
             return false;
         }
-
-        // typecast o to Consumer so that we can compare data members
-        Consumer c = (Consumer) o;
-
-        boolean addressEquals = address == null ? c.address == null : c.address.equals(address);
-
-        // Compare the data members and return accordingly
-        return name.equals(c.name) && phoneNumber.equals(c.phoneNumber) && addressEquals && bookings.equals(c.bookings) && preferences.equals(c.preferences);
-    }
-
-    @Override
-    public int hashCode() {
-        int hash = 7;
-        hash = 3 * hash + (name == null ? 0 : name.hashCode());
-        hash = 3 * hash + (phoneNumber == null ? 0 : phoneNumber.hashCode());
-        hash = 3 * hash + (address == null ? 0 : address.hashCode());
-        hash = 3 * hash + bookings.hashCode();
-        hash = 3 * hash + preferences.hashCode();
-        return hash;
+        Consumer c = (Consumer) other;
+        return Objects.equals(name, c.name) && Objects.equals(phoneNumber, c.phoneNumber)
+                && Objects.equals(address, c.address) && bookings.equals(c.bookings)
+                && preferences.equals(c.preferences);
     }
 }
@@ -1,18 +1,21 @@
 package model;
 
+import state.AppendOnlyList;
+
 import java.io.Serializable;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * {@link Event} represents an event that can be booked by {@link Consumer}s. Tickets can be free, but they are
  * required to attend, and there is a maximum cap on the number of tickets that can be booked.
  */
 public class Event implements Serializable {
-    private long eventNumber;
+    // Final, as the event number identifies the event in equals and hashCode
+    private final long eventNumber;
     private final String title;
     private final EventType type;
     private final int numTicketsCap;
@@ -22,10 +25,21 @@ public class Event implements Serializable {
     private final LocalDateTime startDateTime;
     private final LocalDateTime endDateTime;
     private EventTagCollection tags;
-    private List<Review> reviews;
+    // Reviews and status are read by the autosave while they change, so the reviews are only ever appended to
+    private final AppendOnlyList<Review> reviews;
     private long serialVersionUID;
-    private EventStatus status;
-    private int numTicketsLeft;
+    private volatile EventStatus status;
+    // Only updated through NUM_TICKETS_LEFT, so that concurrent bookings cannot oversell the event
+    private volatile int numTicketsLeft;
+    // Tickets taken out of numTicketsLeft by holds that are neither confirmed nor released, which are never saved
+    private transient volatile int numTicketsHeld;
+
+    // Most events have few reviews, so they are kept in chunks of 16
+    private static final int REVIEWS_CHUNK_SHIFT = 4;
+    private static final AtomicIntegerFieldUpdater<Event> NUM_TICKETS_LEFT =
+            AtomicIntegerFieldUpdater.newUpdater(Event.class, "numTicketsLeft");
+    private static final AtomicIntegerFieldUpdater<Event> NUM_TICKETS_HELD =
+            AtomicIntegerFieldUpdater.newUpdater(Event.class, "numTicketsHeld");
 
     /**
      * Create a new Event with status = {@link EventStatus#ACTIVE}
@@ -52,6 +66,41 @@ public class Event implements Serializable {
                  LocalDateTime startDateTime,
                  LocalDateTime endDateTime,
                  EventTagCollection tags) {
+        this(eventNumber, title, type, numTicketsCap, ticketPriceInPence, venueAddress, description, startDateTime,
+                endDateTime, tags, UUID.randomUUID().getLeastSignificantBits(), EventStatus.ACTIVE, numTicketsCap);
+    }
+
+    /**
+     * Restore an Event saved with the application state, without any reviews.
+     * The reviews are restored separately with {@link #addReview(Review)}, as they refer to the event.
+     *
+     * @param eventNumber         unique event identifier
+     * @param title               name of the event
+     * @param type                type of the event
+     * @param numTicketsCap       maximum number of tickets
+     * @param ticketPriceInPence  price of each ticket in GBP pence
+     * @param venueAddress        address where the performance will be taking place
+     * @param description         additional details about the event
+     * @param startDateTime       date and time when the performance will begin
+     * @param endDateTime         date and time when the performance will end
+     * @param tags                names and selected values associated with the event
+     * @param serialVersionUID    unique identifier of the event, as returned by {@link #getSerialVersionUID()}
+     * @param status              status of the event
+     * @param numTicketsLeft      number of tickets still available for booking
+     */
+    public Event(long eventNumber,
+                 String title,
+                 EventType type,
+                 int numTicketsCap,
+                 int ticketPriceInPence,
+                 String venueAddress,
+                 String description,
+                 LocalDateTime startDateTime,
+                 LocalDateTime endDateTime,
+                 EventTagCollection tags,
+                 long serialVersionUID,
+                 EventStatus status,
+                 int numTicketsLeft) {
         this.eventNumber = eventNumber;
         this.title = title;
         this.type = type;
@@ -62,13 +111,28 @@ public class Event implements Serializable {
         this.startDateTime = startDateTime;
         this.endDateTime = endDateTime;
         // A new event has no reviews
-        this.reviews = new ArrayList<>();
+        this.reviews = new AppendOnlyList<>(REVIEWS_CHUNK_SHIFT);
         this.tags = tags;
 
-        this.status = EventStatus.ACTIVE;
-        this.numTicketsLeft = numTicketsCap;
-        this.serialVersionUID = UUID.randomUUID().getLeastSignificantBits();
+        this.status = status;
+        this.numTicketsLeft = numTicketsLeft;
+        this.serialVersionUID = serialVersionUID;
+    }
 
+    /**
+     * Copy an Event under another event number, e.g. when it is imported into a state that numbers its events itself.
+     * The reviews are copied to refer to the copy, and tickets held for the original are not held for the copy.
+     *
+     * @param eventNumber unique event identifier of the copy
+     * @param other       event to copy
+     */
+    public Event(long eventNumber, Event other) {
+        this(eventNumber, other.title, other.type, other.numTicketsCap, other.ticketPriceInPence, other.venueAddress,
+                other.description, other.startDateTime, other.endDateTime, other.tags, other.serialVersionUID,
+                other.status, other.numTicketsLeft);
+        for (Review review : other.getReviews()) {
+            reviews.add(new Review(review.getAuthor(), this, review.getCreationDateTime(), review.getContent()));
+        }
     }
 
     /**
@@ -85,10 +149,80 @@ public class Event implements Serializable {
         return numTicketsLeft;
     }
 
+    /**
+     * @return Number of the tickets left, counting the tickets that are only held as left, as holds do not outlive
+     * the application. A count read while a hold is placed or ends may be off until the event is next marked changed.
+     */
+    public int getNumTicketsLeftIncludingHeld() {
+        return numTicketsHeld + numTicketsLeft;
+    }
+
     public void setNumTicketsLeft(int numTicketsLeft) {
         this.numTicketsLeft = numTicketsLeft;
     }
 
+    /**
+     * Atomically take some tickets out of the tickets left, if there are enough of them left.
+     * This never blocks, and reservations for different events never contend with each other.
+     *
+     * @param numTickets number of tickets to reserve
+     * @return True if the tickets were reserved, false if fewer than numTickets tickets are left
+     */
+    public boolean tryReserve(int numTickets) {
+        while (true) {
+            int left = numTicketsLeft;
+            if (left < numTickets) {
+                return false;
+            }
+            if (NUM_TICKETS_LEFT.compareAndSet(this, left, left - numTickets)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Atomically put tickets that were reserved with {@link #tryReserve(int)} back into the tickets left
+     *
+     * @param numTickets number of tickets to release
+     */
+    public void release(int numTickets) {
+        NUM_TICKETS_LEFT.addAndGet(this, numTickets);
+    }
+
+    /**
+     * Atomically reserve tickets like {@link #tryReserve(int)} for a {@link TicketHold}, counting them as held until
+     * the hold is confirmed with {@link #confirmHeld(int)} or released with {@link #releaseHeld(int)}
+     *
+     * @param numTickets number of tickets to hold
+     * @return True if the tickets were held, false if fewer than numTickets tickets are left
+     */
+    public boolean tryHold(int numTickets) {
+        if (!tryReserve(numTickets)) {
+            return false;
+        }
+        NUM_TICKETS_HELD.addAndGet(this, numTickets);
+        return true;
+    }
+
+    /**
+     * Stop counting tickets held with {@link #tryHold(int)} as held, as they have been booked
+     *
+     * @param numTickets number of held tickets that were booked
+     */
+    public void confirmHeld(int numTickets) {
+        NUM_TICKETS_HELD.addAndGet(this, -numTickets);
+    }
+
+    /**
+     * Put tickets held with {@link #tryHold(int)} back into the tickets left
+     *
+     * @param numTickets number of held tickets to release
+     */
+    public void releaseHeld(int numTickets) {
+        NUM_TICKETS_HELD.addAndGet(this, -numTickets);
+        release(numTickets);
+    }
+
     public int getTicketPriceInPence() {
         return ticketPriceInPence;
     }
@@ -117,18 +251,15 @@ public class Event implements Serializable {
         return startDateTime;
     }
 
-    public void setEventNumber(long number){
-        this.eventNumber = number;
-    }
-
     public LocalDateTime getEndDateTime() {
         return endDateTime;
     }
 
     /**
-     * Set {@link #status} to {@link EventStatus#CANCELLED}
+     * Set {@link #status} to {@link EventStatus#CANCELLED}. This locks the event, so that a booking which checks the
+     * status while holding the same lock is either made before the event is cancelled or not at all.
      */
-    public void cancel() {
+    public synchronized void cancel() {
         status = EventStatus.CANCELLED;
     }
 
@@ -136,10 +267,18 @@ public class Event implements Serializable {
      * @param review a new {@link Review} of the event
      */
     public void addReview(Review review) {
-        reviews.add(review);
+        synchronized (reviews) {
+            reviews.add(review);
+        }
     }
 
-    public List<Review> getReviews() {return reviews;}
+    /**
+     * @return An unmodifiable view of the reviews there are now, taken in O(1) time, which does not change when more
+     * reviews are added
+     */
+    public List<Review> getReviews() {
+        return reviews.view();
+    }
 
 
     @Override
@@ -171,50 +310,44 @@ public class Event implements Serializable {
         return serialVersionUID;
     }
 
+    /**
+     * Events are identified by their event number, so that hashing or comparing an event does not have to look at
+     * its reviews and tags. Use {@link #deepEquals(Event)} to compare all the details of two events.
+     */
     @Override
     public boolean equals(Object o) {
-
-        // If the object is compared with itself then return true
         if (o == this) {
             return true;
         }
-
-        // Check if o is an instance of Event or not
         if (!(o instanceof Event)) {
             return false;
         }
-
-        // typecast o to Event so that we can compare data members
-        Event c = (Event) o;
-
-        boolean venueEquals = Objects.equals(venueAddress, c.venueAddress);
-        boolean descriptionEquals = Objects.equals(description, c.description);
-
-        // Compare the data members and return accordingly
-        return venueEquals && eventNumber == c.eventNumber && title.equals(c.title) && type.equals(c.type)
-                && numTicketsCap == c.numTicketsCap && ticketPriceInPence == c.ticketPriceInPence && descriptionEquals
-                && startDateTime.equals(c.startDateTime) && endDateTime.equals(c.endDateTime) && tags.equals(c.tags)
-                && reviews.equals(c.reviews) && status.equals(c.status) && numTicketsLeft == c.numTicketsLeft;
+        return eventNumber == ((Event) o).eventNumber;
     }
 
     @Override
     public int hashCode() {
-        int hash = 2;
-
-        hash = 2 * hash + (venueAddress == null ? 0 : venueAddress.hashCode());
-        hash = 2 * hash + (title == null ? 0 : title.hashCode());
-        hash = 2 * hash + type.hashCode();
-        hash = 2 * hash + (description == null ? 0 : description.hashCode());
-        hash = 2 * hash + (startDateTime == null ? 0 : startDateTime.hashCode());
-        hash = 2 * hash + (endDateTime == null ? 0 : endDateTime.hashCode());
-        hash = 2 * hash + tags.hashCode();
-        hash = 2 * hash + reviews.hashCode();
-        hash = 2 * hash + status.hashCode();
-
-        hash += (int)eventNumber;
-        hash += numTicketsLeft;
-        hash += ticketPriceInPence;
-        hash += numTicketsCap;
-        return hash;
+        return Long.hashCode(eventNumber);
+    }
+
+    /**
+     * Compare all the details of this event with another event, including its tags and reviews
+     *
+     * @param other event to compare with
+     * @return True if both events have the same details and false otherwise
+     */
+    public boolean deepEquals(Event other) {
+        if (other == this) {
+            return true;
+        }
+        if (other == null) {
+            return false;
+        }
+        return eventNumber == other.eventNumber && Objects.equals(title, other.title) && type == other.type
+                && numTicketsCap == other.numTicketsCap && ticketPriceInPence == other.ticketPriceInPence
+                && Objects.equals(venueAddress, other.venueAddress) && Objects.equals(description, other.description)
+                && Objects.equals(startDateTime, other.startDateTime) && Objects.equals(endDateTime, other.endDateTime)
+                && Objects.equals(tags, other.tags) && reviews.equals(other.reviews) && status == other.status
+                && numTicketsLeft == other.numTicketsLeft;
     }
 }
@@ -18,6 +18,17 @@ public class Staff extends User implements Serializable{
         super(email, password);
     }
 
+    /**
+     * Restore a Staff member saved with the application state
+     *
+     * @param email            email address of the organisation staff member
+     * @param passwordHash     hash of the password for this account, as returned by {@link #getPasswordHash()}
+     * @param serialVersionUID unique identifier of the staff member
+     */
+    public Staff(String email, String passwordHash, long serialVersionUID) {
+        super(email, passwordHash, serialVersionUID);
+    }
+
     @Override
     public String toString() {
         return "Staff";
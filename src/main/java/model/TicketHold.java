@@ -0,0 +1,101 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link TicketHold} represents tickets of an {@link Event} that are held for a {@link Consumer} for a limited time,
+ * for example while their payment is processed. The tickets are taken out of the tickets left of the event while they
+ * are held. A hold ends either by being confirmed, after which the tickets belong to a {@link Booking}, or by being
+ * released, which puts the tickets back. Whichever of the two happens first wins.
+ */
+public class TicketHold {
+    private final long holdNumber;
+    private final Consumer holder;
+    private final Event event;
+    private final int numTickets;
+    private final LocalDateTime expiryDateTime;
+    private final AtomicReference<TicketHoldStatus> status;
+
+    /**
+     * Create a new TicketHold with status = {@link TicketHoldStatus#Held}. The tickets must already have been reserved
+     * with {@link Event#tryHold(int)}.
+     *
+     * @param holdNumber     unique identifier for this hold
+     * @param holder         the {@link Consumer} the tickets are held for
+     * @param event          the {@link Event} the tickets are for
+     * @param numTickets     the number of held tickets
+     * @param expiryDateTime the date and time when the tickets are released unless the hold is confirmed
+     */
+    public TicketHold(long holdNumber, Consumer holder, Event event, int numTickets, LocalDateTime expiryDateTime) {
+        this.holdNumber = holdNumber;
+        this.holder = holder;
+        this.event = event;
+        this.numTickets = numTickets;
+        this.expiryDateTime = expiryDateTime;
+        this.status = new AtomicReference<>(TicketHoldStatus.Held);
+    }
+
+    public long getHoldNumber() {
+        return holdNumber;
+    }
+
+    public Consumer getHolder() {
+        return holder;
+    }
+
+    public Event getEvent() {
+        return event;
+    }
+
+    public int getNumTickets() {
+        return numTickets;
+    }
+
+    public LocalDateTime getExpiryDateTime() {
+        return expiryDateTime;
+    }
+
+    public TicketHoldStatus getStatus() {
+        return status.get();
+    }
+
+    /**
+     * Set the {@link #status} to {@link TicketHoldStatus#Confirmed}, if the tickets are still held
+     *
+     * @return True if the hold was confirmed, false if it had already been confirmed or released
+     */
+    public boolean confirm() {
+        if (!status.compareAndSet(TicketHoldStatus.Held, TicketHoldStatus.Confirmed)) {
+            return false;
+        }
+        event.confirmHeld(numTickets);
+        return true;
+    }
+
+    /**
+     * Set the {@link #status} to {@link TicketHoldStatus#Released} and put the tickets back into the tickets left of
+     * the {@link Event}, if the tickets are still held
+     *
+     * @return True if the hold was released, false if it had already been confirmed or released
+     */
+    public boolean release() {
+        if (!status.compareAndSet(TicketHoldStatus.Held, TicketHoldStatus.Released)) {
+            return false;
+        }
+        event.releaseHeld(numTickets);
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "TicketHold{" +
+                "holdNumber=" + holdNumber +
+                ", holder=" + holder.getEmail() +
+                ", event=" + event.getEventNumber() +
+                ", numTickets=" + numTickets +
+                ", expiryDateTime=" + expiryDateTime +
+                ", status=" + status.get() +
+                '}';
+    }
+}
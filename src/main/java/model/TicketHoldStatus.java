@@ -0,0 +1,10 @@
+package model;
+
+/**
+ * {@link TicketHoldStatus} represents the status of a {@link TicketHold}
+ */
+public enum TicketHoldStatus {
+    Held,
+    Confirmed,
+    Released,
+}
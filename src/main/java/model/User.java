@@ -3,6 +3,7 @@ package model;
 import at.favre.lib.crypto.bcrypt.BCrypt;
 
 import java.io.Serializable;
+import java.util.Objects;
 import java.util.UUID;
 
 /**
@@ -32,6 +33,20 @@ public abstract class User implements Serializable {
         this.serialVersionUID = UUID.randomUUID().getLeastSignificantBits();
     }
 
+    /**
+     * Restore a User saved with the application state. The saved password hash is kept as it is, so the password is
+     * neither needed nor hashed again.
+     *
+     * @param email            user email address
+     * @param passwordHash     hash of the user password, as returned by {@link #getPasswordHash()}
+     * @param serialVersionUID unique identifier of the user, as returned by {@link #getSerialVersionUID()}
+     */
+    protected User(String email, String passwordHash, long serialVersionUID) {
+        this.email = email;
+        this.passwordHash = passwordHash;
+        this.serialVersionUID = serialVersionUID;
+    }
+
     public String getEmail() {
         return email;
     }
@@ -51,6 +66,13 @@ public abstract class User implements Serializable {
         return BCrypt.verifyer().verify(password.toCharArray(), passwordHash).verified;
     }
 
+    /**
+     * @return The BCrypt hash of the user password, which is saved with the application state instead of the password
+     */
+    public String getPasswordHash() {
+        return passwordHash;
+    }
+
     /**
      * Update the stored password hash to a new one, corresponding to the specified password.
      * You can use {@code passwordHash = BCrypt.withDefaults().hashToString(12, newPassword.toCharArray());}
@@ -61,6 +83,15 @@ public abstract class User implements Serializable {
         this.passwordHash = BCrypt.withDefaults().hashToString(12, newPassword.toCharArray());
     }
 
+    /**
+     * Restore a password hash saved with the application state, without hashing it again
+     *
+     * @param passwordHash hash of the user password, as returned by {@link #getPasswordHash()}
+     */
+    public void restorePasswordHash(String passwordHash) {
+        this.passwordHash = passwordHash;
+    }
+
     @Override
     public String toString() {
         return "User{" +
@@ -72,4 +103,41 @@ public abstract class User implements Serializable {
     public long getSerialVersionUID() {
         return serialVersionUID;
     }
+
+    /**
+     * Users are identified by their serial version UID, which is generated once when the user is created and never
+     * changes, unlike their email address. Use {@link #deepEquals(User)} to compare all the details of two users.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof User)) {
+            return false;
+        }
+        return serialVersionUID == ((User) o).serialVersionUID;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(serialVersionUID);
+    }
+
+    /**
+     * Compare the details of this user with another user. The password hashes are not compared, as hashing the same
+     * password twice gives different hashes.
+     *
+     * @param other user to compare with
+     * @return True if both users are of the same kind and have the same details, and false otherwise
+     */
+    public boolean deepEquals(User other) {
+        if (other == this) {
+            return true;
+        }
+        if (other == null || other.getClass() != getClass()) {
+            return false;
+        }
+        return Objects.equals(email, other.email);
+    }
 }
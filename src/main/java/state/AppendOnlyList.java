@@ -0,0 +1,115 @@
+package state;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * {@link AppendOnlyList} is a list that only grows at its end. Its elements are kept in fixed-size chunks, which are
+ * never copied or moved once allocated, so a {@link #view()} of the list takes O(1) time: it shares the chunks with the
+ * list and only remembers its current size, and keeps seeing the same elements however many are appended afterwards.
+ * Lists that usually stay short, like the reviews of an event, can use smaller chunks.
+ * <p>
+ * Appending must be synchronized by the caller, but views can be taken and read from any thread without locking: the
+ * size is only increased once the new element has been stored, and it is volatile, so a view sees every element below
+ * its size.
+ *
+ * @param <E> type of the elements
+ */
+public class AppendOnlyList<E> extends AbstractList<E> implements RandomAccess, Serializable {
+    private static final int DEFAULT_CHUNK_SHIFT = 10;
+
+    private final int chunkShift;
+    private volatile Object[][] chunks;
+    private volatile int size;
+
+    /**
+     * Create a new empty AppendOnlyList keeping its elements in chunks of 1024
+     */
+    public AppendOnlyList() {
+        this(DEFAULT_CHUNK_SHIFT);
+    }
+
+    /**
+     * Create a new empty AppendOnlyList
+     *
+     * @param chunkShift base 2 logarithm of the number of elements in each chunk
+     */
+    public AppendOnlyList(int chunkShift) {
+        this.chunkShift = chunkShift;
+        chunks = new Object[1][];
+        size = 0;
+    }
+
+    @Override
+    public boolean add(E element) {
+        int index = size;
+        int chunkIndex = index >>> chunkShift;
+        Object[][] currentChunks = chunks;
+        if (chunkIndex == currentChunks.length) {
+            // Only the references to the chunks are copied, and the views keep the previous copy
+            currentChunks = Arrays.copyOf(currentChunks, currentChunks.length * 2);
+            chunks = currentChunks;
+        }
+        if (currentChunks[chunkIndex] == null) {
+            currentChunks[chunkIndex] = new Object[1 << chunkShift];
+        }
+        currentChunks[chunkIndex][index & ((1 << chunkShift) - 1)] = element;
+        size = index + 1;
+        ++modCount;
+        return true;
+    }
+
+    @Override
+    public E get(int index) {
+        int currentSize = size;
+        return elementAt(chunks, chunkShift, currentSize, index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return An unmodifiable view of the elements that are in the list now, which does not change when more elements
+     * are appended
+     */
+    public List<E> view() {
+        // The size is read first, so the chunks read afterwards hold at least that many elements
+        int currentSize = size;
+        return new View<>(chunks, chunkShift, currentSize);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> E elementAt(Object[][] chunks, int chunkShift, int size, int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        return (E) chunks[index >>> chunkShift][index & ((1 << chunkShift) - 1)];
+    }
+
+    private static class View<E> extends AbstractList<E> implements RandomAccess {
+        private final Object[][] chunks;
+        private final int chunkShift;
+        private final int size;
+
+        View(Object[][] chunks, int chunkShift, int size) {
+            this.chunks = chunks;
+            this.chunkShift = chunkShift;
+            this.size = size;
+        }
+
+        @Override
+        public E get(int index) {
+            return elementAt(chunks, chunkShift, size, index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,464 @@
+package state;
+
+import model.Booking;
+import model.Event;
+import model.EventTag;
+import model.User;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link AutoSave} saves the application state without rewriting all of it each time. The first save writes a full
+ * base snapshot with {@link SnapshotCodec}; after that, only deltas with the users, tags, events and bookings that were
+ * added or changed are appended to it, and a save is skipped if nothing changed at all. Once a base has
+ * {@link #maxDeltasPerBase} deltas, or its deltas have grown bigger than the base itself, the next save compacts the
+ * state into a new base, so that restoring an autosave with {@link SnapshotCodec#read(java.nio.file.Path)} never has to
+ * apply too many deltas.
+ * <p>
+ * The deltas appended to the base also serve as a write-ahead journal: {@link #commit()} appends the changes made by a
+ * command as soon as it has run, and returns once they are on disk. Threads committing at the same time share one
+ * fsync: while one of them waits for the disk, the others append their deltas, and the next fsync covers all of them.
+ * <p>
+ * Changes are known from the change sets of the states: additions are recorded by the states themselves, and changes
+ * to entities already added are recorded by the commands that make them, through methods such as
+ * {@link IEventState#markEventChanged(model.Event)}. Changes that cannot be saved are recorded again, so that the next
+ * save or commit saves them.
+ */
+public class AutoSave implements Closeable {
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private final Path directory;
+    private final String filenamePrefix;
+    private final int maxDeltasPerBase;
+    private final boolean compressed;
+    private final UserState userState;
+    private final EventState eventState;
+    private final BookingState bookingState;
+    // Only one save runs at a time, while commits keep appending to the current base
+    private final Object saveLock;
+
+    // Guarded by this
+    private Path baseFile;
+    private FileChannel baseChannel;
+    private SnapshotWriter baseWriter;
+    private boolean appending;
+    private long baseSize;
+    private long journalEnd;
+    private int numDeltas;
+    private long savedVersion;
+    private long numAppended;
+
+    // Guarded by syncLock
+    private final Object syncLock;
+    private boolean syncing;
+    private long numSynced;
+
+    /**
+     * @param directory        directory to write the autosave files in
+     * @param filenamePrefix   start of the name of each base file, which is followed by its timestamp and ".dat"
+     * @param maxDeltasPerBase number of deltas appended to a base before the state is compacted into a new base
+     * @param userState        users to save
+     * @param eventState       events and possible tags to save
+     * @param bookingState     bookings to save
+     */
+    public AutoSave(Path directory, String filenamePrefix, int maxDeltasPerBase, IUserState userState,
+                    IEventState eventState, IBookingState bookingState) {
+        this(directory, filenamePrefix, maxDeltasPerBase, false, userState, eventState, bookingState);
+    }
+
+    /**
+     * @param directory        directory to write the autosave files in
+     * @param filenamePrefix   start of the name of each base file, which is followed by its timestamp and ".dat"
+     * @param maxDeltasPerBase number of deltas appended to a base before the state is compacted into a new base
+     * @param compressed       whether to compress the bases and their deltas
+     * @param userState        users to save
+     * @param eventState       events and possible tags to save
+     * @param bookingState     bookings to save
+     */
+    public AutoSave(Path directory, String filenamePrefix, int maxDeltasPerBase, boolean compressed,
+                    IUserState userState, IEventState eventState, IBookingState bookingState) {
+        this.directory = directory;
+        this.filenamePrefix = filenamePrefix;
+        this.maxDeltasPerBase = maxDeltasPerBase;
+        this.compressed = compressed;
+        this.userState = UserState.shared(userState);
+        this.eventState = (EventState) eventState;
+        this.bookingState = (BookingState) bookingState;
+        saveLock = new Object();
+        baseFile = null;
+        appending = false;
+        numDeltas = 0;
+        savedVersion = -1;
+        numAppended = 0;
+        syncLock = new Object();
+        syncing = false;
+        numSynced = 0;
+    }
+
+    /**
+     * Find the most recent base file written by an {@link AutoSave}, which holds the latest saved state followed by the
+     * journal of the changes committed after it. Autosaves from before snapshots were introduced have the same names
+     * but hold the whole serialized context, so they are skipped.
+     *
+     * @param directory      directory the autosave files were written in
+     * @param filenamePrefix start of the name of each base file
+     * @return The snapshot base file with the latest timestamp, or null if there is none
+     */
+    public static Path findLatest(Path directory, String filenamePrefix) throws IOException {
+        List<Path> baseFiles = findAll(directory, filenamePrefix);
+        return baseFiles.isEmpty() ? null : baseFiles.get(0);
+    }
+
+    /**
+     * Find the base files written by an {@link AutoSave}, so that an older one can be restored if the latest one
+     * cannot be read. Autosaves from before snapshots were introduced are skipped, as in
+     * {@link #findLatest(Path, String)}.
+     *
+     * @param directory      directory the autosave files were written in
+     * @param filenamePrefix start of the name of each base file
+     * @return The snapshot base files, the one with the latest timestamp first
+     */
+    public static List<Path> findAll(Path directory, String filenamePrefix) throws IOException {
+        Pattern filenamePattern = Pattern.compile(Pattern.quote(filenamePrefix) + "\\d{14}\\.dat");
+        List<Path> baseFiles;
+        try (Stream<Path> files = Files.list(directory)) {
+            baseFiles = files.filter(file -> filenamePattern.matcher(file.getFileName().toString()).matches())
+                    .sorted(Comparator.reverseOrder())
+                    .collect(Collectors.toList());
+        }
+        List<Path> snapshotBaseFiles = new ArrayList<>();
+        for (Path baseFile : baseFiles) {
+            if (SnapshotCodec.isSnapshot(baseFile)) {
+                snapshotBaseFiles.add(baseFile);
+            }
+        }
+        return snapshotBaseFiles;
+    }
+
+    /**
+     * Keep appending to the base file the state was restored from by
+     * {@link SnapshotCodec#readMapped(java.nio.file.Path)}, instead of writing a new base at the first save, which
+     * would decode every event and booking left in the file. Nothing is resumed if the state was not mapped, or if the
+     * file changed since it was read, and the first save then writes a new base as usual. This must be called before
+     * the first save, while the states hold nothing but the restored state.
+     *
+     * @param restoredState state restored from a base file written by an {@link AutoSave}, which holds the states
+     *                      this saves
+     */
+    public void resume(StateSnapshot restoredState) throws IOException {
+        Path file = restoredState.getMappedFile();
+        if (file == null) {
+            return;
+        }
+        synchronized (saveLock) {
+            synchronized (this) {
+                FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE);
+                SnapshotWriter writer;
+                try {
+                    if (channel.size() != restoredState.getJournalEnd()) {
+                        channel.close();
+                        return;
+                    }
+                    channel.position(restoredState.getJournalEnd());
+                    // Deltas are compressed like the base they are appended to, and a mapped base is not compressed
+                    writer = new SnapshotWriter(channel, SnapshotCodec.BUFFER_SIZE, false);
+                } catch (IOException e) {
+                    channel.close();
+                    throw e;
+                }
+                // The restored state is saved in the file already
+                new Changes();
+                closeBase();
+                baseFile = file;
+                baseChannel = channel;
+                baseWriter = writer;
+                appending = true;
+                baseSize = restoredState.getBaseSize();
+                journalEnd = restoredState.getJournalEnd();
+                numDeltas = restoredState.getNumDeltas();
+                savedVersion = getVersion();
+            }
+        }
+    }
+
+    /**
+     * Save the changes since the previous save or commit, either as a delta or as a new base, and wait until they are
+     * on disk
+     *
+     * @return The base file the state was saved to, or null if nothing changed since the previous save or commit
+     */
+    public Path save() throws IOException {
+        synchronized (saveLock) {
+            boolean compact;
+            synchronized (this) {
+                if (getVersion() == savedVersion) {
+                    return null;
+                }
+                compact = !appending || numDeltas >= maxDeltasPerBase || journalEnd - baseSize > baseSize;
+            }
+            if (compact) {
+                compact();
+            } else {
+                commit();
+            }
+            synchronized (this) {
+                return baseFile;
+            }
+        }
+    }
+
+    /**
+     * Append the changes since the previous save or commit to the journal, and wait until they are on disk, together
+     * with the changes other threads commit at the same time. Nothing is appended before the first save has written a
+     * base, nor after appending has failed, until the next save writes a new base.
+     */
+    public void commit() throws IOException {
+        long ticket;
+        synchronized (this) {
+            if (!appending) {
+                return;
+            }
+            long version = getVersion();
+            // The changes of this thread may have been appended by another one, which may not have synced them yet
+            if (version != savedVersion) {
+                appendChanges(version);
+            }
+            ticket = numAppended;
+        }
+        awaitSynced(ticket);
+    }
+
+    /**
+     * @return Number of deltas appended to the current base file
+     */
+    public synchronized int getNumDeltas() {
+        return numDeltas;
+    }
+
+    private long getVersion() {
+        return userState.getVersion() + eventState.getVersion() + bookingState.getVersion();
+    }
+
+    /**
+     * Append the changes as a delta to the base, which must be called while holding this
+     */
+    private void appendChanges(long version) throws IOException {
+        Changes changes = new Changes();
+        try {
+            SnapshotCodec.appendDelta(baseWriter, version, changes.users, changes.tags, changes.events,
+                    changes.nextEventNumber, changes.bookings, changes.nextBookingNumber);
+        } catch (IOException e) {
+            // The base may end with part of the delta now, so nothing more can be appended to it
+            changes.recordAgain();
+            appending = false;
+            throw e;
+        }
+        journalEnd = baseWriter.position();
+        ++numDeltas;
+        ++numAppended;
+        savedVersion = version;
+    }
+
+    /**
+     * Wait until the deltas up to a ticket are on disk. The first thread to wait syncs the base, and the threads
+     * arriving in the meantime wait for the next sync, which covers every delta appended before it starts.
+     */
+    private void awaitSynced(long ticket) throws IOException {
+        if (!beginSync(ticket)) {
+            return;
+        }
+        long syncedTicket = -1;
+        try {
+            FileChannel channel;
+            long lastTicket;
+            synchronized (this) {
+                channel = baseChannel;
+                lastTicket = numAppended;
+            }
+            if (channel != null) {
+                channel.force(false);
+                syncedTicket = lastTicket;
+            }
+        } catch (IOException e) {
+            synchronized (this) {
+                appending = false;
+            }
+            throw e;
+        } finally {
+            endSync(syncedTicket);
+        }
+    }
+
+    /**
+     * @return True if this thread must sync the deltas up to the ticket, or false if they have been synced already
+     */
+    private boolean beginSync(long ticket) throws IOException {
+        synchronized (syncLock) {
+            while (syncing && numSynced < ticket) {
+                try {
+                    syncLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the journal to be synced");
+                }
+            }
+            if (numSynced >= ticket) {
+                return false;
+            }
+            syncing = true;
+            return true;
+        }
+    }
+
+    private void endSync(long syncedTicket) {
+        synchronized (syncLock) {
+            syncing = false;
+            numSynced = Math.max(numSynced, syncedTicket);
+            syncLock.notifyAll();
+        }
+    }
+
+    /**
+     * Write the whole state to a new base file. The base is written from a {@link StateView} to a temporary file while
+     * commits keep appending to the current base; the deltas they appended in the meantime are then copied after the
+     * new base, which replaces the current one.
+     */
+    private void compact() throws IOException {
+        Changes changes;
+        StateView view;
+        long version;
+        long copyStart;
+        synchronized (this) {
+            version = getVersion();
+            changes = new Changes();
+            view = new StateView(userState, eventState, bookingState);
+            copyStart = journalEnd;
+        }
+
+        String filename = filenamePrefix + LocalDateTime.now().format(TIMESTAMP_FORMAT) + ".dat";
+        Path file = directory.resolve(filename);
+        Path temporaryFile = directory.resolve(filename + ".tmp");
+        try {
+            SnapshotCodec.write(temporaryFile, view, compressed);
+        } catch (IOException e) {
+            synchronized (this) {
+                changes.recordAgain();
+            }
+            Files.deleteIfExists(temporaryFile);
+            throw e;
+        }
+
+        // Nothing is synced while the new base replaces the current one
+        beginSync(Long.MAX_VALUE);
+        long syncedTicket = -1;
+        try {
+            synchronized (this) {
+                FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE);
+                long size;
+                try {
+                    size = channel.size();
+                    channel.position(size);
+                    if (baseChannel != null) {
+                        long copied = 0;
+                        while (copyStart + copied < journalEnd) {
+                            copied += baseChannel.transferTo(copyStart + copied, journalEnd - copyStart - copied,
+                                    channel);
+                        }
+                    }
+                    channel.force(false);
+                    Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    channel.close();
+                    changes.recordAgain();
+                    Files.deleteIfExists(temporaryFile);
+                    throw e;
+                }
+                closeBase();
+                baseFile = file;
+                baseChannel = channel;
+                baseWriter = new SnapshotWriter(channel, SnapshotCodec.BUFFER_SIZE, compressed);
+                appending = true;
+                baseSize = size;
+                journalEnd = channel.position();
+                numDeltas = 0;
+                savedVersion = Math.max(savedVersion, version);
+                syncedTicket = numAppended;
+            }
+        } finally {
+            endSync(syncedTicket);
+        }
+    }
+
+    /**
+     * Stop appending to the current base, which must be called while holding this
+     */
+    private void closeBase() {
+        if (baseChannel != null) {
+            try {
+                baseChannel.close();
+            } catch (IOException e) {
+                // Every delta that was appended completely has been copied or synced already
+            }
+        }
+        baseFile = null;
+        baseChannel = null;
+        baseWriter = null;
+        appending = false;
+    }
+
+    /**
+     * Stop appending to the current base file, so changes committed afterwards are only saved by the next save
+     */
+    @Override
+    public synchronized void close() {
+        closeBase();
+    }
+
+    /**
+     * {@link Changes} are the entities taken from the change sets of the states. Like a {@link StateView}, bookings are
+     * taken before the events and users they refer to, so that those are taken as well or were saved before.
+     */
+    private class Changes {
+        final List<Booking> bookings = bookingState.takeChangedBookings();
+        final long nextBookingNumber = bookingState.getNextBookingNumber();
+        final List<Event> events = eventState.takeChangedEvents();
+        final long nextEventNumber = eventState.getNextEventNumber();
+        final List<Map.Entry<String, EventTag>> tags = eventState.takeChangedTags();
+        final List<User> users = userState.takeChangedUsers();
+
+        /**
+         * Record the changes again after they could not be saved
+         */
+        void recordAgain() {
+            for (Booking booking : bookings) {
+                bookingState.markBookingChanged(booking);
+            }
+            for (Event event : events) {
+                eventState.markEventChanged(event);
+            }
+            for (Map.Entry<String, EventTag> tag : tags) {
+                eventState.markTagChanged(tag.getKey(), tag.getValue());
+            }
+            for (User user : users) {
+                userState.markUserChanged(user);
+            }
+        }
+    }
+}
@@ -4,27 +4,59 @@ import model.Booking;
 import model.Consumer;
 import model.Event;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * {@link BookingState} is a concrete implementation of {@link IBookingState}.
+ * It is thread-safe: all the methods are synchronized on the instance, and lists are returned as copies.
+ * Added and changed bookings are tracked for incremental autosaves.
+ * Bookings are never removed, so they are kept in an {@link AppendOnlyList}, of which a point-in-time view can be saved
+ * while more bookings are made.
+ * <p>
+ * A BookingState restored by {@link SnapshotCodec#readMapped(java.nio.file.Path)} leaves the bookings of the snapshot
+ * in the mapped file: they are decoded one at a time when they are looked up by their number, and all of them are
+ * indexed, and given to their bookers, the first time the bookings are listed or grouped.
  */
 public class BookingState implements IBookingState, Serializable {
-    private final List<Booking> bookings;
+    private final AppendOnlyList<Booking> bookings;
+    private final LongHashMap<Booking> bookingsByNumber;
+    private final LongHashMap<List<Booking>> bookingsByEventNumber;
     private long nextBookingNumber;
+    private final ChangeSet<Long, Booking> changedBookings;
+    // Snapshot whose bookings are not indexed yet, or null once they are
+    private transient MappedSnapshot mapped;
+    private transient List<Booking> bookingsAddedWhileMapped;
 
     /**
      * Create a new BookingState that keeps track of the next booking number it will generate (starting from 1 and
-     * incrementing by 1 each time a new booking number is needed), and an empty list of bookings
+     * incrementing by 1 each time a new booking number is needed), and an empty list of bookings.
+     * Bookings are additionally indexed by their booking number and grouped by the event number they are for.
      */
     public BookingState() {
         nextBookingNumber = 1;
-        bookings = new LinkedList<>();
+        bookings = new AppendOnlyList<>();
+        bookingsByNumber = new LongHashMap<>();
+        bookingsByEventNumber = new LongHashMap<>();
+        changedBookings = new ChangeSet<>();
+    }
+
+    /**
+     * Create a BookingState whose bookings are those of a mapped snapshot, which are only decoded once they are needed
+     *
+     * @param base mapped snapshot to restore the bookings of
+     */
+    BookingState(MappedSnapshot base) {
+        this();
+        nextBookingNumber = base.getNextBookingNumber();
+        mapped = base;
+        bookingsAddedWhileMapped = new ArrayList<>();
     }
 
     /**
@@ -34,27 +66,47 @@ public class BookingState implements IBookingState, Serializable {
      */
     public BookingState(IBookingState other) {
         BookingState otherImpl = (BookingState) other;
-        nextBookingNumber = otherImpl.nextBookingNumber;
-        bookings = new LinkedList<>(otherImpl.bookings);
+        bookings = new AppendOnlyList<>();
+        bookingsByNumber = new LongHashMap<>();
+        bookingsByEventNumber = new LongHashMap<>();
+        changedBookings = new ChangeSet<>();
+        synchronized (otherImpl) {
+            otherImpl.indexMappedBookings();
+            nextBookingNumber = otherImpl.nextBookingNumber;
+            // Rebuild the indexes rather than sharing the per-event lists with the other instance
+            for (Booking booking : otherImpl.bookings) {
+                indexBooking(booking);
+            }
+        }
     }
 
     @Override
-    public Booking findBookingByNumber(long bookingNumber) {
-        return bookings.stream()
-                .filter(booking -> booking.getBookingNumber() == bookingNumber)
-                .findFirst()
-                .orElse(null);
+    public synchronized Booking findBookingByNumber(long bookingNumber) {
+        Booking booking = bookingsByNumber.get(bookingNumber);
+        if (booking == null && mapped != null) {
+            booking = mapped.findBookingByNumber(bookingNumber);
+        }
+        return booking;
     }
 
     @Override
-    public List<Booking> findBookingsByEventNumber(long eventNumber) {
-        return bookings.stream()
-                .filter(booking -> booking.getEvent().getEventNumber() == eventNumber)
-                .collect(Collectors.toList());
+    public synchronized List<Booking> findBookingsByEventNumber(long eventNumber) {
+        indexMappedBookings();
+        List<Booking> eventBookings = bookingsByEventNumber.get(eventNumber);
+        if (eventBookings == null) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(eventBookings);
     }
 
     @Override
-    public Booking createBooking(Consumer booker, Event event, int numTickets) {
+    public synchronized List<Booking> findBookingsByBooker(Consumer booker) {
+        indexMappedBookings();
+        return new ArrayList<>(booker.getBookings());
+    }
+
+    @Override
+    public synchronized Booking createBooking(Consumer booker, Event event, int numTickets) {
         long bookingNumber = nextBookingNumber;
         nextBookingNumber++;
         Booking booking = new Booking(bookingNumber,
@@ -62,22 +114,131 @@ public class BookingState implements IBookingState, Serializable {
                 event,
                 numTickets,
                 LocalDateTime.now());
-        bookings.add(booking);
+        indexBooking(booking);
+        markBookingChanged(booking);
         return booking;
     }
 
-    public List<Booking> getAllBookings() {
+    public synchronized List<Booking> getAllBookings() {
+        indexMappedBookings();
         List<Booking> bookingsList = new ArrayList<>();
         bookingsList.addAll(bookings);
         return bookingsList;
     }
 
-    public void addBooking(Booking other) {
+    @Override
+    public Booking addBooking(Booking other) {
+        return addBooking(other, other.getEvent());
+    }
+
+    @Override
+    public synchronized Booking addBooking(Booking other, Event event) {
         long bookingNumber = nextBookingNumber;
         nextBookingNumber++;
-        other.setBookingNumber(bookingNumber);
-        bookings.add(other);
+        Booking booking = new Booking(bookingNumber, event, other);
+        indexBooking(booking);
+        markBookingChanged(booking);
+        return booking;
+    }
+
+    @Override
+    public void markBookingChanged(Booking booking) {
+        changedBookings.record(booking.getBookingNumber(), booking);
+    }
+
+    /**
+     * Add a booking restored from a snapshot, keeping its booking number
+     *
+     * @param booking booking to add
+     */
+    synchronized void restoreBooking(Booking booking) {
+        indexBooking(booking);
+    }
+
+    /**
+     * @return An unmodifiable view of the bookings there are now, taken in O(1) time, which does not change when more
+     * bookings are added
+     */
+    synchronized List<Booking> viewBookings() {
+        indexMappedBookings();
+        return bookings.view();
+    }
+
+    synchronized long getNextBookingNumber() {
+        return nextBookingNumber;
+    }
+
+    synchronized void setNextBookingNumber(long nextBookingNumber) {
+        this.nextBookingNumber = nextBookingNumber;
+    }
+
+    /**
+     * @return Number of changes to the bookings recorded so far
+     */
+    long getVersion() {
+        return changedBookings.getVersion();
+    }
+
+    /**
+     * @return The bookings added or changed since this was last called
+     */
+    List<Booking> takeChangedBookings() {
+        return changedBookings.take();
+    }
+
+    /**
+     * @return Whether the bookings of a mapped snapshot are still left in the file
+     */
+    synchronized boolean isMapped() {
+        return mapped != null;
+    }
+
+    private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+        indexMappedBookings();
+        out.defaultWriteObject();
+    }
+
+    /**
+     * Index all the bookings of the mapped snapshot, in the order they were saved, ahead of the ones added since. The
+     * bookings of the snapshot are also given to their bookers, ahead of the bookings they made since.
+     */
+    private void indexMappedBookings() {
+        if (mapped == null) {
+            return;
+        }
+        List<Booking> mappedBookings = mapped.readBookings();
+        mapped = null;
+        Map<Consumer, List<Booking>> mappedBookingsByBooker = new IdentityHashMap<>();
+        for (Booking booking : mappedBookings) {
+            indexBooking(booking);
+            mappedBookingsByBooker.computeIfAbsent(booking.getBooker(), booker -> new ArrayList<>()).add(booking);
+        }
+        for (Map.Entry<Consumer, List<Booking>> entry : mappedBookingsByBooker.entrySet()) {
+            entry.getKey().getBookings().addAll(0, entry.getValue());
+        }
+        for (Booking booking : bookingsAddedWhileMapped) {
+            indexBooking(booking);
+        }
+        bookingsAddedWhileMapped = null;
+    }
+
+    private void indexBooking(Booking booking) {
+        if (mapped != null) {
+            // Only found by number until the bookings of the snapshot are indexed
+            bookingsByNumber.put(booking.getBookingNumber(), booking);
+            bookingsAddedWhileMapped.add(booking);
+            return;
+        }
+        bookings.add(booking);
+        bookingsByNumber.put(booking.getBookingNumber(), booking);
 
+        long eventNumber = booking.getEvent().getEventNumber();
+        List<Booking> eventBookings = bookingsByEventNumber.get(eventNumber);
+        if (eventBookings == null) {
+            eventBookings = new ArrayList<>();
+            bookingsByEventNumber.put(eventNumber, eventBookings);
+        }
+        eventBookings.add(booking);
     }
 
 }
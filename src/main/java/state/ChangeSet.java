@@ -0,0 +1,51 @@
+package state;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * {@link ChangeSet} keeps track of the entities of a state that were added or changed since the changes were last
+ * taken, together with a version that counts every change ever recorded. An entity that changes again before the
+ * changes are taken is kept once, in the position of its first change, so entities are taken in the order they were
+ * added in.
+ * It is thread-safe: all the methods are synchronized on the instance.
+ *
+ * @param <K> type of the key identifying an entity
+ * @param <V> type of the entities
+ */
+class ChangeSet<K, V> implements Serializable {
+    private final LinkedHashMap<K, V> changes;
+    private long version;
+
+    ChangeSet() {
+        changes = new LinkedHashMap<>();
+        version = 0;
+    }
+
+    /**
+     * @param key    key identifying the entity
+     * @param entity entity that was added or changed
+     */
+    synchronized void record(K key, V entity) {
+        changes.put(key, entity);
+        ++version;
+    }
+
+    /**
+     * @return Number of changes recorded so far, including the ones already taken
+     */
+    synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return The entities that changed since the changes were last taken, which are forgotten
+     */
+    synchronized List<V> take() {
+        List<V> changedEntities = new ArrayList<>(changes.values());
+        changes.clear();
+        return changedEntities;
+    }
+}
@@ -0,0 +1,83 @@
+package state;
+
+import model.Event;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * {@link EventDateIndex} is a calendar index over {@link Event}s, bucketed by the epoch day each event starts on. It
+ * also keeps the longest span of days of any event, so the events happening on some day can only have started up to
+ * that many days earlier: looking up a range of days is a single tree range lookup followed by a walk over the events
+ * starting in it. Adding an event costs the same however many days it lasts.
+ */
+class EventDateIndex implements Serializable {
+    private final TreeMap<Long, List<Event>> eventsByStartDay;
+    // Largest number of days between the start day and the end day of any indexed event
+    private long maxSpanDays;
+
+    /**
+     * Create a new, empty {@link EventDateIndex}
+     */
+    EventDateIndex() {
+        eventsByStartDay = new TreeMap<>();
+    }
+
+    /**
+     * Add an {@link Event} to the bucket of the day it starts on. Events without start or end dates, or ending before
+     * they start, cannot be found by date and are not indexed.
+     *
+     * @param event event to index
+     */
+    void add(Event event) {
+        if (event.getStartDateTime() == null || event.getEndDateTime() == null) {
+            return;
+        }
+        long startDay = event.getStartDateTime().toLocalDate().toEpochDay();
+        long endDay = event.getEndDateTime().toLocalDate().toEpochDay();
+        if (endDay < startDay) {
+            return;
+        }
+        eventsByStartDay.computeIfAbsent(startDay, d -> new ArrayList<>()).add(event);
+        maxSpanDays = Math.max(maxSpanDays, endDay - startDay);
+    }
+
+    /**
+     * @param date day to look up
+     * @return {@link Event}s happening on the given day, ordered by event number
+     */
+    List<Event> findEventsOn(LocalDate date) {
+        return findEventsBetween(date, date);
+    }
+
+    /**
+     * @param fromDate first day of the range (inclusive), or null for no lower bound
+     * @param toDate   last day of the range (inclusive), or null for no upper bound
+     * @return {@link Event}s happening on at least one day of the range, ordered by event number
+     */
+    List<Event> findEventsBetween(LocalDate fromDate, LocalDate toDate) {
+        long fromDay = fromDate != null ? fromDate.toEpochDay() : Long.MIN_VALUE;
+        long toDay = toDate != null ? toDate.toEpochDay() : Long.MAX_VALUE;
+        if (fromDay > toDay) {
+            return new ArrayList<>();
+        }
+
+        // Events happening on the first day of the range started at most maxSpanDays before it
+        long fromStartDay = fromDay - maxSpanDays;
+        if (fromStartDay > fromDay) {
+            fromStartDay = Long.MIN_VALUE;
+        }
+        List<Event> result = new ArrayList<>();
+        for (List<Event> events : eventsByStartDay.subMap(fromStartDay, true, toDay, true).values()) {
+            for (Event event : events) {
+                if (event.getEndDateTime().toLocalDate().toEpochDay() >= fromDay) {
+                    result.add(event);
+                }
+            }
+        }
+        // Event numbers are handed out in insertion order, so this matches the order of the event list
+        result.sort(Comparator.comparingLong(Event::getEventNumber));
+        return result;
+    }
+}
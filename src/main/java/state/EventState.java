@@ -1,30 +1,60 @@
 package state;
 
+import com.graphhopper.util.shapes.GHPoint;
 import model.Event;
 import model.EventTag;
 import model.EventTagCollection;
 import model.EventType;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * {@link EventState} is a concrete implementation of {@link IEventState}.
+ * It is thread-safe: all the methods are synchronized on the instance, and lists are returned as copies.
+ * Added and changed events and tags are tracked for incremental autosaves.
+ * Events are never removed, so they are kept in an {@link AppendOnlyList}, of which a point-in-time view can be saved
+ * while more events are created.
+ * <p>
+ * An EventState restored by {@link SnapshotCodec#readMapped(java.nio.file.Path)} leaves the events of the snapshot in
+ * the mapped file: they are decoded one at a time when they are looked up by their number, and all of them are indexed
+ * the first time the events are listed or searched, ahead of the ones added since.
  */
 public class EventState implements IEventState, Serializable {
-    private final List<Event> events;
+    private final AppendOnlyList<Event> events;
+    private final LongHashMap<Event> eventsByNumber;
+    private final EventDateIndex eventsByDate;
+    private final EventTagIndex eventsByTag;
+    private final EventVenueIndex eventsByVenue;
     private long nextEventNumber;
     private final Map<String, EventTag> possibleTags;
+    private final ChangeSet<Long, Event> changedEvents;
+    private final ChangeSet<String, Map.Entry<String, EventTag>> changedTags;
+    // Snapshot whose events are not indexed yet, or null once they are
+    private transient MappedSnapshot mapped;
+    private transient List<Event> eventsAddedWhileMapped;
 
     /**
      * Create a new EventState with an empty list of events, which keeps track of the next event and performance numbers
      * it will generate, starting from 1 and incrementing by 1 each time when requested.
+     * Events are kept in insertion order and additionally indexed by their event number, by the days they are
+     * happening on, by their tag values, and by the location of their venue.
      */
     public EventState() {
-        events = new LinkedList<>();
+        events = new AppendOnlyList<>();
+        eventsByNumber = new LongHashMap<>();
+        eventsByDate = new EventDateIndex();
+        eventsByTag = new EventTagIndex();
+        eventsByVenue = new EventVenueIndex();
         nextEventNumber = 1;
-        possibleTags = new HashMap<>();
+        possibleTags = new ConcurrentHashMap<>();
+        changedEvents = new ChangeSet<>();
+        changedTags = new ChangeSet<>();
         Set<String> valueSet = new HashSet<>(Arrays.asList("true", "false"));
         Set<String> capacitySet = new HashSet<>(Arrays.asList("<20", "20-100", "100-200", "200"));
         createEventTag("hasSocialDistancing", valueSet, "false");
@@ -32,6 +62,21 @@ public class EventState implements IEventState, Serializable {
         createEventTag("venueCapacity", capacitySet, "<20");
     }
 
+    /**
+     * Create an EventState with the tags of a mapped snapshot, whose events are only decoded once they are needed
+     *
+     * @param base mapped snapshot to restore the events of
+     */
+    EventState(MappedSnapshot base) {
+        this();
+        for (Map.Entry<String, EventTag> entry : base.getPossibleTags().entrySet()) {
+            createEventTag(entry.getKey(), entry.getValue().getValues(), entry.getValue().getDefaultValue());
+        }
+        nextEventNumber = base.getNextEventNumber();
+        mapped = base;
+        eventsAddedWhileMapped = new ArrayList<>();
+    }
+
     /**
      * Copy constructor to make a deep copy of another EventState instance
      *
@@ -39,50 +84,206 @@ public class EventState implements IEventState, Serializable {
      */
     public EventState(IEventState other) {
         EventState otherImpl = (EventState) other;
-        events = new LinkedList<>(otherImpl.events);
-        nextEventNumber = otherImpl.nextEventNumber;
-        this.possibleTags = otherImpl.possibleTags;
+        events = new AppendOnlyList<>();
+        eventsByNumber = new LongHashMap<>();
+        eventsByDate = new EventDateIndex();
+        eventsByTag = new EventTagIndex();
+        eventsByVenue = new EventVenueIndex();
+        changedEvents = new ChangeSet<>();
+        changedTags = new ChangeSet<>();
+        synchronized (otherImpl) {
+            otherImpl.indexMappedEvents();
+            nextEventNumber = otherImpl.nextEventNumber;
+            this.possibleTags = otherImpl.possibleTags;
+            for (Map.Entry<String, EventTag> entry : possibleTags.entrySet()) {
+                eventsByTag.addTag(entry.getKey(), entry.getValue().getValues());
+            }
+            for (Event event : otherImpl.events) {
+                indexEvent(event);
+            }
+        }
+    }
+
+    @Override
+    public synchronized List<Event> getAllEvents() {
+        indexMappedEvents();
+        return new ArrayList<>(events);
     }
 
     @Override
-    public List<Event> getAllEvents() {
-        return events;
+    public synchronized Event findEventByNumber(long eventNumber) {
+        Event event = eventsByNumber.get(eventNumber);
+        if (event == null && mapped != null) {
+            event = mapped.findEventByNumber(eventNumber);
+        }
+        return event;
+    }
+
+    @Override
+    public synchronized List<Event> findEventsBetweenDates(LocalDate fromDate, LocalDate toDate) {
+        indexMappedEvents();
+        if (fromDate == null && toDate == null) {
+            return new ArrayList<>(events);
+        }
+        return eventsByDate.findEventsBetween(fromDate, toDate);
     }
 
     @Override
-    public Event findEventByNumber(long eventNumber) {
-        return events.stream()
-                .filter(event -> event.getEventNumber() == eventNumber)
-                .findFirst()
-                .orElse(null);
+    public synchronized List<Event> findEventsMatchingTags(EventTagCollection preferences) {
+        indexMappedEvents();
+        BitSet slots = eventsByTag.findMatchingSlots(preferences, events.size());
+        return eventsInSlots(slots);
+    }
+
+    @Override
+    public synchronized Map<Event, GHPoint> findEventsWithinDistance(GHPoint point, double maxDistance,
+                                                                     EventTagCollection preferences) {
+        indexMappedEvents();
+        BitSet slots = eventsByVenue.findSlotsWithin(point, maxDistance);
+        if (!slots.isEmpty()) {
+            slots.and(eventsByTag.findMatchingSlots(preferences, events.size()));
+        }
+        Map<Event, GHPoint> venuesByEvent = new LinkedHashMap<>();
+        for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+            venuesByEvent.put(events.get(slot), eventsByVenue.getCoordinates(slot));
+        }
+        return venuesByEvent;
+    }
+
+    private List<Event> eventsInSlots(BitSet slots) {
+        List<Event> matchingEvents = new ArrayList<>(slots.cardinality());
+        for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+            matchingEvents.add(events.get(slot));
+        }
+        return matchingEvents;
     }
 
     @Override
-    public Event createEvent(String title,
-                             EventType type,
-                             int numTickets,
-                             int ticketPriceInPence,
-                             String venueAddress,
-                             String description,
-                             LocalDateTime startDateTime,
-                             LocalDateTime endDateTime,
-                             EventTagCollection tags) {
+    public synchronized Event createEvent(String title,
+                                         EventType type,
+                                         int numTickets,
+                                         int ticketPriceInPence,
+                                         String venueAddress,
+                                         String description,
+                                         LocalDateTime startDateTime,
+                                         LocalDateTime endDateTime,
+                                         EventTagCollection tags) {
         long eventNumber = nextEventNumber;
         nextEventNumber++;
 
         Event event = new Event(eventNumber, title, type, numTickets,
                 ticketPriceInPence, venueAddress, description, startDateTime,
                 endDateTime, tags);
-        events.add(event);
+        indexEvent(event);
+        markEventChanged(event);
         return event;
     }
 
     @Override
-    public void addEvent(Event event) {
+    public synchronized Event addEvent(Event event) {
         long eventNumber = nextEventNumber;
         nextEventNumber++;
-        event.setEventNumber(eventNumber);
+        Event added = new Event(eventNumber, event);
+        indexEvent(added);
+        markEventChanged(added);
+        return added;
+    }
+
+    @Override
+    public void markEventChanged(Event event) {
+        changedEvents.record(event.getEventNumber(), event);
+    }
+
+    /**
+     * Add an event restored from a snapshot, keeping its event number
+     *
+     * @param event event to add
+     */
+    synchronized void restoreEvent(Event event) {
+        indexEvent(event);
+    }
+
+    /**
+     * @return An unmodifiable view of the events there are now, taken in O(1) time, which does not change when more
+     * events are added
+     */
+    synchronized List<Event> viewEvents() {
+        indexMappedEvents();
+        return events.view();
+    }
+
+    synchronized long getNextEventNumber() {
+        return nextEventNumber;
+    }
+
+    synchronized void setNextEventNumber(long nextEventNumber) {
+        this.nextEventNumber = nextEventNumber;
+    }
+
+    /**
+     * @return Number of changes to the events and tags recorded so far
+     */
+    long getVersion() {
+        return changedEvents.getVersion() + changedTags.getVersion();
+    }
+
+    /**
+     * @return The events added or changed since this was last called
+     */
+    List<Event> takeChangedEvents() {
+        return changedEvents.take();
+    }
+
+    /**
+     * @return The tags created since this was last called, with their names
+     */
+    List<Map.Entry<String, EventTag>> takeChangedTags() {
+        return changedTags.take();
+    }
+
+    /**
+     * @return Whether the events of a mapped snapshot are still left in the file
+     */
+    synchronized boolean isMapped() {
+        return mapped != null;
+    }
+
+    private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+        indexMappedEvents();
+        out.defaultWriteObject();
+    }
+
+    /**
+     * Index all the events of the mapped snapshot, in the order they were saved, ahead of the ones added since
+     */
+    private void indexMappedEvents() {
+        if (mapped == null) {
+            return;
+        }
+        List<Event> mappedEvents = mapped.readEvents();
+        mapped = null;
+        for (Event event : mappedEvents) {
+            indexEvent(event);
+        }
+        for (Event event : eventsAddedWhileMapped) {
+            indexEvent(event);
+        }
+        eventsAddedWhileMapped = null;
+    }
+
+    private void indexEvent(Event event) {
+        if (mapped != null) {
+            // Only found by number until the events of the snapshot are indexed
+            eventsByNumber.put(event.getEventNumber(), event);
+            eventsAddedWhileMapped.add(event);
+            return;
+        }
+        int slot = events.size();
         events.add(event);
+        eventsByNumber.put(event.getEventNumber(), event);
+        eventsByDate.add(event);
+        eventsByTag.add(slot, event.getTags());
+        eventsByVenue.add(slot, event.getVenueAddress());
     }
 
     @Override
@@ -91,9 +292,21 @@ public class EventState implements IEventState, Serializable {
     }
 
     @Override
-    public EventTag createEventTag(String tagName, Set<String> possibleValues, String defaultValue) {
+    public synchronized EventTag createEventTag(String tagName, Set<String> possibleValues, String defaultValue) {
         EventTag tag = new EventTag(possibleValues, defaultValue);
         possibleTags.put(tagName, tag);
+        eventsByTag.addTag(tagName, possibleValues);
+        markTagChanged(tagName, tag);
         return tag;
     }
+
+    /**
+     * Record that a tag was created, which {@link #createEventTag(String, Set, String)} does already
+     *
+     * @param tagName name of the tag
+     * @param tag     tag that was created
+     */
+    void markTagChanged(String tagName, EventTag tag) {
+        changedTags.record(tagName, new AbstractMap.SimpleImmutableEntry<>(tagName, tag));
+    }
 }
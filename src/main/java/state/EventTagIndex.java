@@ -0,0 +1,80 @@
+package state;
+
+import model.EventTagCollection;
+
+import java.io.Serializable;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link EventTagIndex} is an inverted index from (tag name, tag value) pairs to the slots of the events carrying
+ * that value. A slot is the position of an event in the insertion-ordered event list of {@link EventState}.
+ * Matching a set of preferences is then an intersection of a few {@link BitSet}s, instead of looking up every
+ * preference in every event's {@link EventTagCollection}.
+ */
+class EventTagIndex implements Serializable {
+    private final Map<String, Map<String, BitSet>> slotsByTagValue;
+
+    /**
+     * Create a new, empty {@link EventTagIndex}
+     */
+    EventTagIndex() {
+        slotsByTagValue = new HashMap<>();
+    }
+
+    /**
+     * Register the possible values of a tag, so that the index has an (empty) entry for each of them
+     *
+     * @param tagName        name of the tag
+     * @param possibleValues possible values of the tag
+     */
+    void addTag(String tagName, Iterable<String> possibleValues) {
+        Map<String, BitSet> slotsByValue = slotsByTagValue.computeIfAbsent(tagName, name -> new HashMap<>());
+        for (String value : possibleValues) {
+            slotsByValue.computeIfAbsent(value, v -> new BitSet());
+        }
+    }
+
+    /**
+     * Record the tag values of the event in the given slot. Only values set explicitly on the event are indexed.
+     *
+     * @param slot position of the event in the event list
+     * @param tags tags of the event, can be null
+     */
+    void add(int slot, EventTagCollection tags) {
+        if (tags == null) {
+            return;
+        }
+        for (Map.Entry<String, String> entry : tags.getTags().entrySet()) {
+            slotsByTagValue.computeIfAbsent(entry.getKey(), name -> new HashMap<>())
+                    .computeIfAbsent(entry.getValue(), value -> new BitSet())
+                    .set(slot);
+        }
+    }
+
+    /**
+     * @param preferences tag names and values that all have to match, can be null
+     * @param numSlots    number of slots in use, i.e., the number of events
+     * @return Slots of the events that have every one of the preferred tag values
+     */
+    BitSet findMatchingSlots(EventTagCollection preferences, int numSlots) {
+        BitSet result = new BitSet(numSlots);
+        result.set(0, numSlots);
+        if (preferences == null) {
+            return result;
+        }
+        for (Map.Entry<String, String> preference : preferences.getTags().entrySet()) {
+            Map<String, BitSet> slotsByValue = slotsByTagValue.get(preference.getKey());
+            BitSet slots = slotsByValue == null ? null : slotsByValue.get(preference.getValue());
+            if (slots == null) {
+                return new BitSet();
+            }
+            result.and(slots);
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,136 @@
+package state;
+
+import com.graphhopper.util.DistanceCalcEarth;
+import com.graphhopper.util.shapes.GHPoint;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * {@link EventVenueIndex} is a uniform grid over the parsed venue coordinates of events. Each event slot (its position
+ * in the insertion-ordered event list of {@link EventState}) is stored in the grid cell its venue falls in, so finding
+ * the venues within some great-circle distance of a point only needs to visit the cells around that point.
+ */
+class EventVenueIndex implements Serializable {
+    // About 5.5km in latitude and 3km in longitude at Scottish latitudes
+    private static final double CELL_SIZE_DEGREES = 0.05;
+    private static final double METRES_PER_DEGREE_LATITUDE = DistanceCalcEarth.R * Math.PI / 180;
+
+    private final Map<Long, List<Integer>> slotsByCell;
+    private final Map<Integer, double[]> coordinatesBySlot;
+
+    /**
+     * Create a new, empty {@link EventVenueIndex}
+     */
+    EventVenueIndex() {
+        slotsByCell = new HashMap<>();
+        coordinatesBySlot = new HashMap<>();
+    }
+
+    /**
+     * Parse a venue address of the form "latitude longitude", as used throughout the application
+     *
+     * @param venueAddress address to parse
+     * @return The parsed {@link GHPoint}, or null if the address is missing or not in the expected form
+     */
+    static GHPoint parseVenueAddress(String venueAddress) {
+        if (venueAddress == null || venueAddress.isBlank()) {
+            return null;
+        }
+        try {
+            String[] coordinates = venueAddress.split(" ");
+            return GHPoint.fromString(coordinates[0] + "," + coordinates[1]);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static long cellRow(double lat) {
+        return (long) Math.floor(lat / CELL_SIZE_DEGREES);
+    }
+
+    private static long cellColumn(double lon) {
+        return (long) Math.floor(lon / CELL_SIZE_DEGREES);
+    }
+
+    private static long cellKey(long row, long column) {
+        return (row << 32) ^ (column & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Record the venue of the event in the given slot. Venues that cannot be parsed are not indexed.
+     *
+     * @param slot         position of the event in the event list
+     * @param venueAddress venue address of the event
+     */
+    void add(int slot, String venueAddress) {
+        GHPoint point = parseVenueAddress(venueAddress);
+        if (point == null) {
+            return;
+        }
+        coordinatesBySlot.put(slot, new double[]{point.getLat(), point.getLon()});
+        slotsByCell.computeIfAbsent(cellKey(cellRow(point.getLat()), cellColumn(point.getLon())),
+                key -> new ArrayList<>()).add(slot);
+    }
+
+    /**
+     * @param slot position of an event in the event list
+     * @return The parsed coordinates of the venue of the event, or null if its venue was not indexed
+     */
+    GHPoint getCoordinates(int slot) {
+        double[] coordinates = coordinatesBySlot.get(slot);
+        return coordinates == null ? null : new GHPoint(coordinates[0], coordinates[1]);
+    }
+
+    /**
+     * @param origin      point to measure distances from
+     * @param maxDistance maximum great-circle distance in metres
+     * @return Slots of the events whose venue is within maxDistance of the origin
+     */
+    BitSet findSlotsWithin(GHPoint origin, double maxDistance) {
+        BitSet result = new BitSet();
+        if (!(maxDistance >= 0)) {
+            return result;
+        }
+
+        double latRadius = maxDistance / METRES_PER_DEGREE_LATITUDE;
+        double maxAbsLat = Math.min(90, Math.abs(origin.getLat()) + latRadius);
+        double cosLat = Math.cos(Math.toRadians(maxAbsLat));
+        double lonRadius = cosLat <= 1e-9 ? 180 : Math.min(180, latRadius / cosLat);
+
+        // Clamped to the range of coordinates, so that the box stays small (and finite) however large the distance is
+        long minRow = cellRow(Math.max(-90, origin.getLat() - latRadius));
+        long maxRow = cellRow(Math.min(90, origin.getLat() + latRadius));
+        long minColumn = cellColumn(Math.max(-360, origin.getLon() - lonRadius));
+        long maxColumn = cellColumn(Math.min(360, origin.getLon() + lonRadius));
+
+        // For very large distances it is cheaper to look at every occupied cell than at every cell in the box
+        if ((double) (maxRow - minRow + 1) * (maxColumn - minColumn + 1) > slotsByCell.size()) {
+            for (List<Integer> slots : slotsByCell.values()) {
+                addSlotsWithin(slots, origin, maxDistance, result);
+            }
+            return result;
+        }
+
+        for (long row = minRow; row <= maxRow; row++) {
+            for (long column = minColumn; column <= maxColumn; column++) {
+                List<Integer> slots = slotsByCell.get(cellKey(row, column));
+                if (slots != null) {
+                    addSlotsWithin(slots, origin, maxDistance, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void addSlotsWithin(List<Integer> slots, GHPoint origin, double maxDistance, BitSet result) {
+        for (int slot : slots) {
+            double[] coordinates = coordinatesBySlot.get(slot);
+            double distance = DistanceCalcEarth.DIST_EARTH.calcDist(
+                    origin.getLat(), origin.getLon(), coordinates[0], coordinates[1]);
+            if (distance <= maxDistance) {
+                result.set(slot);
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package state;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link HashedTimingWheel} keeps items until a deadline, in a ring of buckets that each cover one tick of time.
+ * An item is put in the bucket of the tick its deadline falls in, modulo the number of buckets, so scheduling an item
+ * is constant time, and advancing the wheel only visits the buckets of the ticks that have passed instead of every
+ * item. Items with a deadline more than one revolution away share their bucket with earlier ones, and are kept there
+ * until the wheel comes round to their tick.
+ *
+ * This class is not thread-safe.
+ *
+ * @param <T> type of the scheduled items
+ */
+class HashedTimingWheel<T> {
+    private final long tickNanos;
+    private final long startNanos;
+    private final List<List<Entry<T>>> buckets;
+    private final int mask;
+    private long lastTick;
+    private int size;
+
+    /**
+     * Create a new, empty {@link HashedTimingWheel}
+     *
+     * @param tickDuration time covered by one bucket
+     * @param unit         unit of tickDuration
+     * @param numBuckets   number of buckets, rounded up to a power of two
+     * @param startNanos   time of the first tick, in the same time base as {@link System#nanoTime()}
+     */
+    HashedTimingWheel(long tickDuration, TimeUnit unit, int numBuckets, long startNanos) {
+        this.tickNanos = Math.max(1, unit.toNanos(tickDuration));
+        this.startNanos = startNanos;
+        int capacity = Integer.highestOneBit(Math.max(1, numBuckets - 1)) << 1;
+        this.buckets = new ArrayList<>(capacity);
+        for (int i = 0; i < capacity; ++i) {
+            buckets.add(new ArrayList<>());
+        }
+        this.mask = capacity - 1;
+        this.lastTick = 0;
+        this.size = 0;
+    }
+
+    private long tickOf(long nanos) {
+        return Math.floorDiv(nanos - startNanos, tickNanos);
+    }
+
+    /**
+     * @param item          item to schedule
+     * @param deadlineNanos time when the item expires, in the same time base as {@link System#nanoTime()}
+     */
+    void schedule(T item, long deadlineNanos) {
+        // An item expires once the whole tick its deadline falls in has passed, and never in a tick already processed
+        long deadlineTick = Math.max(tickOf(deadlineNanos) + 1, lastTick + 1);
+        buckets.get((int) (deadlineTick & mask)).add(new Entry<>(item, deadlineTick));
+        ++size;
+    }
+
+    /**
+     * Advance the wheel to the given time, removing the items whose deadline has passed
+     *
+     * @param nowNanos current time, in the same time base as {@link System#nanoTime()}
+     * @return The expired items
+     */
+    List<T> advance(long nowNanos) {
+        List<T> expired = new ArrayList<>();
+        long nowTick = tickOf(nowNanos);
+        if (nowTick <= lastTick) {
+            return expired;
+        }
+        // After more than one revolution, every bucket has to be visited exactly once
+        long firstTick = Math.max(lastTick + 1, nowTick - mask);
+        for (long tick = firstTick; tick <= nowTick; ++tick) {
+            List<Entry<T>> bucket = buckets.get((int) (tick & mask));
+            int i = 0;
+            while (i < bucket.size()) {
+                Entry<T> entry = bucket.get(i);
+                if (entry.deadlineTick <= nowTick) {
+                    expired.add(entry.item);
+                    // Order within a bucket does not matter, so the removed entry can be replaced by the last one
+                    Entry<T> last = bucket.remove(bucket.size() - 1);
+                    if (i < bucket.size()) {
+                        bucket.set(i, last);
+                    }
+                } else {
+                    ++i;
+                }
+            }
+        }
+        lastTick = nowTick;
+        size -= expired.size();
+        return expired;
+    }
+
+    /**
+     * @return Number of items that have not expired yet
+     */
+    int size() {
+        return size;
+    }
+
+    private static class Entry<T> {
+        private final T item;
+        private final long deadlineTick;
+
+        private Entry(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
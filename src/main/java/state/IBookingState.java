@@ -28,6 +28,14 @@ public interface IBookingState {
      */
     List<Booking> findBookingsByEventNumber(long eventNumber);
 
+    /**
+     * Get a list of all the {@link Booking}s made by a {@link Consumer}
+     *
+     * @param booker {@link Consumer} to find the bookings of
+     * @return List of the {@link Booking}s of the booker, in the order they were made
+     */
+    List<Booking> findBookingsByBooker(Consumer booker);
+
     /**
      * Create a new {@link Booking} (includes generating a new unique booking number) and add it to the booking state
      *
@@ -40,5 +48,28 @@ public interface IBookingState {
 
     List<Booking> getAllBookings();
 
-    void addBooking(Booking other);
+    /**
+     * Add a copy of a booking under the next booking number, for the same event
+     *
+     * @param other the booking which is going to be added in the system
+     * @return The copy that was added
+     */
+    Booking addBooking(Booking other);
+
+    /**
+     * Add a copy of a booking under the next booking number, e.g. a booking imported from another state
+     *
+     * @param other the booking which is going to be added in the system
+     * @param event the {@link Event} the copy is for, as returned by {@link IEventState#addEvent(Event)}
+     * @return The copy that was added, which its booker must hold
+     */
+    Booking addBooking(Booking other, Event event);
+
+    /**
+     * Record that a {@link Booking} changed after it was added, i.e., it was cancelled, so that the change is saved by
+     * the next autosave. Creating or adding a booking records it already.
+     *
+     * @param booking booking that changed
+     */
+    void markBookingChanged(Booking booking);
 }
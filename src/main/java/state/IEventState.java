@@ -1,10 +1,12 @@
 package state;
 
+import com.graphhopper.util.shapes.GHPoint;
 import model.Event;
 import model.EventTag;
 import model.EventTagCollection;
 import model.EventType;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +28,38 @@ public interface IEventState {
      */
     Event findEventByNumber(long eventNumber);
 
+    /**
+     * Get all the {@link Event}s happening on at least one day of a date range, i.e., starting, ending, or in between
+     *
+     * @param fromDate first day of the range (inclusive), or null for no lower bound
+     * @param toDate   last day of the range (inclusive), or null for no upper bound
+     * @return List of {@link Event}s happening within the range, in the same order as {@link #getAllEvents()}
+     */
+    List<Event> findEventsBetweenDates(LocalDate fromDate, LocalDate toDate);
+
+    /**
+     * Get all the {@link Event}s whose tags have every one of the given values. Events that do not set a tag at all
+     * do not match a preference for that tag.
+     *
+     * @param preferences tag names and values to match, an empty collection or null matches every event
+     * @return List of matching {@link Event}s, in the same order as {@link #getAllEvents()}
+     */
+    List<Event> findEventsMatchingTags(EventTagCollection preferences);
+
+    /**
+     * Get all the {@link Event}s whose venue is within a great-circle (straight-line) distance of a point and whose
+     * tags have every one of the given values. Since a route can never be shorter than the straight line, this gives
+     * every matching event that may be reachable within that distance. Events without a valid "latitude longitude"
+     * venue address are never included.
+     *
+     * @param point       point to measure the distance from
+     * @param maxDistance maximum distance in metres
+     * @param preferences tag names and values to match, as in {@link #findEventsMatchingTags(EventTagCollection)}
+     * @return Map from each matching {@link Event} to the coordinates of its venue, in the same order as
+     * {@link #getAllEvents()}
+     */
+    Map<Event, GHPoint> findEventsWithinDistance(GHPoint point, double maxDistance, EventTagCollection preferences);
+
     /**
      * Create a new {@link Event} (includes generating a new unique event number) and add it to the event state
      *
@@ -50,9 +84,20 @@ public interface IEventState {
                       EventTagCollection tags);
 
     /**
+     * Add a copy of an event under the next event number, e.g. an event imported from another state
+     *
      * @param event the event which is going to be added in the system
+     * @return The copy that was added, which the bookings of the event must refer to
+     */
+    Event addEvent(Event event);
+
+    /**
+     * Record that an {@link Event} changed after it was added, e.g., it was cancelled, reviewed or booked, so that the
+     * change is saved by the next autosave. Creating or adding an event records it already.
+     *
+     * @param event event that changed
      */
-    void addEvent(Event event);
+    void markEventChanged(Event event);
 
     /**
      * @return All possible tags in the system
@@ -0,0 +1,65 @@
+package state;
+
+import model.Consumer;
+import model.Event;
+import model.TicketHold;
+
+import java.time.Duration;
+
+/**
+ * {@link ITicketHoldState} is an interface representing the portion of application state that contains the
+ * {@link TicketHold}s, i.e., tickets that are set aside for a {@link Consumer} for a limited time before they are
+ * booked. Holds that are neither confirmed nor released in time are released automatically.
+ */
+public interface ITicketHoldState extends AutoCloseable {
+    /**
+     * Hold a number of tickets of an {@link Event} for a {@link Consumer}, taking them out of the tickets left
+     *
+     * @param holder       consumer to hold the tickets for
+     * @param event        event to hold the tickets of
+     * @param numTickets   number of tickets to hold
+     * @param holdDuration how long the tickets are held for unless the hold is confirmed
+     * @return The new {@link TicketHold}, or null if there are not enough tickets left
+     */
+    TicketHold placeHold(Consumer holder, Event event, int numTickets, Duration holdDuration);
+
+    /**
+     * @param holdNumber unique hold identifier to look up
+     * @return The {@link TicketHold} with the given number if its tickets are still held, and null otherwise
+     */
+    TicketHold findHoldByNumber(long holdNumber);
+
+    /**
+     * Confirm a {@link TicketHold}, so that its tickets are no longer released when it expires
+     *
+     * @param hold hold to confirm
+     * @return True if the hold was confirmed, false if it had already been released or confirmed
+     */
+    boolean confirmHold(TicketHold hold);
+
+    /**
+     * Release a {@link TicketHold}, putting its tickets back into the tickets left of its event
+     *
+     * @param hold hold to release
+     * @return True if the hold was released, false if it had already been released or confirmed
+     */
+    boolean releaseHold(TicketHold hold);
+
+    /**
+     * Release all the {@link TicketHold}s that have expired. This also happens periodically in the background.
+     *
+     * @return Number of holds that were released
+     */
+    int releaseExpiredHolds();
+
+    /**
+     * @return Number of {@link TicketHold}s whose tickets are currently held
+     */
+    int getNumActiveHolds();
+
+    /**
+     * Stop releasing expired holds in the background
+     */
+    @Override
+    void close();
+}
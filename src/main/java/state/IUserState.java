@@ -17,7 +17,34 @@ public interface IUserState {
     void addUser(User user);
 
     /**
-     * @return A collection of all registered users
+     * Add a new {@link User} instance to the user state, unless a user is already registered with the same email
+     * address. Checking and adding is atomic, so only one of several users registering with one email address is added.
+     *
+     * @param user user
+     * @return True if the user was added, and false if the email address was already in use
+     */
+    boolean tryAddUser(User user);
+
+    /**
+     * Change the email address of a registered {@link User}, unless another user is already registered with the new
+     * email address. Checking and changing is atomic, so two users cannot end up with the same email address.
+     *
+     * @param user     registered user
+     * @param newEmail email address to use for the user from now on
+     * @return True if the email address was changed (or already was the new one), and false if it is in use
+     */
+    boolean tryChangeEmail(User user, String newEmail);
+
+    /**
+     * Record that the details of a registered {@link User} changed, so that the change is saved by the next autosave.
+     * Adding a user with {@link #addUser(User)} records it already.
+     *
+     * @param user user whose details changed
+     */
+    void markUserChanged(User user);
+
+    /**
+     * @return An unmodifiable view of all registered users by their email address
      */
     Map<String, User> getAllUsers();
 
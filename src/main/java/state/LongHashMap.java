@@ -0,0 +1,115 @@
+package state;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * {@link LongHashMap} is a minimal open-addressing hash map from primitive {@code long} keys to object values.
+ * It is used by the state classes to index entities by their unique numbers without boxing the keys or walking
+ * through a list. Collisions are resolved with linear probing and the table is doubled once it is more than
+ * half full. Entries cannot be removed, which matches how events and bookings are kept in the system.
+ *
+ * @param <V> type of the stored values
+ */
+class LongHashMap<V> implements Serializable {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+
+    /**
+     * Create a new, empty {@link LongHashMap}
+     */
+    LongHashMap() {
+        keys = new long[DEFAULT_CAPACITY];
+        values = new Object[DEFAULT_CAPACITY];
+        size = 0;
+    }
+
+    /**
+     * Copy constructor, the keys and values are copied but the values themselves are shared
+     *
+     * @param other instance to copy
+     */
+    LongHashMap(LongHashMap<V> other) {
+        keys = Arrays.copyOf(other.keys, other.keys.length);
+        values = Arrays.copyOf(other.values, other.values.length);
+        size = other.size;
+    }
+
+    private static int mix(long key) {
+        // Spread the bits of the key so that consecutive numbers do not land in consecutive slots
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * @param key key to look up
+     * @return The value associated with the key if there is one, and null otherwise
+     */
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Associate a non-null value with the key, replacing any previous value
+     *
+     * @param key   key to store the value under
+     * @param value value to store, must not be null
+     */
+    void put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("LongHashMap does not accept null values");
+        }
+        if (2 * (size + 1) > keys.length) {
+            resize(keys.length * 2);
+        }
+        if (insert(keys, values, key, value)) {
+            size++;
+        }
+    }
+
+    /**
+     * @return Number of keys stored in the map
+     */
+    int size() {
+        return size;
+    }
+
+    private static boolean insert(long[] keys, Object[] values, long key, Object value) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        return true;
+    }
+
+    private void resize(int newCapacity) {
+        long[] newKeys = new long[newCapacity];
+        Object[] newValues = new Object[newCapacity];
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != null) {
+                insert(newKeys, newValues, keys[i], values[i]);
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+    }
+}
@@ -0,0 +1,361 @@
+package state;
+
+import model.Booking;
+import model.Event;
+import model.EventTag;
+import model.User;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link MappedSnapshot} gives access to the base of a snapshot file without decoding all of it. The base is mapped
+ * into memory with {@link FileChannel#map}, and opening it only decodes its users and tags, and checks its index, so it
+ * takes about the same time however many events and bookings were saved.
+ * <p>
+ * Events and bookings are decoded from the mapped file the first time they are looked up by their number, which is
+ * found by a binary search of the index, and are kept, so that each of them is decoded once and every booking refers
+ * to the same event as the lookups. {@link #readEvents()} and {@link #readBookings()} decode all of them straight from
+ * the mapped file, in the order they were saved, for the states to index them once they are needed as a whole.
+ * <p>
+ * Only uncompressed snapshots of the current version, which have an index, can be mapped. The file must not be
+ * truncated or overwritten while it is mapped, but the deltas after the base are not mapped, so more can be appended.
+ * Parts of the base are only checked when they are decoded, so an event or booking found to be corrupted then is
+ * reported with an {@link UncheckedIOException}, as the states looking it up cannot throw an {@link IOException}.
+ * It is thread-safe: all the methods decoding entities are synchronized on the instance.
+ */
+class MappedSnapshot {
+    private static final int INDEX_ENTRY_SIZE = 2 * Long.BYTES;
+
+    private final Path file;
+    private final MappedByteBuffer mapped;
+    private final int eventsPosition;
+    private final int bookingsPosition;
+    private final int numEvents;
+    private final int eventIndexPosition;
+    private final int numBookings;
+    private final int bookingIndexPosition;
+    private final long nextEventNumber;
+    private final long nextBookingNumber;
+    private final List<User> users;
+    private final boolean[] registered;
+    private final Map<String, EventTag> possibleTags;
+    private final LongHashMap<Event> eventsByNumber;
+    private final LongHashMap<Booking> bookingsByNumber;
+
+    private MappedSnapshot(Path file, MappedByteBuffer mapped, int usersPosition, int indexPosition)
+            throws IOException {
+        this.file = file;
+        this.mapped = mapped;
+        SnapshotReader reader = new SnapshotReader(mapped);
+
+        // Only the start of each part of the index is read, the entries are searched in the mapped file
+        reader.seek(indexPosition);
+        reader.beginSection(SnapshotCodec.SECTION_INDEX);
+        int tagsPosition = readPosition(reader);
+        eventsPosition = readPosition(reader);
+        bookingsPosition = readPosition(reader);
+        numEvents = SnapshotCodec.readCount(reader);
+        eventIndexPosition = (int) reader.position();
+        reader.seek(eventIndexPosition + (long) numEvents * INDEX_ENTRY_SIZE);
+        numBookings = SnapshotCodec.readCount(reader);
+        bookingIndexPosition = (int) reader.position();
+        reader.seek(bookingIndexPosition + (long) numBookings * INDEX_ENTRY_SIZE);
+        if (reader.position() != mapped.limit()) {
+            throw new StreamCorruptedException(file + " has an index of " + numEvents + " events and " + numBookings
+                    + " bookings, which does not end where its section does");
+        }
+
+        reader.seek(usersPosition);
+        reader.beginSection(SnapshotCodec.SECTION_USERS);
+        int numUsers = SnapshotCodec.readCount(reader);
+        users = new ArrayList<>(numUsers);
+        registered = new boolean[numUsers];
+        for (int userId = 0; userId < numUsers; ++userId) {
+            int kind = reader.getByte();
+            registered[userId] = reader.getByte() != 0;
+            users.add(SnapshotCodec.readUserDetails(reader, kind));
+        }
+        reader.endSection();
+
+        checkPosition(reader, tagsPosition);
+        Map<String, EventTag> tags = new LinkedHashMap<>();
+        reader.beginSection(SnapshotCodec.SECTION_TAGS);
+        int numTags = SnapshotCodec.readCount(reader);
+        for (int i = 0; i < numTags; ++i) {
+            SnapshotCodec.readTag(reader, new SnapshotVisitor() {
+                @Override
+                public void visitTag(String tagName, EventTag tag) {
+                    tags.put(tagName, tag);
+                }
+            });
+        }
+        reader.endSection();
+        possibleTags = Collections.unmodifiableMap(tags);
+
+        checkPosition(reader, eventsPosition);
+        reader.beginSection(SnapshotCodec.SECTION_EVENTS);
+        nextEventNumber = reader.getLong();
+        checkCount(SnapshotCodec.readCount(reader), numEvents, "events");
+        reader.seek(bookingsPosition);
+        reader.beginSection(SnapshotCodec.SECTION_BOOKINGS);
+        nextBookingNumber = reader.getLong();
+        checkCount(SnapshotCodec.readCount(reader), numBookings, "bookings");
+
+        eventsByNumber = new LongHashMap<>();
+        bookingsByNumber = new LongHashMap<>();
+    }
+
+    /**
+     * Map the base of a snapshot file into memory, up to the end of its index
+     *
+     * @param file snapshot file to map
+     * @return The mapped base, whose events and bookings are only decoded once they are needed, or null if the
+     * snapshot cannot be mapped
+     * @throws StreamCorruptedException if the file is not a snapshot of a supported version, or is inconsistent
+     */
+    static MappedSnapshot open(Path file) throws IOException {
+        int usersPosition;
+        long indexPosition;
+        long endPosition;
+        try (SnapshotReader reader = SnapshotCodec.openSnapshot(file)) {
+            indexPosition = reader.getIndexPosition();
+            if (indexPosition < 0 || reader.isCompressed() || reader.getVersion() != SnapshotCodec.VERSION) {
+                return null;
+            }
+            usersPosition = (int) reader.position();
+            reader.skipSection(SnapshotCodec.SECTION_USERS);
+            reader.skipSection(SnapshotCodec.SECTION_TAGS);
+            reader.skipSection(SnapshotCodec.SECTION_EVENTS);
+            reader.skipSection(SnapshotCodec.SECTION_BOOKINGS);
+            SnapshotCodec.skipIndex(reader);
+            endPosition = reader.position();
+        }
+        // A mapped buffer is indexed by int
+        if (endPosition > Integer.MAX_VALUE) {
+            return null;
+        }
+        // The mapping stays valid once the channel is closed
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new MappedSnapshot(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, endPosition),
+                    usersPosition, (int) indexPosition);
+        }
+    }
+
+    /**
+     * @return Position of the end of the base in the file, where its deltas start
+     */
+    long getEndPosition() {
+        return mapped.limit();
+    }
+
+    /**
+     * @return The users of the base by their ID, which are all decoded when it is opened
+     */
+    List<User> getUsers() {
+        return Collections.unmodifiableList(users);
+    }
+
+    /**
+     * @param userId ID of a user of the base
+     * @return Whether the user was registered, rather than only referred to by reviews or bookings
+     */
+    boolean isRegistered(int userId) {
+        return registered[userId];
+    }
+
+    /**
+     * @return The possible tags, in the order they were saved
+     */
+    Map<String, EventTag> getPossibleTags() {
+        return possibleTags;
+    }
+
+    long getNextEventNumber() {
+        return nextEventNumber;
+    }
+
+    long getNextBookingNumber() {
+        return nextBookingNumber;
+    }
+
+    /**
+     * @param eventNumber number of the event to find
+     * @return The event with the number, decoded the first time it is asked for, or null if the base has none
+     */
+    synchronized Event findEventByNumber(long eventNumber) {
+        Event event = eventsByNumber.get(eventNumber);
+        if (event != null) {
+            return event;
+        }
+        long position = findPosition(eventIndexPosition, numEvents, eventNumber, eventsPosition, bookingsPosition);
+        if (position < 0) {
+            return null;
+        }
+        try {
+            event = SnapshotCodec.readEvent(readerAt(position), users);
+            checkNumber(event.getEventNumber(), eventNumber, "event");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Event " + eventNumber + " of " + file + " is corrupted", e);
+        }
+        eventsByNumber.put(eventNumber, event);
+        return event;
+    }
+
+    /**
+     * @param bookingNumber number of the booking to find
+     * @return The booking with the number, decoded the first time it is asked for, or null if the base has none
+     */
+    synchronized Booking findBookingByNumber(long bookingNumber) {
+        Booking booking = bookingsByNumber.get(bookingNumber);
+        if (booking != null) {
+            return booking;
+        }
+        long position = findPosition(bookingIndexPosition, numBookings, bookingNumber, bookingsPosition,
+                mapped.limit());
+        if (position < 0) {
+            return null;
+        }
+        try {
+            booking = SnapshotCodec.readBooking(readerAt(position), users, this::findEventByNumber);
+            checkNumber(booking.getBookingNumber(), bookingNumber, "booking");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Booking " + bookingNumber + " of " + file + " is corrupted", e);
+        }
+        bookingsByNumber.put(bookingNumber, booking);
+        return booking;
+    }
+
+    /**
+     * @return All the events of the base in the order they were saved, the ones looked up before included
+     */
+    synchronized List<Event> readEvents() {
+        List<Event> events = new ArrayList<>(numEvents);
+        try {
+            SnapshotReader reader = readerAt(eventsPosition);
+            reader.beginSection(SnapshotCodec.SECTION_EVENTS);
+            reader.getLong();
+            SnapshotCodec.readCount(reader);
+            for (int i = 0; i < numEvents; ++i) {
+                Event event = SnapshotCodec.readEvent(reader, users);
+                // An event that was looked up before is kept instead, as the states may have changed it
+                Event knownEvent = eventsByNumber.get(event.getEventNumber());
+                if (knownEvent == null) {
+                    eventsByNumber.put(event.getEventNumber(), event);
+                } else {
+                    event = knownEvent;
+                }
+                events.add(event);
+            }
+            reader.endSection();
+        } catch (IOException e) {
+            throw new UncheckedIOException("The events of " + file + " are corrupted", e);
+        }
+        return events;
+    }
+
+    /**
+     * @return All the bookings of the base in the order they were saved, the ones looked up before included
+     */
+    synchronized List<Booking> readBookings() {
+        List<Booking> bookings = new ArrayList<>(numBookings);
+        try {
+            SnapshotReader reader = readerAt(bookingsPosition);
+            reader.beginSection(SnapshotCodec.SECTION_BOOKINGS);
+            reader.getLong();
+            SnapshotCodec.readCount(reader);
+            for (int i = 0; i < numBookings; ++i) {
+                Booking booking = SnapshotCodec.readBooking(reader, users, this::findEventByNumber);
+                Booking knownBooking = bookingsByNumber.get(booking.getBookingNumber());
+                if (knownBooking == null) {
+                    bookingsByNumber.put(booking.getBookingNumber(), booking);
+                } else {
+                    booking = knownBooking;
+                }
+                bookings.add(booking);
+            }
+            reader.endSection();
+        } catch (IOException e) {
+            throw new UncheckedIOException("The bookings of " + file + " are corrupted", e);
+        }
+        return bookings;
+    }
+
+    /**
+     * Binary search a part of the index, whose entries are a number and a position sorted by number
+     *
+     * @return Position of the entity with the number, or -1 if there is none
+     */
+    private long findPosition(int indexPosition, int numEntries, long number, long sectionPosition,
+                              long sectionEndPosition) {
+        int low = 0;
+        int high = numEntries - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entryPosition = indexPosition + middle * INDEX_ENTRY_SIZE;
+            long middleNumber = mapped.getLong(entryPosition);
+            if (middleNumber < number) {
+                low = middle + 1;
+            } else if (middleNumber > number) {
+                high = middle - 1;
+            } else {
+                long position = mapped.getLong(entryPosition + Long.BYTES);
+                if (position <= sectionPosition || position >= sectionEndPosition) {
+                    throw new UncheckedIOException(new StreamCorruptedException("Number " + number + " of " + file
+                            + " is indexed at " + position + ", outside of its section"));
+                }
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Events decode the authors of their reviews, and bookings look up their events, so each decoding gets its own
+     * reader of the mapped file
+     */
+    private SnapshotReader readerAt(long position) throws IOException {
+        SnapshotReader reader = new SnapshotReader(mapped);
+        reader.seek(position);
+        return reader;
+    }
+
+    private static int readPosition(SnapshotReader reader) throws IOException {
+        long position = reader.getLong();
+        if (position < 0 || position > Integer.MAX_VALUE) {
+            throw new StreamCorruptedException("Invalid position in snapshot index: " + position);
+        }
+        return (int) position;
+    }
+
+    private void checkPosition(SnapshotReader reader, long indexedPosition) throws IOException {
+        if (reader.position() != indexedPosition) {
+            throw new StreamCorruptedException("Snapshot section of " + file + " is at " + reader.position()
+                    + " but indexed at " + indexedPosition);
+        }
+    }
+
+    private void checkCount(int count, int indexedCount, String entities) throws IOException {
+        if (count != indexedCount) {
+            throw new StreamCorruptedException(file + " has " + count + " " + entities + " but indexes "
+                    + indexedCount);
+        }
+    }
+
+    private void checkNumber(long number, long indexedNumber, String entity) throws IOException {
+        if (number != indexedNumber) {
+            throw new StreamCorruptedException("The " + entity + " indexed as " + indexedNumber + " in " + file
+                    + " has number " + number);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package state;
+
+import model.User;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * {@link SessionUserState} is the {@link IUserState} of a single session. The registered users are shared with every
+ * other session through an underlying {@link IUserState}, but the currently logged-in user belongs to this session
+ * only, so that many users can be logged in at the same time.
+ */
+public class SessionUserState implements IUserState, Serializable {
+    private final IUserState sharedUserState;
+    private volatile User currentUser;
+
+    /**
+     * Create a new SessionUserState with no user logged in
+     *
+     * @param sharedUserState user state holding the users registered in the application
+     */
+    public SessionUserState(IUserState sharedUserState) {
+        this.sharedUserState = sharedUserState;
+        currentUser = null;
+    }
+
+    IUserState getSharedUserState() {
+        return sharedUserState;
+    }
+
+    @Override
+    public void addUser(User user) {
+        sharedUserState.addUser(user);
+    }
+
+    @Override
+    public boolean tryAddUser(User user) {
+        return sharedUserState.tryAddUser(user);
+    }
+
+    @Override
+    public boolean tryChangeEmail(User user, String newEmail) {
+        return sharedUserState.tryChangeEmail(user, newEmail);
+    }
+
+    @Override
+    public void markUserChanged(User user) {
+        sharedUserState.markUserChanged(user);
+    }
+
+    @Override
+    public Map<String, User> getAllUsers() {
+        return sharedUserState.getAllUsers();
+    }
+
+    @Override
+    public User getCurrentUser() {
+        return currentUser;
+    }
+
+    @Override
+    public void setCurrentUser(User user) {
+        this.currentUser = user;
+    }
+}
@@ -0,0 +1,948 @@
+package state;
+
+import model.*;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.LongFunction;
+import java.util.zip.CRC32;
+
+/**
+ * {@link SnapshotCodec} saves the application state to a compact, versioned binary snapshot, and restores it again.
+ * Unlike Java serialization of the whole object graph, each kind of entity is written once, in its own section, and
+ * entities refer to each other by ID: users by their position in the users section, events by their event number.
+ * <p>
+ * A snapshot starts with a header of {@link #MAGIC}, the format version, flags and the position of its index. It is
+ * followed by the sections for users, tags, events (including their reviews) and bookings, in this order. Each section
+ * is its identifier, its length in bytes and its entities, so a reader can tell where each section ends. Enums are
+ * written by their ordinal, and the format version must be increased whenever the layout or one of these enums changes.
+ * Snapshots of version 1, which have no index position, can still be read.
+ * <p>
+ * An uncompressed snapshot has an index section after the bookings, with the positions of the other sections, and of
+ * each event and booking by its number, sorted by number. It lets a {@link MappedSnapshot}
+ * decode any event or booking without reading the ones before it, see {@link #readMapped(Path)}. Compressed snapshots
+ * have no index, and their index position is -1.
+ * <p>
+ * If the {@link #FLAG_DEFLATE} flag is set, the entities of each section are compressed with Deflate, each section on
+ * its own, while the section identifiers and lengths are not. Readers detect this from the header, so compressed and
+ * uncompressed snapshots are read the same way.
+ * <p>
+ * A snapshot can be restored as a whole with {@link #read(Path)}, restored lazily with {@link #readMapped(Path)}, or
+ * streamed one entity at a time to a
+ * {@link SnapshotVisitor} with {@link #read(Path, SnapshotVisitor)}.
+ * <p>
+ * Autosaves append delta sections after the bookings (and the index, if there is one), each holding only the entities
+ * that were added or changed since the previous save (see {@link AutoSave}). A delta has its own users, tags, events
+ * and bookings, in this order. Its users are the ones that changed, written as registered, and the other users its
+ * entities refer to, written as unregistered; all of them are matched to the users read before by their
+ * serialVersionUID. Entities already read before are updated in place.
+ * <p>
+ * From version 3 on, each delta is followed by a CRC-32 of its body. {@link #read(Path)} stops at the first delta that
+ * was only partly appended or does not match its checksum, and ignores it and everything after it, so the state is
+ * restored up to the last delta that is intact.
+ */
+public class SnapshotCodec {
+    /**
+     * First four bytes of every snapshot, "SEPP" in ASCII
+     */
+    public static final int MAGIC = 0x53455050;
+    public static final int VERSION = 3;
+    /**
+     * Flag in the header of a snapshot whose sections are compressed
+     */
+    public static final int FLAG_DEFLATE = 1;
+
+    static final int SECTION_USERS = 1;
+    static final int SECTION_TAGS = 2;
+    static final int SECTION_EVENTS = 3;
+    static final int SECTION_BOOKINGS = 4;
+    static final int SECTION_DELTA = 5;
+    static final int SECTION_INDEX = 6;
+
+    // Position of the index position in the header, after the magic, the version and the flags
+    static final int HEADER_INDEX_POSITION = 8;
+
+    static final int BUFFER_SIZE = 1 << 16;
+    private static final int USER_CONSUMER = 0;
+    private static final int USER_STAFF = 1;
+    private static final EventType[] EVENT_TYPES = EventType.values();
+    private static final EventStatus[] EVENT_STATUSES = EventStatus.values();
+    private static final BookingStatus[] BOOKING_STATUSES = BookingStatus.values();
+
+    private SnapshotCodec() {
+    }
+
+    /**
+     * Check whether a file starts with the snapshot header, as opposed to, e.g., an older Java-serialized save file
+     *
+     * @param file file to check
+     * @return True if the file is a snapshot and false otherwise
+     */
+    public static boolean isSnapshot(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    return false;
+                }
+            }
+            return header.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Save the registered users, the events with their tags and reviews, and the bookings to a snapshot file,
+     * replacing the file if it exists. The currently logged-in user is not saved.
+     * The state is saved from a {@link StateView}, so other threads can keep changing it while it is written.
+     *
+     * @param file         file to write
+     * @param userState    users to save
+     * @param eventState   events and possible tags to save
+     * @param bookingState bookings to save
+     */
+    public static void write(Path file, IUserState userState, IEventState eventState, IBookingState bookingState)
+            throws IOException {
+        write(file, userState, eventState, bookingState, false);
+    }
+
+    /**
+     * Like {@link #write(Path, IUserState, IEventState, IBookingState)}, but optionally compresses the snapshot
+     *
+     * @param file         file to write
+     * @param userState    users to save
+     * @param eventState   events and possible tags to save
+     * @param bookingState bookings to save
+     * @param compressed   whether to compress each section with Deflate
+     */
+    public static void write(Path file, IUserState userState, IEventState eventState, IBookingState bookingState,
+                             boolean compressed) throws IOException {
+        write(file, new StateView(userState, eventState, bookingState), compressed);
+    }
+
+    /**
+     * Save a view of the state to a snapshot file, replacing the file if it exists
+     *
+     * @param file       file to write
+     * @param view       view of the state to save
+     * @param compressed whether to compress each section with Deflate
+     */
+    static void write(Path file, StateView view, boolean compressed) throws IOException {
+        List<Event> events = view.events;
+        List<Booking> bookings = view.bookings;
+
+        // Reviews and bookings may refer to consumers that are not registered, which are saved as well, but are not
+        // registered again when the snapshot is read
+        Map<User, Integer> userIds = new IdentityHashMap<>();
+        List<User> users = new ArrayList<>(view.users);
+        int numRegisteredUsers = users.size();
+        for (User user : users) {
+            userIds.put(user, userIds.size());
+        }
+        // Reviews may be added while the snapshot is written, so only the ones there are now are saved
+        int[] numReviews = new int[events.size()];
+        for (int i = 0; i < numReviews.length; ++i) {
+            List<Review> reviews = events.get(i).getReviews();
+            numReviews[i] = reviews.size();
+            for (int j = 0; j < numReviews[i]; ++j) {
+                addUnregisteredUser(reviews.get(j).getAuthor(), users, userIds);
+            }
+        }
+        for (Booking booking : bookings) {
+            addUnregisteredUser(booking.getBooker(), users, userIds);
+        }
+
+        // Positions within compressed sections cannot be read without inflating them, so only those are not indexed
+        boolean indexed = !compressed;
+        long[] eventPositions = new long[indexed ? events.size() : 0];
+        long[] bookingPositions = new long[indexed ? bookings.size() : 0];
+
+        try (SnapshotWriter writer = new SnapshotWriter(FileChannel.open(file, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING), BUFFER_SIZE, compressed)) {
+            writer.putInt(MAGIC);
+            writer.putShort(VERSION);
+            writer.putShort(compressed ? FLAG_DEFLATE : 0);
+            // Patched once the index is written
+            writer.putLong(-1);
+
+            writer.beginSection(SECTION_USERS);
+            writer.putInt(users.size());
+            for (int i = 0; i < users.size(); ++i) {
+                writeUser(writer, users.get(i), i < numRegisteredUsers);
+            }
+            writer.endSection();
+
+            long tagsPosition = writer.position();
+            writer.beginSection(SECTION_TAGS);
+            Map<String, EventTag> possibleTags = view.possibleTags;
+            writer.putInt(possibleTags.size());
+            for (Map.Entry<String, EventTag> entry : possibleTags.entrySet()) {
+                writeTag(writer, entry.getKey(), entry.getValue());
+            }
+            writer.endSection();
+
+            long eventsPosition = writer.position();
+            writer.beginSection(SECTION_EVENTS);
+            writer.putLong(view.nextEventNumber);
+            writer.putInt(events.size());
+            for (int i = 0; i < numReviews.length; ++i) {
+                if (indexed) {
+                    eventPositions[i] = writer.position();
+                }
+                writeEvent(writer, events.get(i), numReviews[i], userIds);
+            }
+            writer.endSection();
+
+            long bookingsPosition = writer.position();
+            writer.beginSection(SECTION_BOOKINGS);
+            writer.putLong(view.nextBookingNumber);
+            writer.putInt(bookings.size());
+            for (int i = 0; i < bookings.size(); ++i) {
+                if (indexed) {
+                    bookingPositions[i] = writer.position();
+                }
+                writeBooking(writer, bookings.get(i), userIds);
+            }
+            writer.endSection();
+
+            if (indexed) {
+                long indexPosition = writer.position();
+                writer.beginSection(SECTION_INDEX);
+                writer.putLong(tagsPosition);
+                writer.putLong(eventsPosition);
+                writer.putLong(bookingsPosition);
+                long[] eventNumbers = new long[events.size()];
+                for (int i = 0; i < eventNumbers.length; ++i) {
+                    eventNumbers[i] = events.get(i).getEventNumber();
+                }
+                writeIndexEntries(writer, eventNumbers, eventPositions);
+                long[] bookingNumbers = new long[bookings.size()];
+                for (int i = 0; i < bookingNumbers.length; ++i) {
+                    bookingNumbers[i] = bookings.get(i).getBookingNumber();
+                }
+                writeIndexEntries(writer, bookingNumbers, bookingPositions);
+                writer.endSection();
+                writer.patchLong(HEADER_INDEX_POSITION, indexPosition);
+            }
+        }
+    }
+
+    /**
+     * Write the numbers of entities with their positions, sorted by number so that they can be binary searched
+     */
+    private static void writeIndexEntries(SnapshotWriter writer, long[] numbers, long[] positions)
+            throws IOException {
+        writer.putInt(numbers.length);
+        boolean sorted = true;
+        for (int i = 1; i < numbers.length && sorted; ++i) {
+            sorted = numbers[i - 1] < numbers[i];
+        }
+        if (sorted) {
+            for (int i = 0; i < numbers.length; ++i) {
+                writer.putLong(numbers[i]);
+                writer.putLong(positions[i]);
+            }
+            return;
+        }
+        // Entities are numbered in the order they are created, so only restored ones can be out of order
+        Integer[] order = new Integer[numbers.length];
+        for (int i = 0; i < order.length; ++i) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> numbers[i]));
+        for (int i : order) {
+            writer.putLong(numbers[i]);
+            writer.putLong(positions[i]);
+        }
+    }
+
+    /**
+     * Append a delta section to a snapshot file written by {@link #write(Path, IUserState, IEventState,
+     * IBookingState)}, holding the entities that were added or changed since the snapshot or the previous delta
+     *
+     * @param writer            writer positioned at the end of the snapshot file, which is flushed but left open, and
+     *                          compresses the delta if the snapshot is compressed
+     * @param version           mutation version of the state the delta brings the snapshot up to
+     * @param changedUsers      registered users that were added or changed
+     * @param changedTags       tags that were created, with their names
+     * @param changedEvents     events that were added or changed
+     * @param nextEventNumber   event number the state would give to its next event
+     * @param changedBookings   bookings that were added or changed
+     * @param nextBookingNumber booking number the state would give to its next booking
+     */
+    static void appendDelta(SnapshotWriter writer, long version, List<User> changedUsers,
+                            List<Map.Entry<String, EventTag>> changedTags, List<Event> changedEvents,
+                            long nextEventNumber, List<Booking> changedBookings, long nextBookingNumber)
+            throws IOException {
+        Map<User, Integer> userIds = new IdentityHashMap<>();
+        List<User> users = new ArrayList<>(changedUsers);
+        int numChangedUsers = users.size();
+        for (User user : users) {
+            userIds.put(user, userIds.size());
+        }
+        // Reviews may be added while the delta is written, so only the ones there are now are saved
+        int[] numReviews = new int[changedEvents.size()];
+        for (int i = 0; i < numReviews.length; ++i) {
+            List<Review> reviews = changedEvents.get(i).getReviews();
+            numReviews[i] = reviews.size();
+            for (int j = 0; j < numReviews[i]; ++j) {
+                addUnregisteredUser(reviews.get(j).getAuthor(), users, userIds);
+            }
+        }
+        for (Booking booking : changedBookings) {
+            addUnregisteredUser(booking.getBooker(), users, userIds);
+        }
+
+        writer.beginSection(SECTION_DELTA);
+        writer.beginChecksum();
+        writer.putLong(version);
+        writer.putInt(users.size());
+        for (int i = 0; i < users.size(); ++i) {
+            writeUser(writer, users.get(i), i < numChangedUsers);
+        }
+        writer.putInt(changedTags.size());
+        for (Map.Entry<String, EventTag> entry : changedTags) {
+            writeTag(writer, entry.getKey(), entry.getValue());
+        }
+        writer.putLong(nextEventNumber);
+        writer.putInt(changedEvents.size());
+        for (int i = 0; i < numReviews.length; ++i) {
+            writeEvent(writer, changedEvents.get(i), numReviews[i], userIds);
+        }
+        writer.putLong(nextBookingNumber);
+        writer.putInt(changedBookings.size());
+        for (Booking booking : changedBookings) {
+            writeBooking(writer, booking, userIds);
+        }
+        writer.endSection();
+        writer.putInt(writer.endChecksum());
+        writer.flush();
+    }
+
+    private static void addUnregisteredUser(User user, List<User> users, Map<User, Integer> userIds) {
+        if (!userIds.containsKey(user)) {
+            userIds.put(user, users.size());
+            users.add(user);
+        }
+    }
+
+    private static void writeUser(SnapshotWriter writer, User user, boolean registered) throws IOException {
+        writer.putByte(user instanceof Consumer ? USER_CONSUMER : USER_STAFF);
+        writer.putByte(registered ? 1 : 0);
+        writer.putString(user.getEmail());
+        writer.putString(user.getPasswordHash());
+        writer.putLong(user.getSerialVersionUID());
+        if (user instanceof Consumer) {
+            Consumer consumer = (Consumer) user;
+            writer.putString(consumer.getName());
+            writer.putString(consumer.getPhoneNumber());
+            writer.putString(consumer.getAddress());
+            writeTags(writer, consumer.getPreferences());
+        }
+    }
+
+    private static void writeTag(SnapshotWriter writer, String tagName, EventTag tag) throws IOException {
+        writer.putString(tagName);
+        Set<String> values = tag.getValues();
+        writer.putInt(values.size());
+        for (String value : values) {
+            writer.putString(value);
+        }
+        writer.putString(tag.getDefaultValue());
+    }
+
+    private static void writeEvent(SnapshotWriter writer, Event event, int numReviews, Map<User, Integer> userIds)
+            throws IOException {
+        writer.putLong(event.getEventNumber());
+        writer.putLong(event.getSerialVersionUID());
+        writer.putString(event.getTitle());
+        writer.putByte(event.getType().ordinal());
+        writer.putInt(event.getNumTicketsCap());
+        writer.putInt(event.getTicketPriceInPence());
+        writer.putString(event.getVenueAddress());
+        writer.putString(event.getDescription());
+        writer.putDateTime(event.getStartDateTime());
+        writer.putDateTime(event.getEndDateTime());
+        writeTags(writer, event.getTags());
+        writer.putByte(event.getStatus().ordinal());
+        writer.putInt(event.getNumTicketsLeftIncludingHeld());
+        List<Review> reviews = event.getReviews();
+        writer.putInt(numReviews);
+        for (int i = 0; i < numReviews; ++i) {
+            Review review = reviews.get(i);
+            writer.putInt(userIds.get(review.getAuthor()));
+            writer.putDateTime(review.getCreationDateTime());
+            writer.putString(review.getContent());
+        }
+    }
+
+    private static void writeBooking(SnapshotWriter writer, Booking booking, Map<User, Integer> userIds)
+            throws IOException {
+        writer.putLong(booking.getBookingNumber());
+        writer.putInt(userIds.get(booking.getBooker()));
+        writer.putLong(booking.getEvent().getEventNumber());
+        writer.putInt(booking.getNumTickets());
+        writer.putDateTime(booking.getBookingDateTime());
+        writer.putByte(booking.getStatus().ordinal());
+    }
+
+    private static void writeTags(SnapshotWriter writer, EventTagCollection tags) throws IOException {
+        if (tags == null) {
+            writer.putInt(-1);
+            return;
+        }
+        writer.putInt(tags.getTags().size());
+        for (Map.Entry<String, String> entry : tags.getTags().entrySet()) {
+            writer.putString(entry.getKey());
+            writer.putString(entry.getValue());
+        }
+    }
+
+    /**
+     * Check whether a snapshot file has delta sections appended by an autosave
+     *
+     * @param file snapshot file to check
+     * @return True if there is anything after the bookings section and false otherwise
+     * @throws StreamCorruptedException if the file is not a snapshot of a supported version, or is inconsistent
+     */
+    public static boolean hasDeltas(Path file) throws IOException {
+        long fileSize = Files.size(file);
+        try (SnapshotReader reader = openSnapshot(file)) {
+            reader.skipSection(SECTION_USERS);
+            reader.skipSection(SECTION_TAGS);
+            reader.skipSection(SECTION_EVENTS);
+            reader.skipSection(SECTION_BOOKINGS);
+            skipIndex(reader);
+            return reader.position() < fileSize;
+        }
+    }
+
+    /**
+     * Restore the application state from a snapshot file, including its deltas
+     *
+     * @param file file to read
+     * @return The restored state, with its own users, events and bookings
+     * @throws StreamCorruptedException if the file is not a snapshot of a supported version, or is inconsistent
+     */
+    public static StateSnapshot read(Path file) throws IOException {
+        StateBuilder builder = new StateBuilder();
+        long fileSize = Files.size(file);
+        try (SnapshotReader reader = openSnapshot(file);
+             FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            readBase(reader, builder);
+            while (reader.position() < fileSize && readDelta(reader, channel, fileSize, builder)) {
+                // Each delta updates the state restored so far
+            }
+        }
+        return new StateSnapshot(builder.userState, builder.eventState, builder.bookingState);
+    }
+
+    /**
+     * Restore the application state from a snapshot file like {@link #read(Path)}, but leave the events and bookings
+     * of its base in the file until they are needed. The base is mapped into memory as a {@link MappedSnapshot}, and
+     * only its users and tags, and the deltas after it, are decoded right away, so this takes about the same time
+     * however many events and bookings the base holds. The states decode an event or booking from the mapped file
+     * when it is first looked up by its number, and all of them once they are first searched or listed.
+     * <p>
+     * Snapshots that cannot be mapped, because they are compressed, have no index or were written by an older
+     * version, are read with {@link #read(Path)} instead. The file must not be truncated or overwritten while the
+     * restored state is in use, though more deltas can be appended to it, see {@link AutoSave#resume(StateSnapshot)}.
+     *
+     * @param file file to read
+     * @return The restored state, with its own users, events and bookings
+     * @throws StreamCorruptedException if the file is not a snapshot of a supported version, or is inconsistent
+     */
+    public static StateSnapshot readMapped(Path file) throws IOException {
+        MappedSnapshot base = MappedSnapshot.open(file);
+        if (base == null) {
+            return read(file);
+        }
+        StateBuilder builder = new StateBuilder(base);
+        long fileSize = Files.size(file);
+        long journalEnd = base.getEndPosition();
+        int numDeltas = 0;
+        try (SnapshotReader reader = openSnapshot(file);
+             FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            reader.skipSection(SECTION_USERS);
+            reader.skipSection(SECTION_TAGS);
+            reader.skipSection(SECTION_EVENTS);
+            reader.skipSection(SECTION_BOOKINGS);
+            skipIndex(reader);
+            while (reader.position() < fileSize && readDelta(reader, channel, fileSize, builder)) {
+                journalEnd = reader.position();
+                ++numDeltas;
+            }
+        }
+        // Deltas can only be appended to a base whose journal is intact up to its end
+        return new StateSnapshot(builder.userState, builder.eventState, builder.bookingState,
+                journalEnd == fileSize ? file : null, base.getEndPosition(), journalEnd, numDeltas);
+    }
+
+    /**
+     * Read a snapshot file one entity at a time, without keeping the bookings in memory. The users and events are
+     * kept until the whole snapshot has been read, as the entities after them refer to them.
+     *
+     * Deltas can only be applied to a restored state, so this rejects a file with deltas once all the entities before
+     * them have been visited; such a file must be read with {@link #read(Path)}.
+     *
+     * @param file    file to read
+     * @param visitor visitor receiving the entities in the order they are read
+     * @throws StreamCorruptedException if the file is not a snapshot of a supported version, is inconsistent, or has
+     *                                  deltas
+     */
+    public static void read(Path file, SnapshotVisitor visitor) throws IOException {
+        long fileSize = Files.size(file);
+        try (SnapshotReader reader = openSnapshot(file)) {
+            readBase(reader, visitor);
+            if (reader.position() < fileSize) {
+                throw new StreamCorruptedException(file + " has deltas, which are only applied when it is restored");
+            }
+        }
+    }
+
+    private static void readBase(SnapshotReader reader, SnapshotVisitor visitor) throws IOException {
+        reader.beginSection(SECTION_USERS);
+        int numUsers = readCount(reader);
+        visitor.beginUsers(numUsers);
+        List<User> users = new ArrayList<>(numUsers);
+        for (int i = 0; i < numUsers; ++i) {
+            readUser(reader, users, visitor);
+        }
+        reader.endSection();
+
+        reader.beginSection(SECTION_TAGS);
+        int numTags = readCount(reader);
+        visitor.beginTags(numTags);
+        for (int i = 0; i < numTags; ++i) {
+            readTag(reader, visitor);
+        }
+        reader.endSection();
+
+        reader.beginSection(SECTION_EVENTS);
+        long nextEventNumber = reader.getLong();
+        int numEvents = readCount(reader);
+        visitor.beginEvents(nextEventNumber, numEvents);
+        LongHashMap<Event> eventsByNumber = new LongHashMap<>();
+        for (int i = 0; i < numEvents; ++i) {
+            Event event = readEvent(reader, users);
+            eventsByNumber.put(event.getEventNumber(), event);
+            visitor.visitEvent(event);
+        }
+        reader.endSection();
+
+        readBookings(reader, users, eventsByNumber::get, visitor);
+        skipIndex(reader);
+    }
+
+    static void skipIndex(SnapshotReader reader) throws IOException {
+        if (reader.getIndexPosition() < 0) {
+            return;
+        }
+        if (reader.position() != reader.getIndexPosition()) {
+            throw new StreamCorruptedException("Snapshot index is at " + reader.position() + " instead of "
+                    + reader.getIndexPosition());
+        }
+        reader.skipSection(SECTION_INDEX);
+    }
+
+    /**
+     * Read the bookings of a snapshot file again, after the whole snapshot has been read with
+     * {@link #read(Path, SnapshotVisitor)}. The other sections are skipped without decoding them.
+     *
+     * @param file      file to read
+     * @param users     users of the snapshot in the order they were visited
+     * @param findEvent finds an event of the snapshot by the event number it was visited with
+     * @param visitor   visitor receiving the bookings in the order they are read
+     * @throws StreamCorruptedException if the file is not a snapshot of a supported version, or is inconsistent
+     */
+    public static void readBookings(Path file, List<User> users, LongFunction<Event> findEvent,
+                                    SnapshotVisitor visitor) throws IOException {
+        try (SnapshotReader reader = openSnapshot(file)) {
+            reader.skipSection(SECTION_USERS);
+            reader.skipSection(SECTION_TAGS);
+            reader.skipSection(SECTION_EVENTS);
+            readBookings(reader, users, findEvent, visitor);
+        }
+    }
+
+    static SnapshotReader openSnapshot(Path file) throws IOException {
+        SnapshotReader reader = new SnapshotReader(FileChannel.open(file, StandardOpenOption.READ), BUFFER_SIZE);
+        try {
+            readHeader(reader, file);
+            return reader;
+        } catch (IOException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Read the header of a snapshot, and tell the reader whether the snapshot is compressed and where its index is
+     *
+     * @param reader reader at the start of the snapshot
+     * @param file   file the snapshot is read from
+     */
+    private static void readHeader(SnapshotReader reader, Path file) throws IOException {
+        if (reader.getInt() != MAGIC) {
+            throw new StreamCorruptedException(file + " is not a snapshot");
+        }
+        int version = reader.getShort();
+        if (version < 1 || version > VERSION) {
+            throw new StreamCorruptedException("Unsupported snapshot version " + version);
+        }
+        reader.setVersion(version);
+        int flags = reader.getShort();
+        if ((flags & ~FLAG_DEFLATE) != 0) {
+            throw new StreamCorruptedException("Unsupported snapshot flags " + flags);
+        }
+        if ((flags & FLAG_DEFLATE) != 0) {
+            reader.setCompressed();
+        }
+        // Snapshots of version 1 have no index
+        if (version >= 2) {
+            reader.setIndexPosition(reader.getLong());
+        }
+    }
+
+    private static void readBookings(SnapshotReader reader, List<User> users, LongFunction<Event> findEvent,
+                                     SnapshotVisitor visitor) throws IOException {
+        reader.beginSection(SECTION_BOOKINGS);
+        long nextBookingNumber = reader.getLong();
+        int numBookings = readCount(reader);
+        visitor.beginBookings(nextBookingNumber, numBookings);
+        for (int i = 0; i < numBookings; ++i) {
+            visitor.visitBooking(readBooking(reader, users, findEvent));
+        }
+        reader.endSection();
+    }
+
+    /**
+     * Read a delta and apply it to the state restored so far
+     *
+     * @param channel channel on the same file, to check the delta against its checksum before it is decoded
+     * @return True if the delta was applied, and false if it was only partly appended or is damaged, so it and anything
+     * after it must be ignored
+     */
+    private static boolean readDelta(SnapshotReader reader, FileChannel channel, long fileSize, StateBuilder builder)
+            throws IOException {
+        if (fileSize - reader.position() < Byte.BYTES + Long.BYTES) {
+            return false;
+        }
+        // The length of a delta is only written once all of it has been, so it is 0 if appending it was interrupted
+        long length = reader.beginSection(SECTION_DELTA);
+        boolean hasChecksum = reader.getVersion() >= 3;
+        long checksumLength = hasChecksum ? Integer.BYTES : 0;
+        if (length == 0 || fileSize - reader.position() < length + checksumLength) {
+            return false;
+        }
+        if (hasChecksum && !hasValidChecksum(channel, reader.position(), length)) {
+            return false;
+        }
+        reader.getLong();
+
+        int numUsers = readCount(reader);
+        List<User> users = new ArrayList<>(numUsers);
+        for (int i = 0; i < numUsers; ++i) {
+            int kind = reader.getByte();
+            boolean changed = reader.getByte() != 0;
+            users.add(builder.applyUser(readUserDetails(reader, kind), changed));
+        }
+
+        int numTags = readCount(reader);
+        for (int i = 0; i < numTags; ++i) {
+            readTag(reader, builder);
+        }
+
+        builder.eventState.setNextEventNumber(reader.getLong());
+        int numEvents = readCount(reader);
+        for (int i = 0; i < numEvents; ++i) {
+            builder.applyEvent(readEvent(reader, users));
+        }
+
+        builder.bookingState.setNextBookingNumber(reader.getLong());
+        int numBookings = readCount(reader);
+        for (int i = 0; i < numBookings; ++i) {
+            builder.applyBooking(readBooking(reader, users, builder.eventState::findEventByNumber));
+        }
+        reader.endSection();
+        if (hasChecksum) {
+            reader.getInt();
+        }
+        return true;
+    }
+
+    /**
+     * @param channel  channel to read the delta from, without moving its position
+     * @param position position of the body of the delta
+     * @param length   length of the body of the delta, which is followed by its checksum
+     * @return True if the CRC-32 of the body matches the checksum after it, and false otherwise
+     */
+    private static boolean hasValidChecksum(FileChannel channel, long position, long length) throws IOException {
+        CRC32 checksum = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        long numBytesRead = 0;
+        while (numBytesRead < length) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), length - numBytesRead));
+            int numBytes = channel.read(buffer, position + numBytesRead);
+            if (numBytes < 0) {
+                return false;
+            }
+            buffer.flip();
+            checksum.update(buffer);
+            numBytesRead += numBytes;
+        }
+        ByteBuffer expected = ByteBuffer.allocate(Integer.BYTES);
+        while (expected.hasRemaining()) {
+            if (channel.read(expected, position + length + expected.position()) < 0) {
+                return false;
+            }
+        }
+        return expected.getInt(0) == (int) checksum.getValue();
+    }
+
+    static Booking readBooking(SnapshotReader reader, List<User> users, LongFunction<Event> findEvent)
+            throws IOException {
+        long bookingNumber = reader.getLong();
+        Consumer booker = readConsumerId(reader, users);
+        long eventNumber = reader.getLong();
+        Event event = findEvent.apply(eventNumber);
+        if (event == null) {
+            throw new StreamCorruptedException("Booking " + bookingNumber + " refers to unknown event "
+                    + eventNumber);
+        }
+        Booking booking = new Booking(bookingNumber, booker, event, reader.getInt(), reader.getDateTime());
+        switch (readEnum(reader, BOOKING_STATUSES)) {
+            case CancelledByConsumer -> booking.cancelByConsumer();
+            case CancelledByProvider -> booking.cancelByProvider();
+        }
+        return booking;
+    }
+
+    private static void readUser(SnapshotReader reader, List<User> users, SnapshotVisitor visitor)
+            throws IOException {
+        int kind = reader.getByte();
+        boolean registered = reader.getByte() != 0;
+        User user = readUserDetails(reader, kind);
+        users.add(user);
+        visitor.visitUser(user, registered);
+    }
+
+    static User readUserDetails(SnapshotReader reader, int kind) throws IOException {
+        String email = reader.getString();
+        String passwordHash = reader.getString();
+        long serialVersionUID = reader.getLong();
+        if (kind == USER_CONSUMER) {
+            Consumer consumer = new Consumer(reader.getString(), email, reader.getString(), reader.getString(),
+                    passwordHash, serialVersionUID);
+            consumer.setPreferences(readTags(reader));
+            return consumer;
+        } else if (kind == USER_STAFF) {
+            return new Staff(email, passwordHash, serialVersionUID);
+        }
+        throw new StreamCorruptedException("Unknown kind of user in snapshot: " + kind);
+    }
+
+    static void readTag(SnapshotReader reader, SnapshotVisitor visitor) throws IOException {
+        String tagName = reader.getString();
+        int numValues = readCount(reader);
+        Set<String> values = new HashSet<>();
+        for (int i = 0; i < numValues; ++i) {
+            values.add(reader.getString());
+        }
+        visitor.visitTag(tagName, new EventTag(values, reader.getString()));
+    }
+
+    static Event readEvent(SnapshotReader reader, List<User> users) throws IOException {
+        long eventNumber = reader.getLong();
+        long serialVersionUID = reader.getLong();
+        String title = reader.getString();
+        EventType type = readEnum(reader, EVENT_TYPES);
+        int numTicketsCap = reader.getInt();
+        int ticketPriceInPence = reader.getInt();
+        String venueAddress = reader.getString();
+        String description = reader.getString();
+        Event event = new Event(eventNumber, title, type, numTicketsCap, ticketPriceInPence, venueAddress,
+                description, reader.getDateTime(), reader.getDateTime(), readTags(reader), serialVersionUID,
+                readEnum(reader, EVENT_STATUSES), reader.getInt());
+        int numReviews = readCount(reader);
+        for (int i = 0; i < numReviews; ++i) {
+            Consumer author = readConsumerId(reader, users);
+            event.addReview(new Review(author, event, reader.getDateTime(), reader.getString()));
+        }
+        return event;
+    }
+
+    private static EventTagCollection readTags(SnapshotReader reader) throws IOException {
+        int numTags = reader.getInt();
+        if (numTags == -1) {
+            return null;
+        }
+        if (numTags < 0) {
+            throw new StreamCorruptedException("Invalid number of tags in snapshot: " + numTags);
+        }
+        EventTagCollection tags = new EventTagCollection();
+        for (int i = 0; i < numTags; ++i) {
+            tags.getTags().put(reader.getString(), reader.getString());
+        }
+        return tags;
+    }
+
+    private static Consumer readConsumerId(SnapshotReader reader, List<User> users) throws IOException {
+        int userId = reader.getInt();
+        if (userId < 0 || userId >= users.size() || !(users.get(userId) instanceof Consumer)) {
+            throw new StreamCorruptedException("Invalid consumer ID in snapshot: " + userId);
+        }
+        return (Consumer) users.get(userId);
+    }
+
+    static int readCount(SnapshotReader reader) throws IOException {
+        int count = reader.getInt();
+        if (count < 0) {
+            throw new StreamCorruptedException("Invalid count in snapshot: " + count);
+        }
+        return count;
+    }
+
+    private static <E extends Enum<E>> E readEnum(SnapshotReader reader, E[] values) throws IOException {
+        int ordinal = reader.getByte();
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new StreamCorruptedException("Invalid " + values.getClass().getComponentType().getSimpleName()
+                    + " in snapshot: " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    /**
+     * Builds independent states out of all the entities of a snapshot, and updates them with its deltas
+     */
+    private static class StateBuilder implements SnapshotVisitor {
+        private final UserState userState;
+        private final EventState eventState;
+        private final BookingState bookingState;
+        private final LongHashMap<User> usersBySerialVersionUID = new LongHashMap<>();
+
+        StateBuilder() {
+            userState = new UserState();
+            eventState = new EventState();
+            bookingState = new BookingState();
+        }
+
+        /**
+         * Build the states on the base of a mapped snapshot, whose users are registered right away, while its events
+         * and bookings stay in the mapped file until the states need them
+         *
+         * @param base mapped base of the snapshot
+         */
+        StateBuilder(MappedSnapshot base) {
+            userState = new UserState();
+            List<User> users = base.getUsers();
+            for (int userId = 0; userId < users.size(); ++userId) {
+                visitUser(users.get(userId), base.isRegistered(userId));
+            }
+            eventState = new EventState(base);
+            bookingState = new BookingState(base);
+        }
+
+        @Override
+        public void visitUser(User user, boolean registered) {
+            usersBySerialVersionUID.put(user.getSerialVersionUID(), user);
+            if (registered) {
+                userState.addUser(user);
+            }
+        }
+
+        /**
+         * @param user    user read from a delta
+         * @param changed whether the user was added or changed, rather than only referred to by the delta
+         * @return The user restored before with the same serialVersionUID, updated if it changed, or else the user
+         */
+        User applyUser(User user, boolean changed) {
+            User restored = usersBySerialVersionUID.get(user.getSerialVersionUID());
+            if (restored == null) {
+                visitUser(user, changed);
+                return user;
+            }
+            if (changed) {
+                userState.removeUser(restored);
+                restored.setEmail(user.getEmail());
+                restored.restorePasswordHash(user.getPasswordHash());
+                if (restored instanceof Consumer && user instanceof Consumer) {
+                    Consumer restoredConsumer = (Consumer) restored;
+                    Consumer consumer = (Consumer) user;
+                    restoredConsumer.setName(consumer.getName());
+                    restoredConsumer.setPhoneNumber(consumer.getPhoneNumber());
+                    restoredConsumer.setAddress(consumer.getAddress());
+                    restoredConsumer.setPreferences(consumer.getPreferences());
+                }
+                userState.addUser(restored);
+            }
+            return restored;
+        }
+
+        /**
+         * @param event event read from a delta, whose reviews are appended to the ones restored before
+         */
+        void applyEvent(Event event) {
+            Event restored = eventState.findEventByNumber(event.getEventNumber());
+            if (restored == null) {
+                eventState.restoreEvent(event);
+                return;
+            }
+            if (event.getStatus() == EventStatus.CANCELLED) {
+                restored.cancel();
+            }
+            restored.setNumTicketsLeft(event.getNumTicketsLeft());
+            List<Review> reviews = event.getReviews();
+            for (int i = restored.getReviews().size(); i < reviews.size(); ++i) {
+                Review review = reviews.get(i);
+                restored.addReview(new Review(review.getAuthor(), restored, review.getCreationDateTime(),
+                        review.getContent()));
+            }
+        }
+
+        /**
+         * @param booking booking read from a delta
+         */
+        void applyBooking(Booking booking) {
+            Booking restored = bookingState.findBookingByNumber(booking.getBookingNumber());
+            if (restored == null) {
+                visitBooking(booking);
+                return;
+            }
+            // A cancellation by the consumer may have been undone, so the booking can also become active again
+            restored.restoreStatus(booking.getStatus());
+        }
+
+        @Override
+        public void visitTag(String tagName, EventTag tag) {
+            eventState.createEventTag(tagName, tag.getValues(), tag.getDefaultValue());
+        }
+
+        @Override
+        public void beginEvents(long nextEventNumber, int numEvents) {
+            eventState.setNextEventNumber(nextEventNumber);
+        }
+
+        @Override
+        public void visitEvent(Event event) {
+            eventState.restoreEvent(event);
+        }
+
+        @Override
+        public void beginBookings(long nextBookingNumber, int numBookings) {
+            bookingState.setNextBookingNumber(nextBookingNumber);
+        }
+
+        @Override
+        public void visitBooking(Booking booking) {
+            booking.getBooker().addBooking(booking);
+            bookingState.restoreBooking(booking);
+        }
+    }
+}
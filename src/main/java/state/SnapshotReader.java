@@ -0,0 +1,348 @@
+package state;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * {@link SnapshotReader} decodes the primitive values written by a {@link SnapshotWriter}, reading the channel into a
+ * direct buffer as the values are consumed. It checks that each section ends exactly where its length says it does.
+ * <p>
+ * Once it is told that the snapshot is compressed, the body of each section is inflated into a second buffer, which
+ * the values are decoded from instead, while positions and lengths keep counting the bytes of the file.
+ * <p>
+ * A reader can also decode a snapshot that is already in memory, such as a mapped file, in which case it can
+ * {@link #seek(long)} to any position of it.
+ */
+class SnapshotReader implements Closeable {
+    private final ReadableByteChannel channel;
+    private final ByteBuffer fileBuffer;
+    // Either the file buffer, or the inflated buffer within a compressed section
+    private ByteBuffer buffer;
+    private ByteBuffer inflatedBuffer;
+    private Inflater inflater;
+    private boolean compressed;
+    private boolean inflating;
+    private int version;
+    private long indexPosition;
+    private long numBytesRead;
+    private long sectionEndPosition;
+
+    /**
+     * @param channel    channel to read from, which is closed together with this reader
+     * @param bufferSize size of the direct buffers in bytes
+     */
+    SnapshotReader(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.fileBuffer = ByteBuffer.allocateDirect(bufferSize);
+        this.fileBuffer.limit(0);
+        this.buffer = fileBuffer;
+        this.compressed = false;
+        this.inflating = false;
+        this.indexPosition = -1;
+        this.sectionEndPosition = -1;
+    }
+
+    /**
+     * @param snapshot whole snapshot, from its first byte up to its limit, which is not modified
+     */
+    SnapshotReader(ByteBuffer snapshot) {
+        this.channel = null;
+        this.fileBuffer = snapshot.duplicate().position(0);
+        this.buffer = fileBuffer;
+        this.compressed = false;
+        this.inflating = false;
+        this.indexPosition = -1;
+        this.numBytesRead = fileBuffer.limit();
+        this.sectionEndPosition = -1;
+    }
+
+    /**
+     * Continue reading from a position of a snapshot that is in memory, outside of any section
+     *
+     * @param position position of the snapshot to read next
+     */
+    void seek(long position) throws IOException {
+        if (channel != null || compressed) {
+            throw new IllegalStateException("Only an uncompressed snapshot in memory can be read from any position");
+        }
+        if (position < 0 || position > fileBuffer.limit()) {
+            throw new EOFException("Position " + position + " is outside of the snapshot");
+        }
+        fileBuffer.position((int) position);
+        sectionEndPosition = -1;
+    }
+
+    /**
+     * Inflate the body of the sections read from now on, which must only be called between sections
+     */
+    void setCompressed() {
+        if (inflater == null) {
+            inflater = new Inflater();
+            inflatedBuffer = ByteBuffer.allocateDirect(fileBuffer.capacity());
+        }
+        compressed = true;
+    }
+
+    /**
+     * @param version format version found in the header
+     */
+    void setVersion(int version) {
+        this.version = version;
+    }
+
+    /**
+     * @return Format version of the snapshot, as found in the header
+     */
+    int getVersion() {
+        return version;
+    }
+
+    /**
+     * @param indexPosition position of the index section found in the header, or -1 if the snapshot has no index
+     */
+    void setIndexPosition(long indexPosition) {
+        this.indexPosition = indexPosition;
+    }
+
+    /**
+     * @return Position of the index section, or -1 if the snapshot has no index
+     */
+    long getIndexPosition() {
+        return indexPosition;
+    }
+
+    boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     * @return Number of bytes of the file consumed so far
+     */
+    long position() {
+        return numBytesRead - fileBuffer.remaining();
+    }
+
+    /**
+     * Start reading a section
+     *
+     * @param sectionId identifier of the section expected next
+     * @return Length of the section in bytes
+     */
+    long beginSection(int sectionId) throws IOException {
+        long length = readSectionHeader(sectionId);
+        if (compressed) {
+            inflater.reset();
+            inflater.setInput(fileBuffer);
+            inflatedBuffer.clear().limit(0);
+            buffer = inflatedBuffer;
+            inflating = true;
+        }
+        return length;
+    }
+
+    private long readSectionHeader(int sectionId) throws IOException {
+        int actualSectionId = getByte();
+        if (actualSectionId != sectionId) {
+            throw new StreamCorruptedException("Expected snapshot section " + sectionId + " but found "
+                    + actualSectionId);
+        }
+        long length = getLong();
+        if (length < 0) {
+            throw new StreamCorruptedException("Invalid length of snapshot section " + sectionId + ": " + length);
+        }
+        sectionEndPosition = position() + length;
+        return length;
+    }
+
+    /**
+     * Skip a whole section without decoding it
+     *
+     * @param sectionId identifier of the section expected next
+     */
+    void skipSection(int sectionId) throws IOException {
+        skip(readSectionHeader(sectionId));
+        endSection();
+    }
+
+    void endSection() throws IOException {
+        if (inflating) {
+            if (buffer.hasRemaining() || inflateMore()) {
+                throw new StreamCorruptedException("Compressed snapshot section has more data than was read");
+            }
+            buffer = fileBuffer;
+            inflating = false;
+        }
+        if (position() != sectionEndPosition) {
+            throw new StreamCorruptedException("Snapshot section ended at " + position() + " instead of "
+                    + sectionEndPosition);
+        }
+        sectionEndPosition = -1;
+    }
+
+    int getByte() throws IOException {
+        require(Byte.BYTES);
+        return buffer.get();
+    }
+
+    int getShort() throws IOException {
+        require(Short.BYTES);
+        return buffer.getShort();
+    }
+
+    int getInt() throws IOException {
+        require(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    long getLong() throws IOException {
+        require(Long.BYTES);
+        return buffer.getLong();
+    }
+
+    /**
+     * @return A string written by {@link SnapshotWriter#putString(String)}
+     */
+    String getString() throws IOException {
+        int length = getInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0) {
+            throw new StreamCorruptedException("Invalid string length in snapshot: " + length);
+        }
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            if (!buffer.hasRemaining()) {
+                require(1);
+            }
+            int chunkLength = Math.min(length - offset, buffer.remaining());
+            buffer.get(bytes, offset, chunkLength);
+            offset += chunkLength;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return A date and time written by {@link SnapshotWriter#putDateTime(LocalDateTime)}
+     */
+    LocalDateTime getDateTime() throws IOException {
+        long epochSecond = getLong();
+        if (epochSecond == Long.MIN_VALUE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(epochSecond, getInt(), ZoneOffset.UTC);
+    }
+
+    private void skip(long numBytes) throws IOException {
+        int numBufferedBytes = (int) Math.min(numBytes, fileBuffer.remaining());
+        fileBuffer.position(fileBuffer.position() + numBufferedBytes);
+        long remaining = numBytes - numBufferedBytes;
+        if (remaining == 0) {
+            return;
+        }
+        if (channel == null) {
+            throw new EOFException("The snapshot ended unexpectedly");
+        }
+        if (channel instanceof SeekableByteChannel) {
+            SeekableByteChannel seekableChannel = (SeekableByteChannel) channel;
+            seekableChannel.position(seekableChannel.position() + remaining);
+            numBytesRead += remaining;
+            return;
+        }
+        fileBuffer.clear();
+        while (remaining > 0) {
+            fileBuffer.limit((int) Math.min(fileBuffer.capacity(), remaining));
+            int numRead = channel.read(fileBuffer);
+            if (numRead < 0) {
+                throw new EOFException("The snapshot ended unexpectedly");
+            }
+            numBytesRead += numRead;
+            remaining -= numRead;
+            fileBuffer.clear();
+        }
+        fileBuffer.limit(0);
+    }
+
+    private void require(int numBytes) throws IOException {
+        if (buffer.remaining() >= numBytes) {
+            return;
+        }
+        if (inflating) {
+            while (buffer.remaining() < numBytes) {
+                if (!inflateMore()) {
+                    throw new EOFException("A compressed snapshot section ended unexpectedly");
+                }
+            }
+            return;
+        }
+        if (channel == null) {
+            throw new EOFException("The snapshot ended unexpectedly");
+        }
+        fileBuffer.compact();
+        while (fileBuffer.position() < numBytes) {
+            readFile();
+        }
+        fileBuffer.flip();
+    }
+
+    /**
+     * Inflate more of the current section after the bytes left in the inflated buffer
+     *
+     * @return True if any bytes were inflated, and false if the compressed data of the section has ended
+     */
+    private boolean inflateMore() throws IOException {
+        buffer.compact().flip();
+        int end = buffer.limit();
+        buffer.position(end).limit(buffer.capacity());
+        try {
+            while (buffer.position() == end && !inflater.finished()) {
+                if (inflater.needsInput()) {
+                    fileBuffer.compact();
+                    readFile();
+                    fileBuffer.flip();
+                    inflater.setInput(fileBuffer);
+                }
+                if (inflater.inflate(buffer) == 0 && inflater.needsDictionary()) {
+                    throw new StreamCorruptedException("Compressed snapshot section needs a dictionary");
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new StreamCorruptedException("Invalid compressed snapshot section: " + e.getMessage());
+        } finally {
+            buffer.limit(buffer.position()).position(0);
+        }
+        return buffer.limit() > end;
+    }
+
+    private void readFile() throws IOException {
+        int numRead = channel.read(fileBuffer);
+        if (numRead < 0) {
+            throw new EOFException("The snapshot ended unexpectedly");
+        }
+        numBytesRead += numRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+    }
+}
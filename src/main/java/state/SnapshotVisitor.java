@@ -0,0 +1,67 @@
+package state;
+
+import model.Booking;
+import model.Event;
+import model.EventTag;
+import model.User;
+
+import java.io.IOException;
+
+/**
+ * {@link SnapshotVisitor} receives the entities of a snapshot one at a time, in the order they are read by
+ * {@link SnapshotCodec#read(java.nio.file.Path, SnapshotVisitor)}: users, tags, events and then bookings.
+ * Entities refer to the ones visited before them, e.g., a booking to its booker and event, but bookings are not added
+ * to the bookings of their booker, so a visitor that does not keep them lets them be garbage collected.
+ * A visitor only overrides the visits of the entities it is interested in.
+ * Throwing an exception from a visit stops reading the snapshot.
+ */
+public interface SnapshotVisitor {
+    /**
+     * @param numUsers number of users that are going to be visited
+     */
+    default void beginUsers(int numUsers) throws IOException {
+    }
+
+    /**
+     * Visit a user. Users are visited in the order of their IDs in the snapshot, starting from 0.
+     *
+     * @param user       user read from the snapshot
+     * @param registered whether the user was registered, rather than only referred to by reviews or bookings
+     */
+    default void visitUser(User user, boolean registered) throws IOException {
+    }
+
+    /**
+     * @param numTags number of tags that are going to be visited
+     */
+    default void beginTags(int numTags) throws IOException {
+    }
+
+    default void visitTag(String tagName, EventTag tag) throws IOException {
+    }
+
+    /**
+     * @param nextEventNumber event number the saved state would have given to its next event
+     * @param numEvents       number of events that are going to be visited
+     */
+    default void beginEvents(long nextEventNumber, int numEvents) throws IOException {
+    }
+
+    /**
+     * Visit an event, together with its reviews
+     *
+     * @param event event read from the snapshot, with its saved event number
+     */
+    default void visitEvent(Event event) throws IOException {
+    }
+
+    /**
+     * @param nextBookingNumber booking number the saved state would have given to its next booking
+     * @param numBookings       number of bookings that are going to be visited
+     */
+    default void beginBookings(long nextBookingNumber, int numBookings) throws IOException {
+    }
+
+    default void visitBooking(Booking booking) throws IOException {
+    }
+}
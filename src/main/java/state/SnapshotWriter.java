@@ -0,0 +1,245 @@
+package state;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * {@link SnapshotWriter} encodes the primitive values of a snapshot into a direct buffer, and writes the buffer to a
+ * file channel whenever it is full. Sections are prefixed with their length in bytes, which is only known once the
+ * section has been written, so the length is patched in place when the section ends.
+ * <p>
+ * A compressed writer deflates the body of each section on its own, so the length of a section is its compressed
+ * length, and sections can still be skipped or appended without decompressing the ones before them.
+ */
+class SnapshotWriter implements Closeable {
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final Deflater deflater;
+    private final ByteBuffer deflatedBuffer;
+    private boolean deflating;
+    // Position of the channel, which is only advanced by this writer, so it is not asked for each value written
+    private long channelPosition;
+    private long sectionLengthPosition;
+    private long sectionStartPosition;
+    // Checksum of the bytes written to the channel from checksumStartPosition on, if it is not -1
+    private final CRC32 checksum;
+    private long checksumStartPosition;
+
+    /**
+     * @param channel    channel to write to, which is closed together with this writer
+     * @param bufferSize size of the direct buffers in bytes
+     * @param compressed whether to deflate the body of each section
+     */
+    SnapshotWriter(FileChannel channel, int bufferSize, boolean compressed) throws IOException {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        // Snapshots repeat the same tag names, addresses and enums a lot, so even the fastest level compresses well
+        this.deflater = compressed ? new Deflater(Deflater.BEST_SPEED) : null;
+        this.deflatedBuffer = compressed ? ByteBuffer.allocateDirect(bufferSize) : null;
+        this.deflating = false;
+        this.channelPosition = channel.position();
+        this.sectionLengthPosition = -1;
+        this.checksum = new CRC32();
+        this.checksumStartPosition = -1;
+    }
+
+    /**
+     * @return Number of bytes written so far, including the ones still in the buffer. Within a compressed section,
+     * this mixes compressed and uncompressed bytes, so it is only meaningful between sections.
+     */
+    long position() {
+        return channelPosition + buffer.position();
+    }
+
+    /**
+     * Start a new section, whose length is written by {@link #endSection()}
+     *
+     * @param sectionId identifier of the section
+     */
+    void beginSection(int sectionId) throws IOException {
+        if (sectionLengthPosition >= 0) {
+            throw new IllegalStateException("The previous section has not ended");
+        }
+        putByte(sectionId);
+        sectionLengthPosition = position();
+        putLong(0);
+        sectionStartPosition = position();
+        if (deflater != null) {
+            // The identifier and length are not compressed, so that readers can find and skip the section
+            flush();
+            deflating = true;
+        }
+    }
+
+    void endSection() throws IOException {
+        if (sectionLengthPosition < 0) {
+            throw new IllegalStateException("No section has begun");
+        }
+        flush();
+        if (deflating) {
+            deflater.finish();
+            while (!deflater.finished()) {
+                writeDeflated();
+            }
+            deflater.reset();
+            deflating = false;
+        }
+        patchLong(sectionLengthPosition, position() - sectionStartPosition);
+        sectionLengthPosition = -1;
+    }
+
+    /**
+     * Start computing a CRC-32 of the bytes written to the file from now on, such as the body of the section that has
+     * just begun. Bytes overwritten by {@link #patchLong(long, long)} are not part of the checksum.
+     */
+    void beginChecksum() {
+        checksum.reset();
+        checksumStartPosition = position();
+    }
+
+    /**
+     * @return The CRC-32 of the bytes written since {@link #beginChecksum()}, once they have all been written
+     */
+    int endChecksum() throws IOException {
+        flush();
+        checksumStartPosition = -1;
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * Overwrite a long written before, such as a placeholder for a position that was only known later
+     *
+     * @param position position the long was written at
+     * @param value    value to write instead
+     */
+    void patchLong(long position, long value) throws IOException {
+        // The long may still be in the buffer, which would overwrite it again when it is flushed
+        flush();
+        ByteBuffer bytes = ByteBuffer.allocate(Long.BYTES);
+        bytes.putLong(0, value);
+        while (bytes.hasRemaining()) {
+            channel.write(bytes, position + bytes.position());
+        }
+    }
+
+    void putByte(int value) throws IOException {
+        ensureRemaining(Byte.BYTES);
+        buffer.put((byte) value);
+    }
+
+    void putShort(int value) throws IOException {
+        ensureRemaining(Short.BYTES);
+        buffer.putShort((short) value);
+    }
+
+    void putInt(int value) throws IOException {
+        ensureRemaining(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    void putLong(long value) throws IOException {
+        ensureRemaining(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    /**
+     * Write a string as its length in bytes followed by its UTF-8 bytes, or a length of -1 if it is null
+     *
+     * @param value string to write
+     */
+    void putString(String value) throws IOException {
+        if (value == null) {
+            putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int length = Math.min(bytes.length - offset, buffer.remaining());
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * Write a date and time as seconds and nanoseconds since the epoch, or {@link Long#MIN_VALUE} if it is null
+     *
+     * @param value date and time to write
+     */
+    void putDateTime(LocalDateTime value) throws IOException {
+        if (value == null) {
+            putLong(Long.MIN_VALUE);
+            return;
+        }
+        putLong(value.toEpochSecond(ZoneOffset.UTC));
+        putInt(value.getNano());
+    }
+
+    private void ensureRemaining(int numBytes) throws IOException {
+        if (buffer.remaining() < numBytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Write everything in the buffer to the channel
+     */
+    void flush() throws IOException {
+        buffer.flip();
+        if (deflating) {
+            // The deflater keeps reading its input until it is used up, so it must not see the buffer refilled
+            deflater.setInput(buffer.duplicate());
+            while (!deflater.needsInput()) {
+                writeDeflated();
+            }
+        } else {
+            write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void writeDeflated() throws IOException {
+        deflater.deflate(deflatedBuffer);
+        deflatedBuffer.flip();
+        write(deflatedBuffer);
+        deflatedBuffer.clear();
+    }
+
+    private void write(ByteBuffer bytes) throws IOException {
+        if (checksumStartPosition >= 0) {
+            ByteBuffer checksummedBytes = bytes.duplicate();
+            long numBytesBeforeStart = checksumStartPosition - channelPosition;
+            if (numBytesBeforeStart > 0) {
+                checksummedBytes.position(checksummedBytes.position()
+                        + (int) Math.min(numBytesBeforeStart, checksummedBytes.remaining()));
+            }
+            checksum.update(checksummedBytes);
+        }
+        while (bytes.hasRemaining()) {
+            channelPosition += channel.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package state;
+
+import java.nio.file.Path;
+
+/**
+ * {@link StateSnapshot} holds the application state restored from a snapshot by {@link SnapshotCodec#read} or
+ * {@link SnapshotCodec#readMapped}.
+ * The states are independent of any running application, so they can be checked before they are merged into one.
+ */
+public class StateSnapshot {
+    private final IUserState userState;
+    private final IEventState eventState;
+    private final IBookingState bookingState;
+    // The base file the state was mapped from, which deltas can be appended to, or null
+    private final Path mappedFile;
+    private final long baseSize;
+    private final long journalEnd;
+    private final int numDeltas;
+
+    StateSnapshot(IUserState userState, IEventState eventState, IBookingState bookingState) {
+        this(userState, eventState, bookingState, null, 0, 0, 0);
+    }
+
+    /**
+     * @param mappedFile base file the state was mapped from, if more deltas can be appended to it, or null
+     * @param baseSize   size of the base in bytes, up to its first delta
+     * @param journalEnd position after the last delta of the base file
+     * @param numDeltas  number of deltas after the base
+     */
+    StateSnapshot(IUserState userState, IEventState eventState, IBookingState bookingState, Path mappedFile,
+                  long baseSize, long journalEnd, int numDeltas) {
+        this.userState = userState;
+        this.eventState = eventState;
+        this.bookingState = bookingState;
+        this.mappedFile = mappedFile;
+        this.baseSize = baseSize;
+        this.journalEnd = journalEnd;
+        this.numDeltas = numDeltas;
+    }
+
+    /**
+     * @return The registered users, with no user logged in
+     */
+    public IUserState getUserState() {
+        return userState;
+    }
+
+    public IEventState getEventState() {
+        return eventState;
+    }
+
+    public IBookingState getBookingState() {
+        return bookingState;
+    }
+
+    Path getMappedFile() {
+        return mappedFile;
+    }
+
+    long getBaseSize() {
+        return baseSize;
+    }
+
+    long getJournalEnd() {
+        return journalEnd;
+    }
+
+    int getNumDeltas() {
+        return numDeltas;
+    }
+}
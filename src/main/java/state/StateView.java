@@ -0,0 +1,49 @@
+package state;
+
+import model.Booking;
+import model.Event;
+import model.EventTag;
+import model.User;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link StateView} is a point-in-time view of the users, tags, events and bookings of the application state, which a
+ * snapshot is written from while other threads keep changing the state. Taking it does not depend on the number of
+ * users, events or bookings, as their collections are only appended to and their views share storage with them.
+ * <p>
+ * The bookings are viewed first, then the events and then the users, so every entity in the view refers to entities
+ * that are in the view as well. Entities are changed in place, so a change made while the snapshot is written may or
+ * may not be in it, but it is always recorded in the change sets of the states, and saved again by the next autosave.
+ */
+class StateView {
+    final List<User> users;
+    final Map<String, EventTag> possibleTags;
+    final List<Event> events;
+    final long nextEventNumber;
+    final List<Booking> bookings;
+    final long nextBookingNumber;
+
+    /**
+     * @param userState    user state of the application or of a session
+     * @param eventState   event state to view
+     * @param bookingState booking state to view
+     */
+    StateView(IUserState userState, IEventState eventState, IBookingState bookingState) {
+        BookingState bookingStateImpl = (BookingState) bookingState;
+        synchronized (bookingStateImpl) {
+            bookings = bookingStateImpl.viewBookings();
+            nextBookingNumber = bookingStateImpl.getNextBookingNumber();
+        }
+        EventState eventStateImpl = (EventState) eventState;
+        synchronized (eventStateImpl) {
+            events = eventStateImpl.viewEvents();
+            nextEventNumber = eventStateImpl.getNextEventNumber();
+        }
+        // There are only ever a few tags, so they are copied
+        possibleTags = new HashMap<>(eventState.getPossibleTags());
+        users = UserState.shared(userState).viewUsers();
+    }
+}
@@ -0,0 +1,141 @@
+package state;
+
+import model.Consumer;
+import model.Event;
+import model.TicketHold;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link TicketHoldState} is a concrete implementation of {@link ITicketHoldState}.
+ * The deadlines of the holds are kept in a {@link HashedTimingWheel}, which a background thread advances every tick,
+ * so releasing the expired holds never requires looking at all the holds. Holds that are confirmed or released before
+ * their deadline stay in the wheel until then, and are skipped when they come up.
+ * Holds are not saved, so the event of a hold that is released or expires is marked changed for the autosave.
+ * It is thread-safe.
+ */
+public class TicketHoldState implements ITicketHoldState {
+    private static final Duration DEFAULT_TICK_DURATION = Duration.ofMillis(100);
+    private static final int NUM_BUCKETS = 512;
+
+    private final IEventState eventState;
+    private final Duration tickDuration;
+    private final Map<Long, TicketHold> holdsByNumber;
+    private final AtomicLong nextHoldNumber;
+    private final HashedTimingWheel<TicketHold> expiryWheel;
+    private ScheduledExecutorService expiryTicker;
+
+    /**
+     * Create a new TicketHoldState with no holds, releasing expired holds within 100 milliseconds of their expiry
+     *
+     * @param eventState state of the events the tickets are held for
+     */
+    public TicketHoldState(IEventState eventState) {
+        this(eventState, DEFAULT_TICK_DURATION);
+    }
+
+    /**
+     * Create a new TicketHoldState with no holds
+     *
+     * @param eventState   state of the events the tickets are held for
+     * @param tickDuration how often expired holds are released
+     */
+    public TicketHoldState(IEventState eventState, Duration tickDuration) {
+        this.eventState = eventState;
+        this.tickDuration = tickDuration;
+        holdsByNumber = new ConcurrentHashMap<>();
+        nextHoldNumber = new AtomicLong(1);
+        expiryWheel = new HashedTimingWheel<>(tickDuration.toNanos(), TimeUnit.NANOSECONDS, NUM_BUCKETS,
+                System.nanoTime());
+    }
+
+    @Override
+    public TicketHold placeHold(Consumer holder, Event event, int numTickets, Duration holdDuration) {
+        if (!event.tryHold(numTickets)) {
+            return null;
+        }
+        long deadlineNanos = System.nanoTime() + holdDuration.toNanos();
+        TicketHold hold = new TicketHold(nextHoldNumber.getAndIncrement(), holder, event, numTickets,
+                LocalDateTime.now().plus(holdDuration));
+        holdsByNumber.put(hold.getHoldNumber(), hold);
+        synchronized (expiryWheel) {
+            expiryWheel.schedule(hold, deadlineNanos);
+            startExpiryTicker();
+        }
+        return hold;
+    }
+
+    @Override
+    public TicketHold findHoldByNumber(long holdNumber) {
+        return holdsByNumber.get(holdNumber);
+    }
+
+    @Override
+    public boolean confirmHold(TicketHold hold) {
+        if (!hold.confirm()) {
+            return false;
+        }
+        holdsByNumber.remove(hold.getHoldNumber());
+        return true;
+    }
+
+    @Override
+    public boolean releaseHold(TicketHold hold) {
+        if (!hold.release()) {
+            return false;
+        }
+        holdsByNumber.remove(hold.getHoldNumber());
+        // The released tickets are left again
+        eventState.markEventChanged(hold.getEvent());
+        return true;
+    }
+
+    @Override
+    public int releaseExpiredHolds() {
+        List<TicketHold> expiredHolds;
+        synchronized (expiryWheel) {
+            expiredHolds = expiryWheel.advance(System.nanoTime());
+        }
+        int numReleased = 0;
+        for (TicketHold hold : expiredHolds) {
+            if (releaseHold(hold)) {
+                ++numReleased;
+            }
+        }
+        return numReleased;
+    }
+
+    @Override
+    public int getNumActiveHolds() {
+        return holdsByNumber.size();
+    }
+
+    // The background thread is only started once there are holds, as most contexts never hold tickets
+    private void startExpiryTicker() {
+        if (expiryTicker != null) {
+            return;
+        }
+        expiryTicker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ticket-hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long tickNanos = tickDuration.toNanos();
+        expiryTicker.scheduleAtFixedRate(this::releaseExpiredHolds, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void close() {
+        synchronized (expiryWheel) {
+            if (expiryTicker != null) {
+                expiryTicker.shutdownNow();
+                expiryTicker = null;
+            }
+        }
+    }
+}
@@ -3,22 +3,38 @@ package state;
 import model.User;
 
 import java.io.Serializable;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * {@link UserState} is a concrete implementation of {@link IUserState}.
+ * It is thread-safe: users are kept in a concurrent map, which can be iterated while other threads register users, and
+ * email addresses are claimed with atomic operations on that map, so that no two users can share one.
+ * The currently logged-in user is that of the console; other sessions keep their own in a {@link SessionUserState}.
+ * Added and changed users are tracked by their serialVersionUID for incremental autosaves.
+ * Users are never unregistered, so they are also kept in the order they registered in an {@link AppendOnlyList}, of
+ * which a point-in-time view can be saved while more users register.
  */
 public class UserState implements IUserState, Serializable {
-    private final HashMap<String, User> users;
-    private User currentUser;
+    private final ConcurrentHashMap<String, User> users;
+    private final AppendOnlyList<User> registeredUsers;
+    private final Set<User> registeredUserSet;
+    private volatile User currentUser;
+    private final ChangeSet<Long, User> changedUsers;
 
     /**
      * Create a new UserState with an empty collection of users and the currently logged-in user set to null.
      */
     public UserState() {
-        users = new HashMap<>();
+        users = new ConcurrentHashMap<>();
+        registeredUsers = new AppendOnlyList<>();
+        registeredUserSet = new HashSet<>();
         currentUser = null;
+        changedUsers = new ChangeSet<>();
     }
 
     /**
@@ -27,19 +43,109 @@ public class UserState implements IUserState, Serializable {
      * @param other instance to copy
      */
     public UserState(IUserState other) {
-        UserState otherImpl = (UserState) other;
-        users = new HashMap<>(otherImpl.users);
-        currentUser = otherImpl.currentUser;
+        users = new ConcurrentHashMap<>(other.getAllUsers());
+        registeredUsers = new AppendOnlyList<>();
+        registeredUserSet = new HashSet<>();
+        for (User user : users.values()) {
+            register(user);
+        }
+        currentUser = other.getCurrentUser();
+        changedUsers = new ChangeSet<>();
     }
 
     @Override
     public void addUser(User user) {
         users.put(user.getEmail(), user);
+        register(user);
+        markUserChanged(user);
+    }
+
+    @Override
+    public boolean tryAddUser(User user) {
+        if (users.putIfAbsent(user.getEmail(), user) != null) {
+            return false;
+        }
+        register(user);
+        markUserChanged(user);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean tryChangeEmail(User user, String newEmail) {
+        String oldEmail = user.getEmail();
+        if (oldEmail.equals(newEmail)) {
+            return true;
+        }
+        // The new email address is claimed before the old one is released, so the user stays registered throughout
+        User existingUser = users.putIfAbsent(newEmail, user);
+        if (existingUser != null && existingUser != user) {
+            return false;
+        }
+        user.setEmail(newEmail);
+        users.remove(oldEmail, user);
+        markUserChanged(user);
+        return true;
+    }
+
+    /**
+     * Remove a user restored from a snapshot, so that it can be added again under the email address a delta gives it
+     *
+     * @param user user to remove
+     */
+    void removeUser(User user) {
+        users.remove(user.getEmail(), user);
+    }
+
+    /**
+     * Keep a user in the order of registration, unless it registered before, e.g., with a different email address
+     */
+    private synchronized void register(User user) {
+        if (registeredUserSet.add(user)) {
+            registeredUsers.add(user);
+        }
+    }
+
+    /**
+     * @return An unmodifiable view of the users registered now, in the order they registered in, taken in O(1) time,
+     * which does not change when more users register
+     */
+    List<User> viewUsers() {
+        return registeredUsers.view();
+    }
+
+    /**
+     * @param userState user state of the application or of a session
+     * @return The {@link UserState} holding the registered users of the application
+     */
+    static UserState shared(IUserState userState) {
+        if (userState instanceof SessionUserState) {
+            return shared(((SessionUserState) userState).getSharedUserState());
+        }
+        return (UserState) userState;
+    }
+
+    @Override
+    public void markUserChanged(User user) {
+        changedUsers.record(user.getSerialVersionUID(), user);
+    }
+
+    /**
+     * @return Number of changes to the users recorded so far
+     */
+    long getVersion() {
+        return changedUsers.getVersion();
+    }
+
+    /**
+     * @return The users added or changed since this was last called
+     */
+    List<User> takeChangedUsers() {
+        return changedUsers.take();
     }
 
     @Override
     public Map<String, User> getAllUsers() {
-        return users;
+        return Collections.unmodifiableMap(users);
     }
 
     @Override
@@ -0,0 +1,62 @@
+package view;
+
+import java.io.PrintStream;
+import java.time.Duration;
+
+/**
+ * {@link ConsoleOutput} is the one background {@link ConsoleWriter} that all text for STDOUT goes through: the results
+ * shown by every {@link ConsoleView}, as well as the prompts and notifications printed outside a view. Text therefore
+ * reaches the console in the order it was printed, whichever thread printed it.
+ * <p>
+ * The text is written to whatever System.out is at the time it is printed. When System.out is replaced (for example to
+ * capture the output), the text printed before is written to the previous stream first.
+ */
+public final class ConsoleOutput {
+    private static final int CAPACITY = 8192;
+    private static final int FLUSH_THRESHOLD_CHARS = 64 * 1024;
+    private static final Duration FLUSH_INTERVAL = Duration.ofMillis(10);
+
+    private static PrintStream stream;
+    private static ConsoleWriter writer;
+
+    private ConsoleOutput() {
+    }
+
+    private static ConsoleWriter currentWriter() {
+        if (stream != System.out) {
+            if (writer != null) {
+                writer.close();
+            }
+            stream = System.out;
+            writer = new ConsoleWriter(stream, CAPACITY, FLUSH_THRESHOLD_CHARS, FLUSH_INTERVAL);
+        }
+        return writer;
+    }
+
+    /**
+     * Print text to the console without ending the line, e.g. a prompt. Call {@link #flush()} before reading the answer.
+     *
+     * @param text text to print
+     */
+    public static synchronized void print(String text) {
+        currentWriter().write(text);
+    }
+
+    /**
+     * Print a line to the console
+     *
+     * @param line line to print, without the line separator
+     */
+    public static synchronized void println(String line) {
+        currentWriter().write(line + System.lineSeparator());
+    }
+
+    /**
+     * Wait until everything printed so far has been written to the console
+     */
+    public static synchronized void flush() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+}
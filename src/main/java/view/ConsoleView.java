@@ -3,7 +3,15 @@ package view;
 import java.util.Iterator;
 import java.util.Map;
 
-public class ConsoleView implements IView {
+/**
+ * {@link ConsoleView} is an {@link IView} printing to the console. Results are shown in green if they are successes and
+ * in yellow if they are failures, with as much detail as its {@link Verbosity} allows.
+ * <p>
+ * The output is written to STDOUT in the background by {@link ConsoleOutput}, so showing a result does not wait for
+ * the console. Anything else printed to the console must go through {@link ConsoleOutput} as well to keep its order.
+ * Call {@link #flush()} before reading from the console, and {@link #close()} at shutdown so that no output is lost.
+ */
+public class ConsoleView implements IView, AutoCloseable {
     private static final String ANSI_RESET = "\u001B[0m";
     private static final String ANSI_GREEN = "\u001B[32m";
     private static final String ANSI_YELLOW = "\u001B[33m";
@@ -13,6 +21,7 @@ public class ConsoleView implements IView {
     public static final int MAIN_MENU_LIST_EVENT_REVIEWS = 4;
     public static final int MAIN_MENU_CONSUMER = 5;
     public static final int MAIN_MENU_STAFF = 6;
+    public static final int MAIN_MENU_LIST_EVENTS_IN_DATE_RANGE = 7;
     public static final int MAIN_MENU_EXIT = -1;
     public static final int CONSUMER_MENU_REGISTER = 1;
     public static final int CONSUMER_MENU_UPDATE_PROFILE = 2;
@@ -32,20 +41,63 @@ public class ConsoleView implements IView {
     public static final int STAFF_MENU_IMPORT = 8;
     public static final int STAFF_MENU_RETURN = -1;
 
+    private final Verbosity verbosity;
+
+    /**
+     * Create a new ConsoleView showing results with all their additional information
+     */
+    public ConsoleView() {
+        this(Verbosity.Details);
+    }
+
+    /**
+     * @param verbosity how much to show about the results of operations
+     */
+    public ConsoleView(Verbosity verbosity) {
+        this.verbosity = verbosity;
+    }
+
+    @Override
+    public Verbosity getVerbosity() {
+        return verbosity;
+    }
+
+    private void print(String line) {
+        ConsoleOutput.println(line);
+    }
+
+    /**
+     * Wait until everything shown so far has been written to the console
+     */
+    public void flush() {
+        ConsoleOutput.flush();
+    }
+
+    /**
+     * Write everything shown so far to the console
+     */
+    @Override
+    public void close() {
+        ConsoleOutput.flush();
+    }
+
     /**
      * Show menu of options that can lead to the other menus or quitting the application
      */
     @Override
     public void displayMainMenu() {
-        System.out.println("Welcome to the event app!");
-        System.out.println("Please select one of the following options: ");
-        System.out.println("[" + MAIN_MENU_LOGIN + "] LoginCommand");
-        System.out.println("[" + MAIN_MENU_LOGOUT + "] LogoutCommand");
-        System.out.println("[" + MAIN_MENU_LIST_EVENTS + "] ListEventsCommand");
-        System.out.println("[" + MAIN_MENU_LIST_EVENT_REVIEWS + "] ListEventReviewsCommand");
-        System.out.println("[" + MAIN_MENU_CONSUMER + "] Go to consumer menu");
-        System.out.println("[" + MAIN_MENU_STAFF + "] Go to staff menu");
-        System.out.println("[" + MAIN_MENU_EXIT + "] Exit");
+        String menu = String.join(System.lineSeparator(),
+                "Welcome to the event app!",
+                "Please select one of the following options: ",
+                "[" + MAIN_MENU_LOGIN + "] LoginCommand",
+                "[" + MAIN_MENU_LOGOUT + "] LogoutCommand",
+                "[" + MAIN_MENU_LIST_EVENTS + "] ListEventsCommand",
+                "[" + MAIN_MENU_LIST_EVENT_REVIEWS + "] ListEventReviewsCommand",
+                "[" + MAIN_MENU_CONSUMER + "] Go to consumer menu",
+                "[" + MAIN_MENU_STAFF + "] Go to staff menu",
+                "[" + MAIN_MENU_LIST_EVENTS_IN_DATE_RANGE + "] ListEventsInDateRangeCommand",
+                "[" + MAIN_MENU_EXIT + "] Exit");
+        print(menu);
     }
 
     /**
@@ -53,15 +105,17 @@ public class ConsoleView implements IView {
      */
     @Override
     public void displayConsumerMenu() {
-        System.out.println("Please select one of the following options: ");
-        System.out.println("[" + CONSUMER_MENU_REGISTER + "] RegisterConsumerCommand");
-        System.out.println("[" + CONSUMER_MENU_UPDATE_PROFILE + "] UpdateConsumerProfileCommand");
-        System.out.println("[" + CONSUMER_MENU_BOOK_EVENT + "] BookEventCommand");
-        System.out.println("[" + CONSUMER_MENU_CANCEL_BOOKING + "] CancelBookingCommand");
-        System.out.println("[" + CONSUMER_MENU_LIST_BOOKINGS + "] ListConsumerBookingsCommand");
-        System.out.println("[" + CONSUMER_MENU_GET_EVENT_DIRECTIONS + "] GetEventDirectionsCommand");
-        System.out.println("[" + CONSUMER_MENU_LIST_EVENTS_BY_DISTANCE + "] ListEventsByDistanceCommand");
-        System.out.println("[" + CONSUMER_MENU_RETURN + "] Return to main menu");
+        String menu = String.join(System.lineSeparator(),
+                "Please select one of the following options: ",
+                "[" + CONSUMER_MENU_REGISTER + "] RegisterConsumerCommand",
+                "[" + CONSUMER_MENU_UPDATE_PROFILE + "] UpdateConsumerProfileCommand",
+                "[" + CONSUMER_MENU_BOOK_EVENT + "] BookEventCommand",
+                "[" + CONSUMER_MENU_CANCEL_BOOKING + "] CancelBookingCommand",
+                "[" + CONSUMER_MENU_LIST_BOOKINGS + "] ListConsumerBookingsCommand",
+                "[" + CONSUMER_MENU_GET_EVENT_DIRECTIONS + "] GetEventDirectionsCommand",
+                "[" + CONSUMER_MENU_LIST_EVENTS_BY_DISTANCE + "] ListEventsByDistanceCommand",
+                "[" + CONSUMER_MENU_RETURN + "] Return to main menu");
+        print(menu);
     }
 
     /**
@@ -69,15 +123,17 @@ public class ConsoleView implements IView {
      */
     @Override
     public void displayStaffMenu() {
-        System.out.println("[" + STAFF_MENU_REGISTER + "] RegisterStaffCommand");
-        System.out.println("[" + STAFF_MENU_UPDATE_PROFILE + "] UpdateStaffProfileCommand");
-        System.out.println("[" + STAFF_MENU_CREATE_EVENT + "] CreateEventCommand");
-        System.out.println("[" + STAFF_MENU_CANCEL_EVENT + "] CancelEventCommand");
-        System.out.println("[" + STAFF_MENU_LIST_EVENT_BOOKINGS + "] ListEventBookingsCommand");
-        System.out.println("[" + STAFF_MENU_ADD_EVENT_TAG + "] AddEventTagCommand");
-        System.out.println("[" + STAFF_MENU_EXPORT + "] SaveAppStateCommand");
-        System.out.println("[" + STAFF_MENU_IMPORT + "] LoadAppStateCommand");
-        System.out.println("[" + STAFF_MENU_RETURN + "] Return to main menu");
+        String menu = String.join(System.lineSeparator(),
+                "[" + STAFF_MENU_REGISTER + "] RegisterStaffCommand",
+                "[" + STAFF_MENU_UPDATE_PROFILE + "] UpdateStaffProfileCommand",
+                "[" + STAFF_MENU_CREATE_EVENT + "] CreateEventCommand",
+                "[" + STAFF_MENU_CANCEL_EVENT + "] CancelEventCommand",
+                "[" + STAFF_MENU_LIST_EVENT_BOOKINGS + "] ListEventBookingsCommand",
+                "[" + STAFF_MENU_ADD_EVENT_TAG + "] AddEventTagCommand",
+                "[" + STAFF_MENU_EXPORT + "] SaveAppStateCommand",
+                "[" + STAFF_MENU_IMPORT + "] LoadAppStateCommand",
+                "[" + STAFF_MENU_RETURN + "] Return to main menu");
+        print(menu);
     }
 
     private static String formatMessage(String callerName, Object result, Map<String, Object> additionalInfo) {
@@ -106,7 +162,10 @@ public class ConsoleView implements IView {
      */
     @Override
     public void displaySuccess(String callerName, Object result) {
-        System.out.println(ANSI_GREEN + String.format("%s => %s", callerName, result) + ANSI_RESET);
+        if (verbosity == Verbosity.Silent) {
+            return;
+        }
+        print(ANSI_GREEN + String.format("%s => %s", callerName, result) + ANSI_RESET);
     }
 
     /**
@@ -121,7 +180,11 @@ public class ConsoleView implements IView {
      */
     @Override
     public void displaySuccess(String callerName, Object result, Map<String, Object> additionalInfo) {
-        System.out.println(ANSI_GREEN + formatMessage(callerName, result, additionalInfo) + ANSI_RESET);
+        if (verbosity != Verbosity.Details) {
+            displaySuccess(callerName, result);
+            return;
+        }
+        print(ANSI_GREEN + formatMessage(callerName, result, additionalInfo) + ANSI_RESET);
     }
 
     /**
@@ -132,7 +195,10 @@ public class ConsoleView implements IView {
      */
     @Override
     public void displayFailure(String callerName, Object result) {
-        System.out.println(ANSI_YELLOW + String.format("%s => %s", callerName, result) + ANSI_RESET);
+        if (verbosity == Verbosity.Silent) {
+            return;
+        }
+        print(ANSI_YELLOW + String.format("%s => %s", callerName, result) + ANSI_RESET);
     }
 
     /**
@@ -147,6 +213,10 @@ public class ConsoleView implements IView {
      */
     @Override
     public void displayFailure(String callerName, Object result, Map<String, Object> additionalInfo) {
-        System.out.println(ANSI_YELLOW + formatMessage(callerName, result, additionalInfo) + ANSI_RESET);
+        if (verbosity != Verbosity.Details) {
+            displayFailure(callerName, result);
+            return;
+        }
+        print(ANSI_YELLOW + formatMessage(callerName, result, additionalInfo) + ANSI_RESET);
     }
 }
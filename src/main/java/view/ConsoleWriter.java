@@ -0,0 +1,214 @@
+package view;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link ConsoleWriter} writes text to an output stream from a background thread, so that the threads producing the
+ * text do not wait for the console. The text is passed to the writer thread through a bounded ring buffer, and the
+ * writer thread drains everything in the buffer at once into a buffered channel. The channel is flushed once enough
+ * text has been written to it, or shortly after text was first written to it, whichever comes first.
+ * If the ring buffer is full, producers wait for the writer thread to catch up.
+ * It is thread-safe.
+ */
+class ConsoleWriter implements AutoCloseable {
+    private final OutputStream output;
+    private final Writer writer;
+    private final String[] ring;
+    private final int flushThresholdChars;
+    private final long flushIntervalNanos;
+    private final ReentrantLock lock;
+    private final Condition notEmpty;
+    private final Condition notFull;
+    private final Condition flushed;
+    // Positions in the ring only ever increase, the slot of a position is the position modulo the ring length
+    private long head;
+    private long tail;
+    private long flushedPosition;
+    private boolean flushRequested;
+    private boolean closed;
+    private Thread writerThread;
+
+    /**
+     * @param output              stream to write the text to, which is flushed but never closed by this writer
+     * @param capacity            maximum number of pieces of text waiting to be written
+     * @param flushThresholdChars number of characters written after which the output is flushed
+     * @param flushInterval       maximum time text waits in the buffered channel before the output is flushed
+     */
+    ConsoleWriter(OutputStream output, int capacity, int flushThresholdChars, Duration flushInterval) {
+        this.output = output;
+        this.writer = Channels.newWriter(Channels.newChannel(output), StandardCharsets.UTF_8);
+        this.ring = new String[capacity];
+        this.flushThresholdChars = flushThresholdChars;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.lock = new ReentrantLock();
+        this.notEmpty = lock.newCondition();
+        this.notFull = lock.newCondition();
+        this.flushed = lock.newCondition();
+    }
+
+    /**
+     * Add text to be written, without waiting for it to be written unless the ring buffer is full
+     *
+     * @param text text to write
+     */
+    void write(String text) {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("The console writer is closed");
+            }
+            while (tail - head == ring.length) {
+                notFull.awaitUninterruptibly();
+            }
+            ring[(int) (tail % ring.length)] = text;
+            ++tail;
+            startWriterThread();
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until all the text added so far has been written and flushed
+     */
+    void flush() {
+        lock.lock();
+        try {
+            long target = tail;
+            if (flushedPosition >= target || writerThread == null) {
+                return;
+            }
+            flushRequested = true;
+            notEmpty.signal();
+            while (flushedPosition < target && writerThread != null) {
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The writer thread is only started once there is text, as it would otherwise be idle for the whole run
+    private void startWriterThread() {
+        if (writerThread != null) {
+            return;
+        }
+        writerThread = new Thread(this::writeAll, "console-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    private void writeAll() {
+        StringBuilder pending = new StringBuilder();
+        int numUnflushedChars = 0;
+        long firstUnflushedNanos = 0;
+        while (true) {
+            boolean flushNow;
+            boolean stop;
+            long drainedPosition;
+            lock.lock();
+            try {
+                while (head == tail && !closed && !flushRequested) {
+                    if (numUnflushedChars == 0) {
+                        notEmpty.awaitUninterruptibly();
+                        continue;
+                    }
+                    long remainingNanos = firstUnflushedNanos + flushIntervalNanos - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        break;
+                    }
+                    try {
+                        notEmpty.await(remainingNanos, TimeUnit.NANOSECONDS);
+                    } catch (InterruptedException e) {
+                        // Only closing the writer stops the thread
+                    }
+                }
+                while (head < tail) {
+                    int slot = (int) (head % ring.length);
+                    pending.append(ring[slot]);
+                    ring[slot] = null;
+                    ++head;
+                }
+                drainedPosition = head;
+                stop = closed;
+                flushNow = flushRequested || closed;
+                flushRequested = false;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                if (pending.length() > 0) {
+                    if (numUnflushedChars == 0) {
+                        firstUnflushedNanos = System.nanoTime();
+                    }
+                    writer.append(pending);
+                    numUnflushedChars += pending.length();
+                    pending.setLength(0);
+                }
+                if (numUnflushedChars > 0 && (flushNow || numUnflushedChars >= flushThresholdChars
+                        || System.nanoTime() - firstUnflushedNanos >= flushIntervalNanos)) {
+                    writer.flush();
+                    output.flush();
+                    numUnflushedChars = 0;
+                }
+            } catch (IOException e) {
+                // The console is gone, there is nowhere left to report this
+                pending.setLength(0);
+                numUnflushedChars = 0;
+            }
+
+            lock.lock();
+            try {
+                if (numUnflushedChars == 0) {
+                    flushedPosition = drainedPosition;
+                    flushed.signalAll();
+                }
+                if (stop && head == tail) {
+                    writerThread = null;
+                    flushed.signalAll();
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Write and flush all the text added so far, then stop the writer thread.
+     * Text cannot be added after the writer has been closed.
+     */
+    @Override
+    public void close() {
+        Thread threadToJoin;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            threadToJoin = writerThread;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (threadToJoin != null) {
+            try {
+                threadToJoin.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
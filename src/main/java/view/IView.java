@@ -1,8 +1,23 @@
 package view;
 
 import java.util.Map;
+import java.util.function.Supplier;
 
+/**
+ * Interface for the user interface of the application. Commands report their results through it.
+ * <p>
+ * Building the additional information of a result, and rendering it as text, can cost more than the operation that is
+ * being logged. The overloads taking a {@link Supplier} only build the additional information if the
+ * {@link #getVerbosity() verbosity} of the view means it will be shown.
+ */
 public interface IView {
+    /**
+     * @return How much this view shows about the results of operations, {@link Verbosity#Details} by default
+     */
+    default Verbosity getVerbosity() {
+        return Verbosity.Details;
+    }
+
     /**
      * Show menu of options that can lead to the other menus or quitting the application
      */
@@ -36,6 +51,27 @@ public interface IView {
      */
     void displaySuccess(String callerName, Object result, Map<String, Object> additionalInfo);
 
+    /**
+     * Show a success in the user interface, building the additional information only if it is going to be shown
+     *
+     * @param callerName     human-readable name (usually in the format ClassName.MethodName) where the message is logged from
+     * @param result         a single string representing the result of the operation that is being logged
+     * @param additionalInfo supplies a map containing any additional information that may help to explain the result,
+     *                       the keys should be variable names and the values should be their values.
+     */
+    default void displaySuccess(String callerName, Object result, Supplier<Map<String, Object>> additionalInfo) {
+        switch (getVerbosity()) {
+            case Details:
+                displaySuccess(callerName, result, additionalInfo.get());
+                break;
+            case Results:
+                displaySuccess(callerName, result);
+                break;
+            case Silent:
+                break;
+        }
+    }
+
     /**
      * Show a failure in the user interface (which can vary, depending on how the view is implemented)
      *
@@ -53,4 +89,25 @@ public interface IView {
      *                       the keys should be variable names and the values should be their values.
      */
     void displayFailure(String callerName, Object result, Map<String, Object> additionalInfo);
+
+    /**
+     * Show a failure in the user interface, building the additional information only if it is going to be shown
+     *
+     * @param callerName     human-readable name (usually in the format ClassName.MethodName) where the message is logged from
+     * @param result         a single string representing the result of the operation that is being logged
+     * @param additionalInfo supplies a map containing any additional information that may help to explain the result,
+     *                       the keys should be variable names and the values should be their values.
+     */
+    default void displayFailure(String callerName, Object result, Supplier<Map<String, Object>> additionalInfo) {
+        switch (getVerbosity()) {
+            case Details:
+                displayFailure(callerName, result, additionalInfo.get());
+                break;
+            case Results:
+                displayFailure(callerName, result);
+                break;
+            case Silent:
+                break;
+        }
+    }
 }
@@ -0,0 +1,120 @@
+package view;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * {@link MetricsView} is an {@link IView} for running the application without a user interface. It shows nothing and
+ * never builds or renders the additional information of results, it only counts how many times each result occurred.
+ * It is thread-safe.
+ */
+public class MetricsView implements IView {
+    private final Map<Object, LongAdder> numSuccessesByResult;
+    private final Map<Object, LongAdder> numFailuresByResult;
+
+    /**
+     * Create a new MetricsView with no results counted
+     */
+    public MetricsView() {
+        numSuccessesByResult = new ConcurrentHashMap<>();
+        numFailuresByResult = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public Verbosity getVerbosity() {
+        return Verbosity.Silent;
+    }
+
+    @Override
+    public void displayMainMenu() {
+        // Nothing to show without a user interface
+    }
+
+    @Override
+    public void displayConsumerMenu() {
+        // Nothing to show without a user interface
+    }
+
+    @Override
+    public void displayStaffMenu() {
+        // Nothing to show without a user interface
+    }
+
+    @Override
+    public void displaySuccess(String callerName, Object result) {
+        numSuccessesByResult.computeIfAbsent(result, ignored -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void displaySuccess(String callerName, Object result, Map<String, Object> additionalInfo) {
+        displaySuccess(callerName, result);
+    }
+
+    @Override
+    public void displaySuccess(String callerName, Object result, Supplier<Map<String, Object>> additionalInfo) {
+        displaySuccess(callerName, result);
+    }
+
+    @Override
+    public void displayFailure(String callerName, Object result) {
+        numFailuresByResult.computeIfAbsent(result, ignored -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void displayFailure(String callerName, Object result, Map<String, Object> additionalInfo) {
+        displayFailure(callerName, result);
+    }
+
+    @Override
+    public void displayFailure(String callerName, Object result, Supplier<Map<String, Object>> additionalInfo) {
+        displayFailure(callerName, result);
+    }
+
+    /**
+     * @param result result of an operation, e.g., a command status
+     * @return Number of times the result was shown, as a success or as a failure
+     */
+    public long getCount(Object result) {
+        return getCount(numSuccessesByResult, result) + getCount(numFailuresByResult, result);
+    }
+
+    /**
+     * @return Total number of successes shown
+     */
+    public long getNumSuccesses() {
+        return sum(numSuccessesByResult);
+    }
+
+    /**
+     * @return Total number of failures shown
+     */
+    public long getNumFailures() {
+        return sum(numFailuresByResult);
+    }
+
+    /**
+     * @return A snapshot of the number of times each result was shown, as a success or as a failure
+     */
+    public Map<Object, Long> getCounts() {
+        Map<Object, Long> counts = new HashMap<>();
+        numSuccessesByResult.forEach((result, count) -> counts.merge(result, count.sum(), Long::sum));
+        numFailuresByResult.forEach((result, count) -> counts.merge(result, count.sum(), Long::sum));
+        return counts;
+    }
+
+    private static long getCount(Map<Object, LongAdder> countsByResult, Object result) {
+        LongAdder count = countsByResult.get(result);
+        return count == null ? 0 : count.sum();
+    }
+
+    private static long sum(Map<Object, LongAdder> countsByResult) {
+        long total = 0;
+        for (LongAdder count : countsByResult.values()) {
+            total += count.sum();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,20 @@
+package view;
+
+/**
+ * {@link Verbosity} is how much an {@link IView} shows about the results of operations. Each level shows everything the
+ * levels before it show.
+ */
+public enum Verbosity {
+    /**
+     * Results are not shown at all, e.g., when running without a user interface
+     */
+    Silent,
+    /**
+     * Only the results are shown, without their additional information
+     */
+    Results,
+    /**
+     * The results are shown together with all their additional information
+     */
+    Details,
+}
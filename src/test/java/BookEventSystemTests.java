@@ -3,14 +3,18 @@ import command.CreateEventCommand;
 import command.LogoutCommand;
 import controller.Context;
 import controller.Controller;
+import controller.Session;
 import model.Booking;
+import model.Consumer;
 import model.Event;
 import model.EventTagCollection;
 import model.EventType;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -215,4 +219,38 @@ public class BookEventSystemTests extends ConsoleTest {
         assertNull(bookEventCommand.getResult());
         assertFalse(isContainedInSystem(controller, bookEventCommand.getResult()));
     }
+
+    @Test
+    void concurrentBookingsNeverOversellEvent() {
+        int numTickets = 100;
+        int numConsumers = 32;
+        int numBookingsPerConsumer = 10;
+        Controller controller = new Controller(createController().getContext(), new TestView(), 16);
+        createStaff(controller);
+        Event event = createEvent(controller, numTickets, 48);
+        controller.runCommand(new LogoutCommand());
+
+        List<CompletableFuture<Booking>> results = new ArrayList<>();
+        for (int i = 0; i < numConsumers; ++i) {
+            Session session = controller.openSession();
+            session.getContext().getUserState().setCurrentUser(new Consumer("Consumer " + i,
+                    "consumer" + i + "@example.com", "000", "", "password"));
+            for (int j = 0; j < numBookingsPerConsumer; ++j) {
+                results.add(controller.submitCommand(session, new BookEventCommand(event.getEventNumber(), 1)));
+            }
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).join();
+        controller.shutdown();
+
+        int numTicketsBooked = 0;
+        for (CompletableFuture<Booking> result : results) {
+            Booking booking = result.join();
+            if (booking != null) {
+                numTicketsBooked += booking.getNumTickets();
+            }
+        }
+        assertEquals(numTickets, numTicketsBooked);
+        assertEquals(0, event.getNumTicketsLeft());
+        assertEquals(numTickets, controller.getContext().getBookingState().getAllBookings().size());
+    }
 }
@@ -1,14 +1,18 @@
 import command.*;
 import controller.Context;
 import controller.Controller;
+import external.PaymentProgress;
+import model.Consumer;
 import model.Event;
 import model.EventTagCollection;
 import model.EventType;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -44,7 +48,7 @@ public class CancelEventTests extends ConsoleTest {
     }
 
     @Test
-    void cancelCurrentEventWith1Booking() {
+    void cancelCurrentEventWith1Booking() throws InterruptedException {
         Controller controller = createStaffAndEvent(10, 1);
         controller.runCommand(new LogoutCommand());
         createConsumerAndBookFirstEvent(controller, 4);
@@ -57,16 +61,18 @@ public class CancelEventTests extends ConsoleTest {
                 events.get(0).getEventNumber(),
                 "I guess we're just not bothered to run this after all"
         ));
+        assertTrue(controller.getContext().getNotificationOutbox().flush(Duration.ofSeconds(10)));
+        // The consumer is notified in the background, before or after the cancellation result is shown
         stopOutputCaptureAndCompare(
                 "USER_LOGIN_SUCCESS",
                 "LIST_EVENTS_SUCCESS",
-                "CANCEL_EVENT_REFUND_BOOKING_SUCCESS",
+                "CANCEL_EVENT_SUCCESS",
                 "CANCEL_EVENT_SUCCESS"
         );
     }
 
     @Test
-    void cancelFutureEventWith2Bookings() {
+    void cancelFutureEventWith2Bookings() throws InterruptedException {
         Controller controller = createController();
         createStaff(controller);
         long eventNumber = createEvent(controller, 1000, 60000).getEventNumber();
@@ -96,7 +102,9 @@ public class CancelEventTests extends ConsoleTest {
         CancelEventCommand cancelCmd = new CancelEventCommand(eventNumber, "Sorry!");
         controller.runCommand(cancelCmd);
         assertTrue(cancelCmd.getResult());
+        assertTrue(controller.getContext().getNotificationOutbox().flush(Duration.ofSeconds(10)));
 
+        // The consumers are notified in the background, before or after the cancellation result is shown
         stopOutputCaptureAndCompare(
                 "REGISTER_CONSUMER_SUCCESS",
                 "USER_LOGIN_SUCCESS",
@@ -107,12 +115,52 @@ public class CancelEventTests extends ConsoleTest {
                 "BOOK_EVENT_SUCCESS",
                 "USER_LOGOUT_SUCCESS",
                 "USER_LOGIN_SUCCESS",
-                "CANCEL_EVENT_REFUND_BOOKING_SUCCESS",
-                "CANCEL_EVENT_REFUND_BOOKING_SUCCESS",
+                "CANCEL_EVENT_SUCCESS",
+                "CANCEL_EVENT_SUCCESS",
                 "CANCEL_EVENT_SUCCESS"
         );
     }
 
+    @Test
+    void cancelEventWithManyBookingsRefundsInBackground() throws InterruptedException {
+        Controller controller = createController();
+        createStaff(controller);
+        CreateEventCommand eventCmd = new CreateEventCommand(
+                "Sold out concert",
+                EventType.Music,
+                1000,
+                2500,
+                "55.94368888764689 -3.1888246174917114", // George Square Gardens, Edinburgh
+                "Doors open at 7pm",
+                LocalDateTime.now().plusHours(48),
+                LocalDateTime.now().plusHours(50),
+                new EventTagCollection()
+        );
+        controller.runCommand(eventCmd);
+        Event event = eventCmd.getResult();
+
+        int numBookings = 300;
+        Context context = controller.getContext();
+        for (int i = 0; i < numBookings; ++i) {
+            Consumer consumer = new Consumer("Fan " + i, "fan" + i + "@example.com", "000", "", "password");
+            context.getBookingState().createBooking(consumer, event, 2);
+            assertTrue(context.getPaymentSystem().processPayment(consumer.getEmail(), context.getOrgEmail(), 5000));
+        }
+
+        CancelEventCommand cancelCmd = new CancelEventCommand(event.getEventNumber(), "The band split up");
+        controller.runCommand(cancelCmd);
+        assertTrue(cancelCmd.getResult());
+
+        PaymentProgress refundProgress = cancelCmd.getRefundProgress().getCompletion().join();
+        assertEquals(numBookings, refundProgress.getNumRequests());
+        assertEquals(numBookings, refundProgress.getNumSucceeded());
+        assertEquals(0, refundProgress.getNumPending());
+
+        assertTrue(context.getNotificationOutbox().flush(Duration.ofSeconds(10)));
+        assertEquals(numBookings, context.getNotificationOutbox().getNumDelivered());
+        assertEquals(0, context.getNotificationOutbox().getNumPending());
+    }
+
     @Test
     void cancelFutureEventWithCancelledBooking() {
         Controller controller = createController();
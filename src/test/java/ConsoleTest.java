@@ -9,6 +9,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.TestInfo;
+import view.ConsoleOutput;
 
 import java.io.*;
 import java.time.LocalDateTime;
@@ -41,6 +42,7 @@ public class ConsoleTest {
     }
 
     protected void stopOutputCaptureAndCompare(String... expected) {
+        ConsoleOutput.flush();
         ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
         BufferedReader br = new BufferedReader(new InputStreamReader(in));
 
@@ -0,0 +1,128 @@
+import command.CreateEventCommand;
+import command.LogoutCommand;
+import command.RegisterConsumerCommand;
+import command.RegisterStaffCommand;
+import controller.Controller;
+import controller.Session;
+import model.Consumer;
+import model.Event;
+import model.EventTagCollection;
+import model.EventType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ControllerSessionTests extends ConsoleTest {
+    private static RegisterConsumerCommand registerConsumer(int i) {
+        return new RegisterConsumerCommand("Consumer " + i, "consumer" + i + "@example.com", "000", "",
+                "password " + i);
+    }
+
+    @Test
+    void sessionsHaveTheirOwnCurrentUser() {
+        Controller controller = createController();
+        startOutputCapture();
+        Session first = controller.openSession();
+        Session second = controller.openSession();
+        controller.runCommand(first, registerConsumer(1));
+        controller.runCommand(second, registerConsumer(2));
+        controller.runCommand(first, new LogoutCommand());
+        stopOutputCaptureAndCompare("REGISTER_CONSUMER_SUCCESS", "USER_LOGIN_SUCCESS",
+                "REGISTER_CONSUMER_SUCCESS", "USER_LOGIN_SUCCESS",
+                "USER_LOGOUT_SUCCESS");
+        assertNull(first.getCurrentUser());
+        assertEquals("consumer2@example.com", second.getCurrentUser().getEmail());
+        assertNull(controller.getContext().getUserState().getCurrentUser());
+        assertEquals(2, controller.getContext().getUserState().getAllUsers().size());
+    }
+
+    @Test
+    void concurrentSessionsRegisterConsumers() {
+        Controller controller = createController();
+        int numSessions = 20;
+        List<Session> sessions = new ArrayList<>();
+        List<CompletableFuture<Consumer>> results = new ArrayList<>();
+        for (int i = 0; i < numSessions; ++i) {
+            Session session = controller.openSession();
+            sessions.add(session);
+            results.add(controller.submitCommand(session, registerConsumer(i)));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).join();
+        controller.shutdown();
+
+        for (int i = 0; i < numSessions; ++i) {
+            Consumer consumer = results.get(i).join();
+            assertNotNull(consumer);
+            assertSame(consumer, sessions.get(i).getCurrentUser());
+        }
+        assertEquals(numSessions, controller.getContext().getUserState().getAllUsers().size());
+    }
+
+    @Test
+    void concurrentSessionsCannotRegisterTheSameEmail() {
+        Controller controller = createController();
+        int numSessions = 8;
+        List<CompletableFuture<Consumer>> results = new ArrayList<>();
+        for (int i = 0; i < numSessions; ++i) {
+            results.add(controller.submitCommand(controller.openSession(), new RegisterConsumerCommand(
+                    "Consumer " + i, "same@example.com", "000", "", "password " + i)));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).join();
+        controller.shutdown();
+
+        List<Consumer> registered = new ArrayList<>();
+        for (CompletableFuture<Consumer> result : results) {
+            if (result.join() != null) {
+                registered.add(result.join());
+            }
+        }
+        assertEquals(1, registered.size());
+        assertSame(registered.get(0), controller.getContext().getUserState().getAllUsers().get("same@example.com"));
+        assertEquals(1, controller.getContext().getUserState().getAllUsers().size());
+    }
+
+    @Test
+    void concurrentSessionsCreateEvents() {
+        Controller controller = createController();
+        int numSessions = 20;
+        int numEventsPerSession = 10;
+        List<CompletableFuture<Event>> results = new ArrayList<>();
+        for (int i = 0; i < numSessions; ++i) {
+            Session session = controller.openSession();
+            controller.submitCommand(session, new RegisterStaffCommand("staff" + i + "@example.com",
+                    "password " + i, "Nec temere nec timide"));
+            for (int j = 0; j < numEventsPerSession; ++j) {
+                results.add(controller.submitCommand(session, new CreateEventCommand(
+                        "Event " + i + "-" + j,
+                        EventType.Theatre,
+                        100,
+                        0,
+                        "55.94368888764689 -3.1888246174917114", // George Square Gardens, Edinburgh
+                        "Concurrently created event",
+                        LocalDateTime.now().plusHours(1),
+                        LocalDateTime.now().plusHours(2),
+                        new EventTagCollection()
+                )));
+            }
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).join();
+        controller.shutdown();
+
+        Set<Long> eventNumbers = new HashSet<>();
+        for (CompletableFuture<Event> result : results) {
+            Event event = result.join();
+            assertNotNull(event);
+            assertTrue(eventNumbers.add(event.getEventNumber()));
+            assertSame(event, controller.getContext().getEventState().findEventByNumber(event.getEventNumber()));
+        }
+        assertEquals(numSessions * numEventsPerSession,
+                controller.getContext().getEventState().getAllEvents().size());
+    }
+}
@@ -1,7 +1,10 @@
 import command.GetEventDirectionsCommand;
 import command.LogoutCommand;
 import command.RegisterConsumerCommand;
+import controller.Context;
 import controller.Controller;
+import external.SharedMapSystem;
+import external.RouteCache;
 import model.Consumer;
 import model.EventTagCollection;
 import model.EventType;
@@ -10,8 +13,11 @@ import org.junit.jupiter.api.Test;
 
 import java.time.LocalDateTime;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class GetEventDirectionsSystemTests extends ConsoleTest{
     private Controller setUp() {
@@ -297,4 +303,48 @@ public class GetEventDirectionsSystemTests extends ConsoleTest{
         stopOutputCaptureAndCompare("REGISTER_CONSUMER_SUCCESS","USER_LOGIN_SUCCESS","GET_EVENT_DIRECTIONS_SUCCESS");
         assertNotNull(getEventDirectionsCommand.getResult());
     }
+
+    @Test
+    void getDirectionTwiceIsServedFromRouteCache() {
+        Controller controller = createController();
+        startOutputCapture();
+        RegisterConsumerCommand registerConsumerCommand = new RegisterConsumerCommand("Elon Musk",
+                "elon@gmail.com","00000000", "55.944377051350656 -3.18913215894117", //Edinburgh
+                "elon");
+        controller.runCommand(registerConsumerCommand);
+        controller.getContext().getEventState().createEvent("Puppies against depression",
+                EventType.Theatre,
+                500,
+                100,
+                "55.94368888764689 -3.1888246174917114", // George Square Gardens, Edinburgh
+                "Come and enjoy some pets for pets",
+                LocalDateTime.now().plusHours(8),
+                LocalDateTime.now().plusHours(8),
+                new EventTagCollection());
+        RouteCache routeCache = ((SharedMapSystem) controller.getContext().getMapSystem()).getRouteCache();
+        long hitCount = routeCache.getHitCount();
+        long missCount = routeCache.getMissCount();
+
+        GetEventDirectionsCommand firstCommand = new GetEventDirectionsCommand(1, TransportMode.foot);
+        controller.runCommand(firstCommand);
+        GetEventDirectionsCommand secondCommand = new GetEventDirectionsCommand(1, TransportMode.foot);
+        controller.runCommand(secondCommand);
+        stopOutputCaptureAndCompare("REGISTER_CONSUMER_SUCCESS","USER_LOGIN_SUCCESS",
+                "GET_EVENT_DIRECTIONS_SUCCESS","GET_EVENT_DIRECTIONS_SUCCESS");
+        assertEquals(missCount + 1, routeCache.getMissCount());
+        assertEquals(hitCount + 1, routeCache.getHitCount());
+        assertArrayEquals(firstCommand.getResult(), secondCommand.getResult());
+    }
+
+    @Test
+    void copiedContextSharesMapSystem() throws Exception {
+        Controller controller = createController();
+        SharedMapSystem mapSystem = (SharedMapSystem) controller.getContext().getMapSystem();
+        try (Context copy = new Context(controller.getContext())) {
+            SharedMapSystem copiedMapSystem = (SharedMapSystem) copy.getMapSystem();
+            assertSame(mapSystem.getRouteCache(), copiedMapSystem.getRouteCache());
+        }
+        // Closing the copy must leave the map system of the original context usable
+        assertNotNull(mapSystem.getTranslation());
+    }
 }
@@ -210,4 +210,107 @@ public class ListEventsSystemTests extends ConsoleTest{
         assertNotNull(cmd.getResult());
         assertEquals(1, cmd.getResult().size());
     }
+
+    @Test
+    void listSearchDateExcludesEventsOnOtherDays() {
+        Controller controller = setup();
+        controller.getContext().getEventState().createEvent("Event4",
+                EventType.Theatre,
+                30,
+                0,
+                "55.94368888764689 -3.1888246174917114", // George Square Gardens, Edinburgh
+                "Please be prepared to pay 2.50 pounds on entry",
+                LocalDateTime.now().plusDays(10),
+                LocalDateTime.now().plusDays(10).plusHours(1),
+                new EventTagCollection("hasSocialDistancing=false"));
+        ListEventsCommand cmd = new ListEventsCommand(false, false, LocalDate.now().plusDays(10));
+        startOutputCapture();
+        controller.runCommand(cmd);
+        stopOutputCaptureAndCompare("LIST_EVENTS_SUCCESS");
+
+        assertNotNull(cmd.getResult());
+        assertEquals(1, cmd.getResult().size());
+        assertEquals("Event4", cmd.getResult().get(0).getTitle());
+    }
+
+    @Test
+    void listEventsInDateRange() {
+        Controller controller = setup();
+        controller.getContext().getEventState().createEvent("Event4",
+                EventType.Theatre,
+                30,
+                0,
+                "55.94368888764689 -3.1888246174917114", // George Square Gardens, Edinburgh
+                "Please be prepared to pay 2.50 pounds on entry",
+                LocalDateTime.now().plusDays(5),
+                LocalDateTime.now().plusDays(8),
+                new EventTagCollection("hasSocialDistancing=false"));
+        controller.getContext().getEventState().createEvent("Event5",
+                EventType.Theatre,
+                30,
+                0,
+                "55.94368888764689 -3.1888246174917114", // George Square Gardens, Edinburgh
+                "Please be prepared to pay 2.50 pounds on entry",
+                LocalDateTime.now().plusDays(20),
+                LocalDateTime.now().plusDays(20).plusHours(1),
+                new EventTagCollection("hasSocialDistancing=false"));
+        ListEventsInDateRangeCommand cmd = new ListEventsInDateRangeCommand(false, false,
+                LocalDate.now().plusDays(6), LocalDate.now().plusDays(7));
+        startOutputCapture();
+        controller.runCommand(cmd);
+        stopOutputCaptureAndCompare("LIST_EVENTS_SUCCESS");
+
+        assertNotNull(cmd.getResult());
+        assertEquals(1, cmd.getResult().size());
+        assertEquals("Event4", cmd.getResult().get(0).getTitle());
+    }
+
+    @Test
+    void listEventsInDateRangeKeepsCreationOrder() {
+        Controller controller = setup();
+        ListEventsInDateRangeCommand cmd = new ListEventsInDateRangeCommand(false, false,
+                LocalDate.now().minusDays(1), LocalDate.now().plusDays(2));
+        startOutputCapture();
+        controller.runCommand(cmd);
+        stopOutputCaptureAndCompare("LIST_EVENTS_SUCCESS");
+
+        assertNotNull(cmd.getResult());
+        assertEquals(3, cmd.getResult().size());
+        assertEquals("Event1", cmd.getResult().get(0).getTitle());
+        assertEquals("Event2", cmd.getResult().get(1).getTitle());
+        assertEquals("Event3", cmd.getResult().get(2).getTitle());
+    }
+
+    @Test
+    void listEventsInDateRangeFromAfterTo() {
+        Controller controller = setup();
+        ListEventsInDateRangeCommand cmd = new ListEventsInDateRangeCommand(false, false,
+                LocalDate.now().plusDays(2), LocalDate.now());
+        startOutputCapture();
+        controller.runCommand(cmd);
+        stopOutputCaptureAndCompare("LIST_EVENTS_IN_DATE_RANGE_FROM_AFTER_TO");
+
+        assertNull(cmd.getResult());
+    }
+
+    @Test
+    void listEventsFittingAllConsumerPreferences() {
+        Controller controller = setup();
+        LogoutCommand logoutCommand = new LogoutCommand();
+        controller.runCommand(logoutCommand);
+        createConsumer(controller);
+        UpdateConsumerProfileCommand updateConsumerProfileCommand =
+                new UpdateConsumerProfileCommand(CONSUMER_PASSWORD, "Chihuahua Fan", CONSUMER_EMAIL, "01324456897",
+                        "55.94872684464941 -3.199892044473183", CONSUMER_PASSWORD,
+                        new EventTagCollection("hasSocialDistancing=true,hasAirFiltration=true"));
+        controller.runCommand(updateConsumerProfileCommand);
+        ListEventsCommand cmd = new ListEventsCommand(true, false, null);
+        startOutputCapture();
+        controller.runCommand(cmd);
+        stopOutputCaptureAndCompare("LIST_EVENTS_SUCCESS");
+
+        assertNotNull(cmd.getResult());
+        assertEquals(1, cmd.getResult().size());
+        assertEquals("Event3", cmd.getResult().get(0).getTitle());
+    }
 }
@@ -1,15 +1,24 @@
 
 import command.*;
+import controller.Context;
 import controller.Controller;
 import model.*;
 import org.junit.jupiter.api.Test;
-
+import state.BookingState;
+import state.EventState;
+import state.SnapshotCodec;
+import state.UserState;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -18,7 +27,7 @@ public class LoadAppStateSystemTests extends ConsoleTest{
     private LocalDateTime time = LocalDateTime.now();
     private static void createStaffAndFile(Controller controller){
         createStaff(controller);
-        controller.runCommand(new SaveAppStateCommand("test.ser"));
+        controller.runCommand(new SaveAppStateCommand("test.ser", false));
     }
 
     protected static Booking BookFirstEvent(Controller controller, int numTicketsRequested, User consumer) {
@@ -55,6 +64,21 @@ public class LoadAppStateSystemTests extends ConsoleTest{
         return eventCmd.getResult();
     }
 
+    private static Path writeSnapshot(String filename, Consumer consumer, Event event, int numBookings)
+            throws IOException {
+        UserState userState = new UserState();
+        EventState eventState = new EventState();
+        BookingState bookingState = new BookingState();
+        userState.addUser(consumer);
+        Event addedEvent = eventState.addEvent(event);
+        for (int i = 0; i < numBookings; i++) {
+            bookingState.createBooking(consumer, addedEvent, 1);
+        }
+        Path file = Path.of(filename);
+        SnapshotCodec.write(file, userState, eventState, bookingState);
+        return file;
+    }
+
     @Test
     void loadDataNotLoggedIn() {
         Controller controller = createController();
@@ -118,7 +142,7 @@ public class LoadAppStateSystemTests extends ConsoleTest{
         Controller controller1 = createController();
         createStaff(controller);
         createEvent(controller, 5,5,time);
-        controller.runCommand(new SaveAppStateCommand("test.ser"));
+        controller.runCommand(new SaveAppStateCommand("test.ser", false));
         controller1.runCommand(new RegisterStaffCommand(
                 "sell-the-pups@pawsforawwws.org",
                 "very insecure password 123",
@@ -142,7 +166,7 @@ public class LoadAppStateSystemTests extends ConsoleTest{
         createStaff(controller);
         EventTag tag = createEventTag(controller, "tag1",
                 new HashSet<>(Arrays.asList("value1", "value2")), "value1");
-        controller.runCommand(new SaveAppStateCommand("test.ser"));
+        controller.runCommand(new SaveAppStateCommand("test.ser", false));
         controller1.runCommand(new RegisterStaffCommand(
                 "sell-the-pups@pawsforawwws.org",
                 "very insecure password 123",
@@ -167,7 +191,7 @@ public class LoadAppStateSystemTests extends ConsoleTest{
         createStaff(controller);
         EventTag tag = createEventTag(controller, "tag1",
                 new HashSet<>(Arrays.asList("value1", "value2")), "value1");
-        controller.runCommand(new SaveAppStateCommand("test.ser"));
+        controller.runCommand(new SaveAppStateCommand("test.ser", false));
         controller1.runCommand(new RegisterStaffCommand(
                 "sell-the-pups@pawsforawwws.org",
                 "very insecure password 123",
@@ -189,7 +213,7 @@ public class LoadAppStateSystemTests extends ConsoleTest{
         Controller controller = createController();
         createStaff(controller);
 
-        controller.runCommand(new SaveAppStateCommand("test.ser"));
+        controller.runCommand(new SaveAppStateCommand("test.ser", false));
 
         startOutputCapture();
         LoadAppStateCommand loadAppStateCommand = new LoadAppStateCommand("test.ser");
@@ -209,7 +233,7 @@ public class LoadAppStateSystemTests extends ConsoleTest{
         createStaff(controller);
         EventTag tag = createEventTag(controller, "tag1",
                 new HashSet<>(Arrays.asList("value1", "value2")), "value1");
-        controller.runCommand(new SaveAppStateCommand("test.ser"));
+        controller.runCommand(new SaveAppStateCommand("test.ser", false));
 
         // We run this command to avoid registering clashing users
         controller1.runCommand(new RegisterStaffCommand(
@@ -241,7 +265,7 @@ public class LoadAppStateSystemTests extends ConsoleTest{
         controller.runCommand(new LoginCommand(
                 "bring-in-the-cash@pawsforawwws.org",
                 "very insecure password 123"));
-        controller.runCommand(new SaveAppStateCommand("save1.ser"));
+        controller.runCommand(new SaveAppStateCommand("save1.ser", false));
         controller.runCommand(new LogoutCommand());
         controller.runCommand(new LoginCommand("i-would-never-steal-a@dog.xd","123456"));
 
@@ -250,7 +274,7 @@ public class LoadAppStateSystemTests extends ConsoleTest{
         controller.runCommand(new LoginCommand(
                 "bring-in-the-cash@pawsforawwws.org",
                 "very insecure password 123"));
-        controller.runCommand(new SaveAppStateCommand("save2.ser"));
+        controller.runCommand(new SaveAppStateCommand("save2.ser", false));
         startOutputCapture();
         LoadAppStateCommand loadAppStateCommand = new LoadAppStateCommand("save2.ser");
         controller.runCommand(loadAppStateCommand);
@@ -273,7 +297,7 @@ public class LoadAppStateSystemTests extends ConsoleTest{
         controller.runCommand(new LoginCommand("bring-in-the-cash@pawsforawwws.org",
                 "very insecure password 123"));
 
-        controller.runCommand(new SaveAppStateCommand("test.ser"));
+        controller.runCommand(new SaveAppStateCommand("test.ser", false));
 
         controller1.runCommand(new RegisterStaffCommand(
                 "sell-the-pups@pawsforawwws.org",
@@ -290,5 +314,305 @@ public class LoadAppStateSystemTests extends ConsoleTest{
 
         assertTrue(loadAppStateCommand.getResult());
     }
-}
 
+    @Test
+    void loadCompressedData() {
+        Controller controller = createController();
+        Controller controller1 = createController();
+        createStaff(controller);
+        createEvent(controller, 5,5,time);
+        controller.runCommand(new LogoutCommand());
+        createConsumerAndBookFirstEvent(controller,1);
+        controller.runCommand(new LogoutCommand());
+        controller.runCommand(new LoginCommand("bring-in-the-cash@pawsforawwws.org",
+                "very insecure password 123"));
+
+        controller.runCommand(new SaveAppStateCommand("test.ser", true));
+
+        controller1.runCommand(new RegisterStaffCommand(
+                "sell-the-pups@pawsforawwws.org",
+                "very insecure password 123",
+                "Nec temere nec timide"
+        ));
+
+        startOutputCapture();
+        LoadAppStateCommand loadAppStateCommand = new LoadAppStateCommand("test.ser");
+        controller1.runCommand(loadAppStateCommand);
+        stopOutputCaptureAndCompare(
+                "LOAD_APP_STATE_SUCCESSFUL"
+        );
+
+        assertTrue(loadAppStateCommand.getResult());
+        assertEquals(1, controller1.getContext().getBookingState().getAllBookings().size());
+    }
+
+    @Test
+    void loadDataMoreBookingsThanStaged() throws IOException {
+        Controller controller = createController();
+        createStaff(controller);
+        Consumer consumer = new Consumer("Regional Consumer", "regional@dog.xd", "01324456897", null,
+                "password hash", 1);
+        Event event = new Event(1, "Regional event", EventType.Sports, 20000, 0,
+                "55.94368888764689 -3.1888246174917114", "", time, time.plusHours(1), new EventTagCollection());
+        Path file = writeSnapshot("large.ser", consumer, event, 10050);
+        try {
+            startOutputCapture();
+            LoadAppStateCommand loadAppStateCommand = new LoadAppStateCommand("large.ser");
+            controller.runCommand(loadAppStateCommand);
+            stopOutputCaptureAndCompare(
+                    "LOAD_APP_STATE_SUCCESSFUL"
+            );
+
+            assertTrue(loadAppStateCommand.getResult());
+            Context context = controller.getContext();
+            Consumer importedConsumer = (Consumer) context.getUserState().getAllUsers().get("regional@dog.xd");
+            assertEquals(10050, importedConsumer.getBookings().size());
+            assertEquals(10050, context.getBookingState().getAllBookings().size());
+            assertEquals(10050, context.getBookingState().findBookingsByEventNumber(1).size());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void loadDataClashAddsNothing() throws IOException {
+        Controller controller = createController();
+        createStaff(controller);
+        Event currentEvent = createEvent(controller, 5, 5, time);
+        Consumer consumer = new Consumer("Regional Consumer", "regional@dog.xd", "01324456897", null,
+                "password hash", 1);
+        Event clashingEvent = new Event(1, currentEvent.getTitle(), EventType.Theatre, 5, 0,
+                "55.94368888764689 -3.1888246174917114", "", currentEvent.getStartDateTime(),
+                currentEvent.getEndDateTime(), new EventTagCollection());
+        Path file = writeSnapshot("clash.ser", consumer, clashingEvent, 1);
+        try {
+            startOutputCapture();
+            LoadAppStateCommand loadAppStateCommand = new LoadAppStateCommand("clash.ser");
+            controller.runCommand(loadAppStateCommand);
+            stopOutputCaptureAndCompare(
+                    "LOAD_APP_STATE_CLASHING_EVENTS"
+            );
+
+            // The consumer was checked before the clashing event, but is not added either
+            assertFalse(loadAppStateCommand.getResult());
+            Context context = controller.getContext();
+            assertFalse(context.getUserState().getAllUsers().containsKey("regional@dog.xd"));
+            assertEquals(1, context.getEventState().getAllEvents().size());
+            assertEquals(0, context.getBookingState().getAllBookings().size());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static Path writeUsersSnapshot(String filename, int numUsers, Event event) throws IOException {
+        UserState userState = new UserState();
+        EventState eventState = new EventState();
+        for (int i = 0; i < numUsers; i++) {
+            userState.addUser(new Consumer("Regional Consumer " + i, "regional" + i + "@dog.xd", "01324456897",
+                    null, "password hash", i + 1));
+        }
+        eventState.addEvent(event);
+        Path file = Path.of(filename);
+        SnapshotCodec.write(file, userState, eventState, new BookingState());
+        return file;
+    }
+
+    @Test
+    void loadDataMoreUsersThanStaged() throws IOException {
+        Controller controller = createController();
+        createStaff(controller);
+        Path file = writeUsersSnapshot("many-users.ser", 10050, createOtherEvent(time));
+        try {
+            startOutputCapture();
+            LoadAppStateCommand loadAppStateCommand = new LoadAppStateCommand("many-users.ser");
+            controller.runCommand(loadAppStateCommand);
+            stopOutputCaptureAndCompare(
+                    "LOAD_APP_STATE_SUCCESSFUL"
+            );
+
+            assertTrue(loadAppStateCommand.getResult());
+            Context context = controller.getContext();
+            // The staff member and the imported consumers
+            assertEquals(10051, context.getUserState().getAllUsers().size());
+            assertEquals(1, context.getEventState().getAllEvents().size());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void loadDataClashAfterMoreUsersThanStagedAddsNothing() throws IOException {
+        Controller controller = createController();
+        createStaff(controller);
+        Event currentEvent = createEvent(controller, 5, 5, time);
+        Event clashingEvent = new Event(1, currentEvent.getTitle(), EventType.Sports, 5, 0,
+                "55.94368888764689 -3.1888246174917114", "", currentEvent.getStartDateTime(),
+                currentEvent.getEndDateTime(), new EventTagCollection());
+        Path file = writeUsersSnapshot("many-users-clash.ser", 10050, clashingEvent);
+        try {
+            startOutputCapture();
+            LoadAppStateCommand loadAppStateCommand = new LoadAppStateCommand("many-users-clash.ser");
+            controller.runCommand(loadAppStateCommand);
+            stopOutputCaptureAndCompare(
+                    "LOAD_APP_STATE_CLASHING_EVENTS"
+            );
+
+            // The users did not fit in the staging buffer, but none of them is added before the event is checked
+            assertFalse(loadAppStateCommand.getResult());
+            Context context = controller.getContext();
+            assertEquals(1, context.getUserState().getAllUsers().size());
+            assertEquals(1, context.getEventState().getAllEvents().size());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static Path writeBookingSnapshot(String filename, Consumer consumer, Event event,
+                                             LocalDateTime bookingDateTime) throws IOException {
+        UserState userState = new UserState();
+        EventState eventState = new EventState();
+        BookingState bookingState = new BookingState();
+        userState.addUser(consumer);
+        Event addedEvent = eventState.addEvent(event);
+        bookingState.addBooking(new Booking(1, consumer, addedEvent, 1, bookingDateTime));
+        Path file = Path.of(filename);
+        SnapshotCodec.write(file, userState, eventState, bookingState);
+        return file;
+    }
+
+    private static Event createOtherEvent(LocalDateTime time) {
+        return new Event(1, "Kittens against anxiety", EventType.Theatre, 5, 0,
+                "55.94368888764689 -3.1888246174917114", "", time.plusHours(7), time.plusHours(8),
+                new EventTagCollection());
+    }
+
+    private Controller createStaffEventAndBooking() {
+        Controller controller = createController();
+        createStaff(controller);
+        createEvent(controller, 5, 5, time);
+        controller.runCommand(new LogoutCommand());
+        createConsumerAndBookFirstEvent(controller, 1);
+        controller.runCommand(new LogoutCommand());
+        controller.runCommand(new LoginCommand(STAFF_EMAIL, STAFF_PASSWORD));
+        return controller;
+    }
+
+    @Test
+    void loadDataEventWithOtherEndIsNotClashing() throws IOException {
+        Controller controller = createController();
+        createStaff(controller);
+        Event currentEvent = createEvent(controller, 5, 5, time);
+        Consumer consumer = new Consumer("Regional Consumer", "regional@dog.xd", "01324456897", null,
+                "password hash", 1);
+        // Same title and start, but ends a minute later
+        Event importedEvent = new Event(1, currentEvent.getTitle(), EventType.Theatre, 5, 0,
+                "55.94368888764689 -3.1888246174917114", "", currentEvent.getStartDateTime(),
+                currentEvent.getEndDateTime().plusMinutes(1), new EventTagCollection());
+        Path file = writeSnapshot("near-clash.ser", consumer, importedEvent, 1);
+        try {
+            startOutputCapture();
+            LoadAppStateCommand loadAppStateCommand = new LoadAppStateCommand("near-clash.ser");
+            controller.runCommand(loadAppStateCommand);
+            stopOutputCaptureAndCompare(
+                    "LOAD_APP_STATE_SUCCESSFUL"
+            );
+
+            assertTrue(loadAppStateCommand.getResult());
+            Context context = controller.getContext();
+            assertEquals(2, context.getEventState().getAllEvents().size());
+            assertEquals(1, context.getBookingState().findBookingsByEventNumber(2).size());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void loadDataSameEventIsNotClashing() throws IOException {
+        Controller controller = createController();
+        createStaff(controller);
+        Event currentEvent = createEvent(controller, 5, 5, time);
+        Consumer consumer = new Consumer("Regional Consumer", "regional@dog.xd", "01324456897", null,
+                "password hash", 1);
+        // The same event, as saved before, is not added again
+        Event importedEvent = new Event(1, currentEvent.getTitle(), currentEvent.getType(),
+                currentEvent.getNumTicketsCap(), currentEvent.getTicketPriceInPence(), currentEvent.getVenueAddress(),
+                currentEvent.getDescription(), currentEvent.getStartDateTime(), currentEvent.getEndDateTime(),
+                currentEvent.getTags(), currentEvent.getSerialVersionUID(), EventStatus.ACTIVE, 4);
+        Path file = writeSnapshot("same-event.ser", consumer, importedEvent, 1);
+        try {
+            startOutputCapture();
+            LoadAppStateCommand loadAppStateCommand = new LoadAppStateCommand("same-event.ser");
+            controller.runCommand(loadAppStateCommand);
+            stopOutputCaptureAndCompare(
+                    "LOAD_APP_STATE_SUCCESSFUL"
+            );
+
+            assertTrue(loadAppStateCommand.getResult());
+            Context context = controller.getContext();
+            assertEquals(1, context.getEventState().getAllEvents().size());
+            assertEquals(1, context.getBookingState().findBookingsByEventNumber(1).size());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void loadDataBookingWithEqualKeyIsClashing() throws IOException {
+        Controller controller = createStaffEventAndBooking();
+        Booking currentBooking = controller.getContext().getBookingState().getAllBookings().get(0);
+        // Another consumer and event, but the same booker name, event number and booking date time
+        Consumer consumer = new Consumer(currentBooking.getBooker().getName(), "regional@dog.xd", "01324456897",
+                null, "password hash", 1);
+        Path file = writeBookingSnapshot("booking-clash.ser", consumer, createOtherEvent(time),
+                currentBooking.getBookingDateTime());
+        try {
+            startOutputCapture();
+            LoadAppStateCommand loadAppStateCommand = new LoadAppStateCommand("booking-clash.ser");
+            controller.runCommand(loadAppStateCommand);
+            stopOutputCaptureAndCompare(
+                    "LOAD_APP_STATE_CLASHING_BOOKINGS"
+            );
+
+            assertFalse(loadAppStateCommand.getResult());
+            Context context = controller.getContext();
+            assertEquals(1, context.getEventState().getAllEvents().size());
+            assertEquals(1, context.getBookingState().getAllBookings().size());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void loadDataBookingWithNearlyEqualKeyIsNotClashing() throws IOException {
+        Controller controller = createStaffEventAndBooking();
+        Booking currentBooking = controller.getContext().getBookingState().getAllBookings().get(0);
+        String bookerName = currentBooking.getBooker().getName();
+        LocalDateTime bookingDateTime = currentBooking.getBookingDateTime();
+        // Each differs from the current booking in one of its booker name and booking date time only
+        List<Path> files = List.of(
+                writeBookingSnapshot("booking-near-clash1.ser", new Consumer(bookerName.toUpperCase(),
+                                "regional1@dog.xd", "0", null, "password hash", 1),
+                        createOtherEvent(time), bookingDateTime),
+                writeBookingSnapshot("booking-near-clash2.ser", new Consumer(bookerName,
+                                "regional2@dog.xd", "0", null, "password hash", 2),
+                        createOtherEvent(time.plusDays(1)), bookingDateTime.plusNanos(1000)));
+        try {
+            for (Path file : files) {
+                startOutputCapture();
+                LoadAppStateCommand loadAppStateCommand = new LoadAppStateCommand(file.toString());
+                controller.runCommand(loadAppStateCommand);
+                stopOutputCaptureAndCompare(
+                        "LOAD_APP_STATE_SUCCESSFUL"
+                );
+                assertTrue(loadAppStateCommand.getResult());
+            }
+            Context context = controller.getContext();
+            assertEquals(3, context.getEventState().getAllEvents().size());
+            assertEquals(3, context.getBookingState().getAllBookings().size());
+        } finally {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -10,7 +10,7 @@ public class SaveAppStateSystemTests extends ConsoleTest{
     void exportDataNotLoggedIn() {
         Controller controller = createController();
         startOutputCapture();
-        SaveAppStateCommand saveAppStateCommand = new SaveAppStateCommand("test");
+        SaveAppStateCommand saveAppStateCommand = new SaveAppStateCommand("test", false);
         controller.runCommand(saveAppStateCommand);
         stopOutputCaptureAndCompare(
                 "SAVE_APP_STATE_USER_NOT_STAFF"
@@ -24,7 +24,7 @@ public class SaveAppStateSystemTests extends ConsoleTest{
         Controller controller = createController();
         createConsumer(controller);
         startOutputCapture();
-        SaveAppStateCommand saveAppStateCommand = new SaveAppStateCommand("test");
+        SaveAppStateCommand saveAppStateCommand = new SaveAppStateCommand("test", false);
         controller.runCommand(saveAppStateCommand);
         stopOutputCaptureAndCompare(
                 "SAVE_APP_STATE_USER_NOT_STAFF"
@@ -38,7 +38,7 @@ public class SaveAppStateSystemTests extends ConsoleTest{
         Controller controller = createController();
         createStaff(controller);
         startOutputCapture();
-        SaveAppStateCommand saveAppStateCommand = new SaveAppStateCommand("/Wrong path");
+        SaveAppStateCommand saveAppStateCommand = new SaveAppStateCommand("/Wrong path", false);
         controller.runCommand(saveAppStateCommand);
         stopOutputCaptureAndCompare(
                 "SAVE_APP_STATE_UNKNOWN_FAIL"
@@ -52,7 +52,7 @@ public class SaveAppStateSystemTests extends ConsoleTest{
         Controller controller = createController();
         createStaff(controller);
         startOutputCapture();
-        SaveAppStateCommand saveAppStateCommand = new SaveAppStateCommand("test");
+        SaveAppStateCommand saveAppStateCommand = new SaveAppStateCommand("test", false);
         controller.runCommand(saveAppStateCommand);
         stopOutputCaptureAndCompare(
                 "SAVE_APP_STATE_SUCCESSFUL"
@@ -0,0 +1,350 @@
+import model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import state.*;
+
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestAutoSave extends ConsoleTest {
+    private Path directory;
+    private UserState userState;
+    private EventState eventState;
+    private BookingState bookingState;
+    private Consumer consumer;
+    private Event event;
+    private Booking booking;
+    private AutoSave autoSave;
+
+    @BeforeEach
+    void createState() throws Exception {
+        directory = Files.createTempDirectory("autosave");
+        userState = new UserState();
+        eventState = new EventState();
+        bookingState = new BookingState();
+
+        consumer = new Consumer("Chihuahua Fan", "i-would-never-steal-a@dog.xd", "01324456897",
+                "55.94872684464941 -3.199892044473183", "hashed already", 42);
+        userState.addUser(consumer);
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 18, 30);
+        event = eventState.createEvent("Puppies against depression", EventType.Theatre, 10, 500,
+                "55.94368888764689 -3.1888246174917114", "", start, start.plusHours(2), new EventTagCollection());
+        event.tryReserve(3);
+        booking = bookingState.createBooking(consumer, event, 3);
+        consumer.addBooking(booking);
+        autoSave = new AutoSave(directory, "autosave", 2, userState, eventState, bookingState);
+    }
+
+    @AfterEach
+    void deleteDirectory() throws Exception {
+        autoSave.close();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    void testNothingChangedSkipsSave() throws Exception {
+        Path baseFile = autoSave.save();
+        assertNotNull(baseFile);
+        assertFalse(SnapshotCodec.hasDeltas(baseFile));
+        assertNull(autoSave.save());
+        assertEquals(0, autoSave.getNumDeltas());
+    }
+
+    @Test
+    void testChangesAreAppendedAsDelta() throws Exception {
+        Path baseFile = autoSave.save();
+
+        // Change every kind of entity, both by adding new ones and by changing the ones already saved
+        Consumer newConsumer = new Consumer("Passer By", "passer@by.xd", "0", null, "hashed too", 43);
+        userState.addUser(newConsumer);
+        assertTrue(userState.tryChangeEmail(consumer, "new@dog.xd"));
+        consumer.setName("Dog Fan");
+        consumer.restorePasswordHash("hashed again");
+        userState.markUserChanged(consumer);
+        eventState.createEventTag("mood", Set.of("happy", "sad"), "happy");
+        LocalDateTime start = LocalDateTime.of(2031, 1, 1, 10, 0);
+        Event newEvent = eventState.createEvent("Dog show", EventType.Sports, 5, 0,
+                "55.94368888764689 -3.1888246174917114", "", start, start.plusHours(1), new EventTagCollection());
+        event.addReview(new Review(newConsumer, event, start, "Meh"));
+        booking.cancelByConsumer();
+        event.release(3);
+        bookingState.markBookingChanged(booking);
+        eventState.markEventChanged(event);
+        newEvent.tryReserve(2);
+        Booking newBooking = bookingState.createBooking(newConsumer, newEvent, 2);
+        newConsumer.addBooking(newBooking);
+        eventState.markEventChanged(newEvent);
+
+        assertEquals(baseFile, autoSave.save());
+        assertEquals(1, autoSave.getNumDeltas());
+        assertTrue(SnapshotCodec.hasDeltas(baseFile));
+
+        StateSnapshot snapshot = SnapshotCodec.read(baseFile);
+        IUserState restoredUsers = snapshot.getUserState();
+        assertEquals(Set.of("new@dog.xd", "passer@by.xd"), restoredUsers.getAllUsers().keySet());
+        Consumer restoredConsumer = (Consumer) restoredUsers.getAllUsers().get("new@dog.xd");
+        assertEquals("Dog Fan", restoredConsumer.getName());
+        assertEquals("hashed again", restoredConsumer.getPasswordHash());
+        Consumer restoredNewConsumer = (Consumer) restoredUsers.getAllUsers().get("passer@by.xd");
+
+        IEventState restoredEvents = snapshot.getEventState();
+        assertTrue(restoredEvents.getPossibleTags().containsKey("mood"));
+        Event restoredEvent = restoredEvents.findEventByNumber(event.getEventNumber());
+        assertEquals(10, restoredEvent.getNumTicketsLeft());
+        assertEquals(1, restoredEvent.getReviews().size());
+        assertSame(restoredNewConsumer, restoredEvent.getReviews().get(0).getAuthor());
+        assertSame(restoredEvent, restoredEvent.getReviews().get(0).getEvent());
+        assertEquals(3, restoredEvents.findEventByNumber(newEvent.getEventNumber()).getNumTicketsLeft());
+
+        IBookingState restoredBookings = snapshot.getBookingState();
+        Booking restoredBooking = restoredBookings.findBookingByNumber(booking.getBookingNumber());
+        assertEquals(BookingStatus.CancelledByConsumer, restoredBooking.getStatus());
+        assertSame(restoredConsumer, restoredBooking.getBooker());
+        Booking restoredNewBooking = restoredBookings.findBookingByNumber(newBooking.getBookingNumber());
+        assertTrue(newBooking.deepEquals(restoredNewBooking));
+        assertSame(restoredNewConsumer, restoredNewBooking.getBooker());
+        assertEquals(3, restoredEvents.createEvent("Next", EventType.Sports, 1, 0, "", "", start,
+                start.plusHours(1), new EventTagCollection()).getEventNumber());
+
+        // Deltas can only be applied to a restored state
+        assertThrows(StreamCorruptedException.class, () -> SnapshotCodec.read(baseFile, new SnapshotVisitor() {
+        }));
+    }
+
+    @Test
+    void testUndoneCancellationIsRestored() throws Exception {
+        Path baseFile = autoSave.save();
+        assertTrue(booking.tryCancelByConsumer());
+        bookingState.markBookingChanged(booking);
+        assertEquals(baseFile, autoSave.save());
+        booking.undoCancelByConsumer();
+        bookingState.markBookingChanged(booking);
+        assertEquals(baseFile, autoSave.save());
+        assertEquals(2, autoSave.getNumDeltas());
+
+        StateSnapshot snapshot = SnapshotCodec.read(baseFile);
+        Booking restoredBooking = snapshot.getBookingState().findBookingByNumber(booking.getBookingNumber());
+        assertEquals(BookingStatus.Active, restoredBooking.getStatus());
+        assertTrue(booking.deepEquals(restoredBooking));
+    }
+
+    @Test
+    void testPartlyAppendedDeltaIsIgnored() throws Exception {
+        Path baseFile = autoSave.save();
+        booking.cancelByConsumer();
+        bookingState.markBookingChanged(booking);
+        autoSave.save();
+        long sizeWithFirstDelta = Files.size(baseFile);
+        userState.addUser(new Staff("bring-in-the-cash@pawsforawwws.org", "hashed as well", 44));
+        autoSave.save();
+
+        byte[] bytes = Files.readAllBytes(baseFile);
+        Files.write(baseFile, Arrays.copyOf(bytes, (int) sizeWithFirstDelta + 20));
+        StateSnapshot snapshot = SnapshotCodec.read(baseFile);
+        assertEquals(Set.of(consumer.getEmail()), snapshot.getUserState().getAllUsers().keySet());
+        assertEquals(BookingStatus.CancelledByConsumer,
+                snapshot.getBookingState().findBookingByNumber(booking.getBookingNumber()).getStatus());
+    }
+
+    @Test
+    void testDamagedDeltaIsIgnored() throws Exception {
+        for (boolean compressed : new boolean[]{false, true}) {
+            autoSave.close();
+            autoSave = new AutoSave(directory, "autosave" + compressed, 2, compressed, userState, eventState,
+                    bookingState);
+            eventState.markEventChanged(event);
+            Path baseFile = autoSave.save();
+            long baseSize = Files.size(baseFile);
+            booking.tryCancelByConsumer();
+            bookingState.markBookingChanged(booking);
+            autoSave.commit();
+            long sizeWithFirstDelta = Files.size(baseFile);
+            booking.undoCancelByConsumer();
+            bookingState.markBookingChanged(booking);
+            autoSave.commit();
+            byte[] bytes = Files.readAllBytes(baseFile);
+
+            // A damaged byte in the body of the second delta stops the replay after the first one
+            byte[] damagedBytes = bytes.clone();
+            damagedBytes[damagedBytes.length - 10] ^= 1;
+            Files.write(baseFile, damagedBytes);
+            assertEquals(BookingStatus.CancelledByConsumer, SnapshotCodec.read(baseFile).getBookingState()
+                    .findBookingByNumber(booking.getBookingNumber()).getStatus());
+
+            // Without its checksum, the second delta is only partly appended
+            Files.write(baseFile, Arrays.copyOf(bytes, bytes.length - 1));
+            assertEquals(BookingStatus.CancelledByConsumer, SnapshotCodec.read(baseFile).getBookingState()
+                    .findBookingByNumber(booking.getBookingNumber()).getStatus());
+
+            // A damaged first delta stops the replay before it
+            damagedBytes = bytes.clone();
+            damagedBytes[(int) (baseSize + sizeWithFirstDelta) / 2] ^= 1;
+            Files.write(baseFile, damagedBytes);
+            assertEquals(BookingStatus.Active, SnapshotCodec.read(baseFile).getBookingState()
+                    .findBookingByNumber(booking.getBookingNumber()).getStatus());
+
+            Files.write(baseFile, bytes);
+            assertEquals(BookingStatus.Active, SnapshotCodec.read(baseFile).getBookingState()
+                    .findBookingByNumber(booking.getBookingNumber()).getStatus());
+        }
+    }
+
+    @Test
+    void testStateIsCompactedIntoNewBase() throws Exception {
+        Path baseFile = autoSave.save();
+        for (int i = 0; i < 2; ++i) {
+            eventState.markEventChanged(event);
+            assertEquals(baseFile, autoSave.save());
+        }
+        assertEquals(2, autoSave.getNumDeltas());
+
+        booking.cancelByConsumer();
+        bookingState.markBookingChanged(booking);
+        Path newBaseFile = autoSave.save();
+        assertEquals(0, autoSave.getNumDeltas());
+        assertFalse(SnapshotCodec.hasDeltas(newBaseFile));
+        assertEquals(BookingStatus.CancelledByConsumer, SnapshotCodec.read(newBaseFile).getBookingState()
+                .findBookingByNumber(booking.getBookingNumber()).getStatus());
+    }
+
+    @Test
+    void testCompressedDeltasAreAppended() throws Exception {
+        autoSave = new AutoSave(directory, "autosave", 2, true, userState, eventState, bookingState);
+        Path baseFile = autoSave.save();
+        booking.cancelByConsumer();
+        bookingState.markBookingChanged(booking);
+        autoSave.commit();
+        eventState.createEventTag("mood", Set.of("happy", "sad"), "happy");
+        autoSave.commit();
+        assertEquals(2, autoSave.getNumDeltas());
+
+        StateSnapshot snapshot = SnapshotCodec.read(baseFile);
+        assertTrue(snapshot.getEventState().getPossibleTags().containsKey("mood"));
+        assertEquals(BookingStatus.CancelledByConsumer,
+                snapshot.getBookingState().findBookingByNumber(booking.getBookingNumber()).getStatus());
+    }
+
+    @Test
+    void testCommitsAreJournaledBeforeSave() throws Exception {
+        // Nothing can be journaled before a base is written
+        autoSave.commit();
+        assertNull(AutoSave.findLatest(directory, "autosave"));
+
+        Path baseFile = autoSave.save();
+        booking.cancelByConsumer();
+        bookingState.markBookingChanged(booking);
+        autoSave.commit();
+        assertEquals(1, autoSave.getNumDeltas());
+        // Committing again without changes appends nothing
+        autoSave.commit();
+        assertEquals(1, autoSave.getNumDeltas());
+
+        assertEquals(baseFile, AutoSave.findLatest(directory, "autosave"));
+        assertEquals(BookingStatus.CancelledByConsumer, SnapshotCodec.read(baseFile).getBookingState()
+                .findBookingByNumber(booking.getBookingNumber()).getStatus());
+        assertNull(autoSave.save());
+    }
+
+    @Test
+    void testFindLatestSkipsSerializedAutoSaves() throws Exception {
+        Path baseFile = autoSave.save();
+        // Autosaves from before snapshots were introduced hold a Java-serialized context under the same name
+        Path serializedFile = directory.resolve("autosave99991231235959.dat");
+        try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(serializedFile))) {
+            out.writeObject(userState);
+        }
+        assertEquals(baseFile, AutoSave.findLatest(directory, "autosave"));
+
+        Files.delete(baseFile);
+        assertNull(AutoSave.findLatest(directory, "autosave"));
+    }
+
+    @Test
+    void testFindAllListsNewestFirst() throws Exception {
+        Path baseFile = autoSave.save();
+        // A newer base that cannot be read, so the older one would be restored instead
+        Path damagedFile = directory.resolve("autosave99991231235959.dat");
+        byte[] bytes = Files.readAllBytes(baseFile);
+        Files.write(damagedFile, Arrays.copyOf(bytes, bytes.length / 2));
+        Files.writeString(directory.resolve("other99991231235959.dat"), "Not an autosave");
+
+        assertEquals(List.of(damagedFile, baseFile), AutoSave.findAll(directory, "autosave"));
+        assertEquals(damagedFile, AutoSave.findLatest(directory, "autosave"));
+    }
+
+    @Test
+    void testConcurrentCommitsAreAllJournaled() throws Exception {
+        autoSave = new AutoSave(directory, "autosave", 1000, userState, eventState, bookingState);
+        Path baseFile = autoSave.save();
+        int numThreads = 4;
+        int numUsersPerThread = 25;
+        List<Thread> threads = new ArrayList<>();
+        List<Exception> failures = new ArrayList<>();
+        for (int i = 0; i < numThreads; ++i) {
+            int threadNumber = i;
+            threads.add(new Thread(() -> {
+                try {
+                    for (int j = 0; j < numUsersPerThread; ++j) {
+                        userState.addUser(new Staff("staff" + threadNumber + "-" + j + "@pawsforawwws.org",
+                                "hashed as well", 100 + threadNumber * numUsersPerThread + j));
+                        autoSave.commit();
+                    }
+                } catch (Exception e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(List.of(), failures);
+
+        Set<String> emails = new HashSet<>(userState.getAllUsers().keySet());
+        assertEquals(1 + numThreads * numUsersPerThread, emails.size());
+        assertEquals(emails, SnapshotCodec.read(baseFile).getUserState().getAllUsers().keySet());
+        assertTrue(autoSave.getNumDeltas() <= numThreads * numUsersPerThread);
+    }
+
+    @Test
+    void testCommitsAfterCompactionAppendToNewBase() throws Exception {
+        autoSave.save();
+        for (int i = 0; i < 2; ++i) {
+            eventState.markEventChanged(event);
+            autoSave.save();
+        }
+        userState.addUser(new Staff("bring-in-the-cash@pawsforawwws.org", "hashed as well", 44));
+        Path newBaseFile = autoSave.save();
+        assertEquals(0, autoSave.getNumDeltas());
+
+        booking.cancelByConsumer();
+        bookingState.markBookingChanged(booking);
+        autoSave.commit();
+        StateSnapshot snapshot = SnapshotCodec.read(AutoSave.findLatest(directory, "autosave"));
+        assertEquals(newBaseFile, AutoSave.findLatest(directory, "autosave"));
+        assertTrue(snapshot.getUserState().getAllUsers().containsKey("bring-in-the-cash@pawsforawwws.org"));
+        assertEquals(BookingStatus.CancelledByConsumer,
+                snapshot.getBookingState().findBookingByNumber(booking.getBookingNumber()).getStatus());
+    }
+}
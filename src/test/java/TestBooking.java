@@ -47,6 +47,21 @@ public class TestBooking extends ConsoleTest{
         assertEquals(BookingStatus.CancelledByProvider, booking.getStatus());
     }
 
+    @Test
+    void testOnlyOneCancellationSucceeds() {
+        assertTrue(booking.tryCancelByConsumer());
+        assertFalse(booking.tryCancelByProvider());
+        assertFalse(booking.tryCancelByConsumer());
+        assertEquals(BookingStatus.CancelledByConsumer, booking.getStatus());
+
+        booking.undoCancelByConsumer();
+        assertEquals(BookingStatus.Active, booking.getStatus());
+        assertTrue(booking.tryCancelByProvider());
+        // A cancellation by the provider is never undone
+        booking.undoCancelByConsumer();
+        assertEquals(BookingStatus.CancelledByProvider, booking.getStatus());
+    }
+
     @Test
     void testToString() {
         String bookingToString = booking.toString();
@@ -95,6 +110,34 @@ public class TestBooking extends ConsoleTest{
         assertTrue(booking.hashCode() == booking.hashCode());
     }
 
+    @Test
+    void testCopyUnderNewNumber() {
+        booking.cancelByConsumer();
+        int hashCode = booking.hashCode();
+        Event copiedEvent = new Event(2, event);
+
+        Booking copy = new Booking(11, copiedEvent, booking);
+        assertEquals(10, booking.getBookingNumber());
+        assertEquals(hashCode, booking.hashCode());
+        assertEquals(11, copy.getBookingNumber());
+        assertFalse(booking.equals(copy));
+        assertSame(consumer, copy.getBooker());
+        assertSame(copiedEvent, copy.getEvent());
+        assertEquals(BookingStatus.CancelledByConsumer, copy.getStatus());
+    }
+
+    @Test
+    void testDeepEquals() {
+        Booking booking2 = new Booking(10, this.consumer, this.event, 1, bookingTime);
+        assertTrue(booking.deepEquals(booking2));
+
+        booking2.cancelByConsumer();
+        // Still the same booking, but its details differ
+        assertTrue(booking.equals(booking2));
+        assertEquals(booking.hashCode(), booking2.hashCode());
+        assertFalse(booking.deepEquals(booking2));
+    }
+
     @Test
     void testHashCodeToNotIdentical() {
         Booking booking2 = new Booking(3, this.consumer, this.event, 1, bookingTime);
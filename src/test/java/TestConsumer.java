@@ -89,7 +89,9 @@ public class TestConsumer extends ConsoleTest{
 
         assertNotNull(consumer1);
         assertNotNull(consumer2);
-        assertTrue(consumer1.equals(consumer2));
+        assertTrue(consumer1.deepEquals(consumer2));
+        // Consumers with the same details are still different users
+        assertFalse(consumer1.equals(consumer2));
     }
 
     @Test
@@ -111,19 +113,22 @@ public class TestConsumer extends ConsoleTest{
         Consumer consumer2 = new Consumer("Different user", "elon@gmail.com","1234","","123");
         Consumer consumer1 = createConsumer();
 
-        assertFalse(consumer1.equals(consumer2));
+        assertFalse(consumer1.deepEquals(consumer2));
     }
 
     @Test
-    void testHashCodeToIdentical() {
+    void testHashCodeDoesNotChangeWithDetails() {
         Consumer consumer1 = createConsumer();
-        Consumer consumer2 = createConsumer();
+        int hashCode = consumer1.hashCode();
 
-        assertNotNull(consumer1);
-        assertNotNull(consumer2);
-        assertTrue(consumer1.equals(consumer2));
+        consumer1.setName("Different user");
+        consumer1.setEmail("different@gmail.com");
+        consumer1.addBooking(new Booking(1, consumer1, new Event(1, "TestEvent", EventType.Music, 10,
+                100, "55.94368888764689 -3.1888246174917114", "This is the Test Event",
+                LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(2), new EventTagCollection()),
+                1, LocalDateTime.now()));
 
-        assertTrue(consumer1.hashCode() == consumer2.hashCode());
+        assertEquals(hashCode, consumer1.hashCode());
     }
 
     @Test
@@ -138,6 +143,7 @@ public class TestConsumer extends ConsoleTest{
         Consumer consumer2 = new Consumer("Different user", "elon@gmail.com","1234","","123");
         Consumer consumer1 = createConsumer();
 
+        assertFalse(consumer1.deepEquals(consumer2));
         assertFalse(consumer1.equals(consumer2));
         assertNotEquals(consumer1.hashCode(), consumer2.hashCode());
     }
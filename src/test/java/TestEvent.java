@@ -59,6 +59,35 @@ public class TestEvent extends ConsoleTest{
         assertEquals(review2, reviews.get(1));
     }
 
+    @Test
+    void testReviewsViewDoesNotChange() {
+        Consumer consumer = new Consumer("Elon Musk", "elon@gmail.com","1234",null,"123");
+        for (int i = 0; i < 40; ++i) {
+            event.addReview(new Review(consumer, event, LocalDateTime.now(), "Review " + i));
+        }
+        List<Review> reviews = event.getReviews();
+        event.addReview(new Review(consumer, event, LocalDateTime.now(), "Review 40"));
+
+        assertEquals(40, reviews.size());
+        assertEquals(41, event.getReviews().size());
+        for (int i = 0; i < 41; ++i) {
+            assertEquals("Review " + i, event.getReviews().get(i).getContent());
+        }
+        assertThrows(UnsupportedOperationException.class, () -> reviews.add(null));
+    }
+
+    @Test
+    void testTryReserveAndRelease() {
+        assertTrue(event.tryReserve(20));
+        assertEquals(10, event.getNumTicketsLeft());
+        assertFalse(event.tryReserve(11));
+        assertEquals(10, event.getNumTicketsLeft());
+        event.release(5);
+        assertEquals(15, event.getNumTicketsLeft());
+        assertTrue(event.tryReserve(15));
+        assertEquals(0, event.getNumTicketsLeft());
+    }
+
     @Test
     void testToString() {
         String eventToString = event.toString();
@@ -113,6 +142,37 @@ public class TestEvent extends ConsoleTest{
         assertEquals(event.hashCode(), event.hashCode());
     }
 
+    @Test
+    void testCopyUnderNewNumber() {
+        Consumer consumer = new Consumer("Elon Musk", "elon@gmail.com","1234",null,"123");
+        event.addReview(new Review(consumer, event, LocalDateTime.now(), "This is a good event."));
+        int hashCode = event.hashCode();
+
+        Event copy = new Event(2, event);
+        assertEquals(1, event.getEventNumber());
+        assertEquals(hashCode, event.hashCode());
+        assertEquals(2, copy.getEventNumber());
+        assertFalse(event.equals(copy));
+        assertEquals(event.getSerialVersionUID(), copy.getSerialVersionUID());
+        assertEquals(1, copy.getReviews().size());
+        assertSame(copy, copy.getReviews().get(0).getEvent());
+        assertSame(event, event.getReviews().get(0).getEvent());
+    }
+
+    @Test
+    void testDeepEquals() {
+        Event event1 = new Event(1, "Event1", EventType.Music, 30, 100,
+                "55.94368888764689 -3.1888246174917114", "This is the Test Event",
+                startTime, endTime, tags);
+        assertTrue(event.deepEquals(event1));
+
+        event1.cancel();
+        // Still the same event, but its details differ
+        assertTrue(event.equals(event1));
+        assertEquals(event.hashCode(), event1.hashCode());
+        assertFalse(event.deepEquals(event1));
+    }
+
     @Test
     void testHashCodeToNotIdentical() {
         Event event1 = new Event(2, "Event1", EventType.Music, 30, 100,
@@ -0,0 +1,59 @@
+import com.graphhopper.ResponsePath;
+import com.graphhopper.util.shapes.GHPoint;
+import external.SharedMapSystem;
+import model.TransportMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class TestMapSystem extends ConsoleTest {
+    private static final GHPoint GEORGE_SQUARE = new GHPoint(55.944377051350656, -3.18913215894117);
+    private static final GHPoint OLD_COLLEGE = new GHPoint(55.94747223411703, -3.187300017491497);
+    private static final GHPoint LEITH = new GHPoint(55.97582748797642, -3.166806878460426);
+
+    private SharedMapSystem mapSystem;
+
+    @BeforeEach
+    void acquireMapSystem() {
+        mapSystem = SharedMapSystem.acquire();
+        // Routing needs the map of Scotland, which is not there in every build
+        assumeTrue(mapSystem.awaitReady() && mapSystem.isPointWithinMapBounds(GEORGE_SQUARE),
+                "The map of Scotland is not available");
+    }
+
+    @AfterEach
+    void releaseMapSystem() {
+        mapSystem.close();
+    }
+
+    @Test
+    void testRouteDistancesMatchSingleRoutes() {
+        double[] distances = mapSystem.routeDistancesFromPoint(TransportMode.foot, GEORGE_SQUARE,
+                List.of(OLD_COLLEGE, LEITH), 20_000);
+        assertEquals(2, distances.length);
+        for (int i = 0; i < distances.length; ++i) {
+            ResponsePath path = mapSystem.routeBetweenPoints(TransportMode.foot, GEORGE_SQUARE,
+                    List.of(OLD_COLLEGE, LEITH).get(i));
+            // The single route is measured between the exact points, the tree between the nodes they snap to
+            assertEquals(path.getDistance(), distances[i], 100);
+        }
+    }
+
+    @Test
+    void testRouteDistancesAreCutOffAtMaxDistance() {
+        double[] distances = mapSystem.routeDistancesFromPoint(TransportMode.foot, GEORGE_SQUARE,
+                List.of(OLD_COLLEGE, LEITH), 2_000);
+        assertTrue(distances[0] <= 2_000);
+        assertEquals(Double.POSITIVE_INFINITY, distances[1]);
+    }
+
+    @Test
+    void testRouteDistancesToNoDestinations() {
+        assertEquals(0, mapSystem.routeDistancesFromPoint(TransportMode.foot, GEORGE_SQUARE, List.of(), 2_000).length);
+    }
+}
@@ -0,0 +1,187 @@
+import external.*;
+import model.Consumer;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestNotificationOutbox extends ConsoleTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private static Consumer createConsumer(int i) {
+        return new Consumer("Consumer " + i, "consumer" + i + "@example.com", "0" + i, "", "password");
+    }
+
+    /**
+     * Channel that records the batches it delivers, and holds up the first batch until it is released
+     */
+    private static class BlockingChannel implements NotificationChannel {
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        private final List<List<Notification>> batches = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void deliver(List<Notification> notifications) throws IOException {
+            batches.add(new ArrayList<>(notifications));
+            firstBatchStarted.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    void testQueuedDuplicatesAreCoalesced() throws Exception {
+        BlockingChannel channel = new BlockingChannel();
+        try (NotificationOutbox outbox = new NotificationOutbox(channel, 100, 10)) {
+            Consumer first = createConsumer(1);
+            Consumer second = createConsumer(2);
+            outbox.enqueue(first, "Hold the line");
+            channel.firstBatchStarted.await();
+
+            // The first notification is being delivered, so these wait in the queue
+            outbox.enqueue(first, "The event is cancelled");
+            outbox.enqueue(first, "The event is cancelled");
+            outbox.enqueue(second, "The event is cancelled");
+            outbox.enqueue(first, "The event is cancelled");
+
+            NotificationOutboxMetrics metrics = outbox.getMetrics();
+            assertEquals(2, metrics.getQueueDepth());
+            assertEquals(3, metrics.getNumEnqueued());
+            assertEquals(2, metrics.getNumCoalesced());
+            assertEquals(3, outbox.getNumPending());
+
+            channel.release.countDown();
+            assertTrue(outbox.flush(TIMEOUT));
+            assertEquals(List.of(
+                    List.of(new Notification(first, "Hold the line")),
+                    List.of(new Notification(first, "The event is cancelled"),
+                            new Notification(second, "The event is cancelled"))
+            ), channel.batches);
+
+            metrics = outbox.getMetrics();
+            assertEquals(0, metrics.getQueueDepth());
+            assertEquals(3, metrics.getNumDelivered());
+            assertEquals(2, metrics.getNumBatches());
+            assertTrue(metrics.getDeliveredPerSecond() > 0);
+        }
+    }
+
+    @Test
+    void testFullQueueWaitsForRoom() throws Exception {
+        BlockingChannel channel = new BlockingChannel();
+        try (NotificationOutbox outbox = new NotificationOutbox(channel, 2, 2)) {
+            outbox.enqueue(createConsumer(0), "First");
+            channel.firstBatchStarted.await();
+            outbox.enqueue(createConsumer(1), "Second");
+            outbox.enqueue(createConsumer(2), "Third");
+
+            CompletableFuture<Boolean> fourth = CompletableFuture.supplyAsync(
+                    () -> outbox.enqueue(createConsumer(3), "Fourth"));
+            Thread.sleep(100);
+            assertFalse(fourth.isDone());
+
+            channel.release.countDown();
+            assertTrue(fourth.get());
+            assertTrue(outbox.flush(TIMEOUT));
+            assertEquals(4, outbox.getNumDelivered());
+        }
+    }
+
+    @Test
+    void testFailedBatchesAreCounted() throws Exception {
+        IOException failure = new IOException("Gateway unavailable");
+        NotificationChannel failingChannel = new NotificationChannel() {
+            @Override
+            public void deliver(List<Notification> notifications) throws IOException {
+                throw failure;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try (NotificationOutbox outbox = new NotificationOutbox(failingChannel, 100, 10)) {
+            for (int i = 0; i < 3; ++i) {
+                outbox.enqueue(createConsumer(i), "Message " + i);
+            }
+            assertTrue(outbox.flush(TIMEOUT));
+            NotificationOutboxMetrics metrics = outbox.getMetrics();
+            assertEquals(0, metrics.getNumDelivered());
+            assertEquals(3, metrics.getNumFailed());
+            assertSame(failure, metrics.getLastFailure());
+        }
+    }
+
+    @Test
+    void testFileChannel() throws Exception {
+        Path file = Files.createTempFile("notifications", ".txt");
+        try {
+            try (NotificationOutbox outbox = new NotificationOutbox(new FileNotificationChannel(file), 100, 10)) {
+                for (int i = 0; i < 25; ++i) {
+                    outbox.enqueue(createConsumer(i), "Message " + i);
+                }
+            }
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            assertEquals(25, lines.size());
+            assertEquals("Message to consumer0@example.com and 00: Message 0", lines.get(0));
+            assertEquals("Message to consumer24@example.com and 024: Message 24", lines.get(24));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testSocketChannel() throws Exception {
+        try (ServerSocket gateway = new ServerSocket(0)) {
+            CompletableFuture<List<String>> received = CompletableFuture.supplyAsync(() -> {
+                List<String> lines = new ArrayList<>();
+                try (Socket connection = gateway.accept();
+                     BufferedReader reader = new BufferedReader(
+                             new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        lines.add(line);
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+                return lines;
+            });
+
+            NotificationChannel channel = new SocketNotificationChannel("localhost", gateway.getLocalPort());
+            try (NotificationOutbox outbox = new NotificationOutbox(channel, 100, 10)) {
+                for (int i = 0; i < 15; ++i) {
+                    outbox.enqueue(createConsumer(i), "Message " + i);
+                }
+                assertTrue(outbox.flush(TIMEOUT));
+                assertEquals(15, outbox.getNumDelivered());
+            }
+
+            List<String> lines = received.get();
+            assertEquals(15, lines.size());
+            assertEquals("Message to consumer14@example.com and 014: Message 14", lines.get(14));
+        }
+    }
+}
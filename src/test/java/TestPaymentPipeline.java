@@ -0,0 +1,71 @@
+import external.MockPaymentSystem;
+import external.PaymentPipeline;
+import external.PaymentRequest;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestPaymentPipeline extends ConsoleTest {
+    @Test
+    void testPaymentsAreBatchedWhileBatchesAreInFlight() throws Exception {
+        int numPayments = 200;
+        Duration latency = Duration.ofMillis(100);
+        try (PaymentPipeline pipeline = new PaymentPipeline(new MockPaymentSystem(latency, 0, false), 2, 50)) {
+            long start = System.nanoTime();
+            List<CompletableFuture<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < numPayments; ++i) {
+                results.add(pipeline.processPaymentAsync("buyer" + i + "@example.com", "seller@example.com", 100));
+            }
+            // Submitting does not wait for the payment system
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(latency) < 0);
+
+            for (CompletableFuture<Boolean> result : results) {
+                assertTrue(result.join());
+            }
+            // Requests one at a time would take numPayments round trips, batches take only a handful of them
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+            assertTrue(elapsed.compareTo(latency.multipliedBy(10)) < 0, elapsed.toString());
+
+            assertTrue(pipeline.processRefund("buyer0@example.com", "seller@example.com", 100));
+            assertFalse(pipeline.processRefund("buyer0@example.com", "seller@example.com", 100));
+        }
+    }
+
+    @Test
+    void testBatchesAreSentTogetherToSynchronousPaymentSystem() throws Exception {
+        List<Integer> batchSizes = new ArrayList<>();
+        MockPaymentSystem synchronousPaymentSystem = new MockPaymentSystem() {
+            @Override
+            public CompletableFuture<List<Boolean>> processBatchAsync(List<PaymentRequest> requests) {
+                batchSizes.add(requests.size());
+                List<Boolean> results = new ArrayList<>();
+                for (int i = 0; i < requests.size(); ++i) {
+                    results.add(true);
+                }
+                return CompletableFuture.completedFuture(results);
+            }
+        };
+        try (PaymentPipeline pipeline = new PaymentPipeline(synchronousPaymentSystem, 2, 50)) {
+            List<PaymentRequest> refunds = new ArrayList<>();
+            for (int i = 0; i < 120; ++i) {
+                refunds.add(new PaymentRequest(PaymentRequest.Kind.Refund, "buyer" + i + "@example.com",
+                        "seller@example.com", 100));
+            }
+            assertEquals(120, pipeline.processRefunds(refunds).join().size());
+            assertEquals(List.of(50, 50, 20), batchSizes);
+        }
+    }
+
+    @Test
+    void testFailingPayments() throws Exception {
+        try (PaymentPipeline pipeline = new PaymentPipeline(new MockPaymentSystem(Duration.ofMillis(10), 1, false), 4, 8)) {
+            assertFalse(pipeline.processPaymentAsync("buyer@example.com", "seller@example.com", 100).join());
+            assertFalse(pipeline.processRefundAsync("buyer@example.com", "seller@example.com", 100).join());
+        }
+    }
+}
@@ -0,0 +1,236 @@
+import model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import state.*;
+
+import java.io.EOFException;
+import java.io.StreamCorruptedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestSnapshotCodec extends ConsoleTest {
+    private Path file;
+    private UserState userState;
+    private EventState eventState;
+    private BookingState bookingState;
+    private Consumer consumer;
+    private Consumer unregisteredConsumer;
+    private Staff staff;
+
+    @BeforeEach
+    void createState() throws Exception {
+        file = Files.createTempFile("snapshot", ".dat");
+        userState = new UserState();
+        eventState = new EventState();
+        bookingState = new BookingState();
+
+        consumer = new Consumer("Chihuahua Fan", "i-would-never-steal-a@dog.xd", "01324456897",
+                "55.94872684464941 -3.199892044473183", "hashed already", 42);
+        consumer.setPreferences(new EventTagCollection("hasSocialDistancing=true"));
+        unregisteredConsumer = new Consumer("Passer By", "passer@by.xd", "0", null, "hashed too", 43);
+        staff = new Staff("bring-in-the-cash@pawsforawwws.org", "hashed as well", 44);
+        userState.addUser(consumer);
+        userState.addUser(staff);
+        userState.setCurrentUser(staff);
+
+        eventState.createEventTag("mood", Set.of("happy", "sad"), "happy");
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 18, 30, 15, 123456789);
+        Event firstEvent = eventState.createEvent("Puppies against depression", EventType.Theatre, 10, 500,
+                "55.94368888764689 -3.1888246174917114", "Please be prepared to pay 2.50 pounds on entry",
+                start, start.plusHours(2), new EventTagCollection("mood=sad"));
+        Event secondEvent = eventState.createEvent("Cancelled gig", EventType.Music, 5, 0,
+                "55.94368888764689 -3.1888246174917114", "", start.plusDays(1), start.plusDays(1).plusHours(1),
+                null);
+        secondEvent.cancel();
+        firstEvent.addReview(new Review(consumer, firstEvent, start.plusHours(3), "Tr\u00e8s bien \uD83D\uDC36"));
+        firstEvent.addReview(new Review(unregisteredConsumer, firstEvent, start.plusHours(4), "Meh"));
+
+        Booking firstBooking = bookingState.createBooking(consumer, firstEvent, 3);
+        firstEvent.tryReserve(3);
+        consumer.addBooking(firstBooking);
+        Booking secondBooking = bookingState.createBooking(consumer, secondEvent, 1);
+        secondBooking.cancelByProvider();
+        consumer.addBooking(secondBooking);
+        Booking thirdBooking = bookingState.createBooking(unregisteredConsumer, firstEvent, 2);
+        unregisteredConsumer.addBooking(thirdBooking);
+    }
+
+    @AfterEach
+    void deleteFile() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void testRoundTrip() throws Exception {
+        SnapshotCodec.write(file, userState, eventState, bookingState);
+        assertTrue(SnapshotCodec.isSnapshot(file));
+        StateSnapshot snapshot = SnapshotCodec.read(file);
+
+        IUserState restoredUsers = snapshot.getUserState();
+        assertNull(restoredUsers.getCurrentUser());
+        assertEquals(Set.of(consumer.getEmail(), staff.getEmail()), restoredUsers.getAllUsers().keySet());
+        Consumer restoredConsumer = (Consumer) restoredUsers.getAllUsers().get(consumer.getEmail());
+        assertTrue(consumer.deepEquals(restoredConsumer));
+        assertEquals(consumer.getPasswordHash(), restoredConsumer.getPasswordHash());
+        assertTrue(staff.deepEquals(restoredUsers.getAllUsers().get(staff.getEmail())));
+        assertEquals(staff.getSerialVersionUID(),
+                restoredUsers.getAllUsers().get(staff.getEmail()).getSerialVersionUID());
+
+        IEventState restoredEvents = snapshot.getEventState();
+        assertEquals(eventState.getPossibleTags().keySet(), restoredEvents.getPossibleTags().keySet());
+        assertEquals(Set.of("happy", "sad"), restoredEvents.getPossibleTags().get("mood").getValues());
+        List<Event> events = eventState.getAllEvents();
+        List<Event> restoredEventList = restoredEvents.getAllEvents();
+        assertEquals(events.size(), restoredEventList.size());
+        for (int i = 0; i < events.size(); ++i) {
+            Event event = events.get(i);
+            Event restoredEvent = restoredEventList.get(i);
+            assertEquals(event.getSerialVersionUID(), restoredEvent.getSerialVersionUID());
+            assertEquals(event.getStatus(), restoredEvent.getStatus());
+            assertEquals(event.getNumTicketsLeft(), restoredEvent.getNumTicketsLeft());
+            assertEquals(event.getTags(), restoredEvent.getTags());
+            assertEquals(event.getStartDateTime(), restoredEvent.getStartDateTime());
+            assertEquals(event.getReviews().size(), restoredEvent.getReviews().size());
+            for (int j = 0; j < event.getReviews().size(); ++j) {
+                Review review = event.getReviews().get(j);
+                Review restoredReview = restoredEvent.getReviews().get(j);
+                assertEquals(review.getAuthor(), restoredReview.getAuthor());
+                assertSame(restoredEvent, restoredReview.getEvent());
+                assertEquals(review.getCreationDateTime(), restoredReview.getCreationDateTime());
+                assertEquals(review.getContent(), restoredReview.getContent());
+            }
+        }
+        assertEquals(1, restoredEvents.findEventsMatchingTags(new EventTagCollection("mood=sad")).size());
+
+        IBookingState restoredBookings = snapshot.getBookingState();
+        List<Booking> bookings = bookingState.getAllBookings();
+        List<Booking> restoredBookingList = restoredBookings.getAllBookings();
+        assertEquals(bookings.size(), restoredBookingList.size());
+        for (int i = 0; i < bookings.size(); ++i) {
+            assertTrue(bookings.get(i).deepEquals(restoredBookingList.get(i)));
+        }
+        assertSame(restoredConsumer, restoredBookingList.get(0).getBooker());
+        assertSame(restoredEvents.findEventByNumber(1), restoredBookingList.get(0).getEvent());
+        assertEquals(2, restoredBookings.findBookingsByEventNumber(1).size());
+
+        // Entities created after restoring continue the numbering of the saved state
+        LocalDateTime start = LocalDateTime.of(2031, 1, 1, 10, 0);
+        assertEquals(3, restoredEvents.createEvent("Next", EventType.Sports, 1, 0,
+                "55.94368888764689 -3.1888246174917114", "", start, start.plusHours(1), new EventTagCollection())
+                .getEventNumber());
+        assertEquals(4, restoredBookings.createBooking(restoredConsumer, restoredEvents.findEventByNumber(1), 1)
+                .getBookingNumber());
+    }
+
+    @Test
+    void testWriteWhileStateChanges() throws Exception {
+        Event event = eventState.findEventByNumber(1);
+        Thread writer = new Thread(() -> {
+            LocalDateTime start = LocalDateTime.of(2032, 1, 1, 10, 0);
+            for (int i = 0; i < 2000; ++i) {
+                Consumer booker = new Consumer("Booker " + i, "booker" + i + "@dog.xd", "0", null, "hashed", 100 + i);
+                userState.addUser(booker);
+                eventState.createEvent("Event " + i, EventType.Music, 1, 0, "", "", start, start.plusHours(1), null);
+                Booking booking = bookingState.createBooking(booker, event, 1);
+                booker.addBooking(booking);
+                booking.cancelByConsumer();
+                event.addReview(new Review(booker, event, start, "Review " + i));
+            }
+        });
+        writer.start();
+        do {
+            SnapshotCodec.write(file, userState, eventState, bookingState);
+            StateSnapshot snapshot = SnapshotCodec.read(file);
+            List<Booking> bookings = snapshot.getBookingState().getAllBookings();
+            Booking lastBooking = bookings.get(bookings.size() - 1);
+            assertEquals(lastBooking.getBookingNumber() + 1, snapshot.getBookingState()
+                    .createBooking(consumer, lastBooking.getEvent(), 1).getBookingNumber());
+            List<Event> events = snapshot.getEventState().getAllEvents();
+            assertEquals(events.get(events.size() - 1).getEventNumber() + 1, snapshot.getEventState()
+                    .createEvent("Next", EventType.Music, 1, 0, "", "", null, null, null).getEventNumber());
+        } while (writer.isAlive());
+        writer.join();
+    }
+
+    @Test
+    void testCompressedRoundTrip() throws Exception {
+        // Enough events to fill the buffers several times over
+        LocalDateTime start = LocalDateTime.of(2031, 1, 1, 10, 0);
+        for (int i = 0; i < 2000; ++i) {
+            eventState.createEvent("Puppies against depression " + i, EventType.Theatre, 10, 500,
+                    "55.94368888764689 -3.1888246174917114", "Please be prepared to pay 2.50 pounds on entry",
+                    start.plusDays(i), start.plusDays(i).plusHours(2), new EventTagCollection("mood=happy"));
+        }
+        SnapshotCodec.write(file, userState, eventState, bookingState);
+        long uncompressedSize = Files.size(file);
+        SnapshotCodec.write(file, userState, eventState, bookingState, true);
+        assertTrue(Files.size(file) < uncompressedSize / 2);
+        assertTrue(SnapshotCodec.isSnapshot(file));
+        assertFalse(SnapshotCodec.hasDeltas(file));
+
+        StateSnapshot snapshot = SnapshotCodec.read(file);
+        List<Event> events = eventState.getAllEvents();
+        List<Event> restoredEvents = snapshot.getEventState().getAllEvents();
+        assertEquals(events.size(), restoredEvents.size());
+        for (int i = 0; i < events.size(); ++i) {
+            assertEquals(events.get(i).getTitle(), restoredEvents.get(i).getTitle());
+            assertEquals(events.get(i).getTags(), restoredEvents.get(i).getTags());
+        }
+        assertEquals("Tr\u00e8s bien \uD83D\uDC36", restoredEvents.get(0).getReviews().get(0).getContent());
+        List<Booking> bookings = bookingState.getAllBookings();
+        List<Booking> restoredBookings = snapshot.getBookingState().getAllBookings();
+        for (int i = 0; i < bookings.size(); ++i) {
+            assertTrue(bookings.get(i).deepEquals(restoredBookings.get(i)));
+        }
+
+        // The compressed sections before the bookings are skipped when only the bookings are read again
+        List<User> visitedUsers = new ArrayList<>();
+        Map<Long, Event> visitedEvents = new HashMap<>();
+        List<Booking> visitedBookings = new ArrayList<>();
+        SnapshotCodec.read(file, new SnapshotVisitor() {
+            @Override
+            public void visitUser(User user, boolean registered) {
+                visitedUsers.add(user);
+            }
+
+            @Override
+            public void visitEvent(Event event) {
+                visitedEvents.put(event.getEventNumber(), event);
+            }
+        });
+        SnapshotCodec.readBookings(file, visitedUsers, visitedEvents::get, new SnapshotVisitor() {
+            @Override
+            public void visitBooking(Booking booking) {
+                visitedBookings.add(booking);
+            }
+        });
+        assertEquals(bookings.size(), visitedBookings.size());
+        assertTrue(bookings.get(2).deepEquals(visitedBookings.get(2)));
+    }
+
+    @Test
+    void testCorruptedSnapshotIsRejected() throws Exception {
+        SnapshotCodec.write(file, userState, eventState, bookingState);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(EOFException.class, () -> SnapshotCodec.read(file));
+
+        // Change the ID of the users section
+        bytes[16] = 7;
+        Files.write(file, bytes);
+        assertThrows(StreamCorruptedException.class, () -> SnapshotCodec.read(file));
+
+        Files.writeString(file, "Not a snapshot");
+        assertFalse(SnapshotCodec.isSnapshot(file));
+    }
+}
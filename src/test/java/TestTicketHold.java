@@ -0,0 +1,108 @@
+import model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import state.EventState;
+import state.TicketHoldState;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestTicketHold extends ConsoleTest {
+    private Consumer consumer;
+    private Event event;
+    private TicketHoldState ticketHoldState;
+    private List<Event> changedEvents;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new Consumer("Elon Musk", "elon@gmail.com", "1234", null, "123");
+        event = new Event(1, "TestEvent", EventType.Music, 10,
+                100, "55.94368888764689 -3.1888246174917114", "This is the Test Event",
+                LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(2), new EventTagCollection());
+        changedEvents = new CopyOnWriteArrayList<>();
+        EventState eventState = new EventState() {
+            @Override
+            public void markEventChanged(Event changedEvent) {
+                changedEvents.add(changedEvent);
+            }
+        };
+        ticketHoldState = new TicketHoldState(eventState, Duration.ofMillis(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ticketHoldState.close();
+    }
+
+    @Test
+    void testPlaceHold() {
+        TicketHold hold = ticketHoldState.placeHold(consumer, event, 4, Duration.ofMinutes(10));
+        assertNotNull(hold);
+        assertEquals(TicketHoldStatus.Held, hold.getStatus());
+        assertEquals(6, event.getNumTicketsLeft());
+        assertSame(hold, ticketHoldState.findHoldByNumber(hold.getHoldNumber()));
+        assertNull(ticketHoldState.placeHold(consumer, event, 7, Duration.ofMinutes(10)));
+        assertEquals(6, event.getNumTicketsLeft());
+    }
+
+    @Test
+    void testConfirmHold() {
+        TicketHold hold = ticketHoldState.placeHold(consumer, event, 4, Duration.ofMinutes(10));
+        assertTrue(ticketHoldState.confirmHold(hold));
+        assertEquals(TicketHoldStatus.Confirmed, hold.getStatus());
+        assertFalse(ticketHoldState.releaseHold(hold));
+        assertEquals(6, event.getNumTicketsLeft());
+        assertNull(ticketHoldState.findHoldByNumber(hold.getHoldNumber()));
+    }
+
+    @Test
+    void testReleaseHold() {
+        TicketHold hold = ticketHoldState.placeHold(consumer, event, 4, Duration.ofMinutes(10));
+        assertTrue(ticketHoldState.releaseHold(hold));
+        assertEquals(TicketHoldStatus.Released, hold.getStatus());
+        assertFalse(ticketHoldState.confirmHold(hold));
+        assertEquals(10, event.getNumTicketsLeft());
+        assertEquals(0, ticketHoldState.getNumActiveHolds());
+        assertEquals(List.of(event), changedEvents);
+    }
+
+    @Test
+    void testHeldTicketsAreCountedAsLeft() {
+        TicketHold confirmedHold = ticketHoldState.placeHold(consumer, event, 4, Duration.ofMinutes(10));
+        TicketHold releasedHold = ticketHoldState.placeHold(consumer, event, 3, Duration.ofMinutes(10));
+        assertEquals(3, event.getNumTicketsLeft());
+        assertEquals(10, event.getNumTicketsLeftIncludingHeld());
+
+        ticketHoldState.confirmHold(confirmedHold);
+        assertEquals(6, event.getNumTicketsLeftIncludingHeld());
+        ticketHoldState.releaseHold(releasedHold);
+        assertEquals(6, event.getNumTicketsLeft());
+        assertEquals(6, event.getNumTicketsLeftIncludingHeld());
+    }
+
+    @Test
+    void testExpiredHoldsAreReleased() throws InterruptedException {
+        TicketHold expiringHold = ticketHoldState.placeHold(consumer, event, 3, Duration.ofMillis(50));
+        TicketHold confirmedHold = ticketHoldState.placeHold(consumer, event, 2, Duration.ofMillis(50));
+        TicketHold longHold = ticketHoldState.placeHold(consumer, event, 1, Duration.ofMinutes(10));
+        ticketHoldState.confirmHold(confirmedHold);
+        assertEquals(4, event.getNumTicketsLeft());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (expiringHold.getStatus() == TicketHoldStatus.Held && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(TicketHoldStatus.Released, expiringHold.getStatus());
+        assertEquals(TicketHoldStatus.Confirmed, confirmedHold.getStatus());
+        assertEquals(TicketHoldStatus.Held, longHold.getStatus());
+        assertEquals(7, event.getNumTicketsLeft());
+        assertEquals(8, event.getNumTicketsLeftIncludingHeld());
+        assertEquals(1, ticketHoldState.getNumActiveHolds());
+        assertEquals(List.of(event), changedEvents);
+    }
+}
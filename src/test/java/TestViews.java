@@ -0,0 +1,93 @@
+import command.ListEventsCommand;
+import command.RegisterConsumerCommand;
+import controller.Context;
+import controller.Controller;
+import org.junit.jupiter.api.Test;
+import view.ConsoleView;
+import view.MetricsView;
+import view.Verbosity;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestViews extends ConsoleTest {
+    private static Supplier<Map<String, Object>> countingSupplier(AtomicInteger numCalls) {
+        return () -> {
+            numCalls.incrementAndGet();
+            return Map.of("eventNumber", 1);
+        };
+    }
+
+    @Test
+    void testConsoleViewOnlyBuildsAdditionalInfoWhenShowingDetails() {
+        AtomicInteger numCalls = new AtomicInteger();
+
+        startOutputCapture();
+        try (ConsoleView view = new ConsoleView(Verbosity.Details)) {
+            view.displaySuccess("TestViews", "DETAILS_SHOWN", countingSupplier(numCalls));
+        }
+        try (ConsoleView view = new ConsoleView(Verbosity.Results)) {
+            view.displayFailure("TestViews", "RESULT_SHOWN", countingSupplier(numCalls));
+        }
+        try (ConsoleView view = new ConsoleView(Verbosity.Silent)) {
+            view.displaySuccess("TestViews", "NOTHING_SHOWN", countingSupplier(numCalls));
+        }
+        stopOutputCaptureAndCompare("DETAILS_SHOWN", "DETAILS_SHOWN", "DETAILS_SHOWN", "RESULT_SHOWN");
+
+        assertEquals(1, numCalls.get());
+    }
+
+    @Test
+    void testConsoleViewWritesInBackgroundInOrder() {
+        int numMessages = 20000;
+        String[] expected = new String[numMessages];
+        for (int i = 0; i < numMessages; ++i) {
+            expected[i] = "RESULT_" + i;
+        }
+
+        startOutputCapture();
+        try (ConsoleView view = new ConsoleView(Verbosity.Results)) {
+            for (int i = 0; i < numMessages / 2; ++i) {
+                view.displaySuccess("TestViews", expected[i]);
+            }
+            view.flush();
+            for (int i = numMessages / 2; i < numMessages; ++i) {
+                view.displaySuccess("TestViews", expected[i]);
+            }
+        }
+        stopOutputCaptureAndCompare(expected);
+    }
+
+    @Test
+    void testMetricsViewCountsResults() throws Exception {
+        MetricsView view = new MetricsView();
+        try (Context context = new Context("The University of Edinburgh", "55.94747223411703 -3.187300017491497",
+                "epay@ed.ac.uk", "Nec temere nec timide")) {
+            Controller controller = new Controller(context, view);
+            AtomicInteger numCalls = new AtomicInteger();
+            view.displaySuccess("TestViews", "NOT_BUILT", countingSupplier(numCalls));
+            assertEquals(0, numCalls.get());
+
+            startOutputCapture();
+            controller.runCommand(new RegisterConsumerCommand("Chihuahua Fan", "fan@example.com", "01324456897",
+                    "", "password"));
+            for (int i = 0; i < 3; ++i) {
+                controller.runCommand(new ListEventsCommand(false, false, null));
+            }
+            controller.runCommand(new RegisterConsumerCommand("Chihuahua Fan", "fan@example.com", "01324456897",
+                    "", "password"));
+            stopOutputCaptureAndCompare();
+
+            assertEquals(1, view.getCount("NOT_BUILT"));
+            assertEquals(3, view.getCounts().entrySet().stream()
+                    .filter(entry -> entry.getKey().toString().equals("LIST_EVENTS_SUCCESS"))
+                    .mapToLong(Map.Entry::getValue).sum());
+            // The first registration also logs in
+            assertEquals(6, view.getNumSuccesses());
+            assertEquals(1, view.getNumFailures());
+        }
+    }
+}
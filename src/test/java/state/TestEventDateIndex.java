@@ -0,0 +1,77 @@
+package state;
+
+import model.Event;
+import model.EventTagCollection;
+import model.EventType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link EventDateIndex} is package-private, so it is tested from the state package
+ */
+public class TestEventDateIndex {
+    private static final LocalDate DAY = LocalDate.of(2030, 6, 15);
+
+    private static Event createEvent(long eventNumber, LocalDateTime start, LocalDateTime end) {
+        return new Event(eventNumber, "Event " + eventNumber, EventType.Music, 10, 0,
+                "55.94368888764689 -3.1888246174917114", "", start, end, new EventTagCollection());
+    }
+
+    @Test
+    void testFindEventsOn() {
+        EventDateIndex index = new EventDateIndex();
+        Event evening = createEvent(1, DAY.atTime(18, 0), DAY.atTime(20, 0));
+        Event overnight = createEvent(2, DAY.atTime(22, 0), DAY.plusDays(1).atTime(2, 0));
+        Event festival = createEvent(3, DAY.minusDays(3).atTime(10, 0), DAY.plusDays(3).atTime(22, 0));
+        Event nextWeek = createEvent(4, DAY.plusDays(7).atTime(10, 0), DAY.plusDays(7).atTime(12, 0));
+        for (Event event : List.of(evening, overnight, festival, nextWeek)) {
+            index.add(event);
+        }
+        index.add(createEvent(5, null, null));
+        index.add(createEvent(6, DAY.atTime(12, 0), DAY.minusDays(1).atTime(12, 0)));
+
+        assertEquals(List.of(evening, overnight, festival), index.findEventsOn(DAY));
+        assertEquals(List.of(overnight, festival), index.findEventsOn(DAY.plusDays(1)));
+        assertEquals(List.of(festival), index.findEventsOn(DAY.minusDays(3)));
+        assertEquals(List.of(), index.findEventsOn(DAY.minusDays(4)));
+        assertEquals(List.of(nextWeek), index.findEventsOn(DAY.plusDays(7)));
+    }
+
+    @Test
+    void testFindEventsBetween() {
+        EventDateIndex index = new EventDateIndex();
+        Event festival = createEvent(1, DAY.minusDays(3).atTime(10, 0), DAY.plusDays(3).atTime(22, 0));
+        Event evening = createEvent(2, DAY.atTime(18, 0), DAY.atTime(20, 0));
+        Event nextWeek = createEvent(3, DAY.plusDays(7).atTime(10, 0), DAY.plusDays(7).atTime(12, 0));
+        // Added out of order, but found by event number
+        for (Event event : List.of(nextWeek, evening, festival)) {
+            index.add(event);
+        }
+
+        assertEquals(List.of(festival, evening, nextWeek), index.findEventsBetween(null, null));
+        assertEquals(List.of(festival, evening), index.findEventsBetween(null, DAY));
+        assertEquals(List.of(festival, nextWeek), index.findEventsBetween(DAY.plusDays(2), null));
+        assertEquals(List.of(nextWeek), index.findEventsBetween(DAY.plusDays(4), DAY.plusDays(30)));
+        assertEquals(List.of(), index.findEventsBetween(DAY.plusDays(4), DAY.plusDays(6)));
+        assertEquals(List.of(), index.findEventsBetween(DAY.plusDays(1), DAY));
+    }
+
+    @Test
+    @Timeout(5)
+    void testLongEventsAreAddedOnce() {
+        EventDateIndex index = new EventDateIndex();
+        // Lasts more than three hundred million days
+        Event endless = createEvent(1, DAY.atStartOfDay(), LocalDateTime.of(999999, 12, 31, 23, 59));
+        index.add(endless);
+        assertEquals(List.of(endless), index.findEventsOn(DAY));
+        assertEquals(List.of(endless), index.findEventsOn(LocalDate.of(500000, 1, 1)));
+        assertEquals(List.of(endless), index.findEventsBetween(null, DAY));
+        assertEquals(List.of(), index.findEventsOn(DAY.minusDays(1)));
+    }
+}
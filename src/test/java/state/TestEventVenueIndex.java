@@ -0,0 +1,53 @@
+package state;
+
+import com.graphhopper.util.shapes.GHPoint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link EventVenueIndex} is package-private, so it is tested from the state package
+ */
+public class TestEventVenueIndex {
+    private static final GHPoint GEORGE_SQUARE = new GHPoint(55.94368888764689, -3.1888246174917114);
+
+    private static EventVenueIndex createIndex() {
+        EventVenueIndex index = new EventVenueIndex();
+        index.add(0, "55.94368888764689 -3.1888246174917114"); // George Square Gardens, Edinburgh
+        index.add(1, "55.97582748797642 -3.166806878460426"); // Leith
+        index.add(2, "51.50735 -0.12776"); // London
+        index.add(3, "-33.86785 151.20732"); // Sydney
+        index.add(4, "not a venue");
+        return index;
+    }
+
+    private static BitSet slots(int... slots) {
+        BitSet result = new BitSet();
+        for (int slot : slots) {
+            result.set(slot);
+        }
+        return result;
+    }
+
+    @Test
+    void testFindSlotsWithin() {
+        EventVenueIndex index = createIndex();
+        assertEquals(slots(0), index.findSlotsWithin(GEORGE_SQUARE, 1000));
+        assertEquals(slots(0, 1), index.findSlotsWithin(GEORGE_SQUARE, 10000));
+        assertEquals(slots(0, 1, 2), index.findSlotsWithin(GEORGE_SQUARE, 1000000));
+        assertEquals(slots(), index.findSlotsWithin(GEORGE_SQUARE, -1));
+    }
+
+    @Test
+    @Timeout(5)
+    void testFindSlotsWithinUnboundedDistance() {
+        EventVenueIndex index = createIndex();
+        assertEquals(slots(0, 1, 2, 3), index.findSlotsWithin(GEORGE_SQUARE, Double.POSITIVE_INFINITY));
+        assertEquals(slots(0, 1, 2, 3), index.findSlotsWithin(GEORGE_SQUARE, Double.MAX_VALUE));
+        assertEquals(slots(0, 1, 2, 3), index.findSlotsWithin(new GHPoint(-89.99, 179.99), 1e8));
+        assertEquals(slots(), index.findSlotsWithin(GEORGE_SQUARE, Double.NaN));
+    }
+}
@@ -0,0 +1,101 @@
+package state;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link LongHashMap} is package-private, so it is tested from the state package
+ */
+public class TestLongHashMap {
+    @Test
+    void testGetAndPut() {
+        LongHashMap<String> map = new LongHashMap<>();
+        assertNull(map.get(1));
+        map.put(1, "one");
+        map.put(0, "zero");
+        map.put(-1, "minus one");
+        map.put(Long.MIN_VALUE, "min");
+        map.put(Long.MAX_VALUE, "max");
+        assertEquals(5, map.size());
+        assertEquals("one", map.get(1));
+        assertEquals("zero", map.get(0));
+        assertEquals("minus one", map.get(-1));
+        assertEquals("min", map.get(Long.MIN_VALUE));
+        assertEquals("max", map.get(Long.MAX_VALUE));
+        assertNull(map.get(2));
+    }
+
+    @Test
+    void testPutReplacesValue() {
+        LongHashMap<String> map = new LongHashMap<>();
+        map.put(7, "old");
+        map.put(7, "new");
+        assertEquals(1, map.size());
+        assertEquals("new", map.get(7));
+        assertThrows(IllegalArgumentException.class, () -> map.put(8, null));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void testCollidingKeysAreAllFound() {
+        // Find keys landing in the same slot of the initial table of 16, so that they have to be probed
+        LongHashMap<Long> map = new LongHashMap<>();
+        long[] collidingKeys = new long[6];
+        int numFound = 0;
+        for (long key = 0; numFound < collidingKeys.length; ++key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            if ((((int) (h ^ (h >>> 32))) & 15) == 3) {
+                collidingKeys[numFound++] = key;
+            }
+        }
+        for (long key : collidingKeys) {
+            map.put(key, key);
+        }
+        for (long key : collidingKeys) {
+            assertEquals(key, map.get(key));
+        }
+        // A missing key probing through the same run is not found
+        assertNull(map.get(collidingKeys[collidingKeys.length - 1] + 1_000_003));
+        assertEquals(collidingKeys.length, map.size());
+    }
+
+    @Test
+    void testResizeKeepsEveryEntry() {
+        LongHashMap<Long> map = new LongHashMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; ++i) {
+            long key = i % 2 == 0 ? i : random.nextLong();
+            map.put(key, (long) i);
+            expected.put(key, (long) i);
+        }
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    void testCopyIsIndependent() {
+        LongHashMap<String> map = new LongHashMap<>();
+        map.put(1, "one");
+        LongHashMap<String> copy = new LongHashMap<>(map);
+        map.put(2, "two");
+        copy.put(1, "uno");
+        for (int i = 3; i < 100; ++i) {
+            copy.put(i, "many");
+        }
+
+        assertEquals("one", map.get(1));
+        assertEquals(2, map.size());
+        assertNull(map.get(50));
+        assertEquals("uno", copy.get(1));
+        assertNull(copy.get(2));
+        assertEquals(98, copy.size());
+    }
+}
@@ -0,0 +1,224 @@
+package state;
+
+import model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link MappedSnapshot} is package-private, and whether a state is still mapped can only be seen from the state
+ * package, so it is tested from there
+ */
+public class TestMappedSnapshot {
+    private Path directory;
+    private UserState userState;
+    private EventState eventState;
+    private BookingState bookingState;
+    private Consumer consumer;
+
+    @BeforeEach
+    void createState() throws Exception {
+        directory = Files.createTempDirectory("mapped");
+        userState = new UserState();
+        eventState = new EventState();
+        bookingState = new BookingState();
+        consumer = new Consumer("Chihuahua Fan", "i-would-never-steal-a@dog.xd", "01324456897",
+                "55.94872684464941 -3.199892044473183", "hashed already", 42);
+        userState.addUser(consumer);
+        eventState.createEventTag("mood", Set.of("happy", "sad"), "happy");
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 18, 30);
+        // Restored events keep their numbers, so the index has to sort them
+        for (long eventNumber : new long[]{5, 2, 9, 1}) {
+            eventState.restoreEvent(new Event(eventNumber, "Event " + eventNumber, EventType.Theatre, 10, 500,
+                    "55.94368888764689 -3.1888246174917114", "", start.plusDays(eventNumber),
+                    start.plusDays(eventNumber).plusHours(2), new EventTagCollection()));
+        }
+        eventState.setNextEventNumber(10);
+        eventState.findEventByNumber(2).addReview(new Review(consumer, eventState.findEventByNumber(2), start,
+                "Lovely"));
+        for (long eventNumber : new long[]{9, 2, 2}) {
+            Event event = eventState.findEventByNumber(eventNumber);
+            event.tryReserve(1);
+            consumer.addBooking(bookingState.createBooking(consumer, event, 1));
+        }
+    }
+
+    @AfterEach
+    void deleteDirectory() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private Path writeSnapshot() throws Exception {
+        Path file = directory.resolve("snapshot.dat");
+        SnapshotCodec.write(file, userState, eventState, bookingState);
+        return file;
+    }
+
+    @Test
+    void testMappedStateMatchesDecodedState() throws Exception {
+        Path file = writeSnapshot();
+        StateSnapshot decoded = SnapshotCodec.read(file);
+        StateSnapshot mapped = SnapshotCodec.readMapped(file);
+        assertEquals(file, mapped.getMappedFile());
+
+        assertEquals(decoded.getUserState().getAllUsers().keySet(), mapped.getUserState().getAllUsers().keySet());
+        assertEquals(decoded.getEventState().getPossibleTags().keySet(),
+                mapped.getEventState().getPossibleTags().keySet());
+        List<Event> decodedEvents = decoded.getEventState().getAllEvents();
+        List<Event> mappedEvents = mapped.getEventState().getAllEvents();
+        assertEquals(decodedEvents.size(), mappedEvents.size());
+        for (int i = 0; i < decodedEvents.size(); ++i) {
+            Event decodedEvent = decodedEvents.get(i);
+            Event mappedEvent = mappedEvents.get(i);
+            assertEquals(decodedEvent.getEventNumber(), mappedEvent.getEventNumber());
+            assertEquals(decodedEvent.getTitle(), mappedEvent.getTitle());
+            assertEquals(decodedEvent.getNumTicketsLeft(), mappedEvent.getNumTicketsLeft());
+            assertEquals(decodedEvent.getStartDateTime(), mappedEvent.getStartDateTime());
+            assertEquals(decodedEvent.getReviews().size(), mappedEvent.getReviews().size());
+            for (int j = 0; j < decodedEvent.getReviews().size(); ++j) {
+                assertEquals(decodedEvent.getReviews().get(j).getContent(),
+                        mappedEvent.getReviews().get(j).getContent());
+                assertSame(mappedEvent, mappedEvent.getReviews().get(j).getEvent());
+            }
+        }
+        List<Booking> decodedBookings = decoded.getBookingState().getAllBookings();
+        List<Booking> mappedBookings = mapped.getBookingState().getAllBookings();
+        assertEquals(decodedBookings.size(), mappedBookings.size());
+        for (int i = 0; i < decodedBookings.size(); ++i) {
+            assertTrue(decodedBookings.get(i).deepEquals(mappedBookings.get(i)));
+        }
+    }
+
+    @Test
+    void testLookupsByNumberLeaveStateMapped() throws Exception {
+        StateSnapshot mapped = SnapshotCodec.readMapped(writeSnapshot());
+        EventState mappedEvents = (EventState) mapped.getEventState();
+        BookingState mappedBookings = (BookingState) mapped.getBookingState();
+        assertTrue(mappedEvents.isMapped());
+        assertTrue(mappedBookings.isMapped());
+
+        Event event = mappedEvents.findEventByNumber(2);
+        assertEquals("Event 2", event.getTitle());
+        assertEquals(1, event.getReviews().size());
+        assertNull(mappedEvents.findEventByNumber(3));
+        Booking booking = mappedBookings.findBookingByNumber(2);
+        assertSame(event, booking.getEvent());
+        assertSame(mapped.getUserState().getAllUsers().get(consumer.getEmail()), booking.getBooker());
+        assertNull(mappedBookings.findBookingByNumber(4));
+        assertTrue(mappedEvents.isMapped());
+        assertTrue(mappedBookings.isMapped());
+
+        // Listing indexes every event in the saved order, keeping the ones decoded before
+        List<Event> events = mappedEvents.getAllEvents();
+        assertFalse(mappedEvents.isMapped());
+        assertEquals(List.of(5L, 2L, 9L, 1L), events.stream().map(Event::getEventNumber).toList());
+        assertSame(event, events.get(1));
+        assertSame(booking, mappedBookings.findBookingsByEventNumber(2).get(0));
+        assertFalse(mappedBookings.isMapped());
+    }
+
+    @Test
+    void testEntitiesAddedWhileMappedComeAfterMappedOnes() throws Exception {
+        StateSnapshot mapped = SnapshotCodec.readMapped(writeSnapshot());
+        EventState mappedEvents = (EventState) mapped.getEventState();
+        BookingState mappedBookings = (BookingState) mapped.getBookingState();
+        Consumer mappedConsumer = (Consumer) mapped.getUserState().getAllUsers().get(consumer.getEmail());
+
+        LocalDateTime start = LocalDateTime.of(2031, 1, 1, 10, 0);
+        Event newEvent = mappedEvents.createEvent("Dog show", EventType.Sports, 5, 0,
+                "55.94368888764689 -3.1888246174917114", "", start, start.plusHours(1), new EventTagCollection());
+        assertEquals(10, newEvent.getEventNumber());
+        assertSame(newEvent, mappedEvents.findEventByNumber(10));
+        newEvent.tryReserve(2);
+        Booking newBooking = mappedBookings.createBooking(mappedConsumer, newEvent, 2);
+        mappedConsumer.addBooking(newBooking);
+        assertEquals(4, newBooking.getBookingNumber());
+        assertTrue(mappedBookings.isMapped());
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), mappedBookings.findBookingsByBooker(mappedConsumer).stream()
+                .map(Booking::getBookingNumber).toList());
+        assertEquals(List.of(5L, 2L, 9L, 1L, 10L), mappedEvents.getAllEvents().stream()
+                .map(Event::getEventNumber).toList());
+        assertEquals(List.of(newEvent), mappedEvents.findEventsBetweenDates(start.toLocalDate(),
+                start.toLocalDate()));
+    }
+
+    @Test
+    void testDeltasAreAppliedToMappedState() throws Exception {
+        AutoSave autoSave = new AutoSave(directory, "autosave", 10, userState, eventState, bookingState);
+        Path file = autoSave.save();
+        bookingState.findBookingByNumber(1).cancelByConsumer();
+        bookingState.markBookingChanged(bookingState.findBookingByNumber(1));
+        eventState.findEventByNumber(9).release(1);
+        eventState.markEventChanged(eventState.findEventByNumber(9));
+        autoSave.commit();
+        autoSave.close();
+
+        StateSnapshot mapped = SnapshotCodec.readMapped(file);
+        assertEquals(1, mapped.getNumDeltas());
+        assertEquals(file, mapped.getMappedFile());
+        assertEquals(BookingStatus.CancelledByConsumer,
+                mapped.getBookingState().findBookingByNumber(1).getStatus());
+        assertEquals(10, mapped.getEventState().findEventByNumber(9).getNumTicketsLeft());
+        assertSame(mapped.getEventState().findEventByNumber(9),
+                mapped.getBookingState().findBookingByNumber(1).getEvent());
+    }
+
+    @Test
+    void testResumedAutoSaveAppendsToMappedBase() throws Exception {
+        AutoSave firstAutoSave = new AutoSave(directory, "autosave", 10, userState, eventState, bookingState);
+        Path file = firstAutoSave.save();
+        firstAutoSave.close();
+
+        StateSnapshot mapped = SnapshotCodec.readMapped(file);
+        AutoSave autoSave = new AutoSave(directory, "autosave", 10, mapped.getUserState(), mapped.getEventState(),
+                mapped.getBookingState());
+        autoSave.resume(mapped);
+        // Nothing changed since the state was restored
+        assertNull(autoSave.save());
+
+        Event event = mapped.getEventState().findEventByNumber(5);
+        event.tryReserve(4);
+        Consumer mappedConsumer = (Consumer) mapped.getUserState().getAllUsers().get(consumer.getEmail());
+        Booking booking = mapped.getBookingState().createBooking(mappedConsumer, event, 4);
+        mappedConsumer.addBooking(booking);
+        mapped.getEventState().markEventChanged(event);
+        autoSave.commit();
+        assertEquals(1, autoSave.getNumDeltas());
+        assertTrue(((EventState) mapped.getEventState()).isMapped());
+        autoSave.close();
+
+        StateSnapshot restored = SnapshotCodec.readMapped(file);
+        assertEquals(1, restored.getNumDeltas());
+        assertEquals(6, restored.getEventState().findEventByNumber(5).getNumTicketsLeft());
+        Booking restoredBooking = restored.getBookingState().findBookingByNumber(booking.getBookingNumber());
+        assertEquals(4, restoredBooking.getNumTickets());
+        Consumer restoredConsumer = (Consumer) restored.getUserState().getAllUsers().get(consumer.getEmail());
+        assertEquals(List.of(1L, 2L, 3L, 4L), restored.getBookingState().findBookingsByBooker(restoredConsumer)
+                .stream().map(Booking::getBookingNumber).toList());
+    }
+
+    @Test
+    void testCompressedSnapshotIsDecoded() throws Exception {
+        Path file = directory.resolve("compressed.dat");
+        SnapshotCodec.write(file, userState, eventState, bookingState, true);
+        StateSnapshot restored = SnapshotCodec.readMapped(file);
+        assertNull(restored.getMappedFile());
+        assertFalse(((EventState) restored.getEventState()).isMapped());
+        assertEquals(4, restored.getEventState().getAllEvents().size());
+    }
+}